@@ -31,8 +31,9 @@ import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.Modifier;
 
 /**
- * Generates java code for an {@link androidx.appsearch.app.AppSearchSchema} and a translator
- * between the data class and a {@link androidx.appsearch.app.GenericDocument}.
+ * Generates java code for an {@link androidx.appsearch.app.AppSearchSchema} and translators
+ * between the data class and a {@link androidx.appsearch.app.GenericDocument} or the document
+ * stored by AppSearch.
  */
 class CodeGenerator {
     @VisibleForTesting
@@ -88,6 +89,8 @@ class CodeGenerator {
         SchemaCodeGenerator.generate(mEnv, mModel, genClass);
         ToGenericDocumentCodeGenerator.generate(mEnv, mModel, genClass);
         FromGenericDocumentCodeGenerator.generate(mEnv, mModel, genClass);
+        ToDocumentProtoCodeGenerator.generate(mEnv, mModel, genClass);
+        FromDocumentProtoCodeGenerator.generate(mEnv, mModel, genClass);
         return genClass.build();
     }
 }
@@ -0,0 +1,365 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package androidx.appsearch.compiler;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+
+/**
+ * Generates java code for a translator from the document stored by AppSearch, read through a
+ * {@code androidx.appsearch.app.DocumentProtoReader}, straight to a data class, without building
+ * an intermediate {@link androidx.appsearch.app.GenericDocument}.
+ *
+ * <p>The generated code reads every property of the document once, in a single pass, instead of
+ * unpacking all of them into arrays first.
+ */
+class FromDocumentProtoCodeGenerator {
+    private final ProcessingEnvironment mEnv;
+    private final IntrospectionHelper mHelper;
+    private final AppSearchDocumentModel mModel;
+
+    public static void generate(
+            @NonNull ProcessingEnvironment env,
+            @NonNull AppSearchDocumentModel model,
+            @NonNull TypeSpec.Builder classBuilder) throws ProcessingException {
+        new FromDocumentProtoCodeGenerator(env, model).generate(classBuilder);
+    }
+
+    private FromDocumentProtoCodeGenerator(
+            @NonNull ProcessingEnvironment env, @NonNull AppSearchDocumentModel model) {
+        mEnv = env;
+        mHelper = new IntrospectionHelper(env);
+        mModel = model;
+    }
+
+    private void generate(TypeSpec.Builder classBuilder) throws ProcessingException {
+        classBuilder.addMethod(createReadDocumentProtoMethod());
+    }
+
+    private MethodSpec createReadDocumentProtoMethod() throws ProcessingException {
+        // Method header
+        TypeName classType = TypeName.get(mModel.getClassElement().asType());
+        MethodSpec.Builder methodBuilder = MethodSpec.methodBuilder("readDocumentProto")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(classType)
+                .addAnnotation(Override.class)
+                .addParameter(mHelper.getAppSearchClass("DocumentProtoReader"), "reader");
+
+        unpackSpecialFields(methodBuilder);
+
+        // Declare every property with the value it has when the document doesn't contain it
+        Map<String, VariableElement> propertyFields = mModel.getPropertyFields();
+        for (Map.Entry<String, VariableElement> entry : propertyFields.entrySet()) {
+            declareField(methodBuilder, entry.getKey(), entry.getValue());
+        }
+
+        // Unpack properties from the document into the format desired by the data class
+        if (!propertyFields.isEmpty()) {
+            CodeBlock.Builder body = CodeBlock.builder()
+                    .add("for (int i = 0; i < reader.getPropertyCount(); i++) {\n").indent()
+                    .add("switch (reader.getPropertyName(i)) {\n").indent();
+            for (Map.Entry<String, VariableElement> entry : propertyFields.entrySet()) {
+                fieldFromDocumentProto(body, entry.getKey(), entry.getValue());
+            }
+            body.unindent().add("}\n")
+                    .unindent().add("}\n");
+            methodBuilder.addCode(body.build());
+        }
+
+        // Create an instance of the data class via the chosen constructor
+        methodBuilder.addStatement(
+                "$T dataClass = new $T($L)", classType, classType, getConstructorParams());
+
+        // Assign all fields which weren't set in the constructor
+        for (String field : mModel.getAllFields().keySet()) {
+            CodeBlock fieldWrite = createAppSearchFieldWrite(field);
+            if (fieldWrite != null) {
+                methodBuilder.addStatement(fieldWrite);
+            }
+        }
+
+        methodBuilder.addStatement("return dataClass");
+        return methodBuilder.build();
+    }
+
+    /**
+     * Declares the local variable holding the converted value of a field, initialized to
+     * {@code null}, or to the default value of primitive fields.
+     */
+    private void declareField(
+            @NonNull MethodSpec.Builder method,
+            @NonNull String fieldName,
+            @NonNull VariableElement property) {
+        TypeMirror fieldType = property.asType();
+        switch (fieldType.getKind()) {
+            case BOOLEAN:
+                method.addStatement("$T $NConv = false", fieldType, fieldName);
+                break;
+            case INT:
+            case LONG:
+            case FLOAT:
+            case DOUBLE:
+                method.addStatement("$T $NConv = 0", fieldType, fieldName);
+                break;
+            default:
+                TypeName convType = TypeName.get(fieldType);
+                if (isList(fieldType)) {
+                    TypeMirror propertyType = ((DeclaredType) fieldType).getTypeArguments().get(0);
+                    convType = ParameterizedTypeName.get(
+                            ClassName.get(List.class), TypeName.get(propertyType));
+                }
+                method.addStatement("$T $NConv = null", convType, fieldName);
+                break;
+        }
+    }
+
+    /**
+     * Generates the {@code case} reading a field from its property into the format suitable for
+     * the data class.
+     */
+    private void fieldFromDocumentProto(
+            @NonNull CodeBlock.Builder builder,
+            @NonNull String fieldName,
+            @NonNull VariableElement property) throws ProcessingException {
+        // Scenario 1: field is assignable from List
+        //   1a: ListForLoopAdd
+        //       List contains boxed Long, Integer, Double, Float, Boolean, String or byte[].
+        //       We add each value of the type matching the list to a new list, narrowing it to int
+        //       or float as needed. The compiler takes care of boxing.
+        //
+        //   1x: List contains any other kind of class. This unsupported and compilation fails.
+
+        // Scenario 2: field is an Array
+        //   2a: ArrayCopyAll
+        //       Array is of type long[], double[], boolean[], String[] or byte[][].
+        //       We let DocumentProtoReader copy all the values of the type matching the array,
+        //       which keeps the loop out of the generated method.
+        //
+        //   2b: ArrayForLoopAssign
+        //       Array is of type Long[], Integer[], int[], Double[], Float[], float[] or
+        //       Boolean[].
+        //       We assign each value of the type matching the array to a new array, narrowing it
+        //       to int or float as needed. The compiler takes care of boxing.
+        //
+        //   2c: ArrayCopyFromBytes
+        //       Array is of type Byte[].
+        //       We have to unpack it from the first bytes value by reading each byte one-by-one
+        //       and assigning it.
+        //
+        //   2d: Array is of class byte[]. This is actually a single-valued field as byte arrays are
+        //       natively supported by Icing, and is handled as Scenario 3a.
+        //
+        //   2x: Array is of any other kind of class. This unsupported and compilation fails.
+
+        // Scenario 3: Single valued fields
+        //   3a: FieldAssignFirstValue
+        //       Field is of type String, Long, Integer, Double, Float, Boolean, byte[], long, int,
+        //       double, float or boolean.
+        //       We assign the first value of the type matching the field. Fields whose property
+        //       is missing keep the value they were declared with.
+        //
+        //   3x: Field is of any other kind of class. This is unsupported and compilation fails.
+        String propertyName = mModel.getPropertyName(property);
+        TypeMirror fieldType = property.asType();
+        Types typeUtil = mEnv.getTypeUtils();
+        CodeBlock.Builder body = CodeBlock.builder();
+        String valuesName;
+        if (isList(fieldType)) {
+            TypeMirror propertyType = ((DeclaredType) fieldType).getTypeArguments().get(0);
+            valuesName = mHelper.getPropertyValueTypeName(propertyType);
+            if (valuesName == null) {
+                // Scenario 1x
+                throw new ProcessingException(
+                        "Unhandled in property type (1x): " + fieldType.toString(), property);
+            }
+
+            // 1a: ListForLoopAdd
+            body.addStatement(
+                    "$NConv = new $T<>(reader.get$LValueCount(i))",
+                    fieldName, ArrayList.class, valuesName)
+                    .add("for (int j = 0; j < reader.get$LValueCount(i); j++) {\n", valuesName)
+                    .indent()
+                    .addStatement(
+                            "$NConv.add($L)",
+                            fieldName, createValueRead(propertyType, valuesName, "j"))
+                    .unindent().add("}\n");
+
+        } else if (fieldType.getKind() == TypeKind.ARRAY
+                && !typeUtil.isSameType(fieldType, mHelper.mByteArrayType)) {
+            TypeMirror propertyType = ((ArrayType) fieldType).getComponentType();
+            if (typeUtil.isSameType(propertyType, mHelper.mByteBoxType)) {
+                // 2c: ArrayCopyFromBytes
+                valuesName = "Bytes";
+                body.addStatement("byte[] $NCopy = reader.getBytesValue(i, 0)", fieldName)
+                        .addStatement("$NConv = new Byte[$NCopy.length]", fieldName, fieldName)
+                        .add("for (int j = 0; j < $NCopy.length; j++) {\n", fieldName).indent()
+                        .addStatement("$NConv[j] = $NCopy[j]", fieldName, fieldName)
+                        .unindent().add("}\n");
+
+            } else {
+                valuesName = mHelper.getPropertyValueTypeName(propertyType);
+                if (valuesName == null) {
+                    // Scenario 2x
+                    throw new ProcessingException(
+                            "Unhandled in property type (2x): " + fieldType.toString(), property);
+                }
+
+                if (mHelper.isPropertyValueType(propertyType)) {
+                    // 2a: ArrayCopyAll
+                    body.addStatement("$NConv = reader.get$LValues(i)", fieldName, valuesName);
+                } else {
+                    // 2b: ArrayForLoopAssign
+                    body.addStatement(
+                            "$NConv = new $T[reader.get$LValueCount(i)]",
+                            fieldName, propertyType, valuesName)
+                            .add("for (int j = 0; j < $NConv.length; j++) {\n", fieldName)
+                            .indent()
+                            .addStatement(
+                                    "$NConv[j] = $L",
+                                    fieldName, createValueRead(propertyType, valuesName, "j"))
+                            .unindent().add("}\n");
+                }
+            }
+
+        } else {
+            valuesName = mHelper.getPropertyValueTypeName(fieldType);
+            if (valuesName == null) {
+                // Scenario 3x
+                throw new ProcessingException(
+                        "Unhandled in property type (3x): " + fieldType.toString(), property);
+            }
+
+            // 3a: FieldAssignFirstValue
+            body.addStatement(
+                    "$NConv = $L", fieldName, createValueRead(fieldType, valuesName, "0"));
+        }
+
+        builder.add(createCase(propertyName, valuesName, body.build()));
+    }
+
+    /** Generates the {@code case} running the given code if the property holds any value. */
+    private CodeBlock createCase(
+            @NonNull String propertyName, @NonNull String valuesName, @NonNull CodeBlock body) {
+        // Like GenericDocument, ignore properties which hold values of a different type
+        return CodeBlock.builder()
+                .add("case $S:\n", propertyName).indent()
+                .add("if (reader.get$LValueCount(i) > 0) {\n", valuesName).indent()
+                .add(body)
+                .unindent().add("}\n")
+                .addStatement("break")
+                .unindent()
+                .build();
+    }
+
+    /**
+     * Reads the value at the given index of the current property and converts it into the given
+     * type.
+     */
+    private CodeBlock createValueRead(
+            @NonNull TypeMirror type, @NonNull String valuesName, @NonNull String index) {
+        Types typeUtil = mEnv.getTypeUtils();
+        CodeBlock value = CodeBlock.of("reader.get$LValue(i, $L)", valuesName, index);
+        if (typeUtil.isSameType(type, mHelper.mIntegerBoxType)
+                || typeUtil.isSameType(type, mHelper.mIntPrimitiveType)) {
+            return CodeBlock.of("(int) $L", value);
+        } else if (typeUtil.isSameType(type, mHelper.mFloatBoxType)
+                || typeUtil.isSameType(type, mHelper.mFloatPrimitiveType)) {
+            return CodeBlock.of("(float) $L", value);
+        }
+        return value;
+    }
+
+    private boolean isList(@NonNull TypeMirror type) {
+        Types typeUtil = mEnv.getTypeUtils();
+        return type.getKind() == TypeKind.DECLARED
+                && typeUtil.isAssignable(mHelper.mListType, typeUtil.erasure(type));
+    }
+
+    private CodeBlock getConstructorParams() {
+        CodeBlock.Builder builder = CodeBlock.builder();
+        List<String> params = mModel.getChosenConstructorParams();
+        if (params.size() > 0) {
+            builder.add("$NConv", params.get(0));
+        }
+        for (int i = 1; i < params.size(); i++) {
+            builder.add(", $NConv", params.get(i));
+        }
+        return builder.build();
+    }
+
+    private void unpackSpecialFields(@NonNull MethodSpec.Builder method) {
+        for (AppSearchDocumentModel.SpecialField specialField :
+                AppSearchDocumentModel.SpecialField.values()) {
+            String fieldName = mModel.getSpecialFieldName(specialField);
+            if (fieldName == null) {
+                continue;  // The data class doesn't have this field, so no need to unpack it.
+            }
+            switch (specialField) {
+                case URI:
+                    method.addStatement("String $NConv = reader.getUri()", fieldName);
+                    break;
+                case NAMESPACE:
+                    method.addStatement("String $NConv = reader.getNamespace()", fieldName);
+                    break;
+                case CREATION_TIMESTAMP_MILLIS:
+                    method.addStatement(
+                            "long $NConv = reader.getCreationTimestampMillis()", fieldName);
+                    break;
+                case TTL_MILLIS:
+                    method.addStatement("long $NConv = reader.getTtlMillis()", fieldName);
+                    break;
+                case SCORE:
+                    method.addStatement("int $NConv = reader.getScore()", fieldName);
+                    break;
+            }
+        }
+    }
+
+    @Nullable
+    private CodeBlock createAppSearchFieldWrite(@NonNull String fieldName) {
+        switch (mModel.getFieldWriteKind(fieldName)) {
+            case FIELD:
+                return CodeBlock.of("dataClass.$N = $NConv", fieldName, fieldName);
+            case SETTER:
+                String setter = mModel.getAccessorName(fieldName, /*get=*/ false);
+                return CodeBlock.of("dataClass.$N($NConv)", setter, fieldName);
+            default:
+                return null;  // Constructor params should already have been set
+        }
+    }
+}
@@ -16,6 +16,7 @@
 package androidx.appsearch.compiler;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 
 import com.squareup.javapoet.ClassName;
@@ -123,4 +124,47 @@ class IntrospectionHelper {
     public ClassName getAppSearchClass(String clazz, String... nested) {
         return ClassName.get(APPSEARCH_PKG, clazz, nested);
     }
+
+    /**
+     * Returns the name of the type of property value which holds values of the given type, e.g.
+     * {@code Long} for {@code int}, as used in the names of the {@code DocumentProtoReader}
+     * methods, or {@code null} if the type cannot be stored in a property without further
+     * conversion.
+     */
+    @Nullable
+    public String getPropertyValueTypeName(@NonNull TypeMirror type) {
+        Types typeUtil = mEnv.getTypeUtils();
+        if (typeUtil.isSameType(type, mLongBoxType)
+                || typeUtil.isSameType(type, mLongPrimitiveType)
+                || typeUtil.isSameType(type, mIntegerBoxType)
+                || typeUtil.isSameType(type, mIntPrimitiveType)) {
+            return "Long";
+        } else if (typeUtil.isSameType(type, mDoubleBoxType)
+                || typeUtil.isSameType(type, mDoublePrimitiveType)
+                || typeUtil.isSameType(type, mFloatBoxType)
+                || typeUtil.isSameType(type, mFloatPrimitiveType)) {
+            return "Double";
+        } else if (typeUtil.isSameType(type, mBooleanBoxType)
+                || typeUtil.isSameType(type, mBooleanPrimitiveType)) {
+            return "Boolean";
+        } else if (typeUtil.isSameType(type, mStringType)) {
+            return "String";
+        } else if (typeUtil.isSameType(type, mByteArrayType)) {
+            return "Bytes";
+        }
+        return null;
+    }
+
+    /**
+     * Returns whether arrays of the given type hold exactly the values of a repeated property, so
+     * that they can be copied to and from it without converting each value.
+     */
+    public boolean isPropertyValueType(@NonNull TypeMirror type) {
+        Types typeUtil = mEnv.getTypeUtils();
+        return typeUtil.isSameType(type, mLongPrimitiveType)
+                || typeUtil.isSameType(type, mDoublePrimitiveType)
+                || typeUtil.isSameType(type, mBooleanPrimitiveType)
+                || typeUtil.isSameType(type, mStringType)
+                || typeUtil.isSameType(type, mByteArrayType);
+    }
 }
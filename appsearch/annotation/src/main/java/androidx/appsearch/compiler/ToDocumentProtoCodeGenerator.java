@@ -0,0 +1,374 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package androidx.appsearch.compiler;
+
+import androidx.annotation.NonNull;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+
+/**
+ * Generates java code for a translator from a data class straight to the document stored by
+ * AppSearch, written through a {@code androidx.appsearch.app.DocumentProtoWriter}, without
+ * building an intermediate {@link androidx.appsearch.app.GenericDocument}.
+ *
+ * <p>The generated code writes exactly the document returned by the {@code toGenericDocument}
+ * method generated by {@link ToGenericDocumentCodeGenerator}.
+ */
+class ToDocumentProtoCodeGenerator {
+    private final ProcessingEnvironment mEnv;
+    private final IntrospectionHelper mHelper;
+    private final AppSearchDocumentModel mModel;
+
+    private final ClassName mWriterClass;
+
+    public static void generate(
+            @NonNull ProcessingEnvironment env,
+            @NonNull AppSearchDocumentModel model,
+            @NonNull TypeSpec.Builder classBuilder) throws ProcessingException {
+        new ToDocumentProtoCodeGenerator(env, model).generate(classBuilder);
+    }
+
+    private ToDocumentProtoCodeGenerator(
+            @NonNull ProcessingEnvironment env, @NonNull AppSearchDocumentModel model) {
+        mEnv = env;
+        mHelper = new IntrospectionHelper(env);
+        mModel = model;
+        mWriterClass = mHelper.getAppSearchClass("DocumentProtoWriter");
+    }
+
+    private void generate(TypeSpec.Builder classBuilder) throws ProcessingException {
+        classBuilder.addMethod(createWriteDocumentProtoMethod());
+    }
+
+    private MethodSpec createWriteDocumentProtoMethod() throws ProcessingException {
+        // Method header
+        TypeName classType = TypeName.get(mModel.getClassElement().asType());
+        MethodSpec.Builder methodBuilder = MethodSpec.methodBuilder("writeDocumentProto")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(mWriterClass)
+                .addAnnotation(Override.class)
+                .addParameter(classType, "dataClass");
+
+        // Construct a new DocumentProtoWriter, which has the same defaults as
+        // GenericDocument.Builder
+        methodBuilder.addStatement("$T writer =\nnew $T($L, SCHEMA_TYPE)",
+                mWriterClass,
+                mWriterClass,
+                createAppSearchFieldRead(
+                        mModel.getSpecialFieldName(AppSearchDocumentModel.SpecialField.URI)));
+
+        setSpecialFields(methodBuilder);
+
+        // Add properties ordered by name, the way GenericDocument.Builder#build() does, so that
+        // both produce the same proto.
+        Map<String, String> fieldNamesByPropertyName = new TreeMap<>();
+        for (Map.Entry<String, VariableElement> entry : mModel.getPropertyFields().entrySet()) {
+            fieldNamesByPropertyName.put(mModel.getPropertyName(entry.getValue()), entry.getKey());
+        }
+        for (String fieldName : fieldNamesByPropertyName.values()) {
+            fieldToDocumentProto(
+                    methodBuilder, fieldName, mModel.getPropertyFields().get(fieldName));
+        }
+
+        methodBuilder.addStatement("return writer");
+        return methodBuilder.build();
+    }
+
+    /**
+     * Converts a field from a data class into a property and adds it to the document being
+     * written.
+     */
+    private void fieldToDocumentProto(
+            @NonNull MethodSpec.Builder method,
+            @NonNull String fieldName,
+            @NonNull VariableElement property) throws ProcessingException {
+        // Scenario 1: field is a Collection
+        //   1a: CollectionForLoopAdd
+        //       Collection contains boxed Long, Integer, Double, Float, Boolean, String or byte[].
+        //       We add each element to a repeated property through the DocumentProtoWriter method
+        //       matching its type. The compiler takes care of unboxing.
+        //
+        //   1x: Collection contains any other kind of class. This unsupported and compilation
+        //       fails.
+
+        // Scenario 2: field is an Array
+        //   2a: ArrayAddAll
+        //       Array is of type long[], double[], boolean[], String[] or byte[][].
+        //       We let DocumentProtoWriter add the property holding all the elements, which keeps
+        //       the loop out of the generated method.
+        //
+        //   2b: ArrayForLoopAdd
+        //       Array is of type Long[], Integer[], int[], Double[], Float[], float[] or
+        //       Boolean[].
+        //       We add each element to a repeated property through the DocumentProtoWriter method
+        //       matching its type. The compiler takes care of unboxing and widening.
+        //
+        //   2c: ArrayCopyToBytes
+        //       Array is of type Byte[].
+        //       We have to pack it into a byte[] by reading each element one-by-one and assigning
+        //       it, and add it as a single bytes value.
+        //
+        //   2d: Array is of class byte[]. This is actually a single-valued field as byte arrays are
+        //       natively supported by Icing, and is handled as Scenario 3a.
+        //
+        //   2x: Array is of any other kind of class. This unsupported and compilation fails.
+
+        // Scenario 3: Single valued fields
+        //   3a: FieldAddWithNullCheck
+        //       Field is of type String, Long, Integer, Double, Float, Boolean or byte[].
+        //       We can add this field directly, after testing for null. The java compiler will
+        //       unbox as needed.
+        //
+        //   3b: FieldAddWithoutNullCheck
+        //       Field is of type long, int, double, float, or boolean.
+        //       We can add this field directly without testing for null.
+        //
+        //   3x: Field is of any other kind of class. This is unsupported and compilation fails.
+        String propertyName = mModel.getPropertyName(property);
+        if (tryConvertFromCollection(method, fieldName, propertyName, property)) {
+            return;
+        }
+        if (tryConvertFromArray(method, fieldName, propertyName, property)) {
+            return;
+        }
+        convertFromField(method, fieldName, propertyName, property);
+    }
+
+    /**
+     * If the given field is a Collection, generates code to add its elements to a repeated
+     * property and returns true. If the field is not a Collection, returns false.
+     */
+    private boolean tryConvertFromCollection(
+            @NonNull MethodSpec.Builder method,
+            @NonNull String fieldName,
+            @NonNull String propertyName,
+            @NonNull VariableElement property) throws ProcessingException {
+        Types typeUtil = mEnv.getTypeUtils();
+        if (!typeUtil.isAssignable(typeUtil.erasure(property.asType()), mHelper.mCollectionType)) {
+            return false;  // This is not a scenario 1 collection
+        }
+
+        List<? extends TypeMirror> genericTypes =
+                ((DeclaredType) property.asType()).getTypeArguments();
+        TypeMirror propertyType = genericTypes.get(0);
+        if (mHelper.getPropertyValueTypeName(propertyType) == null) {
+            // Scenario 1x
+            throw new ProcessingException(
+                    "Unhandled out property type (1x): " + property.asType().toString(), property);
+        }
+
+        // 1a: CollectionForLoopAdd
+        method.addCode(createForLoopAdd(
+                fieldName, propertyName, property.asType(), propertyType, "size()"));
+        return true;
+    }
+
+    /**
+     * If the given field is an array, generates code to add it as a property and returns true.
+     * If the field is not an array, returns false.
+     */
+    private boolean tryConvertFromArray(
+            @NonNull MethodSpec.Builder method,
+            @NonNull String fieldName,
+            @NonNull String propertyName,
+            @NonNull VariableElement property) throws ProcessingException {
+        Types typeUtil = mEnv.getTypeUtils();
+        if (property.asType().getKind() != TypeKind.ARRAY
+                // Byte arrays have a native representation in Icing, so they are not considered a
+                // "repeated" type
+                || typeUtil.isSameType(property.asType(), mHelper.mByteArrayType)) {
+            return false;  // This is not a scenario 2 array
+        }
+
+        TypeMirror propertyType = ((ArrayType) property.asType()).getComponentType();
+        if (typeUtil.isSameType(propertyType, mHelper.mByteBoxType)) {
+            // 2c: ArrayCopyToBytes
+            method.addCode(CodeBlock.builder()
+                    .addStatement(
+                            "$T $NCopy = $L",
+                            property.asType(),
+                            fieldName,
+                            createAppSearchFieldRead(fieldName))
+                    .add("if ($NCopy != null) {\n", fieldName).indent()
+                    .addStatement("byte[] $NConv = new byte[$NCopy.length]", fieldName, fieldName)
+                    .add("for (int i = 0; i < $NCopy.length; i++) {\n", fieldName).indent()
+                    .addStatement("$NConv[i] = $NCopy[i]", fieldName, fieldName)
+                    .unindent().add("}\n")
+                    .addStatement(
+                            "writer.addProperty($S, $NConv)", propertyName, fieldName)
+                    .unindent().add("}\n")
+                    .build());
+            return true;
+        }
+
+        if (mHelper.getPropertyValueTypeName(propertyType) == null) {
+            // Scenario 2x
+            throw new ProcessingException(
+                    "Unhandled out property type (2x): " + property.asType().toString(), property);
+        }
+
+        if (mHelper.isPropertyValueType(propertyType)) {
+            // 2a: ArrayAddAll
+            method.addCode(CodeBlock.builder()
+                    .addStatement(
+                            "$T $NCopy = $L",
+                            property.asType(),
+                            fieldName,
+                            createAppSearchFieldRead(fieldName))
+                    .add("if ($NCopy != null) {\n", fieldName).indent()
+                    .addStatement(
+                            "writer.addProperty($S, $NCopy)", propertyName, fieldName)
+                    .unindent().add("}\n")
+                    .build());
+            return true;
+        }
+
+        // 2b: ArrayForLoopAdd
+        method.addCode(createForLoopAdd(
+                fieldName, propertyName, property.asType(), propertyType, "length"));
+        return true;
+    }
+
+    /**
+     * Generates code which adds every element of a repeated field to a new repeated property,
+     * after checking the number of elements the way {@code GenericDocument.Builder} does.
+     */
+    private CodeBlock createForLoopAdd(
+            @NonNull String fieldName,
+            @NonNull String propertyName,
+            @NonNull TypeMirror fieldType,
+            @NonNull TypeMirror propertyType,
+            @NonNull String sizeAccessor) {
+        return CodeBlock.builder()
+                .addStatement(
+                        "$T $NCopy = $L", fieldType, fieldName, createAppSearchFieldRead(fieldName))
+                .add("if ($NCopy != null) {\n", fieldName).indent()
+                .addStatement(
+                        "writer.beginProperty($S, $NCopy.$L)",
+                        propertyName, fieldName, sizeAccessor)
+                .add("for ($T item : $NCopy) {\n", propertyType, fieldName).indent()
+                .addStatement("writer.addValue(item)")
+                .unindent().add("}\n")
+                .addStatement("writer.endProperty()")
+                .unindent().add("}\n")
+                .build();
+    }
+
+    /**
+     * Given a field which is a single element (non-collection), generates code to add it as a
+     * property.
+     */
+    private void convertFromField(
+            @NonNull MethodSpec.Builder method,
+            @NonNull String fieldName,
+            @NonNull String propertyName,
+            @NonNull VariableElement property) throws ProcessingException {
+        TypeMirror propertyType = property.asType();
+        if (mHelper.getPropertyValueTypeName(propertyType) == null) {
+            // Scenario 3x
+            throw new ProcessingException(
+                    "Unhandled out property type (3x): " + property.asType().toString(), property);
+        }
+
+        if (propertyType.getKind().isPrimitive()) {
+            // 3b: FieldAddWithoutNullCheck
+            method.addStatement(
+                    "writer.addProperty($S, $L)",
+                    propertyName,
+                    createAppSearchFieldRead(fieldName));
+            return;
+        }
+
+        // 3a: FieldAddWithNullCheck
+        method.addCode(CodeBlock.builder()
+                .addStatement(
+                        "$T $NCopy = $L",
+                        propertyType,
+                        fieldName,
+                        createAppSearchFieldRead(fieldName))
+                .add("if ($NCopy != null) {\n", fieldName).indent()
+                .addStatement("writer.addProperty($S, $NCopy)", propertyName, fieldName)
+                .unindent().add("}\n")
+                .build());
+    }
+
+    private void setSpecialFields(MethodSpec.Builder method) {
+        for (AppSearchDocumentModel.SpecialField specialField :
+                AppSearchDocumentModel.SpecialField.values()) {
+            String fieldName = mModel.getSpecialFieldName(specialField);
+            if (fieldName == null) {
+                continue;  // The data class doesn't have this field, so no need to set it.
+            }
+            switch (specialField) {
+                case URI:
+                    break;  // Always provided to builder constructor; cannot be set separately.
+                case NAMESPACE:
+                    method.addCode(CodeBlock.builder()
+                            .addStatement(
+                                    "String $NCopy = $L",
+                                    fieldName, createAppSearchFieldRead(fieldName))
+                            .add("if ($NCopy != null) {\n", fieldName).indent()
+                            .addStatement("writer.setNamespace($NCopy)", fieldName)
+                            .unindent().add("}\n")
+                            .build());
+                    break;
+                case CREATION_TIMESTAMP_MILLIS:
+                    method.addStatement(
+                            "writer.setCreationTimestampMillis($L)",
+                            createAppSearchFieldRead(fieldName));
+                    break;
+                case TTL_MILLIS:
+                    method.addStatement(
+                            "writer.setTtlMillis($L)", createAppSearchFieldRead(fieldName));
+                    break;
+                case SCORE:
+                    method.addStatement(
+                            "writer.setScore($L)", createAppSearchFieldRead(fieldName));
+                    break;
+            }
+        }
+    }
+
+    private CodeBlock createAppSearchFieldRead(@NonNull String fieldName) {
+        switch (mModel.getFieldReadKind(fieldName)) {
+            case FIELD:
+                return CodeBlock.of("dataClass.$N", fieldName);
+            case GETTER:
+                String getter = mModel.getAccessorName(fieldName, /*get=*/ true);
+                return CodeBlock.of("dataClass.$N()", getter);
+        }
+        return null;
+    }
+}
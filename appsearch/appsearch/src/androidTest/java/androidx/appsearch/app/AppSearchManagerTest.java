@@ -33,7 +33,9 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Future;
 
 public class AppSearchManagerTest {
@@ -115,6 +117,44 @@ public class AppSearchManagerTest {
         assertThat(result.getFailures()).isEmpty();
     }
 
+    @Test
+    public void testPutDocuments_PartialFailure() throws Exception {
+        AppSearchManager appSearchManager = checkIsResultSuccess(
+                AppSearchManager.getInstance(
+                        "instance1",
+                        ApplicationProvider.getApplicationContext()));
+
+        // Schema registration
+        checkIsResultSuccess(appSearchManager.setSchema(
+                new SetSchemaRequest.Builder().addSchema(AppSearchEmail.SCHEMA).build()));
+
+        // Index a batch where the second document has no registered schema
+        AppSearchEmail email1 = new AppSearchEmail.Builder("uri1")
+                .setSubject("testPut example")
+                .build();
+        GenericDocument unknownTypeDocument =
+                new GenericDocument.Builder<>("uri2", "UnknownType").build();
+        AppSearchEmail email3 = new AppSearchEmail.Builder("uri3")
+                .setSubject("testPut example")
+                .build();
+
+        AppSearchBatchResult<String, Void> result = appSearchManager.putDocuments(
+                new PutDocumentsRequest.Builder()
+                        .addGenericDocument(email1, unknownTypeDocument, email3)
+                        .build()).get();
+        assertThat(result.isSuccess()).isFalse();
+        assertThat(result.getSuccesses()).containsExactly("uri1", null, "uri3", null);
+        assertThat(result.getFailures().keySet()).containsExactly("uri2");
+        assertThat(result.getFailures().get("uri2").getResultCode())
+                .isNotEqualTo(AppSearchResult.RESULT_OK);
+
+        // The documents around the failure were indexed
+        AppSearchBatchResult<String, GenericDocument> getResult = checkIsBatchResultSuccess(
+                appSearchManager.getDocuments(
+                        new GetDocumentsRequest.Builder().addUris("uri1", "uri3").build()));
+        assertThat(getResult.getSuccesses().keySet()).containsExactly("uri1", "uri3");
+    }
+
     @Test
     public void testPutDocuments_DataClass() throws Exception {
         Future<AppSearchResult<AppSearchManager>> appSearchManagerFuture =
@@ -313,6 +353,71 @@ public class AppSearchManagerTest {
         assertThat(results.get(0)).isEqualTo(inEmail);
     }
 
+    @Test
+    public void testQuery_Paged() throws Exception {
+        Future<AppSearchResult<AppSearchManager>> future = AppSearchManager.getInstance("instance1",
+                ApplicationProvider.getApplicationContext());
+        AppSearchManager appSearchManager = checkIsResultSuccess(future);
+
+        // Schema registration
+        checkIsResultSuccess(appSearchManager.setSchema(
+                new SetSchemaRequest.Builder().addSchema(AppSearchEmail.SCHEMA).build()));
+
+        // Index documents
+        PutDocumentsRequest.Builder putRequestBuilder = new PutDocumentsRequest.Builder();
+        for (int i = 0; i < 25; i++) {
+            putRequestBuilder.addGenericDocument(new AppSearchEmail.Builder("uri" + i)
+                    .setSubject("testPut example " + i)
+                    .setBody("This is the body of the testPut email")
+                    .build());
+        }
+        checkIsBatchResultSuccess(appSearchManager.putDocuments(putRequestBuilder.build()));
+
+        // All pages are returned.
+        List<GenericDocument> results = doQuery(appSearchManager, "body",
+                SearchSpec.newBuilder()
+                        .setTermMatchType(SearchSpec.TERM_MATCH_TYPE_EXACT_ONLY)
+                        .setNumPerPage(10)
+                        .build());
+        assertThat(results).hasSize(25);
+        Set<String> uris = new HashSet<>();
+        for (GenericDocument result : results) {
+            uris.add(result.getUri());
+        }
+        assertThat(uris).hasSize(25);
+
+        // Without a page size or limit, all pages are returned as well.
+        results = doQuery(appSearchManager, "body",
+                SearchSpec.newBuilder()
+                        .setTermMatchType(SearchSpec.TERM_MATCH_TYPE_EXACT_ONLY)
+                        .build());
+        assertThat(results).hasSize(25);
+
+        // No more than numToRetrieve results are returned, even if they span pages.
+        results = doQuery(appSearchManager, "body",
+                SearchSpec.newBuilder()
+                        .setTermMatchType(SearchSpec.TERM_MATCH_TYPE_EXACT_ONLY)
+                        .setNumPerPage(10)
+                        .setNumToRetrieve(15)
+                        .build());
+        assertThat(results).hasSize(15);
+
+        // Closing the results stops the iteration at the current page.
+        AppSearchResult<SearchResults> queryResult = appSearchManager.query("body",
+                SearchSpec.newBuilder()
+                        .setTermMatchType(SearchSpec.TERM_MATCH_TYPE_EXACT_ONLY)
+                        .setNumPerPage(10)
+                        .build()).get();
+        SearchResults searchResults = queryResult.getResultValue();
+        searchResults.close();
+        int count = 0;
+        while (searchResults.hasNext()) {
+            searchResults.next();
+            count++;
+        }
+        assertThat(count).isEqualTo(10);
+    }
+
     @Test
     public void testQuery_TypeFilter() throws Exception {
         Future<AppSearchResult<AppSearchManager>> future = AppSearchManager.getInstance("instance1",
@@ -831,12 +936,17 @@ public class AppSearchManagerTest {
     private List<GenericDocument> doQuery(AppSearchManager instance, String queryExpression,
             String... schemaTypes)
             throws Exception {
-        AppSearchResult<SearchResults> result = instance.query(
-                queryExpression,
+        return doQuery(instance, queryExpression,
                 SearchSpec.newBuilder()
                         .setSchemaTypes(schemaTypes)
                         .setTermMatchType(SearchSpec.TERM_MATCH_TYPE_EXACT_ONLY)
-                        .build()).get();
+                        .build());
+    }
+
+    private List<GenericDocument> doQuery(AppSearchManager instance, String queryExpression,
+            SearchSpec searchSpec)
+            throws Exception {
+        AppSearchResult<SearchResults> result = instance.query(queryExpression, searchSpec).get();
         if (!result.isSuccess()) {
             throw new AssertionFailedError(
                     "AppSearch query not successful: " + result.getErrorMessage());
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.appsearch.app;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.junit.Assert.assertThrows;
+
+import androidx.appsearch.app.customer.NoteDataClass;
+import androidx.appsearch.exceptions.AppSearchException;
+import androidx.test.filters.SmallTest;
+
+import com.google.android.icing.proto.DocumentProto;
+import com.google.android.icing.proto.SearchResultProto;
+
+import org.junit.Test;
+
+@SmallTest
+public class DataClassFactoryTest {
+    private static final byte[] sThumbnail = new byte[]{(byte) 1, (byte) 2, (byte) 3};
+
+    @Test
+    public void testWriteDocumentProto_matchesGenericDocument() throws Exception {
+        DataClassFactory<NoteDataClass> factory = getFactory();
+        NoteDataClass note = createNote();
+
+        assertThat(factory.writeDocumentProto(note).build())
+                .isEqualTo(factory.toGenericDocument(note).getProto());
+    }
+
+    @Test
+    public void testWriteDocumentProto_nullProperties() throws Exception {
+        DataClassFactory<NoteDataClass> factory = getFactory();
+        NoteDataClass note = new NoteDataClass();
+        note.uri = "uri1";
+        note.creationTimestampMillis = 5L;
+
+        DocumentProto documentProto = factory.writeDocumentProto(note).build();
+        assertThat(documentProto).isEqualTo(factory.toGenericDocument(note).getProto());
+        assertThat(documentProto.getNamespace()).isEqualTo(GenericDocument.DEFAULT_NAMESPACE);
+        // Only the primitive properties, which can't be null, are written.
+        assertThat(documentProto.getPropertiesCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testWriteDocumentProto_validatesLikeGenericDocument() throws Exception {
+        DataClassFactory<NoteDataClass> factory = getFactory();
+        NoteDataClass note = createNote();
+        note.tags = new String[0];
+        assertThrows(IllegalArgumentException.class, () -> factory.writeDocumentProto(note));
+
+        note.tags = new String[]{"work", null};
+        assertThrows(IllegalArgumentException.class, () -> factory.writeDocumentProto(note));
+
+        note.tags = null;
+        note.score = -1;
+        assertThrows(IllegalArgumentException.class, () -> factory.writeDocumentProto(note));
+    }
+
+    @Test
+    public void testWriteDocumentProto_propertyNotEnded() throws Exception {
+        DocumentProtoWriter writer = new DocumentProtoWriter("uri1", "Note");
+        writer.beginProperty("tags", 1);
+        writer.addValue("home");
+
+        assertThrows(IllegalStateException.class, writer::build);
+        writer.endProperty();
+        assertThat(writer.build().getPropertiesCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testReadDocumentProto_roundTrip() throws Exception {
+        DataClassFactory<NoteDataClass> factory = getFactory();
+        DocumentProto documentProto = factory.writeDocumentProto(createNote()).build();
+        NoteDataClass note = factory.readDocumentProto(new DocumentProtoReader(documentProto));
+
+        assertNote(note);
+    }
+
+    @Test
+    public void testReadDocumentProto_matchesFromGenericDocument() throws Exception {
+        DataClassFactory<NoteDataClass> factory = getFactory();
+        GenericDocument document = factory.toGenericDocument(createNote());
+        NoteDataClass fromGenericDocument = factory.fromGenericDocument(document);
+        NoteDataClass fromDocumentProto =
+                factory.readDocumentProto(new DocumentProtoReader(document));
+
+        assertThat(factory.writeDocumentProto(fromDocumentProto).build())
+                .isEqualTo(factory.writeDocumentProto(fromGenericDocument).build());
+    }
+
+    @Test
+    public void testSearchResultsGetDataClass() throws Exception {
+        DocumentProto documentProto = getFactory().writeDocumentProto(createNote()).build();
+        SearchResults searchResults = new SearchResults(SearchResultProto.newBuilder()
+                .addResults(SearchResultProto.ResultProto.newBuilder().setDocument(documentProto))
+                .build());
+
+        SearchResults.Result result = searchResults.next();
+        assertNote(result.getDataClass(NoteDataClass.class));
+        // The cached GenericDocument is reused when it has already been created.
+        assertThat(result.getDocument().getProto()).isEqualTo(documentProto);
+        assertNote(result.getDataClass(NoteDataClass.class));
+    }
+
+    private static DataClassFactory<NoteDataClass> getFactory() throws AppSearchException {
+        return DataClassFactoryRegistry.getInstance().getOrCreateFactory(NoteDataClass.class);
+    }
+
+    private static NoteDataClass createNote() {
+        NoteDataClass note = new NoteDataClass();
+        note.uri = "uri1";
+        note.namespace = "namespace1";
+        note.creationTimestampMillis = 5L;
+        note.ttlMillis = 10L;
+        note.score = 3;
+        note.title = "Groceries";
+        note.tags = new String[]{"home", "todo"};
+        note.revisions = new long[]{1L, 2L, 3L};
+        note.rating = 4.5;
+        note.pinned = true;
+        note.thumbnail = sThumbnail;
+        return note;
+    }
+
+    private static void assertNote(NoteDataClass note) {
+        assertThat(note.uri).isEqualTo("uri1");
+        assertThat(note.namespace).isEqualTo("namespace1");
+        assertThat(note.creationTimestampMillis).isEqualTo(5L);
+        assertThat(note.ttlMillis).isEqualTo(10L);
+        assertThat(note.score).isEqualTo(3);
+        assertThat(note.title).isEqualTo("Groceries");
+        assertThat(note.tags).asList().containsExactly("home", "todo").inOrder();
+        assertThat(note.revisions).asList().containsExactly(1L, 2L, 3L).inOrder();
+        assertThat(note.rating).isEqualTo(4.5);
+        assertThat(note.pinned).isTrue();
+        assertThat(note.thumbnail).isEqualTo(sThumbnail);
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.appsearch.app.customer;
+
+import androidx.appsearch.annotation.AppSearchDocument;
+import androidx.appsearch.app.AppSearchSchema.PropertyConfig;
+
+@AppSearchDocument
+public final class NoteDataClass {
+    @AppSearchDocument.Uri
+    public String uri;
+
+    @AppSearchDocument.Namespace
+    public String namespace;
+
+    @AppSearchDocument.CreationTimestampMillis
+    public long creationTimestampMillis;
+
+    @AppSearchDocument.TtlMillis
+    public long ttlMillis;
+
+    @AppSearchDocument.Score
+    public int score;
+
+    @AppSearchDocument.Property(indexingType = PropertyConfig.INDEXING_TYPE_PREFIXES)
+    public String title;
+
+    @AppSearchDocument.Property
+    public String[] tags;
+
+    @AppSearchDocument.Property
+    public long[] revisions;
+
+    @AppSearchDocument.Property
+    public double rating;
+
+    @AppSearchDocument.Property
+    public boolean pinned;
+
+    @AppSearchDocument.Property
+    public byte[] thumbnail;
+}
@@ -18,6 +18,11 @@ package androidx.appsearch.impl;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import static org.junit.Assert.assertThrows;
+
+import androidx.appsearch.app.AppSearchBatchResult;
+import androidx.appsearch.app.AppSearchResult;
+import androidx.appsearch.exceptions.AppSearchException;
 import androidx.test.core.app.ApplicationProvider;
 
 import com.google.android.icing.proto.DocumentProto;
@@ -33,6 +38,8 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
+
 public class AppSearchImplTest {
     private AppSearchImpl mAppSearchImpl;
 
@@ -192,4 +199,48 @@ public class AppSearchImplTest {
         assertThat(optimizeInfo.getOptimizableDocs())
                 .isLessThan(AppSearchImpl.CHECK_OPTIMIZE_INTERVAL);
     }
+
+    @Test
+    public void testPutDocuments() throws Exception {
+        SchemaProto schema = SchemaProto.newBuilder()
+                .addTypes(SchemaTypeConfigProto.newBuilder()
+                        .setSchemaType("type").build())
+                .build();
+        mAppSearchImpl.setSchema("database", schema, false);
+
+        DocumentProto document1 = DocumentProto.newBuilder()
+                .setUri("uri1")
+                .setSchema("type")
+                .setNamespace("namespace1")
+                .build();
+        DocumentProto document2 = DocumentProto.newBuilder()
+                .setUri("uri2")
+                .setSchema("type")
+                .setNamespace("namespace2")
+                .build();
+        DocumentProto unknownTypeDocument = DocumentProto.newBuilder()
+                .setUri("uri3")
+                .setSchema("unknownType")
+                .setNamespace("namespace1")
+                .build();
+        AppSearchBatchResult<String, Void> result = mAppSearchImpl.putDocuments("database",
+                Arrays.asList(document1, unknownTypeDocument, document2));
+
+        // A document that can't be indexed doesn't stop the rest of the batch.
+        assertThat(result.getSuccesses().keySet()).containsExactly("uri1", "uri2");
+        assertThat(result.getFailures().keySet()).containsExactly("uri3");
+        assertThat(result.getFailures().get("uri3").getResultCode())
+                .isNotEqualTo(AppSearchResult.RESULT_OK);
+        assertThat(mAppSearchImpl.getDocument("database", "namespace1", "uri1").getSchema())
+                .isEqualTo("type");
+        assertThat(mAppSearchImpl.getDocument("database", "namespace2", "uri2").getSchema())
+                .isEqualTo("type");
+
+        // Both namespaces were recorded, so removeAll() finds all documents of the batch.
+        mAppSearchImpl.removeAll("database");
+        assertThrows(AppSearchException.class,
+                () -> mAppSearchImpl.getDocument("database", "namespace1", "uri1"));
+        assertThrows(AppSearchException.class,
+                () -> mAppSearchImpl.getDocument("database", "namespace2", "uri2"));
+    }
 }
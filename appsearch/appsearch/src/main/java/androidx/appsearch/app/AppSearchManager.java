@@ -276,15 +276,15 @@ public class AppSearchManager {
      * @see AppSearchManager#putDocuments
      */
     public static final class PutDocumentsRequest {
-        final List<GenericDocument> mDocuments;
+        final List<DocumentProto> mDocuments;
 
-        PutDocumentsRequest(List<GenericDocument> documents) {
+        PutDocumentsRequest(List<DocumentProto> documents) {
             mDocuments = documents;
         }
 
         /** Builder for {@link PutDocumentsRequest} objects. */
         public static final class Builder {
-            private final List<GenericDocument> mDocuments = new ArrayList<>();
+            private final List<DocumentProto> mDocuments = new ArrayList<>();
             private boolean mBuilt = false;
 
             /** Adds one or more documents to the request. */
@@ -299,7 +299,9 @@ public class AppSearchManager {
             public Builder addGenericDocument(@NonNull Collection<GenericDocument> documents) {
                 Preconditions.checkState(!mBuilt, "Builder has already been used");
                 Preconditions.checkNotNull(documents);
-                mDocuments.addAll(documents);
+                for (GenericDocument document : documents) {
+                    mDocuments.add(document.getProto());
+                }
                 return this;
             }
 
@@ -318,6 +320,9 @@ public class AppSearchManager {
             /**
              * Adds one or more documents to the request.
              *
+             * <p>Data classes are converted straight into the format they are stored in, without
+             * going through {@link GenericDocument}.
+             *
              * @param dataClasses non-inner classes annotated with
              *                    {@link androidx.appsearch.annotation.AppSearchDocument}.
              */
@@ -326,20 +331,18 @@ public class AppSearchManager {
                     throws AppSearchException {
                 Preconditions.checkState(!mBuilt, "Builder has already been used");
                 Preconditions.checkNotNull(dataClasses);
-                List<GenericDocument> genericDocuments = new ArrayList<>(dataClasses.size());
                 for (Object dataClass : dataClasses) {
-                    GenericDocument genericDocument = toGenericDocument(dataClass);
-                    genericDocuments.add(genericDocument);
+                    mDocuments.add(toDocumentProto(dataClass));
                 }
-                return addGenericDocument(genericDocuments);
+                return this;
             }
 
             @NonNull
-            private static <T> GenericDocument toGenericDocument(@NonNull T dataClass)
+            private static <T> DocumentProto toDocumentProto(@NonNull T dataClass)
                     throws AppSearchException {
                 DataClassFactoryRegistry registry = DataClassFactoryRegistry.getInstance();
                 DataClassFactory<T> factory = registry.getOrCreateFactory(dataClass);
-                return factory.toGenericDocument(dataClass);
+                return factory.writeDocumentProto(dataClass).build();
             }
 
             /** Builds a new {@link PutDocumentsRequest}. */
@@ -371,18 +374,19 @@ public class AppSearchManager {
         // one big list.
         Preconditions.checkNotNull(request);
         return execute(MUTATE_EXECUTOR, () -> {
-            AppSearchBatchResult.Builder<String, Void> resultBuilder =
-                    new AppSearchBatchResult.Builder<>();
-            for (int i = 0; i < request.mDocuments.size(); i++) {
-                GenericDocument document = request.mDocuments.get(i);
-                try {
-                    mAppSearchImpl.putDocument(mInstanceName, document.getProto());
-                    resultBuilder.setSuccess(document.getUri(), /*result=*/ null);
-                } catch (Throwable t) {
-                    resultBuilder.setResult(document.getUri(), throwableToFailedResult(t));
+            try {
+                return mAppSearchImpl.putDocuments(mInstanceName, request.mDocuments);
+            } catch (Throwable t) {
+                // AppSearchImpl reports per-document failures in its result, so this is only
+                // reached when no document could be indexed, e.g. if it is not initialized.
+                AppSearchBatchResult.Builder<String, Void> resultBuilder =
+                        new AppSearchBatchResult.Builder<>();
+                AppSearchResult<Void> failedResult = throwableToFailedResult(t);
+                for (int i = 0; i < request.mDocuments.size(); i++) {
+                    resultBuilder.setResult(request.mDocuments.get(i).getUri(), failedResult);
                 }
+                return resultBuilder.build();
             }
-            return resultBuilder.build();
         });
     }
 
@@ -520,16 +524,20 @@ public class AppSearchManager {
      *     ‘Video’ schema type.
      * </ul>
      *
+     * <p>The returned {@link SearchResults} hold the first page of results. Following pages are
+     * fetched while the results are iterated over, until all the results that match the query,
+     * or {@link SearchSpec.Builder#setNumToRetrieve} of them, have been returned.
+     *
      * @param queryExpression Query String to search.
      * @param searchSpec      Spec for setting filters, raw query etc.
-     * @return The pending result of performing this operation.
+     * @return The pending result of performing this operation. If the index reports an error for
+     * the search, the result is a failure with the corresponding result code rather than empty
+     * {@link SearchResults}.
      */
     @NonNull
     public ListenableFuture<AppSearchResult<SearchResults>> query(
             @NonNull String queryExpression,
             @NonNull SearchSpec searchSpec) {
-        // TODO(b/146386470): Transmit the result documents as a RemoteStream instead of sending
-        //     them in one big list.
         Preconditions.checkNotNull(queryExpression);
         Preconditions.checkNotNull(searchSpec);
         return execute(QUERY_EXECUTOR, () -> {
@@ -541,7 +549,8 @@ public class AppSearchManager {
                         searchSpec.getScoringSpecProto());
 
                 return AppSearchResult.newSuccessfulResult(
-                        new SearchResults(searchResultProto));
+                        new SearchResults(mAppSearchImpl, mInstanceName, searchResultProto,
+                                searchSpec.getNumToRetrieve(), QUERY_EXECUTOR));
             } catch (Throwable t) {
                 return throwableToFailedResult(t);
             }
@@ -50,4 +50,20 @@ public interface DataClassFactory<T> {
      */
     @NonNull
     T fromGenericDocument(@NonNull GenericDocument genericDoc);
+
+    /**
+     * Writes an instance of the data class into a new {@link DocumentProtoWriter}, without
+     * building an intermediate {@link androidx.appsearch.app.GenericDocument}.
+     *
+     * <p>The document written is identical to the one returned by {@link #toGenericDocument}.
+     */
+    @NonNull
+    DocumentProtoWriter writeDocumentProto(@NonNull T dataClass);
+
+    /**
+     * Reads an instance of the data class from a {@link DocumentProtoReader}, without building
+     * an intermediate {@link androidx.appsearch.app.GenericDocument}.
+     */
+    @NonNull
+    T readDocumentProto(@NonNull DocumentProtoReader reader);
 }
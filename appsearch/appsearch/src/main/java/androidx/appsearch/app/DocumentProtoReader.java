@@ -0,0 +1,174 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.appsearch.app;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+import androidx.core.util.Preconditions;
+
+import com.google.android.icing.proto.DocumentProto;
+
+/**
+ * Reads a document in the format stored by AppSearch on behalf of the {@link DataClassFactory}
+ * code generated for data classes, without building an intermediate {@link GenericDocument}.
+ *
+ * <p>Properties are addressed by their index in the document, from {@code 0} to
+ * {@link #getPropertyCount()} excluded, so that each of them is only looked up once.
+ *
+ * <p>The format itself is private to AppSearch, so this class only returns values of the types
+ * AppSearch supports.
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public final class DocumentProtoReader {
+    private final DocumentProto mDocument;
+
+    DocumentProtoReader(@NonNull DocumentProto document) {
+        mDocument = Preconditions.checkNotNull(document);
+    }
+
+    /** Creates a new reader for the document held by the given {@link GenericDocument}. */
+    public DocumentProtoReader(@NonNull GenericDocument document) {
+        this(document.getProto());
+    }
+
+    /** Unpacks all of the properties of the document into a new {@link GenericDocument}. */
+    @NonNull
+    public GenericDocument toGenericDocument() {
+        return new GenericDocument(mDocument);
+    }
+
+    /** Returns the URI of the document. */
+    @NonNull
+    public String getUri() {
+        return mDocument.getUri();
+    }
+
+    /** Returns the namespace of the document. */
+    @NonNull
+    public String getNamespace() {
+        return mDocument.getNamespace();
+    }
+
+    /** Returns the creation timestamp of the document, in milliseconds. */
+    public long getCreationTimestampMillis() {
+        return mDocument.getCreationTimestampMs();
+    }
+
+    /** Returns the TTL of the document, in milliseconds. */
+    public long getTtlMillis() {
+        return mDocument.getTtlMs();
+    }
+
+    /** Returns the score of the document. */
+    public int getScore() {
+        return mDocument.getScore();
+    }
+
+    /** Returns the number of properties of the document. */
+    public int getPropertyCount() {
+        return mDocument.getPropertiesCount();
+    }
+
+    /** Returns the name of the property at the given index. */
+    @NonNull
+    public String getPropertyName(int property) {
+        return mDocument.getProperties(property).getName();
+    }
+
+    /** Returns the number of {@link String} values of the property at the given index. */
+    public int getStringValueCount(int property) {
+        return mDocument.getProperties(property).getStringValuesCount();
+    }
+
+    /** Returns a {@link String} value of the property at the given index. */
+    @NonNull
+    public String getStringValue(int property, int index) {
+        return mDocument.getProperties(property).getStringValues(index);
+    }
+
+    /** Returns the {@link String} values of the property at the given index. */
+    @NonNull
+    public String[] getStringValues(int property) {
+        return DocumentProtoUtil.getStringValues(mDocument.getProperties(property));
+    }
+
+    /** Returns the number of {@code long} values of the property at the given index. */
+    public int getLongValueCount(int property) {
+        return mDocument.getProperties(property).getInt64ValuesCount();
+    }
+
+    /** Returns a {@code long} value of the property at the given index. */
+    public long getLongValue(int property, int index) {
+        return mDocument.getProperties(property).getInt64Values(index);
+    }
+
+    /** Returns the {@code long} values of the property at the given index. */
+    @NonNull
+    public long[] getLongValues(int property) {
+        return DocumentProtoUtil.getInt64Values(mDocument.getProperties(property));
+    }
+
+    /** Returns the number of {@code double} values of the property at the given index. */
+    public int getDoubleValueCount(int property) {
+        return mDocument.getProperties(property).getDoubleValuesCount();
+    }
+
+    /** Returns a {@code double} value of the property at the given index. */
+    public double getDoubleValue(int property, int index) {
+        return mDocument.getProperties(property).getDoubleValues(index);
+    }
+
+    /** Returns the {@code double} values of the property at the given index. */
+    @NonNull
+    public double[] getDoubleValues(int property) {
+        return DocumentProtoUtil.getDoubleValues(mDocument.getProperties(property));
+    }
+
+    /** Returns the number of {@code boolean} values of the property at the given index. */
+    public int getBooleanValueCount(int property) {
+        return mDocument.getProperties(property).getBooleanValuesCount();
+    }
+
+    /** Returns a {@code boolean} value of the property at the given index. */
+    public boolean getBooleanValue(int property, int index) {
+        return mDocument.getProperties(property).getBooleanValues(index);
+    }
+
+    /** Returns the {@code boolean} values of the property at the given index. */
+    @NonNull
+    public boolean[] getBooleanValues(int property) {
+        return DocumentProtoUtil.getBooleanValues(mDocument.getProperties(property));
+    }
+
+    /** Returns the number of {@code byte[]} values of the property at the given index. */
+    public int getBytesValueCount(int property) {
+        return mDocument.getProperties(property).getBytesValuesCount();
+    }
+
+    /** Returns a copy of a {@code byte[]} value of the property at the given index. */
+    @NonNull
+    public byte[] getBytesValue(int property, int index) {
+        return mDocument.getProperties(property).getBytesValues(index).toByteArray();
+    }
+
+    /** Returns copies of the {@code byte[]} values of the property at the given index. */
+    @NonNull
+    public byte[][] getBytesValues(int property) {
+        return DocumentProtoUtil.getBytesValues(mDocument.getProperties(property));
+    }
+}
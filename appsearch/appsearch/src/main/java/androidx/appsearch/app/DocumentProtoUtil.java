@@ -0,0 +1,257 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package androidx.appsearch.app;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.util.Preconditions;
+
+import com.google.android.icing.proto.DocumentProto;
+import com.google.android.icing.proto.PropertyProto;
+import com.google.android.icing.protobuf.ByteString;
+
+/**
+ * Builds and validates {@link DocumentProto}s on behalf of {@link GenericDocument.Builder} and
+ * {@link DocumentProtoWriter}, so that documents written by either of them are identical.
+ *
+ * <p>Repeated values are copied in and out of {@link PropertyProto}s by the small methods below
+ * rather than by loops inlined into the code generated for data classes, whose methods grow with
+ * the number of properties of the data class and are then optimized poorly by the runtime.
+ */
+final class DocumentProtoUtil {
+    /**
+     * The maximum number of elements in a repeatable field. Will reject the request if exceed
+     * this limit.
+     */
+    private static final int MAX_REPEATED_PROPERTY_LENGTH = 100;
+
+    /**
+     * The maximum {@link String#length} of a {@link String} field. Will reject the request if
+     * {@link String}s longer than this.
+     */
+    private static final int MAX_STRING_LENGTH = 20_000;
+
+    private DocumentProtoUtil() {}
+
+    /**
+     * Creates a {@link DocumentProto.Builder} with the given URI and schema type, the
+     * {@link GenericDocument#DEFAULT_NAMESPACE default namespace} and the current time as its
+     * creation timestamp.
+     */
+    @NonNull
+    static DocumentProto.Builder newDocumentBuilder(
+            @NonNull String uri, @NonNull String schemaType) {
+        Preconditions.checkNotNull(uri);
+        Preconditions.checkNotNull(schemaType);
+        return DocumentProto.newBuilder()
+                .setUri(uri)
+                .setSchema(schemaType)
+                .setNamespace(GenericDocument.DEFAULT_NAMESPACE)
+                .setCreationTimestampMs(System.currentTimeMillis());
+    }
+
+    /**
+     * Returns the given document score.
+     *
+     * @throws IllegalArgumentException If the provided value is negative.
+     */
+    static int checkScore(int score) {
+        if (score < 0) {
+            throw new IllegalArgumentException("Document score cannot be negative.");
+        }
+        return score;
+    }
+
+    /**
+     * Returns the given document TTL.
+     *
+     * @throws IllegalArgumentException If the provided value is negative.
+     */
+    static long checkTtlMillis(long ttlMillis) {
+        if (ttlMillis < 0) {
+            throw new IllegalArgumentException("Document ttlMillis cannot be negative.");
+        }
+        return ttlMillis;
+    }
+
+    /**
+     * Checks that a repeated property has at least one and at most
+     * {@link #MAX_REPEATED_PROPERTY_LENGTH} values.
+     *
+     * @throws IllegalArgumentException If the length is out of bounds.
+     */
+    static void checkRepeatedPropertyLength(@NonNull String key, int length) {
+        if (length == 0) {
+            throw new IllegalArgumentException("The input array is empty.");
+        } else if (length > MAX_REPEATED_PROPERTY_LENGTH) {
+            throw new IllegalArgumentException(
+                    "Repeated property \"" + key + "\" has length " + length
+                            + ", which exceeds the limit of "
+                            + MAX_REPEATED_PROPERTY_LENGTH);
+        }
+    }
+
+    /**
+     * Returns the given {@link String} value of a property.
+     *
+     * @throws IllegalArgumentException If the value is {@code null} or longer than
+     *         {@link #MAX_STRING_LENGTH}.
+     */
+    @NonNull
+    static String checkString(@NonNull String key, @Nullable String value) {
+        if (value == null) {
+            throw new IllegalArgumentException(
+                    "Property \"" + key + "\" contains a null String.");
+        } else if (value.length() > MAX_STRING_LENGTH) {
+            throw new IllegalArgumentException(
+                    "Property \"" + key + "\" contains a String of length " + value.length()
+                            + ", which exceeds length limit: " + MAX_STRING_LENGTH + ".");
+        }
+        return value;
+    }
+
+    /**
+     * Creates a {@link PropertyProto.Builder} holding the given {@link String} values.
+     *
+     * @throws IllegalArgumentException If there are too few or too many values, or if one of them
+     *         is invalid.
+     */
+    @NonNull
+    static PropertyProto.Builder newProperty(
+            @NonNull String key, @NonNull String[] values) {
+        checkRepeatedPropertyLength(key, values.length);
+        PropertyProto.Builder property = PropertyProto.newBuilder().setName(key);
+        for (int i = 0; i < values.length; i++) {
+            property.addStringValues(checkString(key, values[i]));
+        }
+        return property;
+    }
+
+    /**
+     * Creates a {@link PropertyProto.Builder} holding the given {@code long} values.
+     *
+     * @throws IllegalArgumentException If there are too few or too many values.
+     */
+    @NonNull
+    static PropertyProto.Builder newProperty(@NonNull String key, @NonNull long[] values) {
+        checkRepeatedPropertyLength(key, values.length);
+        PropertyProto.Builder property = PropertyProto.newBuilder().setName(key);
+        for (int i = 0; i < values.length; i++) {
+            property.addInt64Values(values[i]);
+        }
+        return property;
+    }
+
+    /**
+     * Creates a {@link PropertyProto.Builder} holding the given {@code double} values.
+     *
+     * @throws IllegalArgumentException If there are too few or too many values.
+     */
+    @NonNull
+    static PropertyProto.Builder newProperty(
+            @NonNull String key, @NonNull double[] values) {
+        checkRepeatedPropertyLength(key, values.length);
+        PropertyProto.Builder property = PropertyProto.newBuilder().setName(key);
+        for (int i = 0; i < values.length; i++) {
+            property.addDoubleValues(values[i]);
+        }
+        return property;
+    }
+
+    /**
+     * Creates a {@link PropertyProto.Builder} holding the given {@code boolean} values.
+     *
+     * @throws IllegalArgumentException If there are too few or too many values.
+     */
+    @NonNull
+    static PropertyProto.Builder newProperty(
+            @NonNull String key, @NonNull boolean[] values) {
+        checkRepeatedPropertyLength(key, values.length);
+        PropertyProto.Builder property = PropertyProto.newBuilder().setName(key);
+        for (int i = 0; i < values.length; i++) {
+            property.addBooleanValues(values[i]);
+        }
+        return property;
+    }
+
+    /**
+     * Creates a {@link PropertyProto.Builder} holding copies of the given {@code byte[]} values.
+     *
+     * @throws IllegalArgumentException If there are too few or too many values.
+     */
+    @NonNull
+    static PropertyProto.Builder newProperty(
+            @NonNull String key, @NonNull byte[][] values) {
+        checkRepeatedPropertyLength(key, values.length);
+        PropertyProto.Builder property = PropertyProto.newBuilder().setName(key);
+        for (int i = 0; i < values.length; i++) {
+            property.addBytesValues(ByteString.copyFrom(values[i]));
+        }
+        return property;
+    }
+
+    /** Returns the {@link String} values of the given property. */
+    @NonNull
+    static String[] getStringValues(@NonNull PropertyProto property) {
+        String[] values = new String[property.getStringValuesCount()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = property.getStringValues(i);
+        }
+        return values;
+    }
+
+    /** Returns the {@code long} values of the given property. */
+    @NonNull
+    static long[] getInt64Values(@NonNull PropertyProto property) {
+        long[] values = new long[property.getInt64ValuesCount()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = property.getInt64Values(i);
+        }
+        return values;
+    }
+
+    /** Returns the {@code double} values of the given property. */
+    @NonNull
+    static double[] getDoubleValues(@NonNull PropertyProto property) {
+        double[] values = new double[property.getDoubleValuesCount()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = property.getDoubleValues(i);
+        }
+        return values;
+    }
+
+    /** Returns the {@code boolean} values of the given property. */
+    @NonNull
+    static boolean[] getBooleanValues(@NonNull PropertyProto property) {
+        boolean[] values = new boolean[property.getBooleanValuesCount()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = property.getBooleanValues(i);
+        }
+        return values;
+    }
+
+    /** Returns copies of the {@code byte[]} values of the given property. */
+    @NonNull
+    static byte[][] getBytesValues(@NonNull PropertyProto property) {
+        byte[][] values = new byte[property.getBytesValuesCount()][];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = property.getBytesValues(i).toByteArray();
+        }
+        return values;
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.appsearch.app;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+import androidx.core.util.Preconditions;
+
+import com.google.android.icing.proto.DocumentProto;
+import com.google.android.icing.proto.PropertyProto;
+import com.google.android.icing.protobuf.ByteString;
+
+/**
+ * Writes a document in the format stored by AppSearch on behalf of the {@link DataClassFactory}
+ * code generated for data classes, without building an intermediate {@link GenericDocument}.
+ *
+ * <p>The document is validated and given the same defaults as by {@link GenericDocument.Builder},
+ * so that both produce identical documents. Callers must add properties ordered by name, the way
+ * {@link GenericDocument.Builder#build()} does.
+ *
+ * <p>The format itself is private to AppSearch, so this class only takes values of the types
+ * AppSearch supports.
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public final class DocumentProtoWriter {
+    private final DocumentProto.Builder mDocument;
+
+    // The repeated property whose values are being added one by one, if any.
+    @Nullable
+    private PropertyProto.Builder mProperty;
+    @Nullable
+    private String mPropertyKey;
+
+    /**
+     * Creates a new writer for a document with the given URI and schema type, the
+     * {@link GenericDocument#DEFAULT_NAMESPACE default namespace} and the current time as its
+     * creation timestamp.
+     */
+    public DocumentProtoWriter(@NonNull String uri, @NonNull String schemaType) {
+        mDocument = DocumentProtoUtil.newDocumentBuilder(uri, schemaType);
+    }
+
+    /** Sets the namespace of the document. */
+    public void setNamespace(@NonNull String namespace) {
+        Preconditions.checkNotNull(namespace);
+        mDocument.setNamespace(namespace);
+    }
+
+    /** Sets the creation timestamp of the document, in milliseconds. */
+    public void setCreationTimestampMillis(long creationTimestampMillis) {
+        mDocument.setCreationTimestampMs(creationTimestampMillis);
+    }
+
+    /**
+     * Sets the TTL of the document, in milliseconds.
+     *
+     * @throws IllegalArgumentException If the provided value is negative.
+     */
+    public void setTtlMillis(long ttlMillis) {
+        mDocument.setTtlMs(DocumentProtoUtil.checkTtlMillis(ttlMillis));
+    }
+
+    /**
+     * Sets the score of the document.
+     *
+     * @throws IllegalArgumentException If the provided value is negative.
+     */
+    public void setScore(int score) {
+        mDocument.setScore(DocumentProtoUtil.checkScore(score));
+    }
+
+    /**
+     * Adds a property holding a single {@link String} value.
+     *
+     * @throws IllegalArgumentException If the value is {@code null} or too long.
+     */
+    public void addProperty(@NonNull String key, @NonNull String value) {
+        mDocument.addProperties(PropertyProto.newBuilder()
+                .setName(key)
+                .addStringValues(DocumentProtoUtil.checkString(key, value)));
+    }
+
+    /** Adds a property holding a single {@code long} value. */
+    public void addProperty(@NonNull String key, long value) {
+        mDocument.addProperties(PropertyProto.newBuilder().setName(key).addInt64Values(value));
+    }
+
+    /** Adds a property holding a single {@code double} value. */
+    public void addProperty(@NonNull String key, double value) {
+        mDocument.addProperties(PropertyProto.newBuilder().setName(key).addDoubleValues(value));
+    }
+
+    /** Adds a property holding a single {@code boolean} value. */
+    public void addProperty(@NonNull String key, boolean value) {
+        mDocument.addProperties(PropertyProto.newBuilder().setName(key).addBooleanValues(value));
+    }
+
+    /** Adds a property holding a copy of a single {@code byte[]} value. */
+    public void addProperty(@NonNull String key, @NonNull byte[] value) {
+        mDocument.addProperties(
+                PropertyProto.newBuilder().setName(key).addBytesValues(ByteString.copyFrom(value)));
+    }
+
+    /**
+     * Adds a property holding the given {@link String} values.
+     *
+     * @throws IllegalArgumentException If there are too few or too many values, or if one of them
+     *         is invalid.
+     */
+    public void addProperty(@NonNull String key, @NonNull String[] values) {
+        mDocument.addProperties(DocumentProtoUtil.newProperty(key, values));
+    }
+
+    /**
+     * Adds a property holding the given {@code long} values.
+     *
+     * @throws IllegalArgumentException If there are too few or too many values.
+     */
+    public void addProperty(@NonNull String key, @NonNull long[] values) {
+        mDocument.addProperties(DocumentProtoUtil.newProperty(key, values));
+    }
+
+    /**
+     * Adds a property holding the given {@code double} values.
+     *
+     * @throws IllegalArgumentException If there are too few or too many values.
+     */
+    public void addProperty(@NonNull String key, @NonNull double[] values) {
+        mDocument.addProperties(DocumentProtoUtil.newProperty(key, values));
+    }
+
+    /**
+     * Adds a property holding the given {@code boolean} values.
+     *
+     * @throws IllegalArgumentException If there are too few or too many values.
+     */
+    public void addProperty(@NonNull String key, @NonNull boolean[] values) {
+        mDocument.addProperties(DocumentProtoUtil.newProperty(key, values));
+    }
+
+    /**
+     * Adds a property holding copies of the given {@code byte[]} values.
+     *
+     * @throws IllegalArgumentException If there are too few or too many values.
+     */
+    public void addProperty(@NonNull String key, @NonNull byte[][] values) {
+        mDocument.addProperties(DocumentProtoUtil.newProperty(key, values));
+    }
+
+    /**
+     * Starts a repeated property whose values are then added one by one with the
+     * {@code addValue} methods, for values which first need to be converted, such as the
+     * elements of a {@link java.util.Collection}. The property is added by {@link #endProperty()}.
+     *
+     * @param length The number of values that will be added
+     * @throws IllegalArgumentException If there are too few or too many values.
+     */
+    public void beginProperty(@NonNull String key, int length) {
+        checkNoPropertyStarted();
+        DocumentProtoUtil.checkRepeatedPropertyLength(key, length);
+        mProperty = PropertyProto.newBuilder().setName(key);
+        mPropertyKey = key;
+    }
+
+    /**
+     * Adds a {@link String} value to the property started by {@link #beginProperty}.
+     *
+     * @throws IllegalArgumentException If the value is {@code null} or too long.
+     */
+    public void addValue(@Nullable String value) {
+        getProperty().addStringValues(DocumentProtoUtil.checkString(mPropertyKey, value));
+    }
+
+    /** Adds a {@code long} value to the property started by {@link #beginProperty}. */
+    public void addValue(long value) {
+        getProperty().addInt64Values(value);
+    }
+
+    /** Adds a {@code double} value to the property started by {@link #beginProperty}. */
+    public void addValue(double value) {
+        getProperty().addDoubleValues(value);
+    }
+
+    /** Adds a {@code boolean} value to the property started by {@link #beginProperty}. */
+    public void addValue(boolean value) {
+        getProperty().addBooleanValues(value);
+    }
+
+    /** Adds a copy of a {@code byte[]} value to the property started by {@link #beginProperty}. */
+    public void addValue(@NonNull byte[] value) {
+        getProperty().addBytesValues(ByteString.copyFrom(value));
+    }
+
+    /** Adds the property started by {@link #beginProperty} to the document. */
+    public void endProperty() {
+        mDocument.addProperties(getProperty());
+        mProperty = null;
+        mPropertyKey = null;
+    }
+
+    /** Returns the document that was written. */
+    @NonNull
+    DocumentProto build() {
+        checkNoPropertyStarted();
+        return mDocument.build();
+    }
+
+    @NonNull
+    private PropertyProto.Builder getProperty() {
+        if (mProperty == null) {
+            throw new IllegalStateException("No property has been started");
+        }
+        return mProperty;
+    }
+
+    private void checkNoPropertyStarted() {
+        if (mProperty != null) {
+            throw new IllegalStateException(
+                    "Property \"" + mPropertyKey + "\" has not been ended");
+        }
+    }
+}
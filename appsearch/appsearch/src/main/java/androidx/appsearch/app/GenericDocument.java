@@ -45,18 +45,6 @@ public class GenericDocument {
     /** The default empty namespace.*/
     public static final String DEFAULT_NAMESPACE = "";
 
-    /**
-     * The maximum number of elements in a repeatable field. Will reject the request if exceed
-     * this limit.
-     */
-    private static final int MAX_REPEATED_PROPERTY_LENGTH = 100;
-
-    /**
-     * The maximum {@link String#length} of a {@link String} field. Will reject the request if
-     * {@link String}s longer than this.
-     */
-    private static final int MAX_STRING_LENGTH = 20_000;
-
     /** The maximum number of indexed properties a document can have. */
     private static final int MAX_INDEXED_PROPERTIES = 16;
 
@@ -113,35 +101,15 @@ public class GenericDocument {
             PropertyProto property = documentProto.getProperties(i);
             String name = property.getName();
             if (property.getStringValuesCount() > 0) {
-                String[] values = new String[property.getStringValuesCount()];
-                for (int j = 0; j < values.length; j++) {
-                    values[j] = property.getStringValues(j);
-                }
-                mProperties.put(name, values);
+                mProperties.put(name, DocumentProtoUtil.getStringValues(property));
             } else if (property.getInt64ValuesCount() > 0) {
-                long[] values = new long[property.getInt64ValuesCount()];
-                for (int j = 0; j < values.length; j++) {
-                    values[j] = property.getInt64Values(j);
-                }
-                mProperties.put(property.getName(), values);
+                mProperties.put(name, DocumentProtoUtil.getInt64Values(property));
             } else if (property.getDoubleValuesCount() > 0) {
-                double[] values = new double[property.getDoubleValuesCount()];
-                for (int j = 0; j < values.length; j++) {
-                    values[j] = property.getDoubleValues(j);
-                }
-                mProperties.put(property.getName(), values);
+                mProperties.put(name, DocumentProtoUtil.getDoubleValues(property));
             } else if (property.getBooleanValuesCount() > 0) {
-                boolean[] values = new boolean[property.getBooleanValuesCount()];
-                for (int j = 0; j < values.length; j++) {
-                    values[j] = property.getBooleanValues(j);
-                }
-                mProperties.put(property.getName(), values);
+                mProperties.put(name, DocumentProtoUtil.getBooleanValues(property));
             } else if (property.getBytesValuesCount() > 0) {
-                byte[][] values = new byte[property.getBytesValuesCount()][];
-                for (int j = 0; j < values.length; j++) {
-                    values[j] = property.getBytesValues(j).toByteArray();
-                }
-                mProperties.put(name, values);
+                mProperties.put(name, DocumentProtoUtil.getBytesValues(property));
             } else if (property.getDocumentValuesCount() > 0) {
                 GenericDocument[] values =
                         new GenericDocument[property.getDocumentValuesCount()];
@@ -482,7 +450,7 @@ public class GenericDocument {
     public static class Builder<BuilderType extends Builder> {
 
         private final Map<String, Object> mProperties = new ArrayMap<>();
-        private final DocumentProto.Builder mProtoBuilder = DocumentProto.newBuilder();
+        private final DocumentProto.Builder mProtoBuilder;
         private final BuilderType mBuilderTypeInstance;
         private boolean mBuilt = false;
 
@@ -502,10 +470,7 @@ public class GenericDocument {
             Preconditions.checkNotNull(uri);
             Preconditions.checkNotNull(schemaType);
             mBuilderTypeInstance = (BuilderType) this;
-            mProtoBuilder.setUri(uri).setSchema(schemaType);
-            mProtoBuilder.setNamespace(DEFAULT_NAMESPACE);
-            // Set current timestamp for creation timestamp by default.
-            setCreationTimestampMillis(System.currentTimeMillis());
+            mProtoBuilder = DocumentProtoUtil.newDocumentBuilder(uri, schemaType);
         }
 
         /**
@@ -530,10 +495,7 @@ public class GenericDocument {
         @NonNull
         public BuilderType setScore(@IntRange(from = 0, to = Integer.MAX_VALUE) int score) {
             Preconditions.checkState(!mBuilt, "Builder has already been used");
-            if (score < 0) {
-                throw new IllegalArgumentException("Document score cannot be negative.");
-            }
-            mProtoBuilder.setScore(score);
+            mProtoBuilder.setScore(DocumentProtoUtil.checkScore(score));
             return mBuilderTypeInstance;
         }
 
@@ -560,10 +522,7 @@ public class GenericDocument {
         @NonNull
         public BuilderType setTtlMillis(long ttlMillis) {
             Preconditions.checkState(!mBuilt, "Builder has already been used");
-            if (ttlMillis < 0) {
-                throw new IllegalArgumentException("Document ttlMillis cannot be negative.");
-            }
-            mProtoBuilder.setTtlMs(ttlMillis);
+            mProtoBuilder.setTtlMs(DocumentProtoUtil.checkTtlMillis(ttlMillis));
             return mBuilderTypeInstance;
         }
 
@@ -666,13 +625,7 @@ public class GenericDocument {
                 throws IllegalArgumentException {
             validateRepeatedPropertyLength(key, values.length);
             for (int i = 0; i < values.length; i++) {
-                if (values[i] == null) {
-                    throw new IllegalArgumentException("The String at " + i + " is null.");
-                } else if (values[i].length() > MAX_STRING_LENGTH) {
-                    throw new IllegalArgumentException("The String at " + i + " length is: "
-                            + values[i].length()  + ", which exceeds length limit: "
-                            + MAX_STRING_LENGTH + ".");
-                }
+                DocumentProtoUtil.checkString(key, values[i]);
             }
             mProperties.put(key, values);
         }
@@ -708,14 +661,7 @@ public class GenericDocument {
         }
 
         private static void validateRepeatedPropertyLength(@NonNull String key, int length) {
-            if (length == 0) {
-                throw new IllegalArgumentException("The input array is empty.");
-            } else if (length > MAX_REPEATED_PROPERTY_LENGTH) {
-                throw new IllegalArgumentException(
-                        "Repeated property \"" + key + "\" has length " + length
-                                + ", which exceeds the limit of "
-                                + MAX_REPEATED_PROPERTY_LENGTH);
-            }
+            DocumentProtoUtil.checkRepeatedPropertyLength(key, length);
         }
 
         /** Builds the {@link GenericDocument} object. */
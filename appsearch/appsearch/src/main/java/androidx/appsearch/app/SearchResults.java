@@ -19,60 +19,261 @@ package androidx.appsearch.app;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
+import androidx.appsearch.exceptions.AppSearchException;
+import androidx.appsearch.impl.AppSearchImpl;
+import androidx.core.util.Preconditions;
 
+import com.google.android.icing.proto.DocumentProto;
 import com.google.android.icing.proto.SearchResultProto;
 import com.google.android.icing.proto.SnippetMatchProto;
 import com.google.android.icing.proto.SnippetProto;
 
+import java.io.Closeable;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 /**
  * SearchResults are a list of results that are returned from a query. Each result from this
  * list contains a document and may contain other fields like snippets based on request.
+ *
+ * <p>Results are fetched from the index one page at a time, see
+ * {@link SearchSpec.Builder#setNumPerPage}. While the results of a page are consumed, the next
+ * page is fetched in the background. {@link #hasNext()} never waits for a page, while
+ * {@link #next()} waits for the next page once the current one is consumed, and throws a
+ * {@link FetchException} if it could not be fetched. Callers that stop iterating before the last
+ * result should {@link #close()} the results to release the remaining pages.
+ *
  * This iterator class is not thread safe.
  * @hide
  */
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
-public final class SearchResults implements Iterator<SearchResults.Result> {
+public final class SearchResults implements Iterator<SearchResults.Result>, Closeable {
+    /** The token IcingSearchEngine returns when there are no more pages. */
+    private static final long NO_NEXT_PAGE_TOKEN = 0;
 
-    private final SearchResultProto mSearchResultProto;
+    // The following are null for results that were not returned by a query, which are not paged.
+    @Nullable
+    private final AppSearchImpl mAppSearchImpl;
+    @Nullable
+    private final String mDatabaseName;
+    @Nullable
+    private final Executor mExecutor;
+
+    private SearchResultProto mPage;
     private int mNextIdx;
+    private int mNumRemaining;
+    @Nullable
+    private FutureTask<SearchResultProto> mNextPage;
+    // Guarded by this, as they are shared with the thread that fetches the next page.
+    private boolean mClosed;
+    private long mFetchedNextPageToken = NO_NEXT_PAGE_TOKEN;
 
     public SearchResults(@NonNull SearchResultProto searchResultProto) {
-        mSearchResultProto = searchResultProto;
+        mAppSearchImpl = null;
+        mDatabaseName = null;
+        mExecutor = null;
+        mPage = searchResultProto;
+        mNumRemaining = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Creates the results of a query, starting with its first page.
+     *
+     * @param numToRetrieve the maximum number of results to return over all pages.
+     * @param executor      the executor to fetch following pages on.
+     */
+    SearchResults(@NonNull AppSearchImpl appSearchImpl, @NonNull String databaseName,
+            @NonNull SearchResultProto firstPage, int numToRetrieve, @NonNull Executor executor) {
+        mAppSearchImpl = appSearchImpl;
+        mDatabaseName = databaseName;
+        mExecutor = executor;
+        mPage = firstPage;
+        mNumRemaining = numToRetrieve;
+        prefetchNextPage();
     }
 
+    /**
+     * Returns whether there are more results, without waiting for the next page to be fetched.
+     *
+     * <p>IcingSearchEngine only hands out a next page when more results matched the query, but if
+     * the documents of that page are removed before it is fetched, {@link #next()} can still
+     * throw a {@link NoSuchElementException} after this method returned {@code true}.
+     */
     @Override
     public boolean hasNext() {
-        return mNextIdx < mSearchResultProto.getResultsCount();
+        return mNumRemaining > 0 && (mNextIdx < mPage.getResultsCount() || mNextPage != null);
     }
 
+    /**
+     * Returns the next result, waiting for its page to be fetched if needed.
+     *
+     * @throws FetchException if the page of the result could not be fetched. The iteration ends
+     *                        and the remaining pages are released.
+     */
     @NonNull
     @Override
     public Result next() {
-        if (!hasNext()) {
+        if (mNumRemaining <= 0) {
             throw new NoSuchElementException();
         }
-        Result result = new Result(mSearchResultProto.getResults(mNextIdx));
+        while (mNextIdx >= mPage.getResultsCount()) {
+            if (mNextPage == null) {
+                throw new NoSuchElementException();
+            }
+            mPage = waitForNextPage();
+            mNextIdx = 0;
+            prefetchNextPage();
+        }
+        Result result = new Result(mPage.getResults(mNextIdx), mAppSearchImpl, mDatabaseName);
         mNextIdx++;
+        mNumRemaining--;
+        if (mNumRemaining == 0) {
+            close();
+        }
         return result;
     }
 
+    /**
+     * Stops fetching pages and releases the pages that have not been fetched yet.
+     *
+     * <p>Results that have already been fetched can still be iterated over.
+     */
+    @Override
+    public void close() {
+        long fetchedNextPageToken;
+        synchronized (this) {
+            if (mClosed || mAppSearchImpl == null) {
+                return;
+            }
+            mClosed = true;
+            fetchedNextPageToken = mFetchedNextPageToken;
+        }
+        if (mNextPage != null) {
+            // If the next page is being fetched right now, fetchNextPage() releases the pages
+            // after it.
+            mNextPage.cancel(/*mayInterruptIfRunning=*/ false);
+            mNextPage = null;
+        }
+        releasePages(fetchedNextPageToken);
+        releasePages(mPage.getNextPageToken());
+    }
+
+    /** Starts fetching the page that follows {@link #mPage}, if there is one. */
+    private void prefetchNextPage() {
+        long nextPageToken = mPage.getNextPageToken();
+        if (mClosed || mAppSearchImpl == null || nextPageToken == NO_NEXT_PAGE_TOKEN
+                || mNumRemaining <= mPage.getResultsCount()) {
+            // Everything this iterator is going to return has been fetched already.
+            close();
+            return;
+        }
+        mNextPage = new FutureTask<>(() -> fetchNextPage(nextPageToken));
+        mExecutor.execute(mNextPage);
+    }
+
+    private SearchResultProto fetchNextPage(long nextPageToken) throws AppSearchException {
+        SearchResultProto nextPage = mAppSearchImpl.getNextPage(nextPageToken);
+        synchronized (this) {
+            if (mClosed) {
+                // Nobody is going to look at this page, so release the ones after it too.
+                invalidateNextPageToken(nextPage.getNextPageToken());
+            } else {
+                mFetchedNextPageToken = nextPage.getNextPageToken();
+            }
+        }
+        return nextPage;
+    }
+
+    private SearchResultProto waitForNextPage() {
+        SearchResultProto nextPage;
+        try {
+            nextPage = mNextPage.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new FetchException(new AppSearchException(AppSearchResult.RESULT_INTERNAL_ERROR,
+                    "Interrupted while fetching search results", e));
+        } catch (ExecutionException e) {
+            mNextPage = null;
+            close();
+            Throwable cause = e.getCause();
+            if (cause instanceof AppSearchException) {
+                throw new FetchException((AppSearchException) cause);
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new FetchException(new AppSearchException(
+                    AppSearchResult.RESULT_UNKNOWN_ERROR, cause.toString(), cause));
+        }
+        mNextPage = null;
+        synchronized (this) {
+            // The page is about to become mPage, whose token close() takes care of.
+            mFetchedNextPageToken = NO_NEXT_PAGE_TOKEN;
+        }
+        return nextPage;
+    }
+
+    /** Releases the given pages on the executor, so that closing never blocks the caller. */
+    private void releasePages(long nextPageToken) {
+        if (nextPageToken == NO_NEXT_PAGE_TOKEN) {
+            return;
+        }
+        mExecutor.execute(() -> invalidateNextPageToken(nextPageToken));
+    }
+
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    void invalidateNextPageToken(long nextPageToken) {
+        if (nextPageToken == NO_NEXT_PAGE_TOKEN) {
+            return;
+        }
+        try {
+            mAppSearchImpl.invalidateNextPageToken(nextPageToken);
+        } catch (AppSearchException e) {
+            // The pages are released when the query expires anyway.
+        }
+    }
+
+    /**
+     * Thrown by {@link SearchResults#next()} when a page of results could not be fetched.
+     */
+    public static final class FetchException extends RuntimeException {
+        FetchException(@NonNull AppSearchException cause) {
+            super(cause.getMessage(), cause);
+        }
+
+        /** Converts the failure into a failed {@link AppSearchResult}. */
+        @NonNull
+        public <T> AppSearchResult<T> toAppSearchResult() {
+            return ((AppSearchException) getCause()).toAppSearchResult();
+        }
+    }
+
     /**
      * This class represents the result obtained from the query. It will contain the document which
      * which matched the specified query string and specifications.
      */
     public static final class Result {
         private final SearchResultProto.ResultProto mResultProto;
+        @Nullable
+        private final AppSearchImpl mAppSearchImpl;
+        @Nullable
+        private final String mDatabaseName;
 
         @Nullable
         private GenericDocument mDocument;
 
-        Result(@NonNull SearchResultProto.ResultProto resultProto) {
+        Result(@NonNull SearchResultProto.ResultProto resultProto,
+                @Nullable AppSearchImpl appSearchImpl, @Nullable String databaseName) {
             mResultProto = resultProto;
+            mAppSearchImpl = appSearchImpl;
+            mDatabaseName = databaseName;
         }
 
         /**
@@ -82,11 +283,40 @@ public final class SearchResults implements Iterator<SearchResults.Result> {
         @NonNull
         public GenericDocument getDocument() {
             if (mDocument == null) {
-                mDocument = new GenericDocument(mResultProto.getDocument());
+                mDocument = new GenericDocument(getDocumentProto());
             }
             return mDocument;
         }
 
+        /**
+         * Converts the matching document into an instance of the given data class, without
+         * building an intermediate {@link GenericDocument}.
+         *
+         * @param dataClass a non-inner class annotated with
+         *     {@link androidx.appsearch.annotation.AppSearchDocument}.
+         * @see GenericDocument#toDataClass
+         */
+        @NonNull
+        public <T> T getDataClass(@NonNull Class<T> dataClass) throws AppSearchException {
+            Preconditions.checkNotNull(dataClass);
+            DataClassFactoryRegistry registry = DataClassFactoryRegistry.getInstance();
+            DataClassFactory<T> factory = registry.getOrCreateFactory(dataClass);
+            if (mDocument != null) {
+                return factory.readDocumentProto(new DocumentProtoReader(mDocument));
+            }
+            return factory.readDocumentProto(new DocumentProtoReader(getDocumentProto()));
+        }
+
+        @NonNull
+        private DocumentProto getDocumentProto() {
+            DocumentProto documentProto = mResultProto.getDocument();
+            if (mAppSearchImpl != null) {
+                // Only the documents that are actually looked at pay for the rewrite.
+                documentProto = mAppSearchImpl.removeDatabasePrefix(mDatabaseName, documentProto);
+            }
+            return documentProto;
+        }
+
         /**
          * Contains a list of Snippets that matched the request. Only populated when requested in
          * {@link SearchSpec.Builder#setMaxSnippetSize}.
@@ -119,6 +349,6 @@ public final class SearchResults implements Iterator<SearchResults.Result> {
 
     @Override
     public String toString() {
-        return mSearchResultProto.toString();
+        return mPage.toString();
     }
 }
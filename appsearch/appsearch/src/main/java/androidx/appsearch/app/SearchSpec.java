@@ -41,12 +41,15 @@ public final class SearchSpec {
     private final SearchSpecProto mSearchSpecProto;
     private final ResultSpecProto mResultSpecProto;
     private final ScoringSpecProto mScoringSpecProto;
+    private final int mNumToRetrieve;
 
     SearchSpec(@NonNull SearchSpecProto searchSpecProto,
-            @NonNull ResultSpecProto resultSpecProto, @NonNull ScoringSpecProto scoringSpecProto) {
+            @NonNull ResultSpecProto resultSpecProto, @NonNull ScoringSpecProto scoringSpecProto,
+            int numToRetrieve) {
         mSearchSpecProto = searchSpecProto;
         mResultSpecProto = resultSpecProto;
         mScoringSpecProto = scoringSpecProto;
+        mNumToRetrieve = numToRetrieve;
     }
 
     /** Creates a new {@link SearchSpec.Builder}. */
@@ -70,6 +73,10 @@ public final class SearchSpec {
         return mScoringSpecProto;
     }
 
+    int getNumToRetrieve() {
+        return mNumToRetrieve;
+    }
+
     /** Term Match Type for the query. */
     // NOTE: The integer values of these constants must match the proto enum constants in
     // {@link com.google.android.icing.proto.SearchSpecProto.termMatchType}
@@ -132,6 +139,8 @@ public final class SearchSpec {
         private final ScoringSpecProto.Builder mScoringSpecBuilder = ScoringSpecProto.newBuilder();
         private final ResultSpecProto.SnippetSpecProto.Builder mSnippetSpecBuilder =
                 ResultSpecProto.SnippetSpecProto.newBuilder();
+        private int mNumToRetrieve = Integer.MAX_VALUE;
+        private boolean mNumPerPageSet = false;
 
         Builder() {
         }
@@ -164,12 +173,30 @@ public final class SearchSpec {
             return this;
         }
 
-        /** Sets the maximum number of results to retrieve from the query */
+        /**
+         * Sets the maximum number of results to retrieve from the query.
+         *
+         * <p>If this is not set, all the results that match the query are returned, one page at
+         * a time, instead of only the first page. Unless {@link #setNumPerPage} is also called,
+         * all of the results are retrieved in one page.
+         */
         @NonNull
         public SearchSpec.Builder setNumToRetrieve(int numToRetrieve) {
-            // Just retrieve everything in one page.
-            // TODO(b/152359656): Realign these two apis properly.
-            mResultSpecBuilder.setNumPerPage(numToRetrieve);
+            mNumToRetrieve = numToRetrieve;
+            return this;
+        }
+
+        /**
+         * Sets the number of results to fetch from the index at a time.
+         *
+         * <p>{@link SearchResults} fetches the following page in the background while the current
+         * one is consumed, so smaller pages return the first results sooner. If neither this nor
+         * {@link #setNumToRetrieve} is set, the default page size of the index is used.
+         */
+        @NonNull
+        public SearchSpec.Builder setNumPerPage(int numPerPage) {
+            mResultSpecBuilder.setNumPerPage(numPerPage);
+            mNumPerPageSet = true;
             return this;
         }
 
@@ -253,9 +280,13 @@ public final class SearchSpec {
             if (mSearchSpecBuilder.getTermMatchType() == TermMatchType.Code.UNKNOWN) {
                 throw new IllegalSearchSpecException("Missing termMatchType field.");
             }
+            if (!mNumPerPageSet && mNumToRetrieve != Integer.MAX_VALUE) {
+                // Just retrieve everything in one page.
+                mResultSpecBuilder.setNumPerPage(mNumToRetrieve);
+            }
             mResultSpecBuilder.setSnippetSpec(mSnippetSpecBuilder);
             return new SearchSpec(mSearchSpecBuilder.build(), mResultSpecBuilder.build(),
-                    mScoringSpecBuilder.build());
+                    mScoringSpecBuilder.build(), mNumToRetrieve);
         }
     }
 }
@@ -24,6 +24,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 import androidx.annotation.VisibleForTesting;
+import androidx.appsearch.app.AppSearchBatchResult;
 import androidx.appsearch.app.AppSearchResult;
 import androidx.appsearch.exceptions.AppSearchException;
 
@@ -52,9 +53,12 @@ import com.google.android.icing.proto.SetSchemaResultProto;
 import com.google.android.icing.proto.StatusProto;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 
@@ -73,10 +77,13 @@ import java.util.Set;
  *      <li>Rewrite SchemaType in SchemaProto by adding database name prefix and save into
  *          SchemaTypes set in {@link #setSchema(String, SchemaProto, boolean)}.
  *      <li>Rewrite namespace and SchemaType in DocumentProto by adding database name prefix and
- *          save to namespaces set in {@link #putDocument(String, DocumentProto)}.
+ *          save to namespaces set in {@link #putDocument(String, DocumentProto)} and
+ *          {@link #putDocuments(String, List)}.
  *      <li>Remove database name prefix when retrieve documents in
- *          {@link #getDocument(String, String, String)}, and
- *          {@link #query(String, SearchSpecProto, ResultSpecProto, ScoringSpecProto)}.
+ *          {@link #getDocument(String, String, String)}. Documents returned by
+ *          {@link #query(String, SearchSpecProto, ResultSpecProto, ScoringSpecProto)} and
+ *          {@link #getNextPage(long)} keep the prefix until they are passed to
+ *          {@link #removeDatabasePrefix(String, DocumentProto)}.
  *      <li>Rewrite filters in {@link SearchSpecProto} to have all namespaces and schema types of
  *          the queried database when user using empty filters in
  *          {@link #query(String, SearchSpecProto, ResultSpecProto, ScoringSpecProto)}.
@@ -206,9 +213,11 @@ public final class AppSearchImpl {
                 existingSchemaBuilder.build(), forceOverride);
         checkSuccess(setSchemaResultProto.getStatus());
 
+        List<String> schemaTypes = new ArrayList<>(origSchema.getTypesCount());
         for (SchemaTypeConfigProto typeConfig : origSchema.getTypesList()) {
-            addToSharedSet(databaseName, SCHEMA_TYPE_SET_NAME, typeConfig.getSchemaType());
+            schemaTypes.add(typeConfig.getSchemaType());
         }
+        addToSharedSet(databaseName, SCHEMA_TYPE_SET_NAME, schemaTypes);
         if (setSchemaResultProto.getDeletedSchemaTypesCount() > 0
                 || (setSchemaResultProto.getIncompatibleSchemaTypesCount() > 0 && forceOverride)) {
             // Any existing schemas which is not in origSchema will be deleted, and all documents of
@@ -236,12 +245,84 @@ public final class AppSearchImpl {
         PutResultProto putResultProto = mIcingSearchEngine.put(documentBuilder.build());
         checkSuccess(putResultProto.getStatus());
 
-        addToSharedSet(databaseName, NAMESPACE_SET_NAME, document.getNamespace());
+        addToSharedSet(databaseName, NAMESPACE_SET_NAME,
+                Collections.singleton(document.getNamespace()));
         // The existing documents with same URI will be deleted, so there maybe some resources
         // could be released after optimize().
         checkForOptimize(/* force= */false);
     }
 
+    /**
+     * Adds a batch of documents to the AppSearch index.
+     *
+     * <p>Unlike calling {@link #putDocument(String, DocumentProto)} for each document, the
+     * namespaces of the whole batch are persisted with a single {@link SharedPreferences} update
+     * and {@link IcingSearchEngine#getOptimizeInfo()} is checked at most once per batch. A
+     * document that fails to be indexed does not prevent the rest of the batch from being indexed.
+     *
+     * <p>This method should be called in mutate thread.
+     *
+     * @param databaseName The databaseName these documents reside in.
+     * @param documents    The documents to index.
+     * @return The result of the batch, keyed by the URIs of the input documents. Every document
+     * has its own result, even if it failed with an unexpected exception.
+     * @throws AppSearchException if this instance is not initialized, in which case no document
+     *                            was indexed.
+     */
+    @NonNull
+    public AppSearchBatchResult<String, Void> putDocuments(@NonNull String databaseName,
+            @NonNull List<DocumentProto> documents) throws AppSearchException {
+        checkInitialized();
+
+        long startNanos = System.nanoTime();
+        String prefix = getDatabasePrefix(databaseName);
+        AppSearchBatchResult.Builder<String, Void> resultBuilder =
+                new AppSearchBatchResult.Builder<>();
+        Set<String> namespaces = new HashSet<>();
+        int putCount = 0;
+        try {
+            for (int i = 0; i < documents.size(); i++) {
+                DocumentProto document = documents.get(i);
+                try {
+                    DocumentProto.Builder documentBuilder = document.toBuilder();
+                    rewriteDocumentTypes(prefix, documentBuilder, /*add=*/ true);
+                    PutResultProto putResultProto = mIcingSearchEngine.put(documentBuilder.build());
+                    checkSuccess(putResultProto.getStatus());
+                    namespaces.add(document.getNamespace());
+                    resultBuilder.setSuccess(document.getUri(), /*result=*/ null);
+                    putCount++;
+                } catch (AppSearchException e) {
+                    resultBuilder.setResult(document.getUri(), e.toAppSearchResult());
+                } catch (RuntimeException e) {
+                    resultBuilder.setFailure(document.getUri(),
+                            AppSearchResult.RESULT_INTERNAL_ERROR, e.toString());
+                }
+            }
+        } finally {
+            // Whatever made it into Icing has to be visible to queries and removeAll(), even if
+            // the batch was cut short.
+            addToSharedSet(databaseName, NAMESPACE_SET_NAME, namespaces);
+        }
+        if (putCount > 0) {
+            // Replaced documents could be released by optimize(), as in putDocument(). The
+            // documents are already indexed, so a failed check must not fail their results.
+            try {
+                checkForOptimize(putCount, /* force= */false);
+            } catch (AppSearchException e) {
+                Log.w(TAG, "Failed to check for optimize after putting documents", e);
+            }
+        }
+
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+            long elapsedNanos = System.nanoTime() - startNanos;
+            Log.d(TAG, "Put " + putCount + " of " + documents.size() + " documents in "
+                    + (elapsedNanos / 1_000_000) + " ms ("
+                    + (documents.size() * 1_000_000_000L / Math.max(elapsedNanos, 1))
+                    + " documents/s)");
+        }
+        return resultBuilder.build();
+    }
+
     /**
      * Retrieves a document from the AppSearch index by URI.
      *
@@ -276,8 +357,10 @@ public final class AppSearchImpl {
      * @param searchSpec   Defines what and how to search
      * @param resultSpec   Defines what results to show
      * @param scoringSpec  Defines how to order results
-     * @return The results of performing this search  The proto might have no {@code results} if no
-     * documents matched the query.
+     * @return The first page of results of performing this search. The proto might have no
+     * {@code results} if no documents matched the query. The documents in it still have the
+     * database prefix, see {@link #removeDatabasePrefix(String, DocumentProto)}. Further pages
+     * can be fetched with {@link #getNextPage(long)}.
      * @throws AppSearchException on IcingSearchEngine error.
      */
     @NonNull
@@ -324,24 +407,61 @@ public final class AppSearchImpl {
 
         SearchResultProto searchResultProto = mIcingSearchEngine.search(searchSpecBuilder.build(),
                 scoringSpec, resultSpec);
-        if (searchResultProto.getResultsCount() == 0) {
-            return searchResultProto;
-        }
+        checkSuccess(searchResultProto.getStatus());
+        return searchResultProto;
+    }
 
-        // Remove the rewritten schema types from any result documents.
-        SearchResultProto.Builder searchResultsBuilder = searchResultProto.toBuilder();
-        for (int i = 0; i < searchResultsBuilder.getResultsCount(); i++) {
-            if (searchResultProto.getResults(i).hasDocument()) {
-                SearchResultProto.ResultProto.Builder resultBuilder =
-                        searchResultsBuilder.getResults(i).toBuilder();
-                DocumentProto.Builder documentBuilder = resultBuilder.getDocument().toBuilder();
-                rewriteDocumentTypes(
-                        getDatabasePrefix(databaseName), documentBuilder, /*add=*/false);
-                resultBuilder.setDocument(documentBuilder);
-                searchResultsBuilder.setResults(i, resultBuilder);
-            }
-        }
-        return searchResultsBuilder.build();
+    /**
+     * Fetches the next page of results of a previously executed query.
+     *
+     * <p>This method should be called in query thread.
+     *
+     * @param nextPageToken The token of the next page, as returned with the previous page by
+     *                      {@link #query(String, SearchSpecProto, ResultSpecProto,
+     *                      ScoringSpecProto)} or this method.
+     * @return The next page of results, with the database prefix still present in the documents.
+     * The proto has no {@code results} once all pages have been returned.
+     * @throws AppSearchException on IcingSearchEngine error.
+     */
+    @NonNull
+    public SearchResultProto getNextPage(long nextPageToken) throws AppSearchException {
+        checkInitialized();
+
+        SearchResultProto searchResultProto = mIcingSearchEngine.getNextPage(nextPageToken);
+        checkSuccess(searchResultProto.getStatus());
+        return searchResultProto;
+    }
+
+    /**
+     * Releases the resources held for the remaining pages of a query, when the caller will not
+     * fetch them.
+     *
+     * <p>This method should be called in query thread.
+     *
+     * @param nextPageToken The token of the next page.
+     * @throws AppSearchException on IcingSearchEngine error.
+     */
+    public void invalidateNextPageToken(long nextPageToken) throws AppSearchException {
+        checkInitialized();
+
+        mIcingSearchEngine.invalidateNextPageToken(nextPageToken);
+    }
+
+    /**
+     * Removes the database prefix from the types and namespaces of a document returned by
+     * {@link #query(String, SearchSpecProto, ResultSpecProto, ScoringSpecProto)} or
+     * {@link #getNextPage(long)}.
+     *
+     * @param databaseName The databaseName the document was queried from.
+     * @param document     The document with the database prefix.
+     * @return The document as it was put by the app.
+     */
+    @NonNull
+    public DocumentProto removeDatabasePrefix(@NonNull String databaseName,
+            @NonNull DocumentProto document) {
+        DocumentProto.Builder documentBuilder = document.toBuilder();
+        rewriteDocumentTypes(getDatabasePrefix(databaseName), documentBuilder, /*add=*/ false);
+        return documentBuilder.build();
     }
 
     /**
@@ -567,13 +687,14 @@ public final class AppSearchImpl {
         return input.substring(prefix.length());
     }
 
-    private void addToSharedSet(String databaseName, String setName, String value) {
+    /** Adds {@code values} to the given set, committing {@link SharedPreferences} at most once. */
+    private void addToSharedSet(String databaseName, String setName, Collection<String> values) {
         String fullSetName = getDatabasePrefix(databaseName) + setName;
         Set<String> sharedSet = mSharedPreferences.getStringSet(fullSetName,
-                new HashSet<>());
-        if (!sharedSet.contains(value)) {
+                Collections.emptySet());
+        if (!sharedSet.containsAll(values)) {
             HashSet<String> newSet = new HashSet<>(sharedSet);
-            newSet.add(value);
+            newSet.addAll(values);
             mSharedPreferences.edit().putStringSet(fullSetName, newSet).commit();
         }
     }
@@ -628,7 +749,17 @@ public final class AppSearchImpl {
      * @param force whether we should directly call {@link IcingSearchEngine#getOptimizeInfo()}
      */
     private void checkForOptimize(boolean force) throws AppSearchException {
-        ++mOptimizeIntervalCount;
+        checkForOptimize(/*mutationCount=*/ 1, force);
+    }
+
+    /**
+     * Checks whether {@link IcingSearchEngine#optimize()} should be called after a batch of
+     * {@code mutationCount} mutations.
+     *
+     * @see #checkForOptimize(boolean)
+     */
+    private void checkForOptimize(int mutationCount, boolean force) throws AppSearchException {
+        mOptimizeIntervalCount += mutationCount;
         if (force || mOptimizeIntervalCount >= CHECK_OPTIMIZE_INTERVAL) {
             mOptimizeIntervalCount = 0;
             GetOptimizeInfoResultProto optimizeInfo = getOptimizeInfoResult();
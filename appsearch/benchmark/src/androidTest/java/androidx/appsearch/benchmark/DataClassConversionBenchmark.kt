@@ -0,0 +1,124 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.appsearch.benchmark
+
+import android.annotation.SuppressLint
+import androidx.appsearch.app.DataClassFactory
+import androidx.appsearch.app.DataClassFactoryRegistry
+import androidx.appsearch.app.DocumentProtoReader
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.test.filters.LargeTest
+import org.junit.Assert.assertEquals
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+/**
+ * Measures converting a data class with 50 properties to and from the document that is indexed,
+ * through a [androidx.appsearch.app.GenericDocument] and directly, for different lengths of its
+ * repeated properties. Reading through a [androidx.appsearch.app.GenericDocument] includes
+ * unpacking the document into it, as done for the results of a query.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+@SuppressLint("RestrictedApi")
+class DataClassConversionBenchmark(private val repeatedLength: Int) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val factory: DataClassFactory<WideDataClass> =
+        DataClassFactoryRegistry.getInstance().getOrCreateFactory(WideDataClass::class.java)
+    private val dataClass = createWideDataClass(repeatedLength)
+
+    @Test
+    fun toGenericDocument() {
+        benchmarkRule.measureRepeated {
+            factory.toGenericDocument(dataClass)
+        }
+    }
+
+    @Test
+    fun writeDocumentProto() {
+        benchmarkRule.measureRepeated {
+            factory.writeDocumentProto(dataClass)
+        }
+    }
+
+    @Test
+    fun fromGenericDocument() {
+        val reader = createReader()
+        benchmarkRule.measureRepeated {
+            factory.fromGenericDocument(reader.toGenericDocument())
+        }
+    }
+
+    @Test
+    fun readDocumentProto() {
+        val reader = createReader()
+        benchmarkRule.measureRepeated {
+            factory.readDocumentProto(reader)
+        }
+    }
+
+    private fun createReader(): DocumentProtoReader {
+        val reader = DocumentProtoReader(factory.toGenericDocument(dataClass))
+        assertEquals(PROPERTY_COUNT, reader.propertyCount)
+        return reader
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "repeatedLength={0}")
+        fun data(): List<Array<Any>> = listOf(1, 10, 100).map { arrayOf<Any>(it) }
+
+        private const val PROPERTY_COUNT = 50
+
+        /**
+         * Creates a [WideDataClass] with every property set, using [repeatedLength] values for
+         * each of the repeated ones.
+         */
+        private fun createWideDataClass(repeatedLength: Int): WideDataClass {
+            val dataClass = WideDataClass()
+            dataClass.uri = "uri"
+            dataClass.namespace = "namespace"
+            dataClass.creationTimestampMillis = 1L
+            for (field in WideDataClass::class.java.fields) {
+                if (field.name in SPECIAL_FIELDS) {
+                    continue
+                }
+                val value: Any = when (field.type) {
+                    String::class.java -> "${field.name} value"
+                    Long::class.javaPrimitiveType -> field.name.length.toLong()
+                    Double::class.javaPrimitiveType -> field.name.length / 3.0
+                    Boolean::class.javaPrimitiveType -> field.name.length % 2 == 0
+                    ByteArray::class.java -> ByteArray(16) { it.toByte() }
+                    Array<String>::class.java -> Array(repeatedLength) { "${field.name} $it" }
+                    LongArray::class.java -> LongArray(repeatedLength) { it.toLong() }
+                    DoubleArray::class.java -> DoubleArray(repeatedLength) { it / 3.0 }
+                    else -> throw IllegalStateException("Unexpected property ${field.name}")
+                }
+                field.set(dataClass, value)
+            }
+            return dataClass
+        }
+
+        private val SPECIAL_FIELDS = setOf("uri", "namespace", "creationTimestampMillis")
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.appsearch.benchmark
+
+import android.annotation.SuppressLint
+import android.content.Context
+import androidx.appsearch.app.AppSearchManager
+import androidx.appsearch.app.AppSearchManager.SetSchemaRequest
+import androidx.appsearch.app.AppSearchSchema
+import androidx.appsearch.app.AppSearchSchema.PropertyConfig
+import androidx.appsearch.app.GenericDocument
+
+internal const val MESSAGE_SCHEMA_TYPE = "Message"
+private const val NAMESPACE_COUNT = 10
+
+private val MESSAGE_SCHEMA = AppSearchSchema.Builder(MESSAGE_SCHEMA_TYPE)
+    .addProperty(
+        PropertyConfig.Builder("body")
+            .setDataType(PropertyConfig.DATA_TYPE_STRING)
+            .setCardinality(PropertyConfig.CARDINALITY_OPTIONAL)
+            .setIndexingType(PropertyConfig.INDEXING_TYPE_PREFIXES)
+            .setTokenizerType(PropertyConfig.TOKENIZER_TYPE_PLAIN)
+            .build()
+    )
+    .build()
+
+/**
+ * Returns an initialized [AppSearchManager] for [instanceName] that has the message schema set
+ * and no documents.
+ */
+@SuppressLint("RestrictedApi")
+internal fun createAppSearchManager(context: Context, instanceName: String): AppSearchManager {
+    val appSearchManager = AppSearchManager.getInstance(instanceName, context).get().resultValue
+    appSearchManager.setSchema(SetSchemaRequest.Builder().addSchema(MESSAGE_SCHEMA).build())
+        .get().resultValue
+    appSearchManager.removeAll().get().resultValue
+    return appSearchManager
+}
+
+/**
+ * Creates the [index]th message document, spreading messages over a few namespaces.
+ */
+@SuppressLint("RestrictedApi")
+internal fun createMessage(uri: String, index: Int): GenericDocument =
+    GenericDocument.Builder<GenericDocument.Builder<*>>(uri, MESSAGE_SCHEMA_TYPE)
+        .setNamespace("namespace${index % NAMESPACE_COUNT}")
+        .setProperty("body", "Message $index about the benchmark")
+        .build()
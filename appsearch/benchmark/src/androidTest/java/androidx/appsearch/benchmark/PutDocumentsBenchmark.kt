@@ -0,0 +1,110 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.appsearch.benchmark
+
+import android.annotation.SuppressLint
+import android.util.Log
+import androidx.appsearch.app.AppSearchManager
+import androidx.appsearch.app.AppSearchManager.PutDocumentsRequest
+import androidx.appsearch.app.GenericDocument
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.LargeTest
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+/**
+ * Measures how many documents per second can be indexed with one [PutDocumentsRequest] per
+ * document, and with a single [PutDocumentsRequest] for all of them.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+@SuppressLint("RestrictedApi")
+class PutDocumentsBenchmark(private val documentCount: Int) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private lateinit var appSearchManager: AppSearchManager
+    private var putDocuments = 0L
+    private var putTimeNanos = 0L
+
+    @Before
+    fun setUp() {
+        appSearchManager = createAppSearchManager(
+            ApplicationProvider.getApplicationContext(), INSTANCE_NAME
+        )
+    }
+
+    @After
+    fun tearDown() {
+        val documentsPerSecond = putDocuments * 1_000_000_000.0 / putTimeNanos
+        Log.d(LOG_TAG, "documentCount=$documentCount, documentsPerSecond=$documentsPerSecond")
+        appSearchManager.removeAll().get().resultValue
+    }
+
+    @Test
+    fun putIndividually() {
+        measurePut { documents ->
+            documents
+                .map {
+                    appSearchManager.putDocuments(
+                        PutDocumentsRequest.Builder().addGenericDocument(it).build()
+                    )
+                }
+                .forEach { it.get().checkSuccess() }
+        }
+    }
+
+    @Test
+    fun putBatch() {
+        measurePut { documents ->
+            appSearchManager.putDocuments(
+                PutDocumentsRequest.Builder().addGenericDocument(documents).build()
+            ).get().checkSuccess()
+        }
+    }
+
+    private fun measurePut(block: (List<GenericDocument>) -> Unit) {
+        var batch = 0
+        benchmarkRule.measureRepeated {
+            val documents = runWithTimingDisabled {
+                appSearchManager.removeAll().get().resultValue
+                batch++
+                List(documentCount) { createMessage("message$batch-$it", it) }
+            }
+            val start = System.nanoTime()
+            block(documents)
+            putTimeNanos += System.nanoTime() - start
+            putDocuments += documentCount
+        }
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "documentCount={0}")
+        fun data(): List<Array<Any>> = listOf(100, 1000).map { arrayOf<Any>(it) }
+
+        private const val LOG_TAG = "PutDocumentsBenchmark"
+        private const val INSTANCE_NAME = "put-documents-benchmark"
+    }
+}
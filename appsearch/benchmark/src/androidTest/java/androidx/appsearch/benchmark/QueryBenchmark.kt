@@ -0,0 +1,121 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.appsearch.benchmark
+
+import android.annotation.SuppressLint
+import android.util.Log
+import androidx.appsearch.app.AppSearchManager
+import androidx.appsearch.app.AppSearchManager.PutDocumentsRequest
+import androidx.appsearch.app.SearchResults
+import androidx.appsearch.app.SearchSpec
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.LargeTest
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+/**
+ * Measures the time it takes to get the first result of a query matching thousands of documents,
+ * and to iterate over all of its results, for different page sizes.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+@SuppressLint("RestrictedApi")
+class QueryBenchmark(private val numPerPage: Int) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private lateinit var appSearchManager: AppSearchManager
+    private var iteratedResults = 0L
+    private var iterateTimeNanos = 0L
+
+    @Before
+    fun setUp() {
+        appSearchManager = createAppSearchManager(
+            ApplicationProvider.getApplicationContext(), INSTANCE_NAME
+        )
+        appSearchManager.putDocuments(
+            PutDocumentsRequest.Builder()
+                .addGenericDocument(List(DOCUMENT_COUNT) { createMessage("message$it", it) })
+                .build()
+        ).get().checkSuccess()
+    }
+
+    @After
+    fun tearDown() {
+        if (iterateTimeNanos > 0) {
+            val resultsPerSecond = iteratedResults * 1_000_000_000.0 / iterateTimeNanos
+            Log.d(LOG_TAG, "numPerPage=$numPerPage, resultsPerSecond=$resultsPerSecond")
+        }
+        appSearchManager.removeAll().get().resultValue
+    }
+
+    @Test
+    fun firstResult() {
+        benchmarkRule.measureRepeated {
+            val searchResults = query()
+            assertTrue(searchResults.hasNext())
+            searchResults.next().document
+            searchResults.close()
+        }
+    }
+
+    @Test
+    fun allResults() {
+        benchmarkRule.measureRepeated {
+            val start = System.nanoTime()
+            val searchResults = query()
+            var count = 0
+            while (searchResults.hasNext()) {
+                searchResults.next().document
+                count++
+            }
+            iterateTimeNanos += System.nanoTime() - start
+            iteratedResults += count
+            runWithTimingDisabled {
+                assertEquals(DOCUMENT_COUNT, count)
+            }
+        }
+    }
+
+    private fun query(): SearchResults {
+        val searchSpec = SearchSpec.newBuilder()
+            .setTermMatchType(SearchSpec.TERM_MATCH_TYPE_PREFIX)
+            .setNumPerPage(numPerPage)
+            .build()
+        return appSearchManager.query("benchmark", searchSpec).get().resultValue
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "numPerPage={0}")
+        fun data(): List<Array<Any>> =
+            listOf(10, 100, DOCUMENT_COUNT).map { arrayOf<Any>(it) }
+
+        private const val LOG_TAG = "QueryBenchmark"
+        private const val INSTANCE_NAME = "query-benchmark"
+        private const val DOCUMENT_COUNT = 5000
+    }
+}
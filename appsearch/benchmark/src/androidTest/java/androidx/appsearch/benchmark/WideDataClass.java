@@ -0,0 +1,186 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.appsearch.benchmark;
+
+import androidx.appsearch.annotation.AppSearchDocument;
+
+/**
+ * A data class with 50 properties of every supported kind, a third of them repeated, used to
+ * compare the cost of converting it through {@link androidx.appsearch.app.GenericDocument} with
+ * converting it to and from its proto directly.
+ */
+@AppSearchDocument
+public final class WideDataClass {
+    @AppSearchDocument.Uri
+    public String uri;
+
+    @AppSearchDocument.Namespace
+    public String namespace;
+
+    @AppSearchDocument.CreationTimestampMillis
+    public long creationTimestampMillis;
+
+    @AppSearchDocument.Property
+    public String title0;
+
+    @AppSearchDocument.Property
+    public String title1;
+
+    @AppSearchDocument.Property
+    public String title2;
+
+    @AppSearchDocument.Property
+    public String title3;
+
+    @AppSearchDocument.Property
+    public String title4;
+
+    @AppSearchDocument.Property
+    public String title5;
+
+    @AppSearchDocument.Property
+    public String title6;
+
+    @AppSearchDocument.Property
+    public String title7;
+
+    @AppSearchDocument.Property
+    public String title8;
+
+    @AppSearchDocument.Property
+    public String title9;
+
+    @AppSearchDocument.Property
+    public String title10;
+
+    @AppSearchDocument.Property
+    public String title11;
+
+    @AppSearchDocument.Property
+    public long count0;
+
+    @AppSearchDocument.Property
+    public long count1;
+
+    @AppSearchDocument.Property
+    public long count2;
+
+    @AppSearchDocument.Property
+    public long count3;
+
+    @AppSearchDocument.Property
+    public long count4;
+
+    @AppSearchDocument.Property
+    public long count5;
+
+    @AppSearchDocument.Property
+    public long count6;
+
+    @AppSearchDocument.Property
+    public long count7;
+
+    @AppSearchDocument.Property
+    public double weight0;
+
+    @AppSearchDocument.Property
+    public double weight1;
+
+    @AppSearchDocument.Property
+    public double weight2;
+
+    @AppSearchDocument.Property
+    public double weight3;
+
+    @AppSearchDocument.Property
+    public double weight4;
+
+    @AppSearchDocument.Property
+    public double weight5;
+
+    @AppSearchDocument.Property
+    public double weight6;
+
+    @AppSearchDocument.Property
+    public double weight7;
+
+    @AppSearchDocument.Property
+    public boolean flag0;
+
+    @AppSearchDocument.Property
+    public boolean flag1;
+
+    @AppSearchDocument.Property
+    public boolean flag2;
+
+    @AppSearchDocument.Property
+    public boolean flag3;
+
+    @AppSearchDocument.Property
+    public boolean flag4;
+
+    @AppSearchDocument.Property
+    public boolean flag5;
+
+    @AppSearchDocument.Property
+    public byte[] blob0;
+
+    @AppSearchDocument.Property
+    public byte[] blob1;
+
+    @AppSearchDocument.Property
+    public byte[] blob2;
+
+    @AppSearchDocument.Property
+    public byte[] blob3;
+
+    @AppSearchDocument.Property
+    public String[] labels0;
+
+    @AppSearchDocument.Property
+    public String[] labels1;
+
+    @AppSearchDocument.Property
+    public String[] labels2;
+
+    @AppSearchDocument.Property
+    public String[] labels3;
+
+    @AppSearchDocument.Property
+    public long[] timestamps0;
+
+    @AppSearchDocument.Property
+    public long[] timestamps1;
+
+    @AppSearchDocument.Property
+    public long[] timestamps2;
+
+    @AppSearchDocument.Property
+    public long[] timestamps3;
+
+    @AppSearchDocument.Property
+    public double[] scores0;
+
+    @AppSearchDocument.Property
+    public double[] scores1;
+
+    @AppSearchDocument.Property
+    public double[] scores2;
+
+    @AppSearchDocument.Property
+    public double[] scores3;
+}
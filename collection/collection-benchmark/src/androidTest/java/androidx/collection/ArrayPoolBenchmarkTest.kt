@@ -0,0 +1,127 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection
+
+import android.os.Build
+import android.os.Debug
+import android.util.Log
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import org.junit.After
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import org.junit.runners.Parameterized.Parameters
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+/**
+ * Measures map-heavy code that keeps creating and dropping small [SimpleArrayMap]s and
+ * [ArraySet]s on [threads] threads, with array recycling through [ArrayPools] turned off and on.
+ * The number of recycled and fresh allocations and of garbage collections is logged.
+ */
+@RunWith(Parameterized::class)
+class ArrayPoolBenchmarkTest(private val threads: Int, private val capacity: Int) {
+    private val executor = Executors.newFixedThreadPool(threads)
+    private var gcCount = 0L
+
+    @get:Rule
+    val benchmark = BenchmarkRule()
+
+    @Before
+    fun setup() {
+        ArrayPools.setCapacity(capacity)
+        ArrayPools.resetStats()
+        ArrayPools.setStatsEnabled(true)
+        gcCount = readGcCount()
+    }
+
+    @After
+    fun teardown() {
+        executor.shutdownNow()
+        ArrayPools.setStatsEnabled(false)
+        ArrayPools.setCapacity(ArrayPools.DEFAULT_CAPACITY)
+        Log.d(
+            LOG_TAG,
+            "threads=$threads, capacity=$capacity, " +
+                "recycled=${ArrayPools.getRecycledAllocationCount()}, " +
+                "fresh=${ArrayPools.getFreshAllocationCount()}, " +
+                "gcCount=${readGcCount() - gcCount}"
+        )
+    }
+
+    @Test fun mapChurn() {
+        measureConcurrently { thread ->
+            for (i in 0 until OPERATIONS_PER_THREAD) {
+                val map = SimpleArrayMap<Int, Int>()
+                // Grows through both recyclable sizes before it is dropped.
+                for (key in 0..(i + thread) % 8) {
+                    map.put(key, i)
+                }
+                map.clear()
+            }
+        }
+    }
+
+    @Test fun setChurn() {
+        measureConcurrently { thread ->
+            for (i in 0 until OPERATIONS_PER_THREAD) {
+                val set = ArraySet<Int>()
+                for (value in 0..(i + thread) % 8) {
+                    set.add(value)
+                }
+                set.clear()
+            }
+        }
+    }
+
+    private fun measureConcurrently(block: (thread: Int) -> Unit) {
+        benchmark.measureRepeated {
+            val latch = CountDownLatch(threads)
+            repeat(threads) { thread ->
+                executor.execute {
+                    block(thread)
+                    latch.countDown()
+                }
+            }
+            assertTrue(latch.await(1, TimeUnit.MINUTES))
+        }
+    }
+
+    private fun readGcCount(): Long {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+            return 0
+        }
+        return Debug.getRuntimeStat("art.gc.gc-count")?.toLong() ?: 0
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameters(name = "threads={0},capacity={1}")
+        fun parameters() = buildParameters(
+            listOf(1, 4, 16),
+            listOf(0, ArrayPools.DEFAULT_CAPACITY)
+        )
+
+        private const val LOG_TAG = "ArrayPoolBenchmarkTest"
+        private const val OPERATIONS_PER_THREAD = 10_000
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.test.platform.app.InstrumentationRegistry
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import org.junit.runners.Parameterized.Parameters
+import java.io.File
+import kotlin.math.pow
+import kotlin.random.Random
+
+/**
+ * Replays access traces against [LruCache] with each eviction policy, measuring how long a replay
+ * takes. On the synthetic traces, W-TinyLFU is also checked to hit at least as often as LRU.
+ *
+ * Besides the synthetic traces, recorded traces can be replayed by passing a comma separated list
+ * of files on the device as the `traceFiles` instrumentation argument, along with the size of the
+ * cache to replay them against as `traceCacheSize`. Trace files hold one key per line; keys that
+ * aren't numbers are hashed.
+ */
+@RunWith(Parameterized::class)
+class CacheTraceReplayBenchmarkTest(private val trace: Trace, private val policy: Policy) {
+    @get:Rule
+    val benchmark = BenchmarkRule()
+
+    @Test fun replay() {
+        val keys = trace.keys
+        if (policy == Policy.WINDOW_TINY_LFU && trace.favorsFrequency) {
+            val hitRatio = replay(keys, policy)
+            val lruHitRatio = replay(keys, Policy.LRU)
+            assertTrue(
+                "trace=$trace, cacheSize=${trace.cacheSize}, hitRatio=$hitRatio, " +
+                    "lruHitRatio=$lruHitRatio",
+                hitRatio >= lruHitRatio
+            )
+        }
+        benchmark.measureRepeated {
+            replay(keys, policy)
+        }
+    }
+
+    private fun replay(keys: LongArray, policy: Policy): Double {
+        val cache = LruCache<Long, Long>(trace.cacheSize, policy.evictionPolicy)
+        for (key in keys) {
+            if (cache.get(key) == null) {
+                cache.put(key, key)
+            }
+        }
+        return cache.hitCount().toDouble() / keys.size
+    }
+
+    class Trace(
+        private val name: String,
+        val cacheSize: Int,
+        /** Whether W-TinyLFU is expected to hit at least as often as LRU on this trace. */
+        val favorsFrequency: Boolean,
+        load: () -> LongArray
+    ) {
+        val keys by lazy(load)
+
+        override fun toString() = name
+    }
+
+    enum class Policy(val evictionPolicy: Int) {
+        LRU(LruCache.EVICTION_POLICY_LRU),
+        WINDOW_TINY_LFU(LruCache.EVICTION_POLICY_WINDOW_TINY_LFU)
+    }
+
+    companion object {
+        private const val ACCESSES = 200_000
+
+        @JvmStatic
+        @Parameters(name = "trace={0},policy={1}")
+        fun parameters() = buildParameters(traces(), Policy.values().toList())
+
+        private fun traces(): List<Trace> {
+            val traces = mutableListOf(
+                Trace("zipf", 1_000, true) { zipf(keyCount = 50_000, skew = 0.9) },
+                Trace("workingSetWithScans", 1_000, true) { workingSetWithScans() }
+            )
+            val arguments = InstrumentationRegistry.getArguments()
+            val cacheSize = arguments.getString("traceCacheSize")?.toInt() ?: 1_000
+            arguments.getString("traceFiles")?.split(',')?.forEach { path ->
+                traces.add(Trace(File(path).name, cacheSize, false) { readTrace(File(path)) })
+            }
+            return traces
+        }
+
+        /**
+         * Keys drawn from a Zipf distribution, where the key of rank k is requested with a
+         * probability proportional to 1 / k^skew.
+         */
+        private fun zipf(keyCount: Int, skew: Double): LongArray {
+            val cumulative = DoubleArray(keyCount)
+            var sum = 0.0
+            for (rank in 0 until keyCount) {
+                sum += 1 / (rank + 1.0).pow(skew)
+                cumulative[rank] = sum
+            }
+            val random = Random(0)
+            return LongArray(ACCESSES) {
+                val index = cumulative.binarySearch(random.nextDouble() * sum)
+                (if (index >= 0) index else -index - 1).toLong()
+            }
+        }
+
+        /**
+         * A working set that fits in the cache, interrupted by scans over many keys that are
+         * only requested once, such as a user flinging through a feed.
+         */
+        private fun workingSetWithScans(): LongArray {
+            val random = Random(0)
+            var nextScanKey = 1_000_000L
+            var index = 0
+            val keys = LongArray(ACCESSES)
+            while (index < ACCESSES) {
+                repeat(minOf(10_000, ACCESSES - index)) {
+                    keys[index++] = random.nextLong(500)
+                }
+                repeat(minOf(5_000, ACCESSES - index)) {
+                    keys[index++] = nextScanKey++
+                }
+            }
+            return keys
+        }
+
+        private fun readTrace(file: File): LongArray {
+            return file.readLines()
+                .filter { it.isNotBlank() }
+                .map { line -> line.trim().let { it.toLongOrNull() ?: it.hashCode().toLong() } }
+                .toLongArray()
+        }
+    }
+}
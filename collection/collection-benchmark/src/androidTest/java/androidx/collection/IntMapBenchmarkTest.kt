@@ -0,0 +1,189 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import org.junit.Assume.assumeTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import org.junit.runners.Parameterized.Parameters
+import kotlin.random.Random
+
+/**
+ * Compares [IntObjectMap] and [IntIntMap] against [SparseArrayCompat] and [HashMap] for maps
+ * holding [size] random keys.
+ */
+@RunWith(Parameterized::class)
+class IntMapBenchmarkTest(private val size: Int, private val type: MapType) {
+    // Despite the fixed seed, the algorithm which produces random values may vary across OS
+    // versions. Since we're not doing cross-device comparison this is acceptable.
+    private val keys = IntSet(size).let { set ->
+        val random = Random(0)
+        while (set.size() < size) {
+            set.add(random.nextInt())
+        }
+        IntArray(size) { set.valueAt(it) }
+    }
+
+    @get:Rule
+    val benchmark = BenchmarkRule()
+
+    @Test fun get() {
+        val map = type.create(size).apply { keys.forEach { put(it, it) } }
+        var index = 0
+        benchmark.measureRepeated {
+            map.get(keys[index])
+            index = if (index == keys.size - 1) 0 else index + 1
+        }
+    }
+
+    @Test fun put() {
+        // Inserting random keys in a SparseArrayCompat is quadratic, which takes too long past
+        // this size to be worth measuring.
+        assumeTrue(type != MapType.SparseArrayCompat || size <= 100_000)
+        benchmark.measureRepeated {
+            val map = runWithTimingDisabled { type.create(0) }
+            for (key in keys) {
+                map.put(key, key)
+            }
+        }
+    }
+
+    @Test fun remove() {
+        assumeTrue(type != MapType.SparseArrayCompat || size <= 100_000)
+        benchmark.measureRepeated {
+            val map = runWithTimingDisabled {
+                type.create(size).apply { keys.forEach { put(it, it) } }
+            }
+            for (key in keys) {
+                map.remove(key)
+            }
+        }
+    }
+
+    @Test fun iterate() {
+        val map = type.create(size).apply { keys.forEach { put(it, it) } }
+        benchmark.measureRepeated {
+            map.sumValues()
+        }
+    }
+
+    /**
+     * Wraps each implementation behind the same calls, so that all of them pay for the same
+     * virtual dispatch.
+     */
+    interface BenchmarkMap {
+        fun get(key: Int): Any?
+        fun put(key: Int, value: Int)
+        fun remove(key: Int)
+        fun sumValues(): Long
+    }
+
+    // The collections are referenced by their qualified names as the entries shadow them.
+    enum class MapType {
+        IntObjectMap {
+            override fun create(capacity: Int) = object : BenchmarkMap {
+                val map = androidx.collection.IntObjectMap<Int>(capacity)
+                override fun get(key: Int) = map.get(key)
+                override fun put(key: Int, value: Int) {
+                    map.put(key, value)
+                }
+                override fun remove(key: Int) {
+                    map.remove(key)
+                }
+                override fun sumValues(): Long {
+                    var sum = 0L
+                    for (i in 0 until map.size()) {
+                        sum += map.valueAt(i)
+                    }
+                    return sum
+                }
+            }
+        },
+        IntIntMap {
+            override fun create(capacity: Int) = object : BenchmarkMap {
+                val map = androidx.collection.IntIntMap(capacity)
+                override fun get(key: Int) = map.get(key)
+                override fun put(key: Int, value: Int) {
+                    map.put(key, value)
+                }
+                override fun remove(key: Int) {
+                    map.remove(key)
+                }
+                override fun sumValues(): Long {
+                    var sum = 0L
+                    for (i in 0 until map.size()) {
+                        sum += map.valueAt(i)
+                    }
+                    return sum
+                }
+            }
+        },
+        SparseArrayCompat {
+            override fun create(capacity: Int) = object : BenchmarkMap {
+                val map = androidx.collection.SparseArrayCompat<Int>(capacity)
+                override fun get(key: Int) = map.get(key)
+                override fun put(key: Int, value: Int) {
+                    map.put(key, value)
+                }
+                override fun remove(key: Int) {
+                    map.remove(key)
+                }
+                override fun sumValues(): Long {
+                    var sum = 0L
+                    for (i in 0 until map.size()) {
+                        sum += map.valueAt(i)
+                    }
+                    return sum
+                }
+            }
+        },
+        HashMap {
+            override fun create(capacity: Int) = object : BenchmarkMap {
+                val map = java.util.HashMap<Int, Int>(capacity)
+                override fun get(key: Int) = map.get(key)
+                override fun put(key: Int, value: Int) {
+                    map.put(key, value)
+                }
+                override fun remove(key: Int) {
+                    map.remove(key)
+                }
+                override fun sumValues(): Long {
+                    var sum = 0L
+                    for (value in map.values) {
+                        sum += value
+                    }
+                    return sum
+                }
+            }
+        };
+
+        abstract fun create(capacity: Int): BenchmarkMap
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameters(name = "size={0},type={1}")
+        fun parameters() = buildParameters(
+            listOf(10, 100, 1_000, 10_000, 100_000, 1_000_000),
+            MapType.values().toList()
+        )
+    }
+}
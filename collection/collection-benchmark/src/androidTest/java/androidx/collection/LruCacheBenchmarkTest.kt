@@ -0,0 +1,131 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import org.junit.After
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import org.junit.runners.Parameterized.Parameters
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+/**
+ * Measures the time it takes [threads] threads to run a read-mostly workload against a shared
+ * [LruCache] and [ConcurrentLruCache].
+ */
+@RunWith(Parameterized::class)
+class LruCacheBenchmarkTest(private val threads: Int, private val type: CacheType) {
+    private val executor = Executors.newFixedThreadPool(threads)
+
+    @get:Rule
+    val benchmark = BenchmarkRule()
+
+    @After
+    fun teardown() {
+        executor.shutdownNow()
+    }
+
+    @Test fun readMostly() {
+        val cache = type.create(MAX_SIZE)
+        // Every key is in the cache, so that only the cost of reads is measured.
+        repeat(MAX_SIZE) { cache.put(it, it) }
+        measureConcurrently { thread ->
+            for (i in 0 until OPERATIONS_PER_THREAD) {
+                cache.get((i * 31 + thread) % MAX_SIZE)
+            }
+        }
+    }
+
+    @Test fun mixed() {
+        val cache = type.create(MAX_SIZE)
+        measureConcurrently { thread ->
+            for (i in 0 until OPERATIONS_PER_THREAD) {
+                // Twice as many keys as fit, so that a tenth of the operations are writes.
+                val key = (i * 31 + thread) % (MAX_SIZE * 2)
+                if (i % 10 == 0) {
+                    cache.put(key, key)
+                } else {
+                    cache.get(key)
+                }
+            }
+        }
+    }
+
+    private fun measureConcurrently(block: (thread: Int) -> Unit) {
+        benchmark.measureRepeated {
+            val latch = CountDownLatch(threads)
+            repeat(threads) { thread ->
+                executor.execute {
+                    block(thread)
+                    latch.countDown()
+                }
+            }
+            assertTrue(latch.await(1, TimeUnit.MINUTES))
+        }
+    }
+
+    /**
+     * Wraps each implementation behind the same calls, so that both pay for the same virtual
+     * dispatch.
+     */
+    interface BenchmarkCache {
+        fun get(key: Int): Int?
+        fun put(key: Int, value: Int)
+    }
+
+    // The caches are referenced by their qualified names as the entries shadow them.
+    enum class CacheType {
+        LruCache {
+            override fun create(maxSize: Int) = object : BenchmarkCache {
+                val cache = androidx.collection.LruCache<Int, Int>(maxSize)
+                override fun get(key: Int) = cache.get(key)
+                override fun put(key: Int, value: Int) {
+                    cache.put(key, value)
+                }
+            }
+        },
+        ConcurrentLruCache {
+            override fun create(maxSize: Int) = object : BenchmarkCache {
+                val cache = androidx.collection.ConcurrentLruCache<Int, Int>(maxSize)
+                override fun get(key: Int) = cache.get(key)
+                override fun put(key: Int, value: Int) {
+                    cache.put(key, value)
+                }
+            }
+        };
+
+        abstract fun create(maxSize: Int): BenchmarkCache
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameters(name = "threads={0},type={1}")
+        fun parameters() = buildParameters(
+            listOf(1, 4, 16),
+            CacheType.values().toList()
+        )
+
+        private const val MAX_SIZE = 1_000
+        private const val OPERATIONS_PER_THREAD = 10_000
+    }
+}
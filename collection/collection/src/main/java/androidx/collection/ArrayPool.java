@@ -0,0 +1,259 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Recycles the smallest backing arrays of {@link SimpleArrayMap} and {@link ArraySet}, which
+ * would otherwise be allocated and dropped every time a small container grows, shrinks or is
+ * cleared. Each pool holds arrays of a single size.
+ *
+ * <p>Released arrays first go to a small cache owned by the releasing thread, so a thread that
+ * keeps creating and dropping containers touches no shared state. Once that cache is full,
+ * arrays spill into a shared pool of slots that other threads claim with a compare-and-set,
+ * instead of the global lock the caches used to take.
+ *
+ * <p>A pooled array is the object array of a container, with its hash array stored in slot 1.
+ *
+ * @see ArrayPools
+ */
+final class ArrayPool {
+    /**
+     * Number of arrays each thread keeps for itself before spilling into the shared pool.
+     */
+    private static final int THREAD_CACHE_SIZE = 4;
+
+    static final int DEFAULT_CAPACITY = 32;
+    static final int MAX_CAPACITY = 256;
+
+    private static final List<ArrayPool> sPools = new ArrayList<>();
+
+    private static volatile int sCapacity = DEFAULT_CAPACITY;
+    /**
+     * Incremented whenever the capacity is set, so that each thread drops its cached arrays the
+     * next time it uses a pool. The caches can't be cleared from the thread setting the capacity,
+     * as they are only ever accessed by their own thread.
+     */
+    private static volatile int sGeneration;
+    private static volatile boolean sStatsEnabled;
+    private static final AtomicLong sRecycledCount = new AtomicLong();
+    private static final AtomicLong sFreshCount = new AtomicLong();
+
+    private final int mHashesLength;
+    private final int mArrayLength;
+
+    /**
+     * The shared pool. A slot is either empty or holds a pooled array; arrays are only ever
+     * moved in and out of a slot with a compare-and-set, so the pool needs no lock.
+     */
+    private final AtomicReferenceArray<Object[]> mShared =
+            new AtomicReferenceArray<>(MAX_CAPACITY);
+
+    /**
+     * Approximate number of arrays in {@link #mShared}, so that an empty pool is not scanned.
+     */
+    private final AtomicInteger mSharedSize = new AtomicInteger();
+
+    private final ThreadLocal<ThreadCache> mThreadCache = new ThreadLocal<ThreadCache>() {
+        @Override
+        protected ThreadCache initialValue() {
+            return new ThreadCache();
+        }
+    };
+
+    ArrayPool(int hashesLength, int arrayLength) {
+        mHashesLength = hashesLength;
+        mArrayLength = arrayLength;
+        synchronized (sPools) {
+            sPools.add(this);
+        }
+    }
+
+    /**
+     * Returns a recycled array of this pool's size, with its hash array in slot 1, or
+     * {@code null} if the caller has to allocate fresh arrays.
+     */
+    @Nullable
+    Object[] acquire() {
+        Object[] array = null;
+        ThreadCache cache = threadCache();
+        // With a capacity of 0, recycling is disabled and the caches are dropped
+        if (sCapacity > 0) {
+            if (cache.mSize > 0) {
+                array = cache.mArrays[--cache.mSize];
+                cache.mArrays[cache.mSize] = null;
+            } else if (mSharedSize.get() > 0) {
+                array = acquireShared();
+            }
+        }
+        if (array != null && !isPooledArray(array)) {
+            // Someone trampled the array after releasing it (probably due to not protecting
+            // their access to a container with a lock); drop it instead of handing it out.
+            array = null;
+        }
+        if (sStatsEnabled) {
+            (array != null ? sRecycledCount : sFreshCount).incrementAndGet();
+        }
+        return array;
+    }
+
+    /**
+     * Offers the arrays of a container of this pool's size for reuse.
+     *
+     * <p>Make sure <b>NOT</b> to call this method with arrays that can still be modified.
+     *
+     * @param used the number of leading slots of {@code array} that may hold references
+     */
+    void release(int[] hashes, Object[] array, int used) {
+        if (hashes.length != mHashesLength || array.length != mArrayLength) {
+            return;
+        }
+        ThreadCache cache = threadCache();
+        final int capacity = sCapacity;
+        if (capacity == 0) {
+            return;
+        }
+        if (used > 2) {
+            Arrays.fill(array, 2, used, null);
+        }
+        array[0] = null;
+        array[1] = hashes;
+
+        if (cache.mSize < Math.min(THREAD_CACHE_SIZE, capacity)) {
+            cache.mArrays[cache.mSize++] = array;
+        } else if (mSharedSize.get() < capacity) {
+            releaseShared(array, capacity);
+        }
+    }
+
+    /**
+     * Returns the cache of the current thread, emptied first if the capacity was set since the
+     * thread last used it.
+     */
+    private ThreadCache threadCache() {
+        ThreadCache cache = mThreadCache.get();
+        final int generation = sGeneration;
+        if (cache.mGeneration != generation) {
+            Arrays.fill(cache.mArrays, null);
+            cache.mSize = 0;
+            cache.mGeneration = generation;
+        }
+        return cache;
+    }
+
+    @Nullable
+    private Object[] acquireShared() {
+        final int capacity = sCapacity;
+        final int start = startIndex(capacity);
+        for (int i = 0; i < capacity; i++) {
+            int index = (start + i) % capacity;
+            Object[] array = mShared.get(index);
+            if (array != null && mShared.compareAndSet(index, array, null)) {
+                mSharedSize.decrementAndGet();
+                return array;
+            }
+        }
+        return null;
+    }
+
+    private void releaseShared(Object[] array, int capacity) {
+        final int start = startIndex(capacity);
+        for (int i = 0; i < capacity; i++) {
+            int index = (start + i) % capacity;
+            if (mShared.get(index) == null && mShared.compareAndSet(index, null, array)) {
+                mSharedSize.incrementAndGet();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Spreads threads over the shared pool, so that they don't all fight over the same slots.
+     */
+    private static int startIndex(int capacity) {
+        int hash = ContainerHelpers.hash((int) Thread.currentThread().getId());
+        return (hash & 0x7fffffff) % capacity;
+    }
+
+    private boolean isPooledArray(Object[] array) {
+        Object hashes = array[1];
+        return hashes instanceof int[] && ((int[]) hashes).length == mHashesLength;
+    }
+
+    /**
+     * Drops the arrays in shared slots at or past {@code capacity}.
+     */
+    private void trimShared(int capacity) {
+        for (int i = capacity; i < MAX_CAPACITY; i++) {
+            if (mShared.getAndSet(i, null) != null) {
+                mSharedSize.decrementAndGet();
+            }
+        }
+    }
+
+    static void setCapacity(int capacity) {
+        if (capacity < 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("capacity must be between 0 and " + MAX_CAPACITY
+                    + ", was " + capacity);
+        }
+        synchronized (sPools) {
+            sCapacity = capacity;
+            sGeneration++;
+            for (int i = 0; i < sPools.size(); i++) {
+                sPools.get(i).trimShared(capacity);
+            }
+        }
+    }
+
+    static int getCapacity() {
+        return sCapacity;
+    }
+
+    static void setStatsEnabled(boolean enabled) {
+        sStatsEnabled = enabled;
+    }
+
+    static long getRecycledCount() {
+        return sRecycledCount.get();
+    }
+
+    static long getFreshCount() {
+        return sFreshCount.get();
+    }
+
+    static void resetStats() {
+        sRecycledCount.set(0);
+        sFreshCount.set(0);
+    }
+
+    private static final class ThreadCache {
+        final Object[][] mArrays = new Object[THREAD_CACHE_SIZE][];
+        int mSize;
+        int mGeneration = sGeneration;
+
+        ThreadCache() {
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+/**
+ * Controls how {@link SimpleArrayMap}, {@link ArrayMap} and {@link ArraySet} recycle the backing
+ * arrays of their smallest sizes.
+ *
+ * <p>Each thread keeps a few released arrays of every size for itself, and spills the rest into
+ * a shared pool of at most {@link #getCapacity()} arrays per size. Setting the capacity to 0
+ * turns recycling off.
+ */
+public final class ArrayPools {
+    /**
+     * The default number of arrays of each size kept in the shared pool.
+     */
+    public static final int DEFAULT_CAPACITY = ArrayPool.DEFAULT_CAPACITY;
+
+    /**
+     * The largest supported number of arrays of each size kept in the shared pool.
+     */
+    public static final int MAX_CAPACITY = ArrayPool.MAX_CAPACITY;
+
+    private ArrayPools() {
+    }
+
+    /**
+     * Sets the number of arrays of each size kept in the shared pool, dropping any arrays over
+     * the new capacity. Each thread also drops the arrays it kept for itself the next time it
+     * creates or clears a container, and keeps none while the capacity is 0.
+     *
+     * @param capacity the new capacity, between 0 and {@link #MAX_CAPACITY}
+     * @throws IllegalArgumentException if the capacity is out of range
+     */
+    public static void setCapacity(int capacity) {
+        ArrayPool.setCapacity(capacity);
+    }
+
+    /**
+     * Returns the number of arrays of each size kept in the shared pool.
+     */
+    public static int getCapacity() {
+        return ArrayPool.getCapacity();
+    }
+
+    /**
+     * Enables or disables counting recycled and fresh allocations. Counting is disabled by
+     * default.
+     */
+    public static void setStatsEnabled(boolean enabled) {
+        ArrayPool.setStatsEnabled(enabled);
+    }
+
+    /**
+     * Returns the number of times a container got recycled arrays, since stats were last reset.
+     */
+    public static long getRecycledAllocationCount() {
+        return ArrayPool.getRecycledCount();
+    }
+
+    /**
+     * Returns the number of times a container had to allocate arrays of a recyclable size because
+     * none were pooled, since stats were last reset.
+     */
+    public static long getFreshAllocationCount() {
+        return ArrayPool.getFreshCount();
+    }
+
+    /**
+     * Resets the recycled and fresh allocation counts to 0.
+     */
+    public static void resetStats() {
+        ArrayPool.resetStats();
+    }
+}
@@ -0,0 +1,663 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A variant of {@link LruCache} for caches that are shared by many threads.
+ *
+ * <p>{@link LruCache} synchronizes every operation on the cache itself, so threads reading from a
+ * busy cache contend for the same monitor. This cache keeps its entries in a
+ * {@link ConcurrentHashMap}, so {@link #get} never takes a lock when the key is cached. Instead of
+ * reordering the recency list on every hit, readers record the entry they read in one of several
+ * striped, bounded buffers. The buffers are drained in batches by whichever thread next holds the
+ * eviction lock, either a writer or a reader that found its buffer filling up and could take the
+ * lock without waiting. If a buffer is full, the read is not recorded, so the eviction order is an
+ * approximation of the least recently used order under heavy contention.
+ *
+ * <p>Writes, evictions and the recency list are guarded by a single lock. {@link #create} is
+ * called at most once at a time for a given key: threads that miss on a key another thread is
+ * already creating a value for wait for that value instead of creating their own.
+ *
+ * <p>As with {@link LruCache}, {@link #sizeOf}, {@link #create} and {@link #entryRemoved} can be
+ * overridden, and {@link #create} and {@link #entryRemoved} are called without holding any lock.
+ */
+public class ConcurrentLruCache<K, V> {
+    private static final int READ_BUFFER_SIZE = 16;
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+    private static final int READ_BUFFER_DRAIN_THRESHOLD = READ_BUFFER_SIZE / 4;
+    private static final int MAX_READ_BUFFERS = 64;
+
+    private final ConcurrentHashMap<K, Node<K, V>> mMap;
+    private final ConcurrentHashMap<K, Loader<V>> mLoaders;
+    private final ReadBuffer[] mReadBuffers;
+    private final ReentrantLock mEvictionLock = new ReentrantLock();
+    private final AtomicInteger mMissCount = new AtomicInteger();
+
+    // The recency list is circular around this sentinel: mHead.mNext is the least recently used
+    // entry and mHead.mPrev the most recently used one. Guarded by mEvictionLock.
+    private final Node<K, V> mHead = Node.sentinel();
+
+    // The following fields are guarded by mEvictionLock.
+
+    /** Size of this cache in units. Not necessarily the number of elements. */
+    private int mSize;
+    private int mMaxSize;
+
+    private int mPutCount;
+    private int mCreateCount;
+    private int mEvictionCount;
+
+    /**
+     * @param maxSize for caches that do not override {@link #sizeOf}, this is
+     *     the maximum number of entries in the cache. For all other caches,
+     *     this is the maximum sum of the sizes of the entries in this cache.
+     */
+    public ConcurrentLruCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        mMaxSize = maxSize;
+        mMap = new ConcurrentHashMap<>();
+        mLoaders = new ConcurrentHashMap<>();
+        int bufferCount = Integer.highestOneBit(
+                Math.min(MAX_READ_BUFFERS, Runtime.getRuntime().availableProcessors() * 2));
+        mReadBuffers = new ReadBuffer[bufferCount];
+        for (int i = 0; i < bufferCount; i++) {
+            mReadBuffers[i] = new ReadBuffer();
+        }
+    }
+
+    /**
+     * Sets the size of the cache.
+     *
+     * @param maxSize The new maximum size.
+     */
+    public void resize(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        mEvictionLock.lock();
+        try {
+            mMaxSize = maxSize;
+        } finally {
+            mEvictionLock.unlock();
+        }
+        trimToSize(maxSize);
+    }
+
+    /**
+     * Returns the value for {@code key} if it exists in the cache or can be
+     * created by {@code #create}. If a value was returned, it is moved to the
+     * head of the queue. This returns null if a value is not cached and cannot
+     * be created.
+     */
+    @Nullable
+    public final V get(@NonNull K key) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+
+        Node<K, V> node = mMap.get(key);
+        if (node != null) {
+            recordRead(node);
+            return node.mValue;
+        }
+        mMissCount.incrementAndGet();
+
+        while (true) {
+            Loader<V> loader = new Loader<>();
+            Loader<V> inFlight = mLoaders.putIfAbsent(key, loader);
+            if (inFlight == null) {
+                return load(key, loader);
+            }
+            if (inFlight.mThread == Thread.currentThread()) {
+                throw new IllegalStateException("create() recursively requested key " + key);
+            }
+            if (inFlight.await()) {
+                return inFlight.mValue;
+            }
+            // The thread that was creating the value failed, so try to create it on this thread.
+        }
+    }
+
+    @Nullable
+    private V load(K key, Loader<V> loader) {
+        V value;
+        try {
+            // The key may have been cached between the miss and the loader being registered.
+            Node<K, V> node = mMap.get(key);
+            value = node != null ? node.mValue : createAndCache(key);
+        } catch (RuntimeException | Error e) {
+            mLoaders.remove(key, loader);
+            loader.complete(false, null);
+            throw e;
+        }
+        mLoaders.remove(key, loader);
+        loader.complete(true, value);
+        return value;
+    }
+
+    @Nullable
+    private V createAndCache(K key) {
+        V createdValue = create(key);
+        if (createdValue == null) {
+            return null;
+        }
+
+        V mapValue;
+        List<Node<K, V>> evicted = null;
+        mEvictionLock.lock();
+        try {
+            drainReadBuffers();
+            mCreateCount++;
+            Node<K, V> node = mMap.get(key);
+            if (node != null) {
+                // There was a conflicting put while the value was being created, keep that one.
+                mapValue = node.mValue;
+                moveToTail(node);
+            } else {
+                mapValue = null;
+                addNode(new Node<>(key, createdValue, safeSizeOf(key, createdValue)));
+                evicted = evict(mMaxSize);
+            }
+        } finally {
+            mEvictionLock.unlock();
+        }
+
+        if (mapValue != null) {
+            entryRemoved(false, key, createdValue, mapValue);
+            return mapValue;
+        }
+        notifyEvicted(evicted);
+        return createdValue;
+    }
+
+    /**
+     * Caches {@code value} for {@code key}. The value is moved to the head of
+     * the queue.
+     *
+     * @return the previous value mapped by {@code key}.
+     */
+    @Nullable
+    public final V put(@NonNull K key, @NonNull V value) {
+        if (key == null || value == null) {
+            throw new NullPointerException("key == null || value == null");
+        }
+
+        V previous;
+        List<Node<K, V>> evicted;
+        mEvictionLock.lock();
+        try {
+            drainReadBuffers();
+            mPutCount++;
+            int size = safeSizeOf(key, value);
+            Node<K, V> node = mMap.get(key);
+            if (node != null) {
+                previous = node.mValue;
+                mSize += size - node.mEntrySize;
+                node.mEntrySize = size;
+                node.mValue = value;
+                moveToTail(node);
+            } else {
+                previous = null;
+                addNode(new Node<>(key, value, size));
+            }
+            evicted = evict(mMaxSize);
+        } finally {
+            mEvictionLock.unlock();
+        }
+
+        if (previous != null) {
+            entryRemoved(false, key, previous, value);
+        }
+        notifyEvicted(evicted);
+        return previous;
+    }
+
+    /**
+     * Remove the eldest entries until the total of remaining entries is at or
+     * below the requested size.
+     *
+     * @param maxSize the maximum size of the cache before returning. May be -1
+     *            to evict even 0-sized elements.
+     */
+    public void trimToSize(int maxSize) {
+        List<Node<K, V>> evicted;
+        mEvictionLock.lock();
+        try {
+            drainReadBuffers();
+            evicted = evict(maxSize);
+        } finally {
+            mEvictionLock.unlock();
+        }
+        notifyEvicted(evicted);
+    }
+
+    /**
+     * Removes the entry for {@code key} if it exists.
+     *
+     * @return the previous value mapped by {@code key}.
+     */
+    @Nullable
+    public final V remove(@NonNull K key) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+
+        V previous = null;
+        mEvictionLock.lock();
+        try {
+            Node<K, V> node = mMap.get(key);
+            if (node != null) {
+                previous = node.mValue;
+                removeNode(node);
+            }
+        } finally {
+            mEvictionLock.unlock();
+        }
+
+        if (previous != null) {
+            entryRemoved(false, key, previous, null);
+        }
+
+        return previous;
+    }
+
+    /**
+     * Called for entries that have been evicted or removed. This method is
+     * invoked when a value is evicted to make space, removed by a call to
+     * {@link #remove}, or replaced by a call to {@link #put}. The default
+     * implementation does nothing.
+     *
+     * <p>The method is called without synchronization: other threads may
+     * access the cache while this method is executing.
+     *
+     * @param evicted true if the entry is being removed to make space, false
+     *     if the removal was caused by a {@link #put} or {@link #remove}.
+     * @param newValue the new value for {@code key}, if it exists. If non-null,
+     *     this removal was caused by a {@link #put}. Otherwise it was caused by
+     *     an eviction or a {@link #remove}.
+     */
+    protected void entryRemoved(boolean evicted, @NonNull K key, @NonNull V oldValue,
+            @Nullable V newValue) {
+    }
+
+    /**
+     * Called after a cache miss to compute a value for the corresponding key.
+     * Returns the computed value or null if no value can be computed. The
+     * default implementation returns null.
+     *
+     * <p>The method is called without synchronization: other threads may
+     * access the cache while this method is executing. It is only called by
+     * one thread at a time for a given key; other threads that miss on the
+     * same key in the meantime wait for its result.
+     *
+     * <p>If a value for {@code key} is {@link #put} in the cache while this
+     * method is running, the created value will be released with
+     * {@link #entryRemoved} and discarded.
+     */
+    @Nullable
+    protected V create(@NonNull K key) {
+        return null;
+    }
+
+    private int safeSizeOf(K key, V value) {
+        int result = sizeOf(key, value);
+        if (result < 0) {
+            throw new IllegalStateException("Negative size: " + key + "=" + value);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the size of the entry for {@code key} and {@code value} in
+     * user-defined units.  The default implementation returns 1 so that size
+     * is the number of entries and max size is the maximum number of entries.
+     *
+     * <p>An entry's size must not change while it is in the cache. This method
+     * is called while holding the lock that guards writes to the cache.
+     */
+    protected int sizeOf(@NonNull K key, @NonNull V value) {
+        return 1;
+    }
+
+    /**
+     * Clear the cache, calling {@link #entryRemoved} on each removed entry.
+     */
+    public final void evictAll() {
+        trimToSize(-1); // -1 will evict 0-sized elements
+    }
+
+    /**
+     * For caches that do not override {@link #sizeOf}, this returns the number
+     * of entries in the cache. For all other caches, this returns the sum of
+     * the sizes of the entries in this cache.
+     */
+    public final int size() {
+        mEvictionLock.lock();
+        try {
+            return mSize;
+        } finally {
+            mEvictionLock.unlock();
+        }
+    }
+
+    /**
+     * For caches that do not override {@link #sizeOf}, this returns the maximum
+     * number of entries in the cache. For all other caches, this returns the
+     * maximum sum of the sizes of the entries in this cache.
+     */
+    public final int maxSize() {
+        mEvictionLock.lock();
+        try {
+            return mMaxSize;
+        } finally {
+            mEvictionLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of times {@link #get} returned a value that was
+     * already present in the cache.
+     */
+    public final int hitCount() {
+        int hitCount = 0;
+        for (ReadBuffer buffer : mReadBuffers) {
+            hitCount += buffer.mHitCount.get();
+        }
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of times {@link #get} returned null or required a new
+     * value to be created.
+     */
+    public final int missCount() {
+        return mMissCount.get();
+    }
+
+    /**
+     * Returns the number of times {@link #create(Object)} returned a value.
+     */
+    public final int createCount() {
+        mEvictionLock.lock();
+        try {
+            return mCreateCount;
+        } finally {
+            mEvictionLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of times {@link #put} was called.
+     */
+    public final int putCount() {
+        mEvictionLock.lock();
+        try {
+            return mPutCount;
+        } finally {
+            mEvictionLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of values that have been evicted.
+     */
+    public final int evictionCount() {
+        mEvictionLock.lock();
+        try {
+            return mEvictionCount;
+        } finally {
+            mEvictionLock.unlock();
+        }
+    }
+
+    /**
+     * Returns a copy of the current contents of the cache, ordered from least
+     * recently accessed to most recently accessed.
+     */
+    @NonNull
+    public final Map<K, V> snapshot() {
+        mEvictionLock.lock();
+        try {
+            drainReadBuffers();
+            LinkedHashMap<K, V> snapshot = new LinkedHashMap<>(mMap.size());
+            for (Node<K, V> node = mHead.mNext; node != mHead; node = node.mNext) {
+                snapshot.put(node.mKey, node.mValue);
+            }
+            return snapshot;
+        } finally {
+            mEvictionLock.unlock();
+        }
+    }
+
+    @NonNull
+    @Override
+    public final String toString() {
+        int hitCount = hitCount();
+        int missCount = missCount();
+        int maxSize = maxSize();
+        int accesses = hitCount + missCount;
+        int hitPercent = accesses != 0 ? (100 * hitCount / accesses) : 0;
+        return String.format(Locale.US,
+                "ConcurrentLruCache[maxSize=%d,hits=%d,misses=%d,hitRate=%d%%]",
+                maxSize, hitCount, missCount, hitPercent);
+    }
+
+    private void recordRead(Node<K, V> node) {
+        ReadBuffer buffer = mReadBuffers[
+                ContainerHelpers.hash((int) Thread.currentThread().getId())
+                        & (mReadBuffers.length - 1)];
+        buffer.mHitCount.incrementAndGet();
+        if (buffer.offer(node) && mEvictionLock.tryLock()) {
+            try {
+                drainReadBuffers();
+            } finally {
+                mEvictionLock.unlock();
+            }
+        }
+    }
+
+    // Must be called while holding mEvictionLock.
+    @SuppressWarnings("unchecked")
+    private void drainReadBuffers() {
+        for (ReadBuffer buffer : mReadBuffers) {
+            int head = buffer.mReadIndex;
+            int tail = buffer.mWriteIndex.get();
+            for (; head != tail; head++) {
+                int index = head & READ_BUFFER_MASK;
+                Node<K, V> node = (Node<K, V>) buffer.mNodes.get(index);
+                if (node == null) {
+                    // The reader hasn't published its node yet, pick it up on the next drain.
+                    break;
+                }
+                buffer.mNodes.lazySet(index, null);
+                if (!node.mRemoved) {
+                    moveToTail(node);
+                }
+            }
+            buffer.mReadIndex = head;
+        }
+    }
+
+    // Must be called while holding mEvictionLock.
+    @Nullable
+    private List<Node<K, V>> evict(int maxSize) {
+        List<Node<K, V>> evicted = null;
+        while (true) {
+            if (mSize < 0 || (mMap.isEmpty() && mSize != 0)) {
+                throw new IllegalStateException(getClass().getName()
+                        + ".sizeOf() is reporting inconsistent results!");
+            }
+
+            Node<K, V> eldest = mHead.mNext;
+            if (mSize <= maxSize || eldest == mHead) {
+                return evicted;
+            }
+            removeNode(eldest);
+            mEvictionCount++;
+            if (evicted == null) {
+                evicted = new ArrayList<>();
+            }
+            evicted.add(eldest);
+        }
+    }
+
+    private void notifyEvicted(@Nullable List<Node<K, V>> evicted) {
+        if (evicted != null) {
+            for (int i = 0, size = evicted.size(); i < size; i++) {
+                Node<K, V> node = evicted.get(i);
+                entryRemoved(true, node.mKey, node.mValue, null);
+            }
+        }
+    }
+
+    // Must be called while holding mEvictionLock.
+    private void addNode(Node<K, V> node) {
+        mMap.put(node.mKey, node);
+        mSize += node.mEntrySize;
+        linkLast(node);
+    }
+
+    // Must be called while holding mEvictionLock.
+    private void removeNode(Node<K, V> node) {
+        mMap.remove(node.mKey);
+        mSize -= node.mEntrySize;
+        node.mPrev.mNext = node.mNext;
+        node.mNext.mPrev = node.mPrev;
+        // Pending reads of the node are ignored when draining.
+        node.mRemoved = true;
+    }
+
+    // Must be called while holding mEvictionLock.
+    private void moveToTail(Node<K, V> node) {
+        node.mPrev.mNext = node.mNext;
+        node.mNext.mPrev = node.mPrev;
+        linkLast(node);
+    }
+
+    private void linkLast(Node<K, V> node) {
+        node.mPrev = mHead.mPrev;
+        node.mNext = mHead;
+        mHead.mPrev.mNext = node;
+        mHead.mPrev = node;
+    }
+
+    private static final class Node<K, V> {
+        final K mKey;
+        volatile V mValue;
+        // Guarded by mEvictionLock.
+        int mEntrySize;
+        boolean mRemoved;
+        Node<K, V> mPrev = this;
+        Node<K, V> mNext = this;
+
+        Node(K key, V value, int entrySize) {
+            mKey = key;
+            mValue = value;
+            mEntrySize = entrySize;
+        }
+
+        @SuppressWarnings("NullAway") // The sentinel never holds a key or a value.
+        static <K, V> Node<K, V> sentinel() {
+            return new Node<>(null, null, 0);
+        }
+    }
+
+    /**
+     * A bounded ring of recently read nodes. Any thread may add to it, but only the thread
+     * holding the eviction lock removes from it.
+     */
+    private static final class ReadBuffer {
+        final AtomicReferenceArray<Object> mNodes = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+        final AtomicInteger mWriteIndex = new AtomicInteger();
+        final AtomicInteger mHitCount = new AtomicInteger();
+        volatile int mReadIndex;
+
+        /**
+         * Records a read of the node, dropping it if the buffer is full.
+         *
+         * @return true if the buffer should be drained
+         */
+        boolean offer(Object node) {
+            int tail = mWriteIndex.get();
+            int pending = tail - mReadIndex;
+            if (pending >= READ_BUFFER_SIZE) {
+                return true;
+            }
+            if (mWriteIndex.compareAndSet(tail, tail + 1)) {
+                mNodes.lazySet(tail & READ_BUFFER_MASK, node);
+                pending++;
+            }
+            return pending >= READ_BUFFER_DRAIN_THRESHOLD;
+        }
+    }
+
+    /**
+     * The value being created for a key by another thread.
+     */
+    private static final class Loader<V> {
+        final Thread mThread = Thread.currentThread();
+        private final CountDownLatch mDone = new CountDownLatch(1);
+        private boolean mSucceeded;
+        @Nullable
+        V mValue;
+
+        void complete(boolean succeeded, @Nullable V value) {
+            mSucceeded = succeeded;
+            mValue = value;
+            mDone.countDown();
+        }
+
+        /**
+         * Waits for the value to be created.
+         *
+         * @return false if the thread creating the value failed
+         */
+        boolean await() {
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    try {
+                        mDone.await();
+                        return mSucceeded;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
@@ -16,6 +16,8 @@
 
 package androidx.collection;
 
+import androidx.annotation.Nullable;
+
 class ContainerHelpers {
     static final int[] EMPTY_INTS = new int[0];
     static final long[] EMPTY_LONGS = new long[0];
@@ -37,7 +39,7 @@ class ContainerHelpers {
         return need;
     }
 
-    public static boolean equal(Object a, Object b) {
+    public static boolean equal(@Nullable Object a, @Nullable Object b) {
         return a == b || (a != null && a.equals(b));
     }
 
@@ -80,6 +82,56 @@ class ContainerHelpers {
         return ~lo;  // value not present
     }
 
+    // Open-addressing containers keep their capacity at a power of two and their index table at
+    // twice that, so the table is never more than half full.
+    static final int MIN_HASH_CAPACITY = 4;
+    static final int MAX_HASH_CAPACITY = 1 << 29;
+
+    static int hashCapacity(int need) {
+        if (need > MAX_HASH_CAPACITY) {
+            throw new IllegalArgumentException("capacity must be <= 2^29");
+        }
+        if (need <= MIN_HASH_CAPACITY) {
+            return MIN_HASH_CAPACITY;
+        }
+        return Integer.bitCount(need) == 1 ? need : Integer.highestOneBit(need) << 1;
+    }
+
+    static int growHashCapacity(int capacity) {
+        if (capacity == 0) {
+            return MIN_HASH_CAPACITY;
+        }
+        if (capacity >= MAX_HASH_CAPACITY) {
+            throw new RuntimeException("Max array capacity exceeded");
+        }
+        return capacity << 1;
+    }
+
+    // Spreads the bits of the key so that keys which only differ in their high bits don't collide
+    // once masked to the size of the table.
+    static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    static int hash(long key) {
+        return hash((int) (key ^ (key >>> 32)));
+    }
+
+    static int hash(@Nullable Object key) {
+        return key == null ? 0 : hash(key.hashCode());
+    }
+
+    // Stores index + 1 in the first free slot of the probe sequence of hash; 0 marks a free slot.
+    static void insertIndex(int[] table, int hash, int index) {
+        final int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = index + 1;
+    }
+
     private ContainerHelpers() {
     }
 }
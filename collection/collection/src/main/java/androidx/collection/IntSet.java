@@ -0,0 +1,252 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import java.util.Arrays;
+
+/**
+ * IntSet is a set of int values backed by an open-addressing hash table. Unlike a
+ * {@link java.util.HashSet}, values are not boxed and no object is allocated per value, and unlike
+ * {@link ArraySet}, adding a value and checking whether it is contained take constant time on
+ * average.
+ *
+ * <p>Values are stored densely in an array and can be iterated without allocating, using
+ * {@link #valueAt(int)} with indices between 0 and {@link #size()} - 1. The iteration order is
+ * unspecified: removing a value moves the last value into the index it freed up, so to remove
+ * values while iterating, iterate from the last index down to 0.</p>
+ *
+ * <p>This class is not thread-safe.</p>
+ */
+public final class IntSet {
+    // Each slot of the table holds the index of a value + 1, or 0 if it is free. The table is
+    // kept at twice the capacity of the value array, so it is never more than half full.
+    private int[] mTable;
+    private int[] mValues;
+    private int mSize;
+
+    /**
+     * Creates a new empty IntSet. No arrays are allocated until the first value is added.
+     */
+    public IntSet() {
+        mTable = ContainerHelpers.EMPTY_INTS;
+        mValues = ContainerHelpers.EMPTY_INTS;
+    }
+
+    /**
+     * Creates a new empty IntSet that will not require any additional memory allocation to
+     * store the specified number of values.
+     */
+    public IntSet(int initialCapacity) {
+        this();
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity must be >= 0");
+        }
+        if (initialCapacity > 0) {
+            resize(ContainerHelpers.hashCapacity(initialCapacity));
+        }
+    }
+
+    /**
+     * Returns the number of values in this set.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Return true if size() is 0.
+     * @return true if size() is 0.
+     */
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * Returns true if the specified value is in this set.
+     */
+    public boolean contains(int value) {
+        return findSlot(value) >= 0;
+    }
+
+    /**
+     * Returns the index for which {@link #valueAt} would return the specified value, or -1 if
+     * the value is not in this set.
+     */
+    public int indexOf(int value) {
+        final int slot = findSlot(value);
+        return slot >= 0 ? mTable[slot] - 1 : -1;
+    }
+
+    /**
+     * Adds the specified value to this set.
+     *
+     * @return true if the value was not already in this set
+     */
+    public boolean add(int value) {
+        int slot = findSlot(value);
+        if (slot >= 0) {
+            return false;
+        }
+        if (mSize == mValues.length) {
+            resize(ContainerHelpers.growHashCapacity(mValues.length));
+            slot = findSlot(value);
+        }
+        final int index = mSize++;
+        mValues[index] = value;
+        mTable[~slot] = index + 1;
+        return true;
+    }
+
+    /**
+     * Removes the specified value from this set.
+     *
+     * @return true if the value was in this set
+     */
+    public boolean remove(int value) {
+        final int slot = findSlot(value);
+        if (slot < 0) {
+            return false;
+        }
+        removeSlot(slot);
+        return true;
+    }
+
+    /**
+     * Removes the value at the given index, moving the last value into its place.
+     */
+    public void removeAt(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        removeSlot(findIndexSlot(index));
+    }
+
+    /**
+     * Removes all values from this set.
+     */
+    public void clear() {
+        if (mSize > 0) {
+            Arrays.fill(mTable, 0);
+            mSize = 0;
+        }
+    }
+
+    /**
+     * Ensures this set can hold at least <var>minimumCapacity</var> values without growing.
+     */
+    public void ensureCapacity(int minimumCapacity) {
+        if (minimumCapacity > mValues.length) {
+            resize(ContainerHelpers.hashCapacity(minimumCapacity));
+        }
+    }
+
+    /**
+     * Returns the value at the given index in the range <code>0...size()-1</code>.
+     */
+    public int valueAt(int index) {
+        return mValues[index];
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This implementation composes a string by iterating over its values.
+     */
+    @Override
+    public String toString() {
+        if (mSize <= 0) {
+            return "{}";
+        }
+
+        StringBuilder buffer = new StringBuilder(mSize * 14);
+        buffer.append('{');
+        for (int i = 0; i < mSize; i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+            buffer.append(mValues[i]);
+        }
+        buffer.append('}');
+        return buffer.toString();
+    }
+
+    // Returns the slot holding the value, or the bitwise complement of the free slot that ends its
+    // probe sequence if the value isn't in this set.
+    private int findSlot(int value) {
+        final int[] table = mTable;
+        if (table.length == 0) {
+            return ~0;
+        }
+        final int mask = table.length - 1;
+        int slot = ContainerHelpers.hash(value) & mask;
+        int entry;
+        while ((entry = table[slot]) != 0) {
+            if (mValues[entry - 1] == value) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return ~slot;
+    }
+
+    private int findIndexSlot(int index) {
+        final int[] table = mTable;
+        final int mask = table.length - 1;
+        int slot = ContainerHelpers.hash(mValues[index]) & mask;
+        while (table[slot] != index + 1) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void removeSlot(int slot) {
+        final int[] table = mTable;
+        final int mask = table.length - 1;
+        final int index = table[slot] - 1;
+
+        // Shift the following entries of the probe sequence back, so that lookups never stop
+        // early at the slot that was freed up.
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        int entry;
+        while ((entry = table[next]) != 0) {
+            final int ideal = ContainerHelpers.hash(mValues[entry - 1]) & mask;
+            if (((next - ideal) & mask) >= ((next - hole) & mask)) {
+                table[hole] = entry;
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        table[hole] = 0;
+
+        // Keep the values dense by moving the last one into the freed up index.
+        final int last = --mSize;
+        if (index != last) {
+            table[findIndexSlot(last)] = index + 1;
+            mValues[index] = mValues[last];
+        }
+    }
+
+    private void resize(int capacity) {
+        mValues = Arrays.copyOf(mValues, capacity);
+        final int[] table = new int[capacity * 2];
+        for (int i = 0; i < mSize; i++) {
+            ContainerHelpers.insertIndex(table, ContainerHelpers.hash(mValues[i]), i);
+        }
+        mTable = table;
+    }
+}
@@ -16,9 +16,15 @@
 
 package androidx.collection;
 
+import static androidx.annotation.RestrictTo.Scope.LIBRARY_GROUP;
+
+import androidx.annotation.IntDef;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
 
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
 import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.Map;
@@ -29,9 +35,40 @@ import java.util.Map;
  * this implementation is still used; it does not try to switch to the
  * framework's implementation. See the framework SDK documentation for a class
  * overview.
+ *
+ * <p>A cache created with {@link #EVICTION_POLICY_WINDOW_TINY_LFU} takes into
+ * account how often keys are requested, not only how recently, when picking
+ * which entries to evict. This keeps one-off scans over many keys from
+ * evicting the entries that are used over and over.
  */
 public class LruCache<K, V> {
+    /**
+     * Evicts the least recently used entries first.
+     */
+    public static final int EVICTION_POLICY_LRU = 0;
+
+    /**
+     * Admits new entries into a small LRU window, and only lets them into the
+     * rest of the cache if they were requested more often than the entry they
+     * would replace, according to a sketch of recent request frequencies.
+     * Entries requested more than once are kept in a protected segment.
+     *
+     * <p>This is the W-TinyLFU policy. It keeps a much higher hit rate than LRU
+     * for workloads that mix a stable working set with scans over many keys
+     * that are only requested once, at the cost of a few bytes per entry.
+     */
+    public static final int EVICTION_POLICY_WINDOW_TINY_LFU = 1;
+
+    /** @hide */
+    @RestrictTo(LIBRARY_GROUP)
+    @IntDef({EVICTION_POLICY_LRU, EVICTION_POLICY_WINDOW_TINY_LFU})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface EvictionPolicy {
+    }
+
     private final LinkedHashMap<K, V> map;
+    @Nullable
+    private final WindowTinyLfu<K> policy;
 
     /** Size of this cache in units. Not necessarily the number of elements. */
     private int size;
@@ -49,11 +86,33 @@ public class LruCache<K, V> {
      *     this is the maximum sum of the sizes of the entries in this cache.
      */
     public LruCache(int maxSize) {
+        this(maxSize, EVICTION_POLICY_LRU);
+    }
+
+    /**
+     * @param maxSize for caches that do not override {@link #sizeOf}, this is
+     *     the maximum number of entries in the cache. For all other caches,
+     *     this is the maximum sum of the sizes of the entries in this cache.
+     * @param evictionPolicy which entries to evict when the cache is full,
+     *     either {@link #EVICTION_POLICY_LRU} or
+     *     {@link #EVICTION_POLICY_WINDOW_TINY_LFU}.
+     */
+    public LruCache(int maxSize, @EvictionPolicy int evictionPolicy) {
         if (maxSize <= 0) {
             throw new IllegalArgumentException("maxSize <= 0");
         }
         this.maxSize = maxSize;
         this.map = new LinkedHashMap<K, V>(0, 0.75f, true);
+        switch (evictionPolicy) {
+            case EVICTION_POLICY_LRU:
+                this.policy = null;
+                break;
+            case EVICTION_POLICY_WINDOW_TINY_LFU:
+                this.policy = new WindowTinyLfu<K>(maxSize);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown eviction policy " + evictionPolicy);
+        }
     }
 
     /**
@@ -68,6 +127,9 @@ public class LruCache<K, V> {
 
         synchronized (this) {
             this.maxSize = maxSize;
+            if (policy != null) {
+                policy.setMaxSize(maxSize);
+            }
         }
         trimToSize(maxSize);
     }
@@ -87,6 +149,9 @@ public class LruCache<K, V> {
         V mapValue;
         synchronized (this) {
             mapValue = map.get(key);
+            if (policy != null) {
+                policy.recordAccess(key);
+            }
             if (mapValue != null) {
                 hitCount++;
                 return mapValue;
@@ -114,7 +179,11 @@ public class LruCache<K, V> {
                 // There was a conflict so undo that last put
                 map.put(key, mapValue);
             } else {
-                size += safeSizeOf(key, createdValue);
+                int createdSize = safeSizeOf(key, createdValue);
+                size += createdSize;
+                if (policy != null) {
+                    policy.onAdd(key, createdSize);
+                }
             }
         }
 
@@ -142,11 +211,19 @@ public class LruCache<K, V> {
         V previous;
         synchronized (this) {
             putCount++;
-            size += safeSizeOf(key, value);
+            int valueSize = safeSizeOf(key, value);
+            size += valueSize;
             previous = map.put(key, value);
             if (previous != null) {
                 size -= safeSizeOf(key, previous);
             }
+            if (policy != null) {
+                if (previous != null) {
+                    policy.onUpdate(key, valueSize);
+                } else {
+                    policy.onAdd(key, valueSize);
+                }
+            }
         }
 
         if (previous != null) {
@@ -178,10 +255,16 @@ public class LruCache<K, V> {
                     break;
                 }
 
-                Map.Entry<K, V> toEvict = map.entrySet().iterator().next();
-                key = toEvict.getKey();
-                value = toEvict.getValue();
-                map.remove(key);
+                if (policy != null) {
+                    key = policy.selectVictim();
+                    value = map.remove(key);
+                    policy.onRemove(key);
+                } else {
+                    Map.Entry<K, V> toEvict = map.entrySet().iterator().next();
+                    key = toEvict.getKey();
+                    value = toEvict.getValue();
+                    map.remove(key);
+                }
                 size -= safeSizeOf(key, value);
                 evictionCount++;
             }
@@ -206,6 +289,9 @@ public class LruCache<K, V> {
             previous = map.remove(key);
             if (previous != null) {
                 size -= safeSizeOf(key, previous);
+                if (policy != null) {
+                    policy.onRemove(key);
+                }
             }
         }
 
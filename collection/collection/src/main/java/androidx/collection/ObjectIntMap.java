@@ -0,0 +1,317 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * ObjectIntMap maps Objects to int values using an open-addressing hash table. Unlike
+ * {@link SimpleArrayMap}, which keeps its hash codes sorted, lookups and insertions take constant
+ * time on average instead of needing a binary search and an array copy, which keeps large maps
+ * fast. Values are not boxed and no object is allocated per mapping. Keys may be
+ * <code>null</code>.
+ *
+ * <p>Mappings are stored densely in parallel arrays and can be iterated without allocating, using
+ * {@link #keyAt(int)} and {@link #valueAt(int)} with indices between 0 and {@link #size()} - 1.
+ * The iteration order is unspecified: removing a mapping moves the last mapping into the index it
+ * freed up, so to remove mappings while iterating, iterate from the last index down to 0.</p>
+ *
+ * <p>This class is not thread-safe.</p>
+ */
+public final class ObjectIntMap<K> {
+    // Each slot of the table holds the index of a mapping + 1, or 0 if it is free. The table is
+    // kept at twice the capacity of the mapping arrays, so it is never more than half full.
+    private int[] mTable;
+    private int[] mHashes;
+    private Object[] mKeys;
+    private int[] mValues;
+    private int mSize;
+
+    /**
+     * Creates a new ObjectIntMap containing no mappings. No arrays are allocated until the first
+     * mapping is added.
+     */
+    public ObjectIntMap() {
+        mTable = ContainerHelpers.EMPTY_INTS;
+        mHashes = ContainerHelpers.EMPTY_INTS;
+        mKeys = ContainerHelpers.EMPTY_OBJECTS;
+        mValues = ContainerHelpers.EMPTY_INTS;
+    }
+
+    /**
+     * Creates a new ObjectIntMap containing no mappings that will not require any additional
+     * memory allocation to store the specified number of mappings.
+     */
+    public ObjectIntMap(int initialCapacity) {
+        this();
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity must be >= 0");
+        }
+        if (initialCapacity > 0) {
+            resize(ContainerHelpers.hashCapacity(initialCapacity));
+        }
+    }
+
+    /**
+     * Returns the number of key-value mappings that this ObjectIntMap currently stores.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Return true if size() is 0.
+     * @return true if size() is 0.
+     */
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * Returns true if the specified key is mapped.
+     */
+    public boolean containsKey(@Nullable Object key) {
+        return findSlot(key, ContainerHelpers.hash(key)) >= 0;
+    }
+
+    /**
+     * Gets the value mapped from the specified key, or <code>0</code> if no such mapping has
+     * been made.
+     */
+    public int get(@Nullable Object key) {
+        return get(key, 0);
+    }
+
+    /**
+     * Gets the value mapped from the specified key, or the specified value if no such mapping
+     * has been made.
+     */
+    public int get(@Nullable Object key, int valueIfKeyNotFound) {
+        final int slot = findSlot(key, ContainerHelpers.hash(key));
+        return slot >= 0 ? mValues[mTable[slot] - 1] : valueIfKeyNotFound;
+    }
+
+    /**
+     * Returns the index for which {@link #keyAt} would return the specified key, or -1 if the
+     * specified key is not mapped.
+     */
+    public int indexOfKey(@Nullable Object key) {
+        final int slot = findSlot(key, ContainerHelpers.hash(key));
+        return slot >= 0 ? mTable[slot] - 1 : -1;
+    }
+
+    /**
+     * Adds a mapping from the specified key to the specified value, replacing the previous
+     * mapping from the specified key if there was one.
+     */
+    public void put(K key, int value) {
+        final int hash = ContainerHelpers.hash(key);
+        int slot = findSlot(key, hash);
+        if (slot >= 0) {
+            final int index = mTable[slot] - 1;
+            mValues[index] = value;
+            return;
+        }
+        if (mSize == mKeys.length) {
+            resize(ContainerHelpers.growHashCapacity(mKeys.length));
+            slot = findSlot(key, hash);
+        }
+        final int index = mSize++;
+        mHashes[index] = hash;
+        mKeys[index] = key;
+        mValues[index] = value;
+        mTable[~slot] = index + 1;
+    }
+
+    /**
+     * Removes the mapping from the specified key, if there was any.
+     *
+     * @return true if a mapping was removed
+     */
+    public boolean remove(@Nullable Object key) {
+        final int slot = findSlot(key, ContainerHelpers.hash(key));
+        if (slot < 0) {
+            return false;
+        }
+        removeSlot(slot);
+        return true;
+    }
+
+    /**
+     * Removes the mapping at the given index, moving the last mapping into its place.
+     *
+     * @return the value of the removed mapping
+     */
+    public int removeAt(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        final int value = mValues[index];
+        removeSlot(findIndexSlot(index));
+        return value;
+    }
+
+    /**
+     * Removes all key-value mappings from this ObjectIntMap.
+     */
+    public void clear() {
+        if (mSize > 0) {
+            Arrays.fill(mTable, 0);
+            Arrays.fill(mKeys, 0, mSize, null);
+            mSize = 0;
+        }
+    }
+
+    /**
+     * Ensures this ObjectIntMap can hold at least <var>minimumCapacity</var> mappings without
+     * growing.
+     */
+    public void ensureCapacity(int minimumCapacity) {
+        if (minimumCapacity > mKeys.length) {
+            resize(ContainerHelpers.hashCapacity(minimumCapacity));
+        }
+    }
+
+    /**
+     * Given an index in the range <code>0...size()-1</code>, returns the key from the
+     * <code>index</code>th key-value mapping that this ObjectIntMap stores.
+     */
+    @SuppressWarnings("unchecked")
+    public K keyAt(int index) {
+        return (K) mKeys[index];
+    }
+
+    /**
+     * Given an index in the range <code>0...size()-1</code>, returns the value from the
+     * <code>index</code>th key-value mapping that this ObjectIntMap stores.
+     */
+    public int valueAt(int index) {
+        return mValues[index];
+    }
+
+    /**
+     * Given an index in the range <code>0...size()-1</code>, sets a new value for the
+     * <code>index</code>th key-value mapping that this ObjectIntMap stores.
+     */
+    public void setValueAt(int index, int value) {
+        mValues[index] = value;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This implementation composes a string by iterating over its mappings.
+     */
+    @Override
+    public String toString() {
+        if (mSize <= 0) {
+            return "{}";
+        }
+
+        StringBuilder buffer = new StringBuilder(mSize * 28);
+        buffer.append('{');
+        for (int i = 0; i < mSize; i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+            Object key = mKeys[i];
+            if (key != this) {
+                buffer.append(key);
+            } else {
+                buffer.append("(this Map)");
+            }
+            buffer.append('=');
+            buffer.append(mValues[i]);
+        }
+        buffer.append('}');
+        return buffer.toString();
+    }
+
+    // Returns the slot holding the key, or the bitwise complement of the free slot that ends its
+    // probe sequence if the key isn't mapped.
+    private int findSlot(@Nullable Object key, int hash) {
+        final int[] table = mTable;
+        if (table.length == 0) {
+            return ~0;
+        }
+        final int mask = table.length - 1;
+        int slot = hash & mask;
+        int entry;
+        while ((entry = table[slot]) != 0) {
+            final int index = entry - 1;
+            if (mHashes[index] == hash && ContainerHelpers.equal(key, mKeys[index])) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return ~slot;
+    }
+
+    private int findIndexSlot(int index) {
+        final int[] table = mTable;
+        final int mask = table.length - 1;
+        int slot = mHashes[index] & mask;
+        while (table[slot] != index + 1) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void removeSlot(int slot) {
+        final int[] table = mTable;
+        final int mask = table.length - 1;
+        final int index = table[slot] - 1;
+
+        // Shift the following entries of the probe sequence back, so that lookups never stop
+        // early at the slot that was freed up.
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        int entry;
+        while ((entry = table[next]) != 0) {
+            final int ideal = mHashes[entry - 1] & mask;
+            if (((next - ideal) & mask) >= ((next - hole) & mask)) {
+                table[hole] = entry;
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        table[hole] = 0;
+
+        // Keep the mappings dense by moving the last one into the freed up index.
+        final int last = --mSize;
+        if (index != last) {
+            table[findIndexSlot(last)] = index + 1;
+            mHashes[index] = mHashes[last];
+            mKeys[index] = mKeys[last];
+            mValues[index] = mValues[last];
+        }
+        mKeys[last] = null;
+    }
+
+    private void resize(int capacity) {
+        mHashes = Arrays.copyOf(mHashes, capacity);
+        mKeys = Arrays.copyOf(mKeys, capacity);
+        mValues = Arrays.copyOf(mValues, capacity);
+        final int[] table = new int[capacity * 2];
+        for (int i = 0; i < mSize; i++) {
+            ContainerHelpers.insertIndex(table, mHashes[i], i);
+        }
+        mTable = table;
+    }
+}
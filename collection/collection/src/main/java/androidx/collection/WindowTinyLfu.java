@@ -0,0 +1,229 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import java.util.HashMap;
+
+/**
+ * Decides which entries {@link LruCache} evicts when it uses
+ * {@link LruCache#EVICTION_POLICY_WINDOW_TINY_LFU}.
+ *
+ * <p>New entries are admitted to a small LRU window. Entries that overflow the window move to the
+ * probation segment of the main space, if there is room for them. Once the cache is full, the
+ * least recently used entry of the window competes with the least recently used entry of the
+ * main space, and whichever was seen less often according to a {@link FrequencySketch} is
+ * evicted. Entries that are hit while on probation are promoted to the protected segment, which
+ * keeps most of the main space for entries that were used more than once. This way a single scan
+ * through many keys only churns the window and the probation segment instead of flushing the
+ * working set.
+ *
+ * <p>This class only keeps track of keys and their sizes; it is not thread-safe and relies on
+ * {@link LruCache} to synchronize access to it.
+ */
+final class WindowTinyLfu<K> {
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private static final int WINDOW_PERCENT = 1;
+    private static final int PROTECTED_PERCENT = 80;
+
+    private final HashMap<K, Node<K>> mNodes = new HashMap<>();
+    private final FrequencySketch mSketch = new FrequencySketch();
+    // Sentinels of the circular LRU list of each segment; mNext is the least recently used node.
+    private final Node<K> mWindow = Node.sentinel();
+    private final Node<K> mProbation = Node.sentinel();
+    private final Node<K> mProtected = Node.sentinel();
+
+    private int mMaxSize;
+    private int mWindowMaxSize;
+    private int mProtectedMaxSize;
+    private int mWindowSize;
+    private int mProtectedSize;
+    private int mTotalSize;
+
+    WindowTinyLfu(int maxSize) {
+        setMaxSize(maxSize);
+    }
+
+    void setMaxSize(int maxSize) {
+        mMaxSize = maxSize;
+        mWindowMaxSize = Math.max(1, (int) ((long) maxSize * WINDOW_PERCENT / 100));
+        mProtectedMaxSize = (int) ((long) (maxSize - mWindowMaxSize) * PROTECTED_PERCENT / 100);
+    }
+
+    /**
+     * Records a lookup of the key. Only hits are counted here; a miss is counted once by
+     * {@link #onAdd(Object, int)} when the missing entry is created or put, so that a single
+     * request is never counted twice.
+     */
+    void recordAccess(K key) {
+        Node<K> node = mNodes.get(key);
+        if (node != null) {
+            mSketch.increment(key);
+            onHit(node);
+        }
+    }
+
+    /**
+     * Tracks a new entry, which starts in the window, and counts the request that added it.
+     */
+    void onAdd(K key, int size) {
+        mSketch.increment(key);
+        Node<K> node = new Node<>(key, size);
+        mNodes.put(key, node);
+        node.mSegment = WINDOW;
+        linkLast(mWindow, node);
+        mWindowSize += size;
+        mTotalSize += size;
+        mSketch.ensureCapacity(mNodes.size());
+
+        // Move the overflow of the window to the main space for as long as it has room.
+        final int mainMaxSize = mMaxSize - mWindowMaxSize;
+        while (mWindowSize > mWindowMaxSize) {
+            Node<K> candidate = mWindow.mNext;
+            if (mTotalSize - mWindowSize + candidate.mSize > mainMaxSize) {
+                break;
+            }
+            moveToProbation(candidate);
+        }
+    }
+
+    /**
+     * Updates the size of an entry whose value was replaced, which counts as a hit.
+     */
+    void onUpdate(K key, int size) {
+        Node<K> node = mNodes.get(key);
+        final int delta = size - node.mSize;
+        node.mSize = size;
+        mTotalSize += delta;
+        if (node.mSegment == WINDOW) {
+            mWindowSize += delta;
+        } else if (node.mSegment == PROTECTED) {
+            mProtectedSize += delta;
+        }
+        recordAccess(key);
+    }
+
+    /**
+     * Returns the estimated number of times the key was requested recently.
+     */
+    int frequency(K key) {
+        return mSketch.frequency(key);
+    }
+
+    void onRemove(K key) {
+        Node<K> node = mNodes.remove(key);
+        if (node != null) {
+            unlink(node);
+            mTotalSize -= node.mSize;
+            if (node.mSegment == WINDOW) {
+                mWindowSize -= node.mSize;
+            } else if (node.mSegment == PROTECTED) {
+                mProtectedSize -= node.mSize;
+            }
+        }
+    }
+
+    /**
+     * Returns the key that should be evicted next. Must only be called while there are entries.
+     */
+    K selectVictim() {
+        Node<K> victim = mProbation.mNext;
+        if (victim == mProbation) {
+            victim = mProtected.mNext;
+        }
+        Node<K> candidate = mWindow.mNext;
+        if (victim == mProtected) {
+            // The main space is empty.
+            return candidate.mKey;
+        }
+        if (mWindowSize <= mWindowMaxSize) {
+            return victim.mKey;
+        }
+        if (mSketch.frequency(candidate.mKey) > mSketch.frequency(victim.mKey)) {
+            // The candidate was seen more often, so it replaces the victim in the main space.
+            moveToProbation(candidate);
+            return victim.mKey;
+        }
+        return candidate.mKey;
+    }
+
+    private void onHit(Node<K> node) {
+        switch (node.mSegment) {
+            case WINDOW:
+                unlink(node);
+                linkLast(mWindow, node);
+                break;
+            case PROBATION:
+                unlink(node);
+                node.mSegment = PROTECTED;
+                linkLast(mProtected, node);
+                mProtectedSize += node.mSize;
+                // Demote the least recently used protected entries back to probation.
+                while (mProtectedSize > mProtectedMaxSize && mProtected.mNext != node) {
+                    Node<K> demoted = mProtected.mNext;
+                    unlink(demoted);
+                    mProtectedSize -= demoted.mSize;
+                    demoted.mSegment = PROBATION;
+                    linkLast(mProbation, demoted);
+                }
+                break;
+            default:
+                unlink(node);
+                linkLast(mProtected, node);
+                break;
+        }
+    }
+
+    private void moveToProbation(Node<K> node) {
+        unlink(node);
+        mWindowSize -= node.mSize;
+        node.mSegment = PROBATION;
+        linkLast(mProbation, node);
+    }
+
+    private static <K> void linkLast(Node<K> sentinel, Node<K> node) {
+        node.mPrev = sentinel.mPrev;
+        node.mNext = sentinel;
+        sentinel.mPrev.mNext = node;
+        sentinel.mPrev = node;
+    }
+
+    private static <K> void unlink(Node<K> node) {
+        node.mPrev.mNext = node.mNext;
+        node.mNext.mPrev = node.mPrev;
+    }
+
+    private static final class Node<K> {
+        final K mKey;
+        int mSize;
+        int mSegment;
+        Node<K> mPrev = this;
+        Node<K> mNext = this;
+
+        Node(K key, int size) {
+            mKey = key;
+            mSize = size;
+        }
+
+        @SuppressWarnings("NullAway") // The sentinel never holds a key.
+        static <K> Node<K> sentinel() {
+            return new Node<>(null, 0);
+        }
+    }
+}
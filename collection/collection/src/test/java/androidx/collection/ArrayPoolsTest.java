@@ -0,0 +1,149 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public class ArrayPoolsTest {
+
+    @Before
+    public void setUp() {
+        // Drop the arrays pooled by other tests
+        ArrayPools.setCapacity(0);
+        ArrayPools.setCapacity(ArrayPools.DEFAULT_CAPACITY);
+        ArrayPools.resetStats();
+        ArrayPools.setStatsEnabled(true);
+    }
+
+    @After
+    public void tearDown() {
+        ArrayPools.setStatsEnabled(false);
+        ArrayPools.setCapacity(ArrayPools.DEFAULT_CAPACITY);
+    }
+
+    @Test
+    public void mapArraysAreRecycled() {
+        SimpleArrayMap<String, String> map = new SimpleArrayMap<>();
+        map.put("a", "1");
+        map.clear();
+        ArrayPools.resetStats();
+
+        SimpleArrayMap<String, String> other = new SimpleArrayMap<>();
+        other.put("b", "2");
+        assertEquals(1, ArrayPools.getRecycledAllocationCount());
+        assertEquals(0, ArrayPools.getFreshAllocationCount());
+        assertEquals("2", other.get("b"));
+        assertNull(other.get("a"));
+        assertEquals(1, other.size());
+    }
+
+    @Test
+    public void setArraysAreRecycled() {
+        ArraySet<String> set = new ArraySet<>();
+        for (int i = 0; i < 8; i++) {
+            set.add("v" + i);
+        }
+        set.clear();
+        ArrayPools.resetStats();
+
+        ArraySet<String> other = new ArraySet<>(8);
+        assertEquals(1, ArrayPools.getRecycledAllocationCount());
+        other.add("x");
+        assertEquals(1, other.size());
+        assertTrue(other.contains("x"));
+        for (int i = 0; i < 8; i++) {
+            assertTrue(!other.contains("v" + i));
+        }
+    }
+
+    @Test
+    public void capacityZeroDisablesRecycling() {
+        // Arrays already in this thread's cache must not be handed out either
+        SimpleArrayMap<String, String> cached = new SimpleArrayMap<>();
+        cached.put("a", "1");
+        cached.clear();
+        ArrayPools.setCapacity(0);
+        SimpleArrayMap<String, String> map = new SimpleArrayMap<>();
+        map.put("a", "1");
+        map.clear();
+        ArrayPools.resetStats();
+
+        new SimpleArrayMap<String, String>(4);
+        assertEquals(0, ArrayPools.getRecycledAllocationCount());
+        assertEquals(1, ArrayPools.getFreshAllocationCount());
+
+        // Nothing was kept while recycling was disabled
+        ArrayPools.setCapacity(ArrayPools.DEFAULT_CAPACITY);
+        new SimpleArrayMap<String, String>(4);
+        assertEquals(0, ArrayPools.getRecycledAllocationCount());
+        assertEquals(2, ArrayPools.getFreshAllocationCount());
+    }
+
+    @Test
+    public void spillsToSharedPool() throws InterruptedException {
+        final List<SimpleArrayMap<Integer, Integer>> maps = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            maps.add(new SimpleArrayMap<Integer, Integer>(4));
+        }
+        // Release from another thread, so that its cache fills up and spills into the shared
+        // pool, where this thread can pick the arrays up.
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (SimpleArrayMap<Integer, Integer> map : maps) {
+                    map.put(1, 1);
+                    map.clear();
+                }
+            }
+        });
+        thread.start();
+        thread.join();
+        ArrayPools.resetStats();
+
+        for (int i = 0; i < 6; i++) {
+            new SimpleArrayMap<Integer, Integer>(4);
+        }
+        assertEquals(6, ArrayPools.getRecycledAllocationCount());
+        assertEquals(0, ArrayPools.getFreshAllocationCount());
+    }
+
+    @Test
+    public void statsDisabledByDefault() {
+        ArrayPools.setStatsEnabled(false);
+        new SimpleArrayMap<String, String>(4);
+        new ArraySet<String>(4);
+        assertEquals(0, ArrayPools.getRecycledAllocationCount());
+        assertEquals(0, ArrayPools.getFreshAllocationCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacityOutOfRange() {
+        ArrayPools.setCapacity(ArrayPools.MAX_CAPACITY + 1);
+    }
+}
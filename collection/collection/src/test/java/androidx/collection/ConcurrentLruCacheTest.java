@@ -0,0 +1,208 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(JUnit4.class)
+public class ConcurrentLruCacheTest {
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<>(3);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        assertEquals("A", cache.get("a"));
+        cache.put("d", "D");
+        assertNull(cache.get("b"));
+        assertEquals(Arrays.asList("c", "a", "d"), new ArrayList<>(cache.snapshot().keySet()));
+        assertEquals(1, cache.evictionCount());
+    }
+
+    @Test
+    public void sizeOfIsRespected() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(10) {
+            @Override
+            protected int sizeOf(@NonNull String key, @NonNull String value) {
+                return value.length();
+            }
+        };
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        assertEquals(8, cache.size());
+        cache.put("c", "cccc");
+        assertEquals(8, cache.size());
+        assertNull(cache.get("a"));
+        cache.put("b", "b");
+        assertEquals(5, cache.size());
+    }
+
+    @Test
+    public void entryRemovedIsCalled() {
+        final List<String> log = new ArrayList<>();
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(2) {
+            @Override
+            protected void entryRemoved(boolean evicted, @NonNull String key,
+                    @NonNull String oldValue, @Nullable String newValue) {
+                log.add(key + "=" + oldValue + (evicted ? " evicted" : " -> " + newValue));
+            }
+        };
+        cache.put("a", "A");
+        cache.put("a", "A2");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        cache.remove("b");
+        cache.evictAll();
+        assertEquals(Arrays.asList("a=A -> A2", "a=A2 evicted", "b=B -> null", "c=C evicted"),
+                log);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void statistics() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(2) {
+            @Override
+            protected String create(@NonNull String key) {
+                return key.equals("x") ? null : key.toUpperCase();
+            }
+        };
+        cache.put("a", "A");
+        cache.get("a");
+        cache.get("b");
+        cache.get("x");
+        assertEquals(1, cache.putCount());
+        assertEquals(1, cache.hitCount());
+        assertEquals(2, cache.missCount());
+        assertEquals(1, cache.createCount());
+        assertEquals("ConcurrentLruCache[maxSize=2,hits=1,misses=2,hitRate=33%]",
+                cache.toString());
+    }
+
+    @Test
+    public void resizeTrims() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<>(3);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        cache.resize(1);
+        assertEquals(1, cache.maxSize());
+        assertEquals(Arrays.asList("c"), new ArrayList<>(cache.snapshot().keySet()));
+    }
+
+    @Test
+    public void createIsCalledOncePerKey() throws InterruptedException {
+        final AtomicInteger createCalls = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final ConcurrentLruCache<String, Object> cache =
+                new ConcurrentLruCache<String, Object>(10) {
+                    @Override
+                    protected Object create(@NonNull String key) {
+                        createCalls.incrementAndGet();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            throw new RuntimeException(e);
+                        }
+                        return new Object();
+                    }
+                };
+        final int threadCount = 8;
+        final Object[] results = new Object[threadCount];
+        final CountDownLatch done = new CountDownLatch(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            final int index = i;
+            new Thread() {
+                @Override
+                public void run() {
+                    results[index] = cache.get("key");
+                    done.countDown();
+                }
+            }.start();
+        }
+        // Give the threads time to pile up on the key being created.
+        Thread.sleep(100);
+        release.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(1, createCalls.get());
+        for (Object result : results) {
+            assertSame(results[0], result);
+        }
+    }
+
+    @Test
+    public void failedCreateIsRetried() {
+        final AtomicInteger createCalls = new AtomicInteger();
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(10) {
+            @Override
+            protected String create(@NonNull String key) {
+                if (createCalls.incrementAndGet() == 1) {
+                    throw new IllegalStateException();
+                }
+                return key;
+            }
+        };
+        try {
+            cache.get("a");
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        assertEquals("a", cache.get("a"));
+    }
+
+    @Test
+    public void concurrentAccessKeepsSizeConsistent() throws InterruptedException {
+        final ConcurrentLruCache<Integer, Integer> cache = new ConcurrentLruCache<>(100);
+        final int threadCount = 8;
+        final CountDownLatch done = new CountDownLatch(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            final int seed = i;
+            new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10_000; j++) {
+                        int key = (j * 31 + seed) % 300;
+                        if (cache.get(key) == null) {
+                            cache.put(key, key);
+                        }
+                    }
+                    done.countDown();
+                }
+            }.start();
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertEquals(100, cache.size());
+        assertEquals(100, cache.snapshot().size());
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.HashMap;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class IntIntMapTest {
+    @Test
+    public void putAndGet() {
+        IntIntMap map = new IntIntMap();
+        map.put(1, 1);
+        map.put(2, 2);
+        map.put(1, 3);
+        assertEquals(2, map.size());
+        assertEquals(3, map.get(1));
+        assertEquals(2, map.get(2));
+        assertEquals(0, map.get(3));
+        assertEquals(-1, map.get(3, -1));
+        assertFalse(map.containsKey(3));
+    }
+
+    @Test
+    public void remove() {
+        IntIntMap map = new IntIntMap();
+        map.put(1, 1);
+        map.put(2, 2);
+        assertTrue(map.remove(1));
+        assertFalse(map.remove(1));
+        assertEquals(1, map.size());
+        assertFalse(map.containsKey(1));
+        assertTrue(map.containsKey(2));
+    }
+
+    @Test
+    public void removeAtMovesLastMapping() {
+        IntIntMap map = new IntIntMap();
+        map.put(1, 1);
+        map.put(2, 2);
+        map.put(3, 3);
+        assertEquals(1, map.removeAt(map.indexOfKey(1)));
+        assertEquals(2, map.size());
+        assertEquals(0, map.indexOfKey(3));
+        assertEquals(3, map.keyAt(0));
+        assertEquals(3, map.valueAt(0));
+        assertEquals(-1, map.indexOfKey(1));
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void removeAtOutOfBounds() {
+        IntIntMap map = new IntIntMap(10);
+        map.put(1, 1);
+        map.removeAt(1);
+    }
+
+    @Test
+    public void clear() {
+        IntIntMap map = new IntIntMap();
+        map.put(1, 1);
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(1));
+        assertEquals("{}", map.toString());
+    }
+
+    @Test
+    public void matchesHashMap() {
+        IntIntMap map = new IntIntMap();
+        HashMap<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(0);
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(2_000) * 65536;
+            if (random.nextInt(3) == 0) {
+                map.remove(key);
+                expected.remove(key);
+            } else {
+                map.put(key, i);
+                expected.put(key, i);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (int i = 0; i < map.size(); i++) {
+            assertEquals(expected.get(map.keyAt(i)), (Integer) map.valueAt(i));
+            assertEquals(i, map.indexOfKey(map.keyAt(i)));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.HashSet;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class IntSetTest {
+    @Test
+    public void addAndContains() {
+        IntSet set = new IntSet();
+        assertTrue(set.add(1));
+        assertTrue(set.add(2));
+        assertFalse(set.add(1));
+        assertEquals(2, set.size());
+        assertTrue(set.contains(1));
+        assertFalse(set.contains(3));
+    }
+
+    @Test
+    public void remove() {
+        IntSet set = new IntSet();
+        set.add(1);
+        set.add(2);
+        assertTrue(set.remove(1));
+        assertFalse(set.remove(1));
+        assertEquals(1, set.size());
+        assertEquals(2, set.valueAt(0));
+    }
+
+    @Test
+    public void removeAtMovesLastValue() {
+        IntSet set = new IntSet();
+        set.add(1);
+        set.add(2);
+        set.add(3);
+        set.removeAt(set.indexOf(1));
+        assertEquals(2, set.size());
+        assertEquals(0, set.indexOf(3));
+        assertEquals(-1, set.indexOf(1));
+    }
+
+    @Test
+    public void clear() {
+        IntSet set = new IntSet(10);
+        set.add(1);
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(1));
+        assertEquals("{}", set.toString());
+    }
+
+    @Test
+    public void matchesHashSet() {
+        IntSet set = new IntSet();
+        HashSet<Integer> expected = new HashSet<>();
+        Random random = new Random(0);
+        for (int i = 0; i < 100_000; i++) {
+            int value = random.nextInt(2_000) * 65536;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+        }
+        assertEquals(expected.size(), set.size());
+        for (int i = 0; i < set.size(); i++) {
+            assertTrue(expected.contains(set.valueAt(i)));
+            assertEquals(i, set.indexOf(set.valueAt(i)));
+        }
+    }
+}
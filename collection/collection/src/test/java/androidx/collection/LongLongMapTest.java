@@ -0,0 +1,110 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.HashMap;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class LongLongMapTest {
+    @Test
+    public void putAndGet() {
+        LongLongMap map = new LongLongMap();
+        map.put(1L, 1L);
+        map.put(2L, 2L);
+        map.put(1L, 3L);
+        assertEquals(2, map.size());
+        assertEquals(3L, map.get(1L));
+        assertEquals(2L, map.get(2L));
+        assertEquals(0, map.get(3L));
+        assertEquals(-1, map.get(3L, -1));
+        assertFalse(map.containsKey(3L));
+    }
+
+    @Test
+    public void remove() {
+        LongLongMap map = new LongLongMap();
+        map.put(1L, 1L);
+        map.put(2L, 2L);
+        assertTrue(map.remove(1L));
+        assertFalse(map.remove(1L));
+        assertEquals(1, map.size());
+        assertFalse(map.containsKey(1L));
+        assertTrue(map.containsKey(2L));
+    }
+
+    @Test
+    public void removeAtMovesLastMapping() {
+        LongLongMap map = new LongLongMap();
+        map.put(1L, 1L);
+        map.put(2L, 2L);
+        map.put(3L, 3L);
+        assertEquals(1L, map.removeAt(map.indexOfKey(1L)));
+        assertEquals(2, map.size());
+        assertEquals(0, map.indexOfKey(3L));
+        assertEquals(3L, map.keyAt(0));
+        assertEquals(3L, map.valueAt(0));
+        assertEquals(-1, map.indexOfKey(1L));
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void removeAtOutOfBounds() {
+        LongLongMap map = new LongLongMap(10);
+        map.put(1L, 1L);
+        map.removeAt(1);
+    }
+
+    @Test
+    public void clear() {
+        LongLongMap map = new LongLongMap();
+        map.put(1L, 1L);
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(1L));
+        assertEquals("{}", map.toString());
+    }
+
+    @Test
+    public void matchesHashMap() {
+        LongLongMap map = new LongLongMap();
+        HashMap<Long, Long> expected = new HashMap<>();
+        Random random = new Random(0);
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(2_000) * 0x100000000L;
+            if (random.nextInt(3) == 0) {
+                map.remove(key);
+                expected.remove(key);
+            } else {
+                map.put(key, i);
+                expected.put(key, (long) i);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (int i = 0; i < map.size(); i++) {
+            assertEquals(expected.get(map.keyAt(i)), (Long) map.valueAt(i));
+            assertEquals(i, map.indexOfKey(map.keyAt(i)));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.HashSet;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class LongSetTest {
+    @Test
+    public void addAndContains() {
+        LongSet set = new LongSet();
+        assertTrue(set.add(1L));
+        assertTrue(set.add(2L));
+        assertFalse(set.add(1L));
+        assertEquals(2, set.size());
+        assertTrue(set.contains(1L));
+        assertFalse(set.contains(3L));
+    }
+
+    @Test
+    public void remove() {
+        LongSet set = new LongSet();
+        set.add(1L);
+        set.add(2L);
+        assertTrue(set.remove(1L));
+        assertFalse(set.remove(1L));
+        assertEquals(1, set.size());
+        assertEquals(2L, set.valueAt(0));
+    }
+
+    @Test
+    public void removeAtMovesLastValue() {
+        LongSet set = new LongSet();
+        set.add(1L);
+        set.add(2L);
+        set.add(3L);
+        set.removeAt(set.indexOf(1L));
+        assertEquals(2, set.size());
+        assertEquals(0, set.indexOf(3L));
+        assertEquals(-1, set.indexOf(1L));
+    }
+
+    @Test
+    public void clear() {
+        LongSet set = new LongSet(10);
+        set.add(1L);
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(1L));
+        assertEquals("{}", set.toString());
+    }
+
+    @Test
+    public void matchesHashSet() {
+        LongSet set = new LongSet();
+        HashSet<Long> expected = new HashSet<>();
+        Random random = new Random(0);
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextInt(2_000) * 0x100000000L;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+        }
+        assertEquals(expected.size(), set.size());
+        for (int i = 0; i < set.size(); i++) {
+            assertTrue(expected.contains(set.valueAt(i)));
+            assertEquals(i, set.indexOf(set.valueAt(i)));
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.HashMap;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class ObjectIntMapTest {
+    @Test
+    public void putAndGet() {
+        ObjectIntMap<String> map = new ObjectIntMap<>();
+        map.put("one", 1);
+        map.put("two", 2);
+        map.put("one", 3);
+        assertEquals(2, map.size());
+        assertEquals(3, map.get("one"));
+        assertEquals(2, map.get("two"));
+        assertEquals(0, map.get("three"));
+        assertEquals(-1, map.get("three", -1));
+        assertFalse(map.containsKey("three"));
+    }
+
+    @Test
+    public void nullKey() {
+        ObjectIntMap<String> map = new ObjectIntMap<>();
+        assertFalse(map.containsKey(null));
+        map.put(null, 1);
+        assertTrue(map.containsKey(null));
+        assertEquals(1, map.get(null));
+        assertNull(map.keyAt(map.indexOfKey(null)));
+        assertTrue(map.remove(null));
+        assertFalse(map.containsKey(null));
+    }
+
+    @Test
+    public void collidingHashCodes() {
+        ObjectIntMap<String> map = new ObjectIntMap<>();
+        // "Aa" and "BB" have the same hash code.
+        map.put("Aa", 1);
+        map.put("BB", 2);
+        assertEquals(1, map.get("Aa"));
+        assertEquals(2, map.get("BB"));
+        assertTrue(map.remove("Aa"));
+        assertEquals(2, map.get("BB"));
+    }
+
+    @Test
+    public void removeAtMovesLastMapping() {
+        ObjectIntMap<String> map = new ObjectIntMap<>();
+        map.put("one", 1);
+        map.put("two", 2);
+        map.put("three", 3);
+        assertEquals(1, map.removeAt(map.indexOfKey("one")));
+        assertEquals(2, map.size());
+        assertEquals(0, map.indexOfKey("three"));
+        assertEquals("three", map.keyAt(0));
+        assertEquals(3, map.valueAt(0));
+        assertEquals(-1, map.indexOfKey("one"));
+    }
+
+    @Test
+    public void clear() {
+        ObjectIntMap<String> map = new ObjectIntMap<>();
+        map.put("one", 1);
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey("one"));
+        assertEquals("{}", map.toString());
+    }
+
+    @Test
+    public void matchesHashMap() {
+        ObjectIntMap<String> map = new ObjectIntMap<>();
+        HashMap<String, Integer> expected = new HashMap<>();
+        Random random = new Random(0);
+        for (int i = 0; i < 100_000; i++) {
+            String key = "key" + random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                map.remove(key);
+                expected.remove(key);
+            } else {
+                map.put(key, i);
+                expected.put(key, i);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (int i = 0; i < map.size(); i++) {
+            assertEquals(expected.get(map.keyAt(i)), (Integer) map.valueAt(i));
+            assertEquals(i, map.indexOfKey(map.keyAt(i)));
+        }
+    }
+}
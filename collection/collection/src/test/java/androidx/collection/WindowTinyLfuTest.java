@@ -0,0 +1,160 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class WindowTinyLfuTest {
+    @Test
+    public void sketchCountsFrequencies() {
+        FrequencySketch sketch = new FrequencySketch();
+        for (int i = 0; i < 5; i++) {
+            sketch.increment("a");
+        }
+        sketch.increment("b");
+        assertEquals(5, sketch.frequency("a"));
+        assertEquals(1, sketch.frequency("b"));
+        for (int i = 0; i < 20; i++) {
+            sketch.increment("a");
+        }
+        assertEquals(15, sketch.frequency("a"));
+    }
+
+    @Test
+    public void sketchAgesFrequencies() {
+        FrequencySketch sketch = new FrequencySketch();
+        sketch.ensureCapacity(1024);
+        for (int i = 0; i < 8; i++) {
+            sketch.increment("a");
+        }
+        // Once enough increments are sampled, all counters are halved.
+        int increments = 0;
+        while (sketch.frequency("a") >= 8 && increments < 20 * sketch.capacity()) {
+            sketch.increment(increments++);
+        }
+        assertTrue(sketch.frequency("a") < 8);
+        assertTrue(increments <= 10 * sketch.capacity());
+    }
+
+    @Test
+    public void keepsSizeAndStatistics() {
+        LruCache<String, String> cache =
+                new LruCache<>(3, LruCache.EVICTION_POLICY_WINDOW_TINY_LFU);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        cache.put("d", "D");
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.evictionCount());
+        assertEquals(3, cache.snapshot().size());
+        assertEquals("D", cache.remove("d"));
+        assertEquals(2, cache.size());
+        cache.evictAll();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void sizeOfIsRespected() {
+        LruCache<String, String> cache =
+                new LruCache<String, String>(10, LruCache.EVICTION_POLICY_WINDOW_TINY_LFU) {
+                    @Override
+                    protected int sizeOf(@NonNull String key, @NonNull String value) {
+                        return value.length();
+                    }
+                };
+        for (int i = 0; i < 20; i++) {
+            cache.put("key" + i, "vvv");
+            assertTrue(cache.size() <= 10);
+        }
+        cache.put("key19", "v");
+        assertTrue(cache.size() <= 10);
+        cache.resize(2);
+        assertTrue(cache.size() <= 2);
+    }
+
+    @Test
+    public void scanDoesNotFlushWorkingSet() {
+        LruCache<Integer, Integer> lru = new LruCache<>(100);
+        LruCache<Integer, Integer> tinyLfu =
+                new LruCache<>(100, LruCache.EVICTION_POLICY_WINDOW_TINY_LFU);
+        for (int round = 0; round < 10; round++) {
+            for (int key = 0; key < 50; key++) {
+                access(lru, key);
+                access(tinyLfu, key);
+            }
+        }
+        // A scan over keys that are only requested once.
+        for (int key = 1000; key < 2000; key++) {
+            access(lru, key);
+            access(tinyLfu, key);
+        }
+        int lruHits = 0;
+        int tinyLfuHits = 0;
+        for (int key = 0; key < 50; key++) {
+            lruHits += lru.get(key) != null ? 1 : 0;
+            tinyLfuHits += tinyLfu.get(key) != null ? 1 : 0;
+        }
+        assertEquals(0, lruHits);
+        assertTrue(tinyLfuHits >= 45);
+    }
+
+    @Test
+    public void admitsNewEntriesWhileNotFull() {
+        LruCache<Integer, Integer> cache =
+                new LruCache<>(100, LruCache.EVICTION_POLICY_WINDOW_TINY_LFU);
+        for (int key = 0; key < 100; key++) {
+            cache.put(key, key);
+        }
+        for (int key = 0; key < 100; key++) {
+            assertNotNull(cache.get(key));
+        }
+        assertNull(cache.get(100));
+        assertEquals(0, cache.evictionCount());
+    }
+
+    @Test
+    public void countsEachRequestOnce() {
+        WindowTinyLfu<String> policy = new WindowTinyLfu<>(10);
+        // A miss that is then created or put, as done by LruCache.get() and by callers.
+        policy.recordAccess("a");
+        policy.onAdd("a", 1);
+        assertEquals(1, policy.frequency("a"));
+        policy.recordAccess("a");
+        assertEquals(2, policy.frequency("a"));
+        policy.onUpdate("a", 1);
+        assertEquals(3, policy.frequency("a"));
+        // A miss that is never added is not counted.
+        policy.recordAccess("b");
+        assertEquals(0, policy.frequency("b"));
+    }
+
+    private static void access(LruCache<Integer, Integer> cache, int key) {
+        if (cache.get(key) == null) {
+            cache.put(key, key);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package androidx.emoji.benchmark
+
+import android.content.Context
+import androidx.emoji.bundled.BundledEmojiCompatConfig
+import androidx.emoji.text.EmojiCompat
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+private val WORDS = arrayOf(
+    "hey", "are you coming tonight", "sounds good", "lol", "see you at eight",
+    "running late", "happy birthday", "thanks", "where are you", "on my way"
+)
+
+internal val EMOJI = arrayOf(
+    // grinning face
+    intArrayOf(0x1F600),
+    // red heart, emoji style
+    intArrayOf(0x2764, 0xFE0F),
+    // thumbs up, medium skin tone
+    intArrayOf(0x1F44D, 0x1F3FD),
+    // family: man, woman, girl, boy
+    intArrayOf(0x1F468, 0x200D, 0x1F469, 0x200D, 0x1F467, 0x200D, 0x1F466),
+    // face with tears of joy
+    intArrayOf(0x1F602),
+    // flag: Japan
+    intArrayOf(0x1F1EF, 0x1F1F5),
+    // woman technologist, dark skin tone
+    intArrayOf(0x1F469, 0x1F3FF, 0x200D, 0x1F4BB),
+    // party popper
+    intArrayOf(0x1F389)
+).map { String(it, 0, it.size) }
+
+/**
+ * Initializes [EmojiCompat] with the bundled font, replacing all emojis, and waits for it to load.
+ */
+internal fun initEmojiCompat(context: Context) {
+    val config = BundledEmojiCompatConfig(context).setReplaceAll(true)
+    val latch = CountDownLatch(1)
+    EmojiCompat.init(config).registerInitCallback(object : EmojiCompat.InitCallback() {
+        override fun onInitialized() {
+            latch.countDown()
+        }
+    })
+    assertTrue(latch.await(10, TimeUnit.SECONDS))
+    assertEquals(EmojiCompat.LOAD_STATE_SUCCEEDED, EmojiCompat.get().loadState)
+}
+
+/**
+ * Returns a chat history of [messageCount] lines, two thirds of which contain an emoji.
+ */
+internal fun createChatHistory(messageCount: Int): String {
+    val builder = StringBuilder()
+    for (i in 0 until messageCount) {
+        builder.append(WORDS[i % WORDS.size]).append(' ')
+        builder.append(WORDS[(i * 7 + 3) % WORDS.size]).append(' ')
+        if (i % 3 != 0) {
+            builder.append(EMOJI[i % EMOJI.size])
+        }
+        builder.append(WORDS[(i * 5 + 1) % WORDS.size]).append('\n')
+    }
+    return builder.toString()
+}
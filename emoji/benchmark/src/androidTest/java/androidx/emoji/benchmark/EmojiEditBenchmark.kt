@@ -0,0 +1,109 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package androidx.emoji.benchmark
+
+import android.annotation.SuppressLint
+import android.content.Context
+import android.os.Build
+import android.text.SpannableStringBuilder
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.emoji.text.EmojiCompat
+import androidx.emoji.text.EmojiSpan
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.LargeTest
+import androidx.test.filters.SdkSuppress
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+/**
+ * Measures the latency of processing a single edit of a ~100KB chat history the way
+ * `EmojiTextWatcher` does, typing either a letter or an emoji next to an existing emoji, with
+ * [EmojiCompat.process] and with the incremental [EmojiCompat.processEdit].
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+@SdkSuppress(minSdkVersion = Build.VERSION_CODES.KITKAT)
+@SuppressLint("RestrictedApi")
+class EmojiEditBenchmark(private val incremental: Boolean) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val context = ApplicationProvider.getApplicationContext<Context>()
+    private lateinit var text: SpannableStringBuilder
+    private lateinit var editOffsets: IntArray
+
+    @Before
+    fun setup() {
+        initEmojiCompat(context)
+        text = SpannableStringBuilder(createChatHistory(MESSAGE_COUNT))
+        EmojiCompat.get().process(text)
+        // Edit right after each of the emojis in turn.
+        val spans = text.getSpans(0, text.length, EmojiSpan::class.java)
+        editOffsets = spans.map { text.getSpanEnd(it) }.sorted().toIntArray()
+    }
+
+    @Test
+    fun typeLetter() {
+        measureEdits("a")
+    }
+
+    @Test
+    fun typeEmoji() {
+        measureEdits(EMOJI[0])
+    }
+
+    private fun measureEdits(insertion: String) {
+        val emojiCount = editOffsets.size
+        var index = 0
+        benchmarkRule.measureRepeated {
+            val start = editOffsets[index++ % editOffsets.size]
+            val end = start + insertion.length
+            runWithTimingDisabled {
+                text.insert(start, insertion)
+            }
+            if (incremental) {
+                EmojiCompat.get().processEdit(
+                    text, start, end, Int.MAX_VALUE, EmojiCompat.REPLACE_STRATEGY_DEFAULT
+                )
+            } else {
+                EmojiCompat.get().process(
+                    text, start, end, Int.MAX_VALUE, EmojiCompat.REPLACE_STRATEGY_DEFAULT
+                )
+            }
+            runWithTimingDisabled {
+                text.delete(start, end)
+                assertEquals(emojiCount, text.getSpans(0, text.length, EmojiSpan::class.java).size)
+            }
+        }
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "incremental={0}")
+        fun data(): List<Array<Any>> = listOf(false, true).map { arrayOf<Any>(it) }
+
+        // Roughly 100KB of text.
+        private const val MESSAGE_COUNT = 2500
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package androidx.emoji.benchmark
+
+import android.content.Context
+import android.os.Build
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.emoji.text.EmojiCompat
+import androidx.emoji.text.MetadataRepo
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import androidx.test.filters.SdkSuppress
+import org.junit.Assert.assertNotSame
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Measures loading the bundled emoji metadata, and adding emoji spans to a chat history that mixes
+ * plain text with single codepoint emoji, variation selectors, skin tones and ZWJ sequences.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4::class)
+@SdkSuppress(minSdkVersion = Build.VERSION_CODES.KITKAT)
+class EmojiProcessBenchmark {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val context = ApplicationProvider.getApplicationContext<Context>()
+
+    @Before
+    fun setup() {
+        initEmojiCompat(context)
+    }
+
+    @Test
+    fun createMetadataRepo() {
+        benchmarkRule.measureRepeated {
+            MetadataRepo.create(context.assets, FONT_NAME)
+        }
+    }
+
+    @Test
+    fun processChatHistory() {
+        val text = createChatHistory(MESSAGE_COUNT)
+        benchmarkRule.measureRepeated {
+            assertNotSame(text, EmojiCompat.get().process(text))
+        }
+    }
+
+    @Test
+    fun processPlainText() {
+        val text = createChatHistory(MESSAGE_COUNT).replace(Regex("[^\\p{Alpha} ]"), "")
+        benchmarkRule.measureRepeated {
+            EmojiCompat.get().process(text)
+        }
+    }
+
+    companion object {
+        private const val FONT_NAME = "NotoColorEmojiCompat.ttf"
+        private const val MESSAGE_COUNT = 500
+    }
+}
@@ -19,6 +19,7 @@ import static androidx.emoji.util.Emoji.CHAR_DEFAULT_EMOJI_STYLE;
 import static androidx.emoji.util.Emoji.CHAR_DEFAULT_TEXT_STYLE;
 import static androidx.emoji.util.Emoji.CHAR_DIGIT;
 import static androidx.emoji.util.Emoji.CHAR_FITZPATRICK;
+import static androidx.emoji.util.Emoji.CHAR_KEYCAP;
 import static androidx.emoji.util.Emoji.CHAR_VS_EMOJI;
 import static androidx.emoji.util.Emoji.CHAR_VS_TEXT;
 import static androidx.emoji.util.Emoji.DEFAULT_TEXT_STYLE;
@@ -406,6 +407,43 @@ public class EmojiCompatTest {
         }
     }
 
+    @Test
+    @SdkSuppress(minSdkVersion = 19)
+    public void testProcessEdit_keepsUnchangedEmojiSpans() {
+        final Editable editable = new SpannableStringBuilder(
+                new TestString(EMOJI_SINGLE_CODEPOINT).withPrefix().toString());
+        EmojiCompat.get().process(editable);
+        assertThat(editable, hasEmojiCount(1));
+        final EmojiSpan span = editable.getSpans(0, editable.length(), EmojiSpan.class)[0];
+
+        final int start = editable.length();
+        editable.append(new TestString(EMOJI_SINGLE_CODEPOINT).withSuffix().toString());
+        EmojiCompat.get().processEdit(editable, start, editable.length(),
+                EmojiCompat.EMOJI_COUNT_UNLIMITED, EmojiCompat.REPLACE_STRATEGY_DEFAULT);
+
+        assertThat(editable, hasEmojiCount(2));
+        assertThat(editable, hasEmojiAt(EMOJI_SINGLE_CODEPOINT, start,
+                start + EMOJI_SINGLE_CODEPOINT.charCount()));
+        final EmojiSpan[] spans = editable.getSpans(0, start, EmojiSpan.class);
+        assertEquals(1, spans.length);
+        assertSame(span, spans[0]);
+    }
+
+    @Test
+    @SdkSuppress(minSdkVersion = 19)
+    public void testProcessEdit_completesSequenceBeforeEdit() {
+        final Editable editable = new SpannableStringBuilder(
+                new TestString(CHAR_DIGIT).withPrefix().toString());
+        final int start = editable.length();
+        editable.append(new TestString(CHAR_KEYCAP).toString());
+
+        EmojiCompat.get().processEdit(editable, start, editable.length(),
+                EmojiCompat.EMOJI_COUNT_UNLIMITED, EmojiCompat.REPLACE_STRATEGY_DEFAULT);
+
+        assertThat(editable, hasEmojiCount(1));
+        assertThat(editable, hasEmojiAt(EMOJI_DIGIT_KEYCAP, start - 1, editable.length()));
+    }
+
     @SuppressLint("Range")
     @Test(expected = IllegalArgumentException.class)
     public void testProcess_throwsException_withMaxEmojiSetToNegative() {
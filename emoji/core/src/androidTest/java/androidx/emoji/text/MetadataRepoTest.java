@@ -92,16 +92,43 @@ public class MetadataRepoTest {
         assertEquals(null, getNode(new int[]{1, 2, 3, 4, 5}));
     }
 
-    final EmojiMetadata getNode(final int[] codepoints) {
-        return getNode(mMetadataRepo.getRootNode(), codepoints, 0);
+    @Test
+    public void testPut_sameCodePoints() {
+        final int[] codePoint = new int[]{1, 2};
+        final EmojiMetadata metadata1 = new TestEmojiMetadata(codePoint);
+        final EmojiMetadata metadata2 = new TestEmojiMetadata(codePoint);
+
+        mMetadataRepo.put(metadata1);
+        mMetadataRepo.put(metadata2);
+
+        assertSame(metadata2, getNode(codePoint));
     }
 
-    final EmojiMetadata getNode(MetadataRepo.Node node, final int[] codepoints, int start) {
-        if (codepoints.length < start) return null;
-        if (codepoints.length == start) return node.getData();
+    @Test
+    public void testPut_branchingCodePoints() {
+        final int[][] codePoints = new int[][]{{5, 1}, {3}, {5, 2, 7}, {1, 4}, {5, 2}, {3, 9}};
+        final EmojiMetadata[] metadata = new EmojiMetadata[codePoints.length];
+        for (int i = 0; i < codePoints.length; i++) {
+            metadata[i] = new TestEmojiMetadata(codePoints[i]);
+            mMetadataRepo.put(metadata[i]);
+        }
+
+        for (int i = 0; i < codePoints.length; i++) {
+            assertSame(metadata[i], getNode(codePoints[i]));
+        }
+        assertEquals(null, getNode(new int[]{5}));
+        assertEquals(null, getNode(new int[]{1}));
+        assertEquals(null, getNode(new int[]{2}));
+        assertEquals(null, getNode(new int[]{5, 3}));
+        assertEquals(null, getNode(new int[]{3, 9, 1}));
+    }
 
-        final MetadataRepo.Node childNode = node.get(codepoints[start]);
-        if (childNode == null) return null;
-        return getNode(childNode, codepoints, start + 1);
+    final EmojiMetadata getNode(final int[] codepoints) {
+        int node = MetadataRepo.ROOT_NODE;
+        for (int codepoint : codepoints) {
+            node = mMetadataRepo.getChild(node, codepoint);
+            if (node == MetadataRepo.NO_NODE) return null;
+        }
+        return mMetadataRepo.getData(node);
     }
 }
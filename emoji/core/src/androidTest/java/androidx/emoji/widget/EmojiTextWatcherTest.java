@@ -55,14 +55,14 @@ public class EmojiTextWatcherTest {
     }
 
     @Test
-    public void testOnTextChanged_callsProcess() {
+    public void testOnTextChanged_callsProcessEdit() {
         final Spannable testString = new SpannableString("abc");
         when(mEmojiCompat.getLoadState()).thenReturn(EmojiCompat.LOAD_STATE_SUCCEEDED);
 
         mTextWatcher.onTextChanged(testString, 0, 0, 1);
 
-        verify(mEmojiCompat, times(1)).process(sameCharSequence(testString), eq(0), eq(1),
-                eq(Integer.MAX_VALUE), anyInt());
+        verify(mEmojiCompat, times(1)).processEdit(sameCharSequence(testString), eq(0),
+                eq(1), eq(Integer.MAX_VALUE), anyInt());
         verify(mEmojiCompat, times(0)).registerInitCallback(any(EmojiCompat.InitCallback.class));
     }
 
@@ -73,8 +73,8 @@ public class EmojiTextWatcherTest {
 
         mTextWatcher.onTextChanged(testString, 0, 0, 1);
 
-        verify(mEmojiCompat, times(0)).process(any(Spannable.class), anyInt(), anyInt(), anyInt(),
-                anyInt());
+        verify(mEmojiCompat, times(0)).processEdit(any(Spannable.class), anyInt(), anyInt(),
+                anyInt(), anyInt());
         verify(mEmojiCompat, times(1)).registerInitCallback(any(EmojiCompat.InitCallback.class));
     }
 
@@ -85,8 +85,8 @@ public class EmojiTextWatcherTest {
 
         mTextWatcher.onTextChanged(testString, 0, 0, 1);
 
-        verify(mEmojiCompat, times(0)).process(any(Spannable.class), anyInt(), anyInt(), anyInt(),
-                anyInt());
+        verify(mEmojiCompat, times(0)).processEdit(any(Spannable.class), anyInt(), anyInt(),
+                anyInt(), anyInt());
         verify(mEmojiCompat, times(0)).registerInitCallback(any(EmojiCompat.InitCallback.class));
     }
 
@@ -99,15 +99,15 @@ public class EmojiTextWatcherTest {
 
         mTextWatcher.onTextChanged(testString, 0, 0, 1);
 
-        verify(mEmojiCompat, times(1)).process(any(Spannable.class), anyInt(), anyInt(), anyInt(),
-                eq(EmojiCompat.REPLACE_STRATEGY_DEFAULT));
+        verify(mEmojiCompat, times(1)).processEdit(any(Spannable.class), anyInt(), anyInt(),
+                anyInt(), eq(EmojiCompat.REPLACE_STRATEGY_DEFAULT));
 
         mTextWatcher.setEmojiReplaceStrategy(EmojiCompat.REPLACE_STRATEGY_ALL);
 
         mTextWatcher.onTextChanged(testString, 0, 0, 1);
 
-        verify(mEmojiCompat, times(1)).process(any(Spannable.class), anyInt(), anyInt(), anyInt(),
-                eq(EmojiCompat.REPLACE_STRATEGY_ALL));
+        verify(mEmojiCompat, times(1)).processEdit(any(Spannable.class), anyInt(), anyInt(),
+                anyInt(), eq(EmojiCompat.REPLACE_STRATEGY_ALL));
     }
 
     @Test
@@ -117,7 +117,8 @@ public class EmojiTextWatcherTest {
 
         mTextWatcher.onTextChanged(testString, 0, 0, 1);
 
-        verify(mEmojiCompat, times(0)).process(any(Spannable.class), anyInt(), anyInt());
+        verify(mEmojiCompat, times(0)).processEdit(any(Spannable.class), anyInt(), anyInt(),
+                anyInt(), anyInt());
         verify(mEmojiCompat, times(1)).registerInitCallback(any(EmojiCompat.InitCallback.class));
     }
 }
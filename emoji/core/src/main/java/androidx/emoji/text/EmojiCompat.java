@@ -22,6 +22,7 @@ import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
 import android.text.Editable;
+import android.text.Spannable;
 import android.text.method.KeyListener;
 import android.view.KeyEvent;
 import android.view.inputmethod.EditorInfo;
@@ -739,6 +740,37 @@ public class EmojiCompat {
     public CharSequence process(@NonNull final CharSequence charSequence,
             @IntRange(from = 0) final int start, @IntRange(from = 0) final int end,
             @IntRange(from = 0) final int maxEmojiCount, @ReplaceStrategy int replaceStrategy) {
+        return process(charSequence, start, end, maxEmojiCount, replaceStrategy, false);
+    }
+
+    /**
+     * Adds EmojiSpans to the range of a Spannable that has just been edited. Unlike
+     * {@link #process(CharSequence, int, int, int, int)}, also reprocesses the codepoints right
+     * before and after the range that the edit may have turned into an emoji, such as the other
+     * half of a flag, and keeps the EmojiSpans of emojis that did not change instead of replacing
+     * them with new instances.
+     *
+     * @param spannable Spannable that was edited
+     * @param start start index of the edited range
+     * @param end end index of the edited range
+     * @param maxEmojiCount maximum number of emojis in the {@code spannable}
+     * @param replaceStrategy whether to replace all emoji with {@link EmojiSpan}s
+     *
+     * @see #process(CharSequence, int, int, int, int)
+     *
+     * @hide
+     */
+    @RestrictTo(LIBRARY_GROUP_PREFIX)
+    public void processEdit(@NonNull final Spannable spannable,
+            @IntRange(from = 0) final int start, @IntRange(from = 0) final int end,
+            @IntRange(from = 0) final int maxEmojiCount, @ReplaceStrategy int replaceStrategy) {
+        process(spannable, start, end, maxEmojiCount, replaceStrategy, true);
+    }
+
+    private CharSequence process(@NonNull final CharSequence charSequence,
+            @IntRange(from = 0) final int start, @IntRange(from = 0) final int end,
+            @IntRange(from = 0) final int maxEmojiCount, @ReplaceStrategy int replaceStrategy,
+            final boolean incremental) {
         Preconditions.checkState(isInitialized(), "Not initialized yet");
         Preconditions.checkArgumentNonnegative(start, "start cannot be negative");
         Preconditions.checkArgumentNonnegative(end, "end cannot be negative");
@@ -775,7 +807,8 @@ public class EmojiCompat {
                 break;
         }
 
-        return mHelper.process(charSequence, start, end, maxEmojiCount, replaceAll);
+        return mHelper.process(charSequence, start, end, maxEmojiCount, replaceAll,
+                incremental);
     }
 
     /**
@@ -1164,7 +1197,8 @@ public class EmojiCompat {
 
         CharSequence process(@NonNull final CharSequence charSequence,
                 @IntRange(from = 0) final int start, @IntRange(from = 0) final int end,
-                @IntRange(from = 0) final int maxEmojiCount, boolean replaceAll) {
+                @IntRange(from = 0) final int maxEmojiCount, boolean replaceAll,
+                boolean incremental) {
             // Returns the given charSequence as it is.
             return charSequence;
         }
@@ -1250,8 +1284,9 @@ public class EmojiCompat {
 
         @Override
         CharSequence process(@NonNull CharSequence charSequence, int start, int end,
-                int maxEmojiCount, boolean replaceAll) {
-            return mProcessor.process(charSequence, start, end, maxEmojiCount, replaceAll);
+                int maxEmojiCount, boolean replaceAll, boolean incremental) {
+            return mProcessor.process(charSequence, start, end, maxEmojiCount, replaceAll,
+                    incremental);
         }
 
         @Override
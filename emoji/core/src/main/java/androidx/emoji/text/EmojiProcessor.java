@@ -115,7 +115,7 @@ final class EmojiProcessor {
     }
 
     EmojiMetadata getEmojiMetadata(@NonNull final CharSequence charSequence) {
-        final ProcessorSm sm = new ProcessorSm(mMetadataRepo.getRootNode(),
+        final ProcessorSm sm = new ProcessorSm(mMetadataRepo,
                 mUseEmojiAsDefaultStyle, mEmojiAsDefaultStyleExceptions);
         final int end = charSequence.length();
         int currentOffset = 0;
@@ -156,10 +156,14 @@ final class EmojiProcessor {
      * @param maxEmojiCount maximum number of emojis in the {@code charSequence}, should be greater
      *                      than or equal to {@code 0}
      * @param replaceAll whether to replace all emoji with {@link EmojiSpan}s
+     * @param incremental whether {@code charSequence} was edited between {@code start} and
+     *                    {@code end}, in which case the codepoints around the edit that may form
+     *                    an emoji with the edited ones are also processed, and the existing
+     *                    EmojiSpans of unchanged emojis are kept
      */
     CharSequence process(@NonNull final CharSequence charSequence, @IntRange(from = 0) int start,
             @IntRange(from = 0) int end, @IntRange(from = 0) int maxEmojiCount,
-            final boolean replaceAll) {
+            final boolean replaceAll, final boolean incremental) {
         final boolean isSpannableBuilder = charSequence instanceof SpannableBuilder;
         if (isSpannableBuilder) {
             ((SpannableBuilder) charSequence).beginBatchEdit();
@@ -183,21 +187,32 @@ final class EmojiProcessor {
                 }
             }
 
+            ReusableSpans reusableSpans = null;
             if (spannable != null) {
+                if (incremental) {
+                    start = findSequenceStart(spannable, start);
+                    end = findSequenceEnd(spannable, end);
+                }
                 final EmojiSpan[] spans = spannable.getSpans(start, end, EmojiSpan.class);
                 if (spans != null && spans.length > 0) {
                     // remove existing spans, and realign the start, end according to spans
                     // if start or end is in the middle of an emoji they should be aligned
                     final int length = spans.length;
+                    if (incremental) {
+                        reusableSpans = new ReusableSpans(length);
+                    }
                     for (int index = 0; index < length; index++) {
                         final EmojiSpan span = spans[index];
                         final int spanStart = spannable.getSpanStart(span);
                         final int spanEnd = spannable.getSpanEnd(span);
-                        // Remove span only when its spanStart is NOT equal to current end.
-                        // During add operation an emoji at index 0 is added with 0-1 as start and
-                        // end indices. Therefore if there are emoji spans at [0-1] and [1-2]
-                        // and end is 1, the span between 0-1 should be deleted, not 1-2.
-                        if (spanStart != end) {
+                        if (reusableSpans != null) {
+                            // Removed after processing, unless the same emoji is found again.
+                            reusableSpans.add(span, spanStart, spanEnd);
+                        } else if (spanStart != end) {
+                            // Remove span only when its spanStart is NOT equal to current end.
+                            // During add operation an emoji at index 0 is added with 0-1 as start
+                            // and end indices. Therefore if there are emoji spans at [0-1] and
+                            // [1-2] and end is 1, the span between 0-1 should be deleted, not 1-2.
                             spannable.removeSpan(span);
                         }
                         start = Math.min(spanStart, start);
@@ -214,10 +229,13 @@ final class EmojiProcessor {
             // expensive operation, do it only when maxEmojiCount is not unlimited.
             if (maxEmojiCount != EmojiCompat.EMOJI_COUNT_UNLIMITED && spannable != null) {
                 maxEmojiCount -= spannable.getSpans(0, spannable.length(), EmojiSpan.class).length;
+                if (reusableSpans != null) {
+                    maxEmojiCount += reusableSpans.size();
+                }
             }
             // add new ones
             int addedCount = 0;
-            final ProcessorSm sm = new ProcessorSm(mMetadataRepo.getRootNode(),
+            final ProcessorSm sm = new ProcessorSm(mMetadataRepo,
                     mUseEmojiAsDefaultStyle, mEmojiAsDefaultStyleExceptions);
 
             int currentOffset = start;
@@ -246,7 +264,10 @@ final class EmojiProcessor {
                             if (spannable == null) {
                                 spannable = new SpannableString(charSequence);
                             }
-                            addEmoji(spannable, sm.getFlushMetadata(), start, currentOffset);
+                            if (reusableSpans == null || !reusableSpans.reuse(
+                                    sm.getFlushMetadata(), start, currentOffset)) {
+                                addEmoji(spannable, sm.getFlushMetadata(), start, currentOffset);
+                            }
                             addedCount++;
                         }
                         start = currentOffset;
@@ -264,10 +285,16 @@ final class EmojiProcessor {
                     if (spannable == null) {
                         spannable = new SpannableString(charSequence);
                     }
-                    addEmoji(spannable, sm.getCurrentMetadata(), start, currentOffset);
+                    if (reusableSpans == null || !reusableSpans.reuse(
+                            sm.getCurrentMetadata(), start, currentOffset)) {
+                        addEmoji(spannable, sm.getCurrentMetadata(), start, currentOffset);
+                    }
                     addedCount++;
                 }
             }
+            if (reusableSpans != null) {
+                reusableSpans.removeUnused(spannable);
+            }
             return spannable == null ? charSequence : spannable;
         } finally {
             if (isSpannableBuilder) {
@@ -432,6 +459,58 @@ final class EmojiProcessor {
         return !KeyEvent.metaStateHasNoModifiers(event.getMetaState());
     }
 
+    /**
+     * Returns where to start reprocessing a Spannable that was edited at {@code start}. An edit
+     * can complete an emoji whose first codepoints are not emojis on their own, such as the first
+     * regional indicator of a flag, so this goes back as many codepoints as the longest emoji
+     * could have before {@code start}, stopping at whitespace.
+     */
+    private int findSequenceStart(@NonNull final Spannable spannable, final int start) {
+        int index = start;
+        int remaining = mMetadataRepo.getMaxCodepointsLength() - 1;
+        while (index > 0 && remaining > 0) {
+            final int codePoint = Character.codePointBefore(spannable, index);
+            if (Character.isWhitespace(codePoint)) {
+                break;
+            }
+            index -= Character.charCount(codePoint);
+            if (!isVariationSelector(codePoint)) {
+                remaining--;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns where to end reprocessing a Spannable that was edited until {@code end}, which is
+     * the counterpart of {@link #findSequenceStart(Spannable, int)} for emojis that the edit
+     * started, such as a digit typed before a keycap.
+     */
+    private int findSequenceEnd(@NonNull final Spannable spannable, final int end) {
+        final int length = spannable.length();
+        int index = end;
+        int remaining = mMetadataRepo.getMaxCodepointsLength() - 1;
+        while (index < length) {
+            final int codePoint = Character.codePointAt(spannable, index);
+            final boolean isVariationSelector = isVariationSelector(codePoint);
+            if (Character.isWhitespace(codePoint) || (remaining <= 0 && !isVariationSelector)) {
+                break;
+            }
+            index += Character.charCount(codePoint);
+            if (!isVariationSelector) {
+                remaining--;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Variation selectors are consumed by the state machine, and are not part of the trie.
+     */
+    private static boolean isVariationSelector(final int codePoint) {
+        return ProcessorSm.isEmojiStyle(codePoint) || ProcessorSm.isTextStyle(codePoint);
+    }
+
     private void addEmoji(@NonNull final Spannable spannable, final EmojiMetadata metadata,
             final int start, final int end) {
         final EmojiSpan span = mSpanFactory.createSpan(metadata);
@@ -487,20 +566,20 @@ final class EmojiProcessor {
         private int mState = STATE_DEFAULT;
 
         /**
-         * Root of the trie
+         * MetadataRepo that holds the trie
          */
-        private final MetadataRepo.Node mRootNode;
+        private final MetadataRepo mMetadataRepo;
 
         /**
          * Pointer to the node after last codepoint.
          */
-        private MetadataRepo.Node mCurrentNode;
+        private int mCurrentNode = MetadataRepo.ROOT_NODE;
 
         /**
          * The node where ACTION_FLUSH is called. Required since after flush action is
          * returned mCurrentNode is reset to be the root.
          */
-        private MetadataRepo.Node mFlushNode;
+        private int mFlushNode = MetadataRepo.NO_NODE;
 
         /**
          * The code point that was checked.
@@ -522,10 +601,9 @@ final class EmojiProcessor {
          */
         private final int[] mEmojiAsDefaultStyleExceptions;
 
-        ProcessorSm(MetadataRepo.Node rootNode, boolean useEmojiAsDefaultStyle,
+        ProcessorSm(MetadataRepo metadataRepo, boolean useEmojiAsDefaultStyle,
                 int[] emojiAsDefaultStyleExceptions) {
-            mRootNode = rootNode;
-            mCurrentNode = rootNode;
+            mMetadataRepo = metadataRepo;
             mUseEmojiAsDefaultStyle = useEmojiAsDefaultStyle;
             mEmojiAsDefaultStyleExceptions = emojiAsDefaultStyleExceptions;
         }
@@ -533,10 +611,10 @@ final class EmojiProcessor {
         @Action
         int check(final int codePoint) {
             final int action;
-            MetadataRepo.Node node = mCurrentNode.get(codePoint);
+            final int node = mMetadataRepo.getChild(mCurrentNode, codePoint);
             switch (mState) {
                 case STATE_WALKING:
-                    if (node != null) {
+                    if (node != MetadataRepo.NO_NODE) {
                         mCurrentNode = node;
                         mCurrentDepth += 1;
                         action = ACTION_ADVANCE_END;
@@ -545,7 +623,7 @@ final class EmojiProcessor {
                             action = reset();
                         } else if (isEmojiStyle(codePoint)) {
                             action = ACTION_ADVANCE_END;
-                        } else if (mCurrentNode.getData() != null) {
+                        } else if (mMetadataRepo.getData(mCurrentNode) != null) {
                             if (mCurrentDepth == 1) {
                                 if (shouldUseEmojiPresentationStyleForSingleCodepoint()) {
                                     mFlushNode = mCurrentNode;
@@ -566,7 +644,7 @@ final class EmojiProcessor {
                     break;
                 case STATE_DEFAULT:
                 default:
-                    if (node == null) {
+                    if (node == MetadataRepo.NO_NODE) {
                         action = reset();
                     } else {
                         mState = STATE_WALKING;
@@ -584,7 +662,7 @@ final class EmojiProcessor {
         @Action
         private int reset() {
             mState = STATE_DEFAULT;
-            mCurrentNode = mRootNode;
+            mCurrentNode = MetadataRepo.ROOT_NODE;
             mCurrentDepth = 0;
             return ACTION_ADVANCE_BOTH;
         }
@@ -593,14 +671,14 @@ final class EmojiProcessor {
          * @return the metadata node when ACTION_FLUSH is returned
          */
         EmojiMetadata getFlushMetadata() {
-            return mFlushNode.getData();
+            return mMetadataRepo.getData(mFlushNode);
         }
 
         /**
          * @return current pointer to the metadata node in the trie
          */
         EmojiMetadata getCurrentMetadata() {
-            return mCurrentNode.getData();
+            return mMetadataRepo.getData(mCurrentNode);
         }
 
         /**
@@ -611,12 +689,12 @@ final class EmojiProcessor {
          * @return whether the current state requires an emoji to be added
          */
         boolean isInFlushableState() {
-            return mState == STATE_WALKING && mCurrentNode.getData() != null
+            return mState == STATE_WALKING && mMetadataRepo.getData(mCurrentNode) != null
                     && (mCurrentDepth > 1 || shouldUseEmojiPresentationStyleForSingleCodepoint());
         }
 
         private boolean shouldUseEmojiPresentationStyleForSingleCodepoint() {
-            if (mCurrentNode.getData().isDefaultEmoji()) {
+            if (mMetadataRepo.getData(mCurrentNode).isDefaultEmoji()) {
                 // The codepoint is emoji style by default.
                 return true;
             }
@@ -630,7 +708,7 @@ final class EmojiProcessor {
                 if (mEmojiAsDefaultStyleExceptions == null) {
                     return true;
                 }
-                final int codepoint = mCurrentNode.getData().getCodepointAt(0);
+                final int codepoint = mMetadataRepo.getData(mCurrentNode).getCodepointAt(0);
                 final int index = Arrays.binarySearch(mEmojiAsDefaultStyleExceptions, codepoint);
                 if (index < 0) {
                     // Index is negative, so the codepoint was not found in the array of exceptions.
@@ -645,7 +723,7 @@ final class EmojiProcessor {
          *
          * @return {@code true} if the codepoint is a emoji style standardized variation selector
          */
-        private static boolean isEmojiStyle(int codePoint) {
+        static boolean isEmojiStyle(int codePoint) {
             return codePoint == 0xFE0F;
         }
 
@@ -654,11 +732,73 @@ final class EmojiProcessor {
          *
          * @return {@code true} if the codepoint is a text style standardized variation selector
          */
-        private static boolean isTextStyle(int codePoint) {
+        static boolean isTextStyle(int codePoint) {
             return codePoint == 0xFE0E;
         }
     }
 
+    /**
+     * EmojiSpans that were in the range being reprocessed incrementally, sorted by their start.
+     * If the same emoji is found at the same place again its span is kept, and the others are
+     * removed once processing is done.
+     */
+    private static final class ReusableSpans {
+        private final EmojiSpan[] mSpans;
+        private final int[] mStarts;
+        private final int[] mEnds;
+
+        private int mSize;
+        private int mNext;
+
+        ReusableSpans(final int capacity) {
+            mSpans = new EmojiSpan[capacity];
+            mStarts = new int[capacity];
+            mEnds = new int[capacity];
+        }
+
+        int size() {
+            return mSize;
+        }
+
+        void add(@NonNull final EmojiSpan span, final int start, final int end) {
+            // getSpans() mostly returns spans in order already, so insertion sort is cheap.
+            int index = mSize++;
+            while (index > 0 && mStarts[index - 1] > start) {
+                mSpans[index] = mSpans[index - 1];
+                mStarts[index] = mStarts[index - 1];
+                mEnds[index] = mEnds[index - 1];
+                index--;
+            }
+            mSpans[index] = span;
+            mStarts[index] = start;
+            mEnds[index] = end;
+        }
+
+        /**
+         * Returns whether there is already a span for the given emoji between {@code start} and
+         * {@code end}. Must be called with increasing {@code start} values.
+         */
+        boolean reuse(final EmojiMetadata metadata, final int start, final int end) {
+            while (mNext < mSize && mStarts[mNext] < start) {
+                mNext++;
+            }
+            if (mNext < mSize && mStarts[mNext] == start && mEnds[mNext] == end
+                    && mSpans[mNext].getMetadata() == metadata) {
+                mSpans[mNext++] = null;
+                return true;
+            }
+            return false;
+        }
+
+        void removeUnused(@NonNull final Spannable spannable) {
+            for (int i = 0; i < mSize; i++) {
+                if (mSpans[i] != null) {
+                    spannable.removeSpan(mSpans[i]);
+                }
+            }
+        }
+    }
+
     /**
      * Copy of BaseInputConnection findIndexBackward and findIndexForward functions.
      */
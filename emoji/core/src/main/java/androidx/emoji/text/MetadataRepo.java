@@ -19,7 +19,6 @@ import static androidx.annotation.RestrictTo.Scope.LIBRARY_GROUP_PREFIX;
 
 import android.content.res.AssetManager;
 import android.graphics.Typeface;
-import android.util.SparseArray;
 
 import androidx.annotation.AnyThread;
 import androidx.annotation.NonNull;
@@ -32,6 +31,8 @@ import androidx.text.emoji.flatbuffer.MetadataList;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
 
 /**
  * Class to hold the emoji metadata required to process and draw emojis.
@@ -40,9 +41,20 @@ import java.nio.ByteBuffer;
 @RequiresApi(19)
 public final class MetadataRepo {
     /**
-     * The default children size of the root node.
+     * Root node of the trie.
+     *
+     * @hide
+     */
+    @RestrictTo(LIBRARY_GROUP_PREFIX)
+    static final int ROOT_NODE = 0;
+
+    /**
+     * Returned by {@link #getChild(int, int)} when there is no such child.
+     *
+     * @hide
      */
-    private static final int DEFAULT_ROOT_SIZE = 1024;
+    @RestrictTo(LIBRARY_GROUP_PREFIX)
+    static final int NO_NODE = -1;
 
     /**
      * MetadataList that contains the emoji metadata.
@@ -56,9 +68,28 @@ public final class MetadataRepo {
     private final char[] mEmojiCharArray;
 
     /**
-     * Empty root node of the trie.
+     * The trie mapping emoji codepoint(s) to EmojiMetadata is stored in the following arrays.
+     * Nodes are numbered in breadth first order starting from {@link #ROOT_NODE}, so that the
+     * children of a node are consecutive, and the child reached through the edge at index
+     * {@code i} is node {@code i + 1}. The edges of node {@code n} are in the range
+     * {@code [mFirstChild[n], mFirstChild[n + 1])}, sorted by codepoint.
+     */
+    private int[] mFirstChild;
+
+    /**
+     * Codepoint of each edge in the trie.
+     */
+    private int[] mChildCodepoints;
+
+    /**
+     * EmojiMetadata of each node in the trie, or {@code null} if no emoji ends at the node.
+     */
+    private EmojiMetadata[] mNodeData;
+
+    /**
+     * Number of codepoints in the longest emoji, which is also the depth of the trie.
      */
-    private final Node mRootNode;
+    private int mMaxCodepointsLength;
 
     /**
      * Typeface to be used to render emojis.
@@ -74,8 +105,8 @@ public final class MetadataRepo {
     MetadataRepo() {
         mTypeface = null;
         mMetadataList = null;
-        mRootNode = new Node(DEFAULT_ROOT_SIZE);
         mEmojiCharArray = new char[0];
+        buildIndex(new EmojiMetadata[0]);
     }
 
     /**
@@ -88,7 +119,6 @@ public final class MetadataRepo {
             @NonNull final MetadataList metadataList) {
         mTypeface = typeface;
         mMetadataList = metadataList;
-        mRootNode = new Node(DEFAULT_ROOT_SIZE);
         mEmojiCharArray = new char[mMetadataList.listLength() * 2];
         constructIndex(mMetadataList);
     }
@@ -135,14 +165,94 @@ public final class MetadataRepo {
      */
     private void constructIndex(final MetadataList metadataList) {
         int length = metadataList.listLength();
+        final EmojiMetadata[] entries = new EmojiMetadata[length];
         for (int i = 0; i < length; i++) {
             final EmojiMetadata metadata = new EmojiMetadata(this, i);
             //since all emojis are mapped to a single codepoint in Private Use Area A they are 2
             //chars wide
             //noinspection ResultOfMethodCallIgnored
             Character.toChars(metadata.getId(), mEmojiCharArray, i * 2);
-            put(metadata);
+            Preconditions.checkArgument(metadata.getCodepointsLength() > 0,
+                    "invalid metadata codepoint length");
+            entries[i] = metadata;
+        }
+        buildIndex(entries);
+    }
+
+    /**
+     * Builds the trie for the given entries. If several entries have the same codepoints, the
+     * last one is kept.
+     */
+    private void buildIndex(final EmojiMetadata[] entries) {
+        final int length = entries.length;
+        final int[][] codepoints = new int[length][];
+        final Integer[] order = new Integer[length];
+        int maxNodes = 1;
+        for (int i = 0; i < length; i++) {
+            final EmojiMetadata metadata = entries[i];
+            final int[] entryCodepoints = new int[metadata.getCodepointsLength()];
+            for (int j = 0; j < entryCodepoints.length; j++) {
+                entryCodepoints[j] = metadata.getCodepointAt(j);
+            }
+            codepoints[i] = entryCodepoints;
+            order[i] = i;
+            maxNodes += entryCodepoints.length;
+        }
+        // Stable sort, so that entries with the same codepoints stay in the given order.
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer lhs, Integer rhs) {
+                final int[] left = codepoints[lhs];
+                final int[] right = codepoints[rhs];
+                final int commonLength = Math.min(left.length, right.length);
+                for (int i = 0; i < commonLength; i++) {
+                    if (left[i] != right[i]) {
+                        return left[i] < right[i] ? -1 : 1;
+                    }
+                }
+                return left.length - right.length;
+            }
+        });
+
+        final int[] firstChild = new int[maxNodes + 1];
+        final int[] childCodepoints = new int[maxNodes - 1];
+        final EmojiMetadata[] nodeData = new EmojiMetadata[maxNodes];
+        // Range of sorted entries below each node, and the depth of the node.
+        final int[] rangeStart = new int[maxNodes];
+        final int[] rangeEnd = new int[maxNodes];
+        final int[] depths = new int[maxNodes];
+        rangeEnd[ROOT_NODE] = length;
+        int nodeCount = 1;
+        for (int node = 0; node < nodeCount; node++) {
+            firstChild[node] = nodeCount - 1;
+            final int depth = depths[node];
+            final int end = rangeEnd[node];
+            int i = rangeStart[node];
+            // Entries that end at this node sort before the longer ones.
+            while (i < end && codepoints[order[i]].length == depth) {
+                nodeData[node] = entries[order[i]];
+                i++;
+            }
+            while (i < end) {
+                final int codepoint = codepoints[order[i]][depth];
+                int j = i + 1;
+                while (j < end && codepoints[order[j]][depth] == codepoint) {
+                    j++;
+                }
+                childCodepoints[nodeCount - 1] = codepoint;
+                rangeStart[nodeCount] = i;
+                rangeEnd[nodeCount] = j;
+                depths[nodeCount] = depth + 1;
+                nodeCount++;
+                i = j;
+            }
         }
+        firstChild[nodeCount] = nodeCount - 1;
+
+        mFirstChild = Arrays.copyOf(firstChild, nodeCount + 1);
+        mChildCodepoints = Arrays.copyOf(childCodepoints, nodeCount - 1);
+        mNodeData = Arrays.copyOf(nodeData, nodeCount);
+        mMaxCodepointsLength = depths[nodeCount - 1];
     }
 
     /**
@@ -162,11 +272,36 @@ public final class MetadataRepo {
     }
 
     /**
+     * Returns the child of a trie node for the given codepoint, or {@link #NO_NODE} if there is
+     * none.
+     *
+     * @hide
+     */
+    @RestrictTo(LIBRARY_GROUP_PREFIX)
+    int getChild(final int node, final int codepoint) {
+        final int index = Arrays.binarySearch(mChildCodepoints, mFirstChild[node],
+                mFirstChild[node + 1], codepoint);
+        return index < 0 ? NO_NODE : index + 1;
+    }
+
+    /**
+     * Returns the number of codepoints in the longest emoji.
+     *
+     * @hide
+     */
+    @RestrictTo(LIBRARY_GROUP_PREFIX)
+    int getMaxCodepointsLength() {
+        return mMaxCodepointsLength;
+    }
+
+    /**
+     * Returns the EmojiMetadata that ends at a trie node, or {@code null} if there is none.
+     *
      * @hide
      */
     @RestrictTo(LIBRARY_GROUP_PREFIX)
-    Node getRootNode() {
-        return mRootNode;
+    EmojiMetadata getData(final int node) {
+        return mNodeData[node];
     }
 
     /**
@@ -186,7 +321,8 @@ public final class MetadataRepo {
     }
 
     /**
-     * Add an EmojiMetadata to the index.
+     * Add an EmojiMetadata to the index. Rebuilds the whole trie, so it should only be used to
+     * set up tests.
      *
      * @hide
      */
@@ -197,50 +333,14 @@ public final class MetadataRepo {
         Preconditions.checkArgument(data.getCodepointsLength() > 0,
                 "invalid metadata codepoint length");
 
-        mRootNode.put(data, 0, data.getCodepointsLength() - 1);
-    }
-
-    /**
-     * Trie node that holds mapping from emoji codepoint(s) to EmojiMetadata. A single codepoint
-     * emoji is represented by a child of the root node.
-     *
-     * @hide
-     */
-    @RestrictTo(LIBRARY_GROUP_PREFIX)
-    static class Node {
-        private final SparseArray<Node> mChildren;
-        private EmojiMetadata mData;
-
-        private Node() {
-            this(1);
-        }
-
-        @SuppressWarnings("WeakerAccess") /* synthetic access */
-        Node(final int defaultChildrenSize) {
-            mChildren = new SparseArray<>(defaultChildrenSize);
-        }
-
-        Node get(final int key) {
-            return mChildren == null ? null : mChildren.get(key);
-        }
-
-        final EmojiMetadata getData() {
-            return mData;
-        }
-
-        @SuppressWarnings("WeakerAccess") /* synthetic access */
-        void put(@NonNull final EmojiMetadata data, final int start, final int end) {
-            Node node = get(data.getCodepointAt(start));
-            if (node == null) {
-                node = new Node();
-                mChildren.put(data.getCodepointAt(start), node);
-            }
-
-            if (end > start) {
-                node.put(data, start + 1, end);
-            } else {
-                node.mData = data;
+        int count = 0;
+        final EmojiMetadata[] entries = new EmojiMetadata[mNodeData.length + 1];
+        for (EmojiMetadata metadata : mNodeData) {
+            if (metadata != null) {
+                entries[count++] = metadata;
             }
         }
+        entries[count++] = data;
+        buildIndex(Arrays.copyOf(entries, count));
     }
 }
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package androidx.exifinterface.benchmark
+
+import android.content.Context
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.exifinterface.media.ExifInterface
+import androidx.exifinterface.media.ExifScanner
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.LargeTest
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.io.File
+import java.io.IOException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Measures the time it takes to read the orientation and capture time of a library of JPEG files,
+ * one [ExifInterface] at a time and through an [ExifScanner] reading up to [maxParallelism] files
+ * at once.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class ExifScannerBenchmark(private val maxParallelism: Int) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val context = ApplicationProvider.getApplicationContext<Context>()
+    private lateinit var files: List<File>
+    private lateinit var executor: ExecutorService
+
+    @Before
+    fun setup() {
+        files = List(FILE_COUNT) { index ->
+            createTestJpeg(File(context.cacheDir, "scanner-benchmark-$index.jpg"), index, 0)
+        }
+        executor = Executors.newFixedThreadPool(maxParallelism)
+    }
+
+    @After
+    fun teardown() {
+        executor.shutdownNow()
+        files.forEach { it.delete() }
+    }
+
+    @Test
+    fun readEachFile() {
+        benchmarkRule.measureRepeated {
+            var rotated = 0
+            for (file in files) {
+                val exif = ExifInterface(file)
+                exif.getAttribute(ExifInterface.TAG_DATETIME_ORIGINAL)
+                if (exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, 0) ==
+                    ExifInterface.ORIENTATION_ROTATE_90
+                ) {
+                    rotated++
+                }
+            }
+            assertEquals(FILE_COUNT, rotated)
+        }
+    }
+
+    @Test
+    fun scanFiles() {
+        val scanner = ExifScanner.Builder(
+            ExifInterface.TAG_ORIENTATION,
+            ExifInterface.TAG_DATETIME_ORIGINAL
+        )
+            .setExecutor(executor)
+            .setMaxParallelism(maxParallelism)
+            .build()
+        benchmarkRule.measureRepeated {
+            val rotated = AtomicInteger()
+            scanner.scanFiles(
+                files,
+                object : ExifScanner.Callback {
+                    override fun onScanned(index: Int, values: Array<String?>) {
+                        if (values[0] == ExifInterface.ORIENTATION_ROTATE_90.toString()) {
+                            rotated.incrementAndGet()
+                        }
+                    }
+
+                    override fun onError(index: Int, e: IOException) {
+                        throw e
+                    }
+                }
+            )
+            assertEquals(FILE_COUNT, rotated.get())
+        }
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "maxParallelism={0}")
+        fun data(): List<Array<Any>> = listOf(1, 2, 4).map { arrayOf<Any>(it) }
+
+        private const val FILE_COUNT = 200
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.exifinterface.benchmark
+
+import android.content.Context
+import android.os.Build
+import android.os.ParcelFileDescriptor
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.exifinterface.media.ExifInterface
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.LargeTest
+import androidx.test.filters.SdkSuppress
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.io.File
+
+/**
+ * Measures the per-file latency of reading only the orientation from a library of JPEG files
+ * whose Exif data carries [xmpSize] bytes of XMP besides the usual camera tags, reading every tag
+ * up front and lazily.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class OrientationBenchmark(private val xmpSize: Int) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val context = ApplicationProvider.getApplicationContext<Context>()
+    private lateinit var files: List<File>
+
+    @Before
+    fun setup() {
+        files = List(FILE_COUNT) { index ->
+            val file = File(context.cacheDir, "orientation-benchmark-$index.jpg")
+            createTestJpeg(file, index, xmpSize)
+        }
+    }
+
+    @After
+    fun teardown() {
+        files.forEach { it.delete() }
+    }
+
+    @Test
+    fun readEagerly() {
+        measureOrientation { ExifInterface(it) }
+    }
+
+    @Test
+    fun readLazily() {
+        measureOrientation { ExifInterface.createLazily(it) }
+    }
+
+    @Test
+    @SdkSuppress(minSdkVersion = Build.VERSION_CODES.LOLLIPOP)
+    fun readLazilyFromFileDescriptor() {
+        measureOrientation { file ->
+            ParcelFileDescriptor.open(file, ParcelFileDescriptor.MODE_READ_ONLY).use {
+                ExifInterface.createLazily(it.fileDescriptor)
+            }
+        }
+    }
+
+    private fun measureOrientation(open: (File) -> ExifInterface) {
+        var index = 0
+        benchmarkRule.measureRepeated {
+            val file = files[index++ % FILE_COUNT]
+            val orientation = open(file).getAttributeInt(ExifInterface.TAG_ORIENTATION, 0)
+            runWithTimingDisabled {
+                assertEquals(ExifInterface.ORIENTATION_ROTATE_90, orientation)
+            }
+        }
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "xmpSize={0}")
+        fun data(): List<Array<Any>> = listOf(0, 16 * 1024).map { arrayOf<Any>(it) }
+
+        private const val FILE_COUNT = 50
+    }
+}
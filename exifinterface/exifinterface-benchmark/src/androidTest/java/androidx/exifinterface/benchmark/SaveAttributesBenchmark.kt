@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.exifinterface.benchmark
+
+import android.content.Context
+import android.graphics.Bitmap
+import android.util.Log
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.exifinterface.media.ExifInterface
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.LargeTest
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.JUnit4
+import java.io.File
+import java.io.FileOutputStream
+import java.util.Random
+
+/**
+ * Measures saving attributes across a corpus of about 50MB of JPEG files, for updates that fit
+ * into the existing EXIF segment and for updates that grow it.
+ */
+@LargeTest
+@RunWith(JUnit4::class)
+class SaveAttributesBenchmark {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val context = ApplicationProvider.getApplicationContext<Context>()
+    private val originals = mutableListOf<File>()
+    private val files = mutableListOf<File>()
+
+    @Before
+    fun setup() {
+        val random = Random(0)
+        var corpusSize = 0L
+        while (corpusSize < CORPUS_SIZE) {
+            val index = originals.size
+            val original = File(context.cacheDir, "save-benchmark-original-$index.jpg")
+            createTestFile(original, random)
+            originals.add(original)
+            files.add(File(context.cacheDir, "save-benchmark-$index.jpg"))
+            corpusSize += original.length()
+        }
+        Log.d(LOG_TAG, "files=${files.size}, corpusSize=$corpusSize")
+    }
+
+    @After
+    fun teardown() {
+        originals.forEach { it.delete() }
+        files.forEach { it.delete() }
+    }
+
+    @Test
+    fun setOrientation() {
+        measureSave { exif ->
+            exif.setAttribute(
+                ExifInterface.TAG_ORIENTATION,
+                ExifInterface.ORIENTATION_ROTATE_90.toString()
+            )
+        }
+    }
+
+    @Test
+    fun setLatLong() {
+        measureSave { exif -> exif.setLatLong(37.42, -122.08) }
+    }
+
+    @Test
+    fun growExifSegment() {
+        measureSave { exif -> exif.setAttribute(ExifInterface.TAG_USER_COMMENT, "c".repeat(4096)) }
+    }
+
+    private fun measureSave(update: (ExifInterface) -> Unit) {
+        benchmarkRule.measureRepeated {
+            runWithTimingDisabled {
+                originals.forEachIndexed { index, original -> original.copyTo(files[index], true) }
+            }
+            files.forEach { file ->
+                val exif = ExifInterface(file)
+                update(exif)
+                exif.saveAttributes()
+            }
+        }
+    }
+
+    private fun createTestFile(file: File, random: Random) {
+        // Noise doesn't compress well, which keeps the files at a realistic size for photos.
+        val pixels = IntArray(IMAGE_WIDTH * IMAGE_HEIGHT) { random.nextInt() or (0xff shl 24) }
+        val bitmap =
+            Bitmap.createBitmap(pixels, IMAGE_WIDTH, IMAGE_HEIGHT, Bitmap.Config.ARGB_8888)
+        FileOutputStream(file).use { bitmap.compress(Bitmap.CompressFormat.JPEG, 95, it) }
+        bitmap.recycle()
+
+        // Saving once gives every file an EXIF segment.
+        val exif = ExifInterface(file)
+        exif.setAttribute(ExifInterface.TAG_MAKE, "Make")
+        exif.setAttribute(ExifInterface.TAG_MODEL, "Model")
+        exif.setAttribute(ExifInterface.TAG_DATETIME_ORIGINAL, "2020:01:01 12:00:00")
+        exif.saveAttributes()
+    }
+
+    companion object {
+        private const val LOG_TAG = "SaveAttributesBenchmark"
+        private const val CORPUS_SIZE = 50L * 1024 * 1024
+        private const val IMAGE_WIDTH = 2048
+        private const val IMAGE_HEIGHT = 1536
+    }
+}
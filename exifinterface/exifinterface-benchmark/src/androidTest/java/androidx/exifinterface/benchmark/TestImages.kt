@@ -0,0 +1,56 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.exifinterface.benchmark
+
+import android.graphics.Bitmap
+import android.graphics.Color
+import androidx.exifinterface.media.ExifInterface
+import java.io.File
+import java.io.FileOutputStream
+
+private const val IMAGE_SIZE = 64
+
+/**
+ * Writes a small JPEG to [file] carrying the usual camera tags, a 90 degree orientation and
+ * [xmpSize] bytes of XMP.
+ */
+internal fun createTestJpeg(file: File, index: Int, xmpSize: Int): File {
+    val bitmap = Bitmap.createBitmap(IMAGE_SIZE, IMAGE_SIZE, Bitmap.Config.ARGB_8888)
+    bitmap.eraseColor(Color.rgb(index * 7 and 0xff, index * 13 and 0xff, 0x80))
+    FileOutputStream(file).use { bitmap.compress(Bitmap.CompressFormat.JPEG, 90, it) }
+    bitmap.recycle()
+
+    val exif = ExifInterface(file)
+    exif.setAttribute(
+        ExifInterface.TAG_ORIENTATION,
+        ExifInterface.ORIENTATION_ROTATE_90.toString()
+    )
+    exif.setAttribute(ExifInterface.TAG_MAKE, "Make $index")
+    exif.setAttribute(ExifInterface.TAG_MODEL, "Model $index")
+    exif.setAttribute(ExifInterface.TAG_DATETIME_ORIGINAL, "2020:01:01 12:00:00")
+    exif.setAttribute(ExifInterface.TAG_EXPOSURE_TIME, "0.01")
+    exif.setAttribute(ExifInterface.TAG_F_NUMBER, "1.8")
+    exif.setAttribute(ExifInterface.TAG_PHOTOGRAPHIC_SENSITIVITY, "100")
+    exif.setAttribute(ExifInterface.TAG_FOCAL_LENGTH, "4.2")
+    exif.setLatLong(37.42, -122.08)
+    exif.setAltitude(10.0)
+    if (xmpSize > 0) {
+        exif.setAttribute(ExifInterface.TAG_XMP, "x".repeat(xmpSize))
+    }
+    exif.saveAttributes()
+    return file
+}
@@ -63,8 +63,13 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -759,6 +764,181 @@ public class ExifInterfaceTest {
         assertEquals(isoValue, exif.getAttribute(newTag));
     }
 
+    @Test
+    @LargeTest
+    public void testSaveAfterReadingLazily() throws Throwable {
+        File imageFile = getFileFromExternalDir(JPEG_WITH_EXIF_BYTE_ORDER_II);
+        ExifInterface expected = new ExifInterface(imageFile);
+
+        // Only the orientation is decoded before the attributes are changed and saved.
+        ExifInterface exifInterface = ExifInterface.createLazily(imageFile);
+        assertEquals(expected.getAttributeInt(ExifInterface.TAG_ORIENTATION, 0),
+                exifInterface.getAttributeInt(ExifInterface.TAG_ORIENTATION, 0));
+        exifInterface.setAttribute(ExifInterface.TAG_MAKE, "abc");
+        exifInterface.saveAttributes();
+
+        exifInterface = new ExifInterface(imageFile);
+        assertEquals("abc", exifInterface.getAttribute(ExifInterface.TAG_MAKE));
+        assertEquals(expected.getAttribute(ExifInterface.TAG_MODEL),
+                exifInterface.getAttribute(ExifInterface.TAG_MODEL));
+        assertEquals(expected.getAttribute(ExifInterface.TAG_GPS_LATITUDE),
+                exifInterface.getAttribute(ExifInterface.TAG_GPS_LATITUDE));
+        assertEquals(expected.hasThumbnail(), exifInterface.hasThumbnail());
+    }
+
+    @Test
+    @LargeTest
+    public void testSaveAttributesInPlace() throws Throwable {
+        File imageFile = getFileFromExternalDir(JPEG_WITH_EXIF_BYTE_ORDER_II);
+        ExifInterface exifInterface = new ExifInterface(imageFile);
+        exifInterface.saveAttributes();
+        long fileLength = imageFile.length();
+
+        // Changing a value of the same size rewrites the EXIF segment in place.
+        exifInterface = new ExifInterface(imageFile);
+        exifInterface.setAttribute(ExifInterface.TAG_ORIENTATION,
+                Integer.toString(ExifInterface.ORIENTATION_ROTATE_90));
+        exifInterface.saveAttributes();
+        assertEquals(fileLength, imageFile.length());
+        exifInterface = new ExifInterface(imageFile);
+        assertEquals(ExifInterface.ORIENTATION_ROTATE_90,
+                exifInterface.getAttributeInt(ExifInterface.TAG_ORIENTATION, 0));
+
+        // Growing the EXIF data beyond its segment rewrites the file.
+        char[] comment = new char[4096];
+        Arrays.fill(comment, 'a');
+        exifInterface.setAttribute(ExifInterface.TAG_USER_COMMENT, new String(comment));
+        exifInterface.saveAttributes();
+        assertTrue(imageFile.length() > fileLength);
+        fileLength = imageFile.length();
+
+        // Shrinking the EXIF data keeps the freed space as padding.
+        exifInterface = new ExifInterface(imageFile);
+        assertEquals(new String(comment),
+                exifInterface.getAttribute(ExifInterface.TAG_USER_COMMENT));
+        exifInterface.setAttribute(ExifInterface.TAG_USER_COMMENT, "abc");
+        exifInterface.saveAttributes();
+        assertEquals(fileLength, imageFile.length());
+        exifInterface = new ExifInterface(imageFile);
+        assertEquals("abc", exifInterface.getAttribute(ExifInterface.TAG_USER_COMMENT));
+        assertEquals(ExifInterface.ORIENTATION_ROTATE_90,
+                exifInterface.getAttributeInt(ExifInterface.TAG_ORIENTATION, 0));
+
+        // Later updates reuse that padding instead of growing the file.
+        exifInterface.setAttribute(ExifInterface.TAG_USER_COMMENT, new String(comment));
+        exifInterface.saveAttributes();
+        assertEquals(fileLength, imageFile.length());
+        exifInterface = new ExifInterface(imageFile);
+        assertEquals(new String(comment),
+                exifInterface.getAttribute(ExifInterface.TAG_USER_COMMENT));
+    }
+
+    @Test
+    @LargeTest
+    public void testSaveAttributes_rewritingDoesNotGrowFile() throws Throwable {
+        File imageFile = getFileFromExternalDir(JPEG_WITH_EXIF_BYTE_ORDER_II);
+        char[] comment = new char[4096];
+        Arrays.fill(comment, 'a');
+        ExifInterface exifInterface = new ExifInterface(imageFile);
+        exifInterface.setAttribute(ExifInterface.TAG_USER_COMMENT, new String(comment));
+        exifInterface.saveAttributes();
+        long fileLength = imageFile.length();
+
+        // Saving the same data again, in place or not, doesn't add padding.
+        for (int i = 0; i < 3; i++) {
+            exifInterface = new ExifInterface(imageFile);
+            exifInterface.saveAttributes();
+            assertEquals(fileLength, imageFile.length());
+        }
+        if (Build.VERSION.SDK_INT >= 21) {
+            FileDescriptor fd = null;
+            try {
+                fd = Os.open(imageFile.getAbsolutePath(), OsConstants.O_RDWR,
+                        OsConstants.S_IRWXU);
+                exifInterface = new ExifInterface(fd);
+                exifInterface.saveAttributes();
+            } finally {
+                closeQuietly(fd);
+            }
+            assertEquals(fileLength, imageFile.length());
+        }
+    }
+
+    @Test
+    @LargeTest
+    public void testSaveAttributes_readOnlyFileDescriptor() throws Throwable {
+        if (Build.VERSION.SDK_INT < 21) {
+            return;
+        }
+        File imageFile = getFileFromExternalDir(JPEG_WITH_EXIF_BYTE_ORDER_II);
+        long fileLength = imageFile.length();
+        String make = new ExifInterface(imageFile).getAttribute(ExifInterface.TAG_MAKE);
+        FileDescriptor fd = null;
+        try {
+            fd = Os.open(imageFile.getAbsolutePath(), OsConstants.O_RDONLY,
+                    OsConstants.S_IRWXU);
+            ExifInterface exifInterface = new ExifInterface(fd);
+            exifInterface.setAttribute(ExifInterface.TAG_MAKE, "abc");
+            try {
+                exifInterface.saveAttributes();
+            } catch (IOException e) {
+                // Nothing was written in place, so there was nothing to restore either.
+                assertFalse(String.valueOf(e.getMessage()).contains("restore"));
+            }
+        } finally {
+            closeQuietly(fd);
+        }
+        assertEquals(fileLength, imageFile.length());
+        assertEquals(make, new ExifInterface(imageFile).getAttribute(ExifInterface.TAG_MAKE));
+    }
+
+    @Test
+    @LargeTest
+    public void testExifScanner() throws Throwable {
+        final String[] tags = {ExifInterface.TAG_ORIENTATION, ExifInterface.TAG_MAKE,
+                ExifInterface.TAG_IMAGE_WIDTH, ExifInterface.TAG_GPS_LATITUDE};
+        final List<File> files = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            for (String fileName : IMAGE_FILENAMES) {
+                files.add(getFileFromExternalDir(fileName));
+            }
+        }
+        files.add(getFileFromExternalDir("nonexistent.jpg"));
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            for (int maxParallelism : new int[] {1, 4}) {
+                final String[][] results = new String[files.size()][];
+                final int[] errors = new int[files.size()];
+                ExifScanner scanner = new ExifScanner.Builder(tags)
+                        .setExecutor(executor)
+                        .setMaxParallelism(maxParallelism)
+                        .build();
+                scanner.scanFiles(files, new ExifScanner.Callback() {
+                    @Override
+                    public synchronized void onScanned(int index, String[] values) {
+                        assertNull(results[index]);
+                        results[index] = values;
+                    }
+
+                    @Override
+                    public synchronized void onError(int index, IOException e) {
+                        errors[index]++;
+                    }
+                });
+                for (int i = 0; i < files.size() - 1; i++) {
+                    ExifInterface exifInterface = new ExifInterface(files.get(i));
+                    for (int j = 0; j < tags.length; j++) {
+                        assertEquals(exifInterface.getAttribute(tags[j]), results[i][j]);
+                    }
+                }
+                assertNull(results[files.size() - 1]);
+                assertEquals(1, errors[files.size() - 1]);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     private void printExifTagsAndValues(String fileName, ExifInterface exifInterface) {
         // Prints thumbnail information.
         if (exifInterface.hasThumbnail()) {
@@ -969,6 +1149,10 @@ public class ExifInterfaceTest {
         assertNotNull(exifInterface);
         compareWithExpectedValue(exifInterface, expectedValue, verboseTag, true);
 
+        // Creates lazily via file.
+        exifInterface = ExifInterface.createLazily(imageFile);
+        compareWithExpectedValue(exifInterface, expectedValue, verboseTag, true);
+
         InputStream in = null;
         // Creates via InputStream.
         try {
@@ -987,6 +1171,10 @@ public class ExifInterfaceTest {
                         OsConstants.S_IRWXU);
                 exifInterface = new ExifInterface(fd);
                 compareWithExpectedValue(exifInterface, expectedValue, verboseTag, true);
+                // Reading starts at the current offset, which the previous read has moved.
+                Os.lseek(fd, 0, OsConstants.SEEK_SET);
+                exifInterface = ExifInterface.createLazily(fd);
+                compareWithExpectedValue(exifInterface, expectedValue, verboseTag, true);
             } catch (Exception e) {
                 throw new IOException("Failed to open file descriptor", e);
             } finally {
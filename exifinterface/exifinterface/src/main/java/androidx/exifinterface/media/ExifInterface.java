@@ -51,10 +51,12 @@ import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
@@ -2934,7 +2936,9 @@ public class ExifInterface {
     public @interface ExifStreamType {}
 
     // Maximum size for checking file type signature (see image_type_recognition_lite.cc)
-    private static final int SIGNATURE_CHECK_SIZE = 5000;
+    static final int SIGNATURE_CHECK_SIZE = 5000;
+    // Maximum value of the length field of a JPEG segment, which includes the field itself.
+    private static final int JPEG_MAX_SEGMENT_LENGTH = 0xffff;
 
     static final byte[] JPEG_SIGNATURE = new byte[] {(byte) 0xff, (byte) 0xd8, (byte) 0xff};
     private static final String RAF_SIGNATURE = "FUJIFILMCCD-RAW";
@@ -3879,6 +3883,9 @@ public class ExifInterface {
     private int mThumbnailCompression;
     // Used to indicate offset from the start of the original input stream to EXIF data
     private int mOffsetToExifData;
+    // Length of the EXIF APP1 segment of a JPEG file as stored in its length field, or 0 if there
+    // is none. Rewriting the file keeps the segment at least this long.
+    private int mJpegExifSegmentLength;
     private int mOrfMakerNoteOffset;
     private int mOrfThumbnailOffset;
     private int mOrfThumbnailLength;
@@ -3886,6 +3893,16 @@ public class ExifInterface {
     // XMP data can be contained as either part of the EXIF data (tag number 700), or as a
     // separate data marker (a separate MARKER_APP1).
     private boolean mXmpIsFromSeparateMarker;
+    // Whether tags are only decoded when they are first requested. See #createLazily(File).
+    private boolean mReadLazily;
+    // EXIF data area whose image file directories have been indexed, but not read yet.
+    private ByteBuffer mLazyExifBuffer;
+    // Types and offsets of the image file directories found in mLazyExifBuffer.
+    private int[] mLazyIfdTypes;
+    private int[] mLazyIfdOffsets;
+    private int mLazyIfdCount;
+    // Reusable buffer for checking the file type signature while loading, if any.
+    private byte[] mSignatureCheckBuffer;
 
     // Pattern to check non zero timestamp
     private static final Pattern sNonZeroTimePattern = Pattern.compile(".*[1-9].*");
@@ -3937,34 +3954,7 @@ public class ExifInterface {
         if (fileDescriptor == null) {
             throw new NullPointerException("fileDescriptor cannot be null");
         }
-        mAssetInputStream = null;
-        mFilename = null;
-
-        boolean isFdDuped = false;
-        if (Build.VERSION.SDK_INT >= 21 && isSeekableFD(fileDescriptor)) {
-            mSeekableFileDescriptor = fileDescriptor;
-            // Keep the original file descriptor in order to save attributes when it's seekable.
-            // Otherwise, just close the given file descriptor after reading it because the save
-            // feature won't be working.
-            try {
-                fileDescriptor = Os.dup(fileDescriptor);
-                isFdDuped = true;
-            } catch (Exception e) {
-                throw new IOException("Failed to duplicate file descriptor", e);
-            }
-        } else {
-            mSeekableFileDescriptor = null;
-        }
-        FileInputStream in = null;
-        try {
-            in = new FileInputStream(fileDescriptor);
-            loadAttributes(in);
-        } finally {
-            closeQuietly(in);
-            if (isFdDuped) {
-                closeFileDescriptor(fileDescriptor);
-            }
-        }
+        initForFileDescriptor(fileDescriptor);
     }
 
     /**
@@ -4029,6 +4019,77 @@ public class ExifInterface {
         loadAttributes(inputStream);
     }
 
+    private ExifInterface() {
+    }
+
+    /**
+     * Reads Exif tags from the specified image file lazily. Only the locations of the tag groups
+     * are read up front, and each tag is decoded when it is first requested, which makes reading
+     * a few attributes, such as {@link #TAG_ORIENTATION}, from many files considerably cheaper.
+     * When possible, the file is read through a read-only memory mapping rather than a stream.
+     * The mapping covers the rest of the file, not just its metadata, and is held by the returned
+     * instance until it is garbage collected, so avoid keeping many lazy instances reachable.
+     * <p>
+     * Lazy reading is supported for JPEG and WebP files. Other formats are read in full, as if
+     * the image was opened with {@link #ExifInterface(File)}. Mutating attributes, saving them or
+     * accessing the thumbnail decodes all of the remaining tags first.
+     *
+     * @param file the file of the image data
+     * @throws NullPointerException if file is null
+     * @throws IOException if an I/O error occurs while opening or mapping the file
+     */
+    @NonNull
+    public static ExifInterface createLazily(@NonNull File file) throws IOException {
+        return createLazily(file, null);
+    }
+
+    // Reads lazily, checking the file type signature with the given buffer, if any, instead of
+    // allocating a new one. See ExifScanner.
+    static ExifInterface createLazily(@NonNull File file, @Nullable byte[] signatureCheckBuffer)
+            throws IOException {
+        if (file == null) {
+            throw new NullPointerException("file cannot be null");
+        }
+        ExifInterface exifInterface = new ExifInterface();
+        exifInterface.mReadLazily = true;
+        exifInterface.mSignatureCheckBuffer = signatureCheckBuffer;
+        exifInterface.initForFilename(file.getAbsolutePath());
+        exifInterface.mSignatureCheckBuffer = null;
+        return exifInterface;
+    }
+
+    /**
+     * Reads Exif tags from the specified image file descriptor lazily. See
+     * {@link #createLazily(File)} for details. Like {@link #ExifInterface(FileDescriptor)},
+     * reading starts at the current offset of the file descriptor, so seek it to the start of the
+     * image data first if it has already been read from. Seekable file descriptors are read
+     * through a read-only memory mapping of all of the data that follows that offset, which is
+     * not changed. Developers should close the file descriptor after use.
+     *
+     * @param fileDescriptor the file descriptor of the image data
+     * @throws NullPointerException if file descriptor is null
+     * @throws IOException if an error occurs while duplicating the file descriptor via
+     *         {@link Os#dup(FileDescriptor)}.
+     */
+    @NonNull
+    public static ExifInterface createLazily(@NonNull FileDescriptor fileDescriptor)
+            throws IOException {
+        return createLazily(fileDescriptor, null);
+    }
+
+    static ExifInterface createLazily(@NonNull FileDescriptor fileDescriptor,
+            @Nullable byte[] signatureCheckBuffer) throws IOException {
+        if (fileDescriptor == null) {
+            throw new NullPointerException("fileDescriptor cannot be null");
+        }
+        ExifInterface exifInterface = new ExifInterface();
+        exifInterface.mReadLazily = true;
+        exifInterface.mSignatureCheckBuffer = signatureCheckBuffer;
+        exifInterface.initForFileDescriptor(fileDescriptor);
+        exifInterface.mSignatureCheckBuffer = null;
+        return exifInterface;
+    }
+
     /**
      * Returns whether ExifInterface currently supports reading data from the specified mime type
      * or not.
@@ -4086,6 +4147,12 @@ public class ExifInterface {
         // than the value from the thumbnail tag group if there are more than one candidates.
         for (int i = 0; i < EXIF_TAGS.length; ++i) {
             ExifAttribute value = mAttributes[i].get(tag);
+            if (value == null && mLazyExifBuffer != null) {
+                value = readLazyExifAttribute(i, tag);
+                if (value != null) {
+                    mAttributes[i].put(tag, value);
+                }
+            }
             if (value != null) {
                 return value;
             }
@@ -4202,6 +4269,7 @@ public class ExifInterface {
             }
             tag = TAG_PHOTOGRAPHIC_SENSITIVITY;
         }
+        readLazyAttributes();
         // Convert the given value to rational values for backwards compatibility.
         if (value != null && sTagSetForCompatibility.contains(tag)) {
             if (tag.equals(TAG_GPS_TIMESTAMP)) {
@@ -4532,8 +4600,11 @@ public class ExifInterface {
 
             // Check file type
             if (!mIsExifDataOnly) {
-                in = new BufferedInputStream(in, SIGNATURE_CHECK_SIZE);
-                mMimeType = getMimeType((BufferedInputStream) in);
+                // Mapped files can be marked and reset without an intermediate buffer.
+                if (!(in instanceof ByteBufferInputStream)) {
+                    in = new BufferedInputStream(in, SIGNATURE_CHECK_SIZE);
+                }
+                mMimeType = getMimeType(in);
             }
 
             // Create byte-ordered input stream
@@ -4608,6 +4679,28 @@ public class ExifInterface {
         }
     }
 
+    /**
+     * Loads the attributes from a read-only memory mapping of the data that follows the current
+     * position of the given file, so that seeking back and forth while parsing doesn't go through
+     * a stream. Falls back to {@link #loadAttributes(InputStream)} if the file cannot be mapped.
+     */
+    private void loadMappedAttributes(@NonNull FileInputStream in) throws IOException {
+        FileChannel channel = in.getChannel();
+        long position = channel.position();
+        ByteBuffer buffer;
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                    channel.size() - position);
+        } catch (IOException | IllegalArgumentException e) {
+            if (DEBUG) {
+                Log.d(TAG, "Failed to map the file, reading it as a stream instead", e);
+            }
+            loadAttributes(in);
+            return;
+        }
+        loadAttributes(new ByteBufferInputStream(buffer));
+    }
+
     private static boolean isSeekableFD(FileDescriptor fd) {
         if (Build.VERSION.SDK_INT >= 21) {
             try {
@@ -4653,6 +4746,7 @@ public class ExifInterface {
      * </p>
      */
     public void saveAttributes() throws IOException {
+        readLazyAttributes();
         if (!isSupportedFormatForSavingAttributes()) {
             throw new IOException("ExifInterface only supports saving attributes on JPEG, PNG, "
                     + "or WebP formats.");
@@ -4669,6 +4763,12 @@ public class ExifInterface {
         // Keep the thumbnail in memory
         mThumbnailBytes = getThumbnail();
 
+        if (mMimeType == IMAGE_TYPE_JPEG && saveJpegAttributesInPlace()) {
+            // Discard the thumbnail in memory
+            mThumbnailBytes = null;
+            return;
+        }
+
         FileInputStream in = null;
         FileOutputStream out = null;
         File originalFile = null;
@@ -4744,6 +4844,7 @@ public class ExifInterface {
      * Returns true if the image file has a thumbnail.
      */
     public boolean hasThumbnail() {
+        readLazyAttributes();
         return mHasThumbnail;
     }
 
@@ -4764,6 +4865,7 @@ public class ExifInterface {
      */
     @Nullable
     public byte[] getThumbnail() {
+        readLazyAttributes();
         if (mThumbnailCompression == DATA_JPEG || mThumbnailCompression == DATA_JPEG_COMPRESSED) {
             return getThumbnailBytes();
         }
@@ -4776,6 +4878,7 @@ public class ExifInterface {
      */
     @Nullable
     public byte[] getThumbnailBytes() {
+        readLazyAttributes();
         if (!mHasThumbnail) {
             return null;
         }
@@ -4836,6 +4939,7 @@ public class ExifInterface {
      */
     @Nullable
     public Bitmap getThumbnailBitmap() {
+        readLazyAttributes();
         if (!mHasThumbnail) {
             return null;
         } else if (mThumbnailBytes == null) {
@@ -4871,6 +4975,7 @@ public class ExifInterface {
      * not exist or thumbnail image is uncompressed.
      */
     public boolean isThumbnailCompressed() {
+        readLazyAttributes();
         if (!mHasThumbnail) {
             return false;
         }
@@ -4899,6 +5004,7 @@ public class ExifInterface {
                     "The underlying file has been modified since being parsed");
         }
 
+        readLazyAttributes();
         if (mHasThumbnail) {
             if (mHasThumbnailStrips && !mAreThumbnailStripsConsecutive) {
                 return null;
@@ -5212,9 +5318,48 @@ public class ExifInterface {
             } else {
                 mSeekableFileDescriptor = null;
             }
-            loadAttributes(in);
+            if (mReadLazily) {
+                loadMappedAttributes(in);
+            } else {
+                loadAttributes(in);
+            }
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    private void initForFileDescriptor(FileDescriptor fileDescriptor) throws IOException {
+        mAssetInputStream = null;
+        mFilename = null;
+
+        boolean isFdDuped = false;
+        if (Build.VERSION.SDK_INT >= 21 && isSeekableFD(fileDescriptor)) {
+            mSeekableFileDescriptor = fileDescriptor;
+            // Keep the original file descriptor in order to save attributes when it's seekable.
+            // Otherwise, just close the given file descriptor after reading it because the save
+            // feature won't be working.
+            try {
+                fileDescriptor = Os.dup(fileDescriptor);
+                isFdDuped = true;
+            } catch (Exception e) {
+                throw new IOException("Failed to duplicate file descriptor", e);
+            }
+        } else {
+            mSeekableFileDescriptor = null;
+        }
+        FileInputStream in = null;
+        try {
+            in = new FileInputStream(fileDescriptor);
+            if (mReadLazily && isFdDuped) {
+                loadMappedAttributes(in);
+            } else {
+                loadAttributes(in);
+            }
         } finally {
             closeQuietly(in);
+            if (isFdDuped) {
+                closeFileDescriptor(fileDescriptor);
+            }
         }
     }
 
@@ -5258,11 +5403,18 @@ public class ExifInterface {
     }
 
     // Checks the type of image file
-    private int getMimeType(BufferedInputStream in) throws IOException {
+    private int getMimeType(InputStream in) throws IOException {
         // TODO (b/142218289): Need to handle case where input stream does not support mark
         in.mark(SIGNATURE_CHECK_SIZE);
-        byte[] signatureCheckBytes = new byte[SIGNATURE_CHECK_SIZE];
-        in.read(signatureCheckBytes);
+        byte[] signatureCheckBytes = mSignatureCheckBuffer;
+        if (signatureCheckBytes == null || signatureCheckBytes.length != SIGNATURE_CHECK_SIZE) {
+            signatureCheckBytes = new byte[SIGNATURE_CHECK_SIZE];
+            in.read(signatureCheckBytes);
+        } else {
+            // Clear whatever a previous, longer file left behind.
+            int bytesRead = Math.max(0, in.read(signatureCheckBytes));
+            Arrays.fill(signatureCheckBytes, bytesRead, SIGNATURE_CHECK_SIZE, (byte) 0);
+        }
         in.reset();
         if (isJpegFormat(signatureCheckBytes)) {
             return IMAGE_TYPE_JPEG;
@@ -5558,13 +5710,20 @@ public class ExifInterface {
                     if (startsWith(bytes, IDENTIFIER_EXIF_APP1)) {
                         final byte[] value = Arrays.copyOfRange(bytes, IDENTIFIER_EXIF_APP1.length,
                                 bytes.length);
+                        // An EXIF data area that has only been indexed relies on the offset below.
+                        readLazyAttributes();
                         // Save offset to EXIF data for handling thumbnail and attribute offsets.
                         mOffsetToExifData = offsetToJpeg
                                 + /* offset to EXIF from JPEG start */ start
                                 + IDENTIFIER_EXIF_APP1.length;
-                        readExifSegment(value, imageType);
+                        mJpegExifSegmentLength = bytes.length + 2;
+                        if (shouldIndexExifSegment()) {
+                            indexExifSegment(value);
+                        } else {
+                            readExifSegment(value, imageType);
 
-                        setThumbnailData(new ByteOrderedDataInputStream(value));
+                            setThumbnailData(new ByteOrderedDataInputStream(value));
+                        }
                     } else if (startsWith(bytes, IDENTIFIER_XMP_APP1)) {
                         // See XMP Specification Part 3: Storage in Files, 1.1.3 JPEG, Table 6
                         final int offset = start + IDENTIFIER_XMP_APP1.length;
@@ -6182,9 +6341,13 @@ public class ExifInterface {
                     }
                     // Save offset to EXIF data for handling thumbnail and attribute offsets.
                     mOffsetToExifData = bytesRead;
-                    readExifSegment(payload, IFD_TYPE_PRIMARY);
+                    if (shouldIndexExifSegment()) {
+                        indexExifSegment(payload);
+                    } else {
+                        readExifSegment(payload, IFD_TYPE_PRIMARY);
 
-                    setThumbnailData(new ByteOrderedDataInputStream(payload));
+                        setThumbnailData(new ByteOrderedDataInputStream(payload));
+                    }
                     break;
                 } else {
                     // Add a single padding byte at end if chunk size is odd
@@ -6233,23 +6396,9 @@ public class ExifInterface {
         }
         dataOutputStream.writeByte(MARKER_SOI);
 
-        // Remove XMP data if it is from a separate marker (IDENTIFIER_XMP_APP1, not
-        // IDENTIFIER_EXIF_APP1)
-        // Will re-add it later after the rest of the file is written
-        ExifAttribute xmpAttribute = null;
-        if (getAttribute(TAG_XMP) != null && mXmpIsFromSeparateMarker) {
-            xmpAttribute = mAttributes[IFD_TYPE_PRIMARY].remove(TAG_XMP);
-        }
-
-        // Write EXIF APP1 segment
-        dataOutputStream.writeByte(MARKER);
-        dataOutputStream.writeByte(MARKER_APP1);
-        writeExifSegment(dataOutputStream);
-
-        // Re-add previously removed XMP data.
-        if (xmpAttribute != null) {
-            mAttributes[IFD_TYPE_PRIMARY].put(TAG_XMP, xmpAttribute);
-        }
+        // Write EXIF APP1 segment, keeping the padding of the original segment if the EXIF data
+        // shrank so that later updates can still be saved in place.
+        mJpegExifSegmentLength = writeJpegExifSegment(dataOutputStream, mJpegExifSegmentLength);
 
         byte[] bytes = new byte[4096];
 
@@ -6324,6 +6473,189 @@ public class ExifInterface {
         }
     }
 
+    // Writes the EXIF APP1 segment of a JPEG file, including its marker, padded with zero bytes to
+    // at least minSegmentLength. Returns the length of the segment as written in its length field.
+    private int writeJpegExifSegment(ByteOrderedDataOutputStream dataOutputStream,
+            int minSegmentLength) throws IOException {
+        // Remove XMP data if it is from a separate marker (IDENTIFIER_XMP_APP1, not
+        // IDENTIFIER_EXIF_APP1)
+        // Will re-add it later after the EXIF segment is written
+        ExifAttribute xmpAttribute = null;
+        if (getAttribute(TAG_XMP) != null && mXmpIsFromSeparateMarker) {
+            xmpAttribute = mAttributes[IFD_TYPE_PRIMARY].remove(TAG_XMP);
+        }
+
+        dataOutputStream.writeByte(MARKER);
+        dataOutputStream.writeByte(MARKER_APP1);
+        int segmentLength = writeExifSegment(dataOutputStream, minSegmentLength);
+
+        // Re-add previously removed XMP data.
+        if (xmpAttribute != null) {
+            mAttributes[IFD_TYPE_PRIMARY].put(TAG_XMP, xmpAttribute);
+        }
+        return segmentLength;
+    }
+
+    /**
+     * Overwrites the EXIF APP1 segment of the JPEG file in place when the updated EXIF data fits
+     * into it, so that the rest of the file doesn't need to be copied. Any space left over is
+     * filled with zeros and kept for later updates.
+     * <p>
+     * The segment marker and length are left untouched, so the file stays a valid JPEG even if
+     * writing is interrupted. If writing fails before anything was written, such as for a file
+     * descriptor opened read-only, the attributes have to be saved by copying the file. If it
+     * fails midway, the original EXIF data is written back and the write error is rethrown.
+     *
+     * @return whether the attributes have been saved, or false if they have to be saved by
+     *         copying the file, e.g. when the EXIF data grew or the file has no EXIF segment yet.
+     */
+    private boolean saveJpegAttributesInPlace() throws IOException {
+        RandomAccessFile file = null;
+        FileInputStream in = null;
+        FileOutputStream out = null;
+        try {
+            FileChannel readChannel;
+            FileChannel writeChannel;
+            if (mFilename != null) {
+                try {
+                    file = new RandomAccessFile(mFilename, "rw");
+                } catch (FileNotFoundException e) {
+                    // The file may not be writable in place, but it may still be replaceable.
+                    return false;
+                }
+                readChannel = file.getChannel();
+                writeChannel = readChannel;
+            } else if (Build.VERSION.SDK_INT >= 21 && mSeekableFileDescriptor != null) {
+                in = new FileInputStream(mSeekableFileDescriptor);
+                out = new FileOutputStream(mSeekableFileDescriptor);
+                readChannel = in.getChannel();
+                writeChannel = out.getChannel();
+            } else {
+                return false;
+            }
+
+            long segmentOffset = findJpegExifSegment(readChannel);
+            if (segmentOffset < 0) {
+                return false;
+            }
+            ByteBuffer lengthBuffer = ByteBuffer.allocate(2);
+            readFully(readChannel, lengthBuffer, segmentOffset + 2);
+            int segmentLength = lengthBuffer.getShort(0) & 0xffff;
+
+            ByteArrayOutputStream segmentBytes = new ByteArrayOutputStream(segmentLength + 2);
+            int newSegmentLength = writeJpegExifSegment(
+                    new ByteOrderedDataOutputStream(segmentBytes, ByteOrder.BIG_ENDIAN),
+                    segmentLength);
+            if (newSegmentLength != segmentLength) {
+                if (DEBUG) {
+                    Log.d(TAG, "EXIF data grew beyond its segment (" + newSegmentLength
+                            + " > " + segmentLength + "), rewriting the whole file");
+                }
+                return false;
+            }
+
+            // Only the data after the marker and the length is replaced.
+            long dataOffset = segmentOffset + 4;
+            ByteBuffer original = ByteBuffer.allocate(segmentLength - 2);
+            readFully(readChannel, original, dataOffset);
+            ByteBuffer segment = ByteBuffer.wrap(segmentBytes.toByteArray(), 4, segmentLength - 2);
+            try {
+                writeFully(writeChannel, segment, dataOffset);
+            } catch (IOException e) {
+                // The buffer position only advances past the bytes that were actually written.
+                if (segment.position() == 4) {
+                    if (DEBUG) {
+                        Log.d(TAG, "Saving EXIF data in place failed, rewriting the whole file", e);
+                    }
+                    return false;
+                }
+                original.rewind();
+                try {
+                    writeFully(writeChannel, original, dataOffset);
+                } catch (IOException restoreException) {
+                    Log.e(TAG, "Couldn't restore original EXIF data", restoreException);
+                    if (Build.VERSION.SDK_INT >= 19) {
+                        e.addSuppressed(restoreException);
+                    }
+                }
+                throw e;
+            }
+            // The thumbnail offset written above is relative to the new EXIF data.
+            mOffsetToExifData = (int) segmentOffset + 4 + IDENTIFIER_EXIF_APP1.length;
+            return true;
+        } finally {
+            closeQuietly(file);
+            closeQuietly(in);
+            closeQuietly(out);
+        }
+    }
+
+    /**
+     * Returns the offset of the marker of the only EXIF APP1 segment of the JPEG file, or -1 if
+     * there is none or more than one of them.
+     */
+    private static long findJpegExifSegment(FileChannel channel) throws IOException {
+        // 2 bytes for the marker, 2 bytes for the length and the EXIF identifier.
+        ByteBuffer header = ByteBuffer.allocate(4 + IDENTIFIER_EXIF_APP1.length);
+        header.limit(2);
+        readFully(channel, header, 0);
+        if (header.get(0) != MARKER || header.get(1) != MARKER_SOI) {
+            return -1;
+        }
+        long exifSegmentOffset = -1;
+        long position = 2;
+        while (true) {
+            header.clear();
+            header.limit(4);
+            readFully(channel, header, position);
+            byte marker = header.get(1);
+            if (header.get(0) != MARKER) {
+                return -1;
+            }
+            if (marker == MARKER_EOI || marker == MARKER_SOS) {
+                return exifSegmentOffset;
+            }
+            int length = header.getShort(2) & 0xffff;
+            if (length < 2) {
+                return -1;
+            }
+            if (marker == MARKER_APP1 && length >= 2 + IDENTIFIER_EXIF_APP1.length) {
+                header.limit(header.capacity());
+                readFully(channel, header, position + 4);
+                byte[] identifier = new byte[IDENTIFIER_EXIF_APP1.length];
+                header.position(4);
+                header.get(identifier);
+                if (Arrays.equals(identifier, IDENTIFIER_EXIF_APP1)) {
+                    if (exifSegmentOffset >= 0) {
+                        return -1;
+                    }
+                    exifSegmentOffset = position;
+                }
+            }
+            position += 2 + length;
+        }
+    }
+
+    // Fills the remaining part of the given buffer with the data at the given file position.
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException {
+        int start = buffer.position();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position() - start) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    // Writes the remaining part of the given buffer at the given file position.
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException {
+        int start = buffer.position();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position() - start);
+        }
+    }
+
     private void savePngAttributes(InputStream inputStream, OutputStream outputStream)
             throws IOException {
         if (DEBUG) {
@@ -6662,6 +6994,238 @@ public class ExifInterface {
         readImageFileDirectory(dataInputStream, imageType);
     }
 
+    // Returns whether the EXIF data area that is about to be read should only be indexed, so that
+    // its tags are decoded when they are first requested.
+    private boolean shouldIndexExifSegment() {
+        return mReadLazily && (mMimeType == IMAGE_TYPE_JPEG || mMimeType == IMAGE_TYPE_WEBP);
+    }
+
+    // Records the offsets of the image file directories in the given EXIF byte area instead of
+    // reading their tags. See readLazyExifAttribute() and readLazyAttributes().
+    private void indexExifSegment(byte[] exifBytes) throws IOException {
+        ByteOrderedDataInputStream dataInputStream =
+                new ByteOrderedDataInputStream(exifBytes);
+
+        // Parse TIFF Headers. See JEITA CP-3451C Section 4.5.2. Table 1.
+        parseTiffHeaders(dataInputStream, exifBytes.length);
+
+        mLazyExifBuffer = ByteBuffer.wrap(exifBytes).order(mExifByteOrder);
+        mLazyIfdTypes = new int[EXIF_TAGS.length];
+        mLazyIfdOffsets = new int[EXIF_TAGS.length];
+        mLazyIfdCount = 0;
+        indexImageFileDirectory(mLazyExifBuffer, dataInputStream.peek(), IFD_TYPE_PRIMARY);
+    }
+
+    // Records the image file directory at the given offset and follows its pointers to other
+    // image file directories the same way readImageFileDirectory() does.
+    private void indexImageFileDirectory(ByteBuffer buffer, int offset, @IfdType int ifdType) {
+        if (mLazyIfdCount == mLazyIfdTypes.length) {
+            mLazyIfdTypes = Arrays.copyOf(mLazyIfdTypes, mLazyIfdCount * 2);
+            mLazyIfdOffsets = Arrays.copyOf(mLazyIfdOffsets, mLazyIfdCount * 2);
+        }
+        mLazyIfdTypes[mLazyIfdCount] = ifdType;
+        mLazyIfdOffsets[mLazyIfdCount] = offset;
+        ++mLazyIfdCount;
+
+        int numberOfDirectoryEntry = getLazyDirectoryEntryCount(buffer, offset);
+        int entryOffset = offset + 2;
+        for (int i = 0; i < numberOfDirectoryEntry; ++i, entryOffset += 12) {
+            int tagNumber = buffer.getShort(entryOffset) & 0xffff;
+            Integer nextIfdType = sExifPointerTagMap.get(tagNumber);
+            ExifTag tag = sExifTagMapsForReading[ifdType].get(tagNumber);
+            if (nextIfdType == null || tag == null) {
+                continue;
+            }
+            int dataFormat = getLazyEntryFormat(buffer, entryOffset, tag);
+            int valueOffset = getLazyEntryValueOffset(buffer, entryOffset, dataFormat);
+            if (valueOffset < 0) {
+                continue;
+            }
+            long nextIfdOffset;
+            switch (dataFormat) {
+                case IFD_FORMAT_USHORT: {
+                    nextIfdOffset = buffer.getShort(valueOffset) & 0xffff;
+                    break;
+                }
+                case IFD_FORMAT_SSHORT: {
+                    nextIfdOffset = buffer.getShort(valueOffset);
+                    break;
+                }
+                case IFD_FORMAT_ULONG: {
+                    nextIfdOffset = buffer.getInt(valueOffset) & 0xffffffffL;
+                    break;
+                }
+                case IFD_FORMAT_SLONG:
+                case IFD_FORMAT_IFD: {
+                    nextIfdOffset = buffer.getInt(valueOffset);
+                    break;
+                }
+                default: {
+                    nextIfdOffset = -1L;
+                    break;
+                }
+            }
+            if (nextIfdOffset > 0L && nextIfdOffset < buffer.limit()
+                    && !isLazyImageFileDirectory((int) nextIfdOffset)) {
+                indexImageFileDirectory(buffer, (int) nextIfdOffset, nextIfdType);
+            }
+        }
+
+        if (numberOfDirectoryEntry > 0 && entryOffset + 4 <= buffer.limit()) {
+            int nextIfdOffset = buffer.getInt(entryOffset);
+            if (nextIfdOffset > 0 && nextIfdOffset < buffer.limit()
+                    && !isLazyImageFileDirectory(nextIfdOffset)) {
+                if (!hasLazyImageFileDirectory(IFD_TYPE_THUMBNAIL)) {
+                    indexImageFileDirectory(buffer, nextIfdOffset, IFD_TYPE_THUMBNAIL);
+                } else if (!hasLazyImageFileDirectory(IFD_TYPE_PREVIEW)) {
+                    indexImageFileDirectory(buffer, nextIfdOffset, IFD_TYPE_PREVIEW);
+                }
+            }
+        }
+    }
+
+    private boolean isLazyImageFileDirectory(int offset) {
+        for (int i = 0; i < mLazyIfdCount; ++i) {
+            if (mLazyIfdOffsets[i] == offset) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasLazyImageFileDirectory(@IfdType int ifdType) {
+        for (int i = 0; i < mLazyIfdCount; ++i) {
+            if (mLazyIfdTypes[i] == ifdType) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Returns the number of entries of the image file directory at the given offset, or 0 if they
+    // don't fit in the buffer.
+    private static int getLazyDirectoryEntryCount(ByteBuffer buffer, int offset) {
+        if (offset + 2 > buffer.limit()) {
+            return 0;
+        }
+        // See TIFF 6.0 Section 2: TIFF Structure, Figure 1.
+        short numberOfDirectoryEntry = buffer.getShort(offset);
+        if (offset + 2 + 12 * numberOfDirectoryEntry > buffer.limit()
+                || numberOfDirectoryEntry <= 0) {
+            return 0;
+        }
+        return numberOfDirectoryEntry;
+    }
+
+    // Returns the data format of the given entry, or -1 if it isn't valid for the given tag.
+    private static int getLazyEntryFormat(ByteBuffer buffer, int entryOffset, ExifTag tag) {
+        int dataFormat = buffer.getShort(entryOffset + 2) & 0xffff;
+        if (dataFormat <= 0 || dataFormat >= IFD_FORMAT_BYTES_PER_FORMAT.length
+                || !tag.isFormatCompatible(dataFormat)) {
+            return -1;
+        }
+        return dataFormat == IFD_FORMAT_UNDEFINED ? tag.primaryFormat : dataFormat;
+    }
+
+    // Returns the offset of the value of the given entry, or -1 if the entry would be skipped by
+    // readImageFileDirectory().
+    private static int getLazyEntryValueOffset(ByteBuffer buffer, int entryOffset,
+            int dataFormat) {
+        if (dataFormat < 0) {
+            return -1;
+        }
+        int numberOfComponents = buffer.getInt(entryOffset + 4);
+        long byteCount = (long) numberOfComponents * IFD_FORMAT_BYTES_PER_FORMAT[dataFormat];
+        if (byteCount < 0 || byteCount > Integer.MAX_VALUE) {
+            return -1;
+        }
+        // The value is stored in the entry itself if it fits into four bytes.
+        if (byteCount <= 4) {
+            return entryOffset + 8;
+        }
+        int offset = buffer.getInt(entryOffset + 8);
+        if (offset < 0 || offset + byteCount > buffer.limit()) {
+            return -1;
+        }
+        return offset;
+    }
+
+    /**
+     * Decodes the given tag from the indexed image file directories of the given type, or returns
+     * {@code null} if none of them contains it. Like readImageFileDirectory(), the last valid
+     * entry wins.
+     */
+    @Nullable
+    private ExifAttribute readLazyExifAttribute(@IfdType int ifdType, @NonNull String tagName) {
+        ExifTag tag = sExifTagMapsForWriting[ifdType].get(tagName);
+        if (tag == null || sExifPointerTagMap.containsKey(tag.number)
+                || sExifTagMapsForReading[ifdType].get(tag.number) != tag) {
+            return null;
+        }
+        ByteBuffer buffer = mLazyExifBuffer;
+        ExifAttribute attribute = null;
+        for (int i = 0; i < mLazyIfdCount; ++i) {
+            if (mLazyIfdTypes[i] != ifdType) {
+                continue;
+            }
+            int numberOfDirectoryEntry = getLazyDirectoryEntryCount(buffer, mLazyIfdOffsets[i]);
+            int entryOffset = mLazyIfdOffsets[i] + 2;
+            for (int j = 0; j < numberOfDirectoryEntry; ++j, entryOffset += 12) {
+                if ((buffer.getShort(entryOffset) & 0xffff) != tag.number) {
+                    continue;
+                }
+                int dataFormat = getLazyEntryFormat(buffer, entryOffset, tag);
+                int valueOffset = getLazyEntryValueOffset(buffer, entryOffset, dataFormat);
+                if (valueOffset < 0) {
+                    continue;
+                }
+                int numberOfComponents = buffer.getInt(entryOffset + 4);
+                byte[] bytes = Arrays.copyOfRange(buffer.array(), valueOffset,
+                        valueOffset + numberOfComponents * IFD_FORMAT_BYTES_PER_FORMAT[dataFormat]);
+                attribute = new ExifAttribute(dataFormat, numberOfComponents,
+                        valueOffset + mOffsetToExifData, bytes);
+            }
+        }
+        return attribute;
+    }
+
+    /**
+     * Reads all tags of an EXIF data area that has only been indexed so far, along with its
+     * thumbnail data. Values that have already been stored, either because they were requested
+     * or because they came from outside the EXIF data area, keep taking precedence.
+     */
+    @SuppressWarnings("unchecked")
+    private void readLazyAttributes() {
+        if (mLazyExifBuffer == null) {
+            return;
+        }
+        byte[] exifBytes = mLazyExifBuffer.array();
+        mLazyExifBuffer = null;
+        mLazyIfdTypes = null;
+        mLazyIfdOffsets = null;
+        mLazyIfdCount = 0;
+
+        HashMap<String, ExifAttribute>[] storedAttributes = new HashMap[EXIF_TAGS.length];
+        for (int i = 0; i < EXIF_TAGS.length; ++i) {
+            storedAttributes[i] = mAttributes[i];
+            mAttributes[i] = new HashMap<>();
+        }
+        try {
+            readExifSegment(exifBytes, IFD_TYPE_PRIMARY);
+            setThumbnailData(new ByteOrderedDataInputStream(exifBytes));
+        } catch (IOException e) {
+            // Ignore exceptions in order to keep the compatibility with eager reading, which
+            // keeps the tags that could be read as well.
+            if (DEBUG) {
+                Log.w(TAG, "Failed to read the lazily indexed EXIF data area", e);
+            }
+        } finally {
+            for (int i = 0; i < EXIF_TAGS.length; ++i) {
+                mAttributes[i].putAll(storedAttributes[i]);
+            }
+        }
+    }
+
     private void addDefaultValuesForCompatibility() {
         // If DATETIME tag has no value, then set the value to DATETIME_ORIGINAL tag's.
         String valueOfDateTimeOriginal = getAttribute(TAG_DATETIME_ORIGINAL);
@@ -7326,6 +7890,14 @@ public class ExifInterface {
 
     // Writes an Exif segment into the given output stream.
     private int writeExifSegment(ByteOrderedDataOutputStream dataOutputStream) throws IOException {
+        return writeExifSegment(dataOutputStream, 0);
+    }
+
+    // Writes the EXIF data. For JPEG files, zero bytes are appended until the APP1 segment is at
+    // least minJpegSegmentLength long; they are covered by the segment length and ignored by
+    // readers.
+    private int writeExifSegment(ByteOrderedDataOutputStream dataOutputStream,
+            int minJpegSegmentLength) throws IOException {
         // The following variables are for calculating each IFD tag group size in bytes.
         int[] ifdOffsets = new int[EXIF_TAGS.length];
         int[] ifdDataSizes = new int[EXIF_TAGS.length];
@@ -7402,9 +7974,13 @@ public class ExifInterface {
         }
 
         int totalSize = position;
+        int paddingSize = 0;
         if (mMimeType == IMAGE_TYPE_JPEG) {
             // Add 8 bytes for APP1 size and identifier data
             totalSize += 8;
+            paddingSize = Math.max(0,
+                    Math.min(minJpegSegmentLength, JPEG_MAX_SEGMENT_LENGTH) - totalSize);
+            totalSize += paddingSize;
         }
         if (DEBUG) {
             for (int i = 0; i < EXIF_TAGS.length; ++i) {
@@ -7511,6 +8087,10 @@ public class ExifInterface {
             dataOutputStream.write(getThumbnailBytes());
         }
 
+        for (int i = 0; i < paddingSize; ++i) {
+            dataOutputStream.writeByte(0);
+        }
+
         // For WebP files, add a single padding byte at end if chunk size is odd
         if (mMimeType == IMAGE_TYPE_WEBP && totalSize % 2 == 1) {
             dataOutputStream.writeByte(0);
@@ -7604,6 +8184,64 @@ public class ExifInterface {
         return new Pair<>(IFD_FORMAT_STRING, -1);
     }
 
+    // An input stream that reads directly from a byte buffer, such as a memory-mapped file. Marking
+    // and resetting it just moves the position of the buffer, so it never needs to be buffered.
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer mBuffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            mBuffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return mBuffer.hasRemaining() ? mBuffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!mBuffer.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, mBuffer.remaining());
+            mBuffer.get(b, off, len);
+            return len;
+        }
+
+        @Override
+        public long skip(long n) {
+            if (n <= 0) {
+                return 0;
+            }
+            int skipped = (int) Math.min(n, mBuffer.remaining());
+            mBuffer.position(mBuffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return mBuffer.remaining();
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(int readlimit) {
+            mBuffer.mark();
+        }
+
+        @Override
+        public synchronized void reset() {
+            mBuffer.reset();
+        }
+    }
+
     // An input stream to parse EXIF data area, which can be written in either little or big endian
     // order.
     private static class ByteOrderedDataInputStream extends InputStream implements DataInput {
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package androidx.exifinterface.media;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Reads a fixed set of Exif tags from many files at once.
+ * <p>
+ * Each file is opened with {@link ExifInterface#createLazily(File)}, so only the tags that were
+ * asked for are decoded from JPEG and WebP files, while the other formats supported by
+ * {@link ExifInterface} are parsed in full. The buffers used to recognize the file formats are
+ * shared between files, and files can be read in parallel on a given {@link Executor}.
+ * <p>
+ * Results are handed to a {@link Callback} as soon as each file has been read, not in the order
+ * of the input list, and possibly from several threads at the same time.
+ */
+public final class ExifScanner {
+    private final String[] mTags;
+    private final Executor mExecutor;
+    private final int mMaxParallelism;
+    private final ConcurrentLinkedQueue<byte[]> mBufferPool = new ConcurrentLinkedQueue<>();
+
+    ExifScanner(String[] tags, Executor executor, int maxParallelism) {
+        mTags = tags;
+        mExecutor = executor;
+        mMaxParallelism = maxParallelism;
+    }
+
+    /**
+     * Reads the tags of each of the given files, returning once all of them have been passed to
+     * the callback.
+     *
+     * @param files the files to read
+     * @param callback the callback to receive the tag values of each file
+     */
+    public void scanFiles(@NonNull final List<File> files, @NonNull Callback callback) {
+        if (files == null) {
+            throw new NullPointerException("files cannot be null");
+        }
+        scan(files.size(), callback, new Reader() {
+            @Override
+            public ExifInterface read(int index, byte[] buffer) throws IOException {
+                return ExifInterface.createLazily(files.get(index), buffer);
+            }
+        });
+    }
+
+    /**
+     * Reads the tags of each of the given file descriptors, returning once all of them have been
+     * passed to the callback.
+     * <p>
+     * The file descriptors are not closed, and must be seekable.
+     *
+     * @param fileDescriptors the file descriptors to read
+     * @param callback the callback to receive the tag values of each file
+     */
+    public void scanFileDescriptors(@NonNull final List<FileDescriptor> fileDescriptors,
+            @NonNull Callback callback) {
+        if (fileDescriptors == null) {
+            throw new NullPointerException("fileDescriptors cannot be null");
+        }
+        scan(fileDescriptors.size(), callback, new Reader() {
+            @Override
+            public ExifInterface read(int index, byte[] buffer) throws IOException {
+                return ExifInterface.createLazily(fileDescriptors.get(index), buffer);
+            }
+        });
+    }
+
+    private void scan(final int count, final Callback callback, final Reader reader) {
+        if (callback == null) {
+            throw new NullPointerException("callback cannot be null");
+        }
+        if (count == 0) {
+            return;
+        }
+        final AtomicInteger nextIndex = new AtomicInteger();
+        final CountDownLatch remaining = new CountDownLatch(count);
+        final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                byte[] buffer = mBufferPool.poll();
+                if (buffer == null) {
+                    buffer = new byte[ExifInterface.SIGNATURE_CHECK_SIZE];
+                }
+                try {
+                    int index;
+                    while ((index = nextIndex.getAndIncrement()) < count) {
+                        try {
+                            if (failure.get() == null) {
+                                scanFile(index, buffer, callback, reader);
+                            }
+                        } catch (RuntimeException e) {
+                            failure.compareAndSet(null, e);
+                        } finally {
+                            remaining.countDown();
+                        }
+                    }
+                } finally {
+                    mBufferPool.offer(buffer);
+                }
+            }
+        };
+        if (mExecutor != null) {
+            int helpers = Math.min(mMaxParallelism, count) - 1;
+            for (int i = 0; i < helpers; i++) {
+                try {
+                    mExecutor.execute(worker);
+                } catch (RejectedExecutionException e) {
+                    // The calling thread picks up whatever the executor cannot take.
+                    break;
+                }
+            }
+        }
+        worker.run();
+        // Files claimed by other threads may still be in progress.
+        boolean interrupted = false;
+        while (true) {
+            try {
+                remaining.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        RuntimeException e = failure.get();
+        if (e != null) {
+            throw e;
+        }
+    }
+
+    private void scanFile(int index, byte[] buffer, Callback callback, Reader reader) {
+        String[] values = new String[mTags.length];
+        try {
+            ExifInterface exifInterface = reader.read(index, buffer);
+            for (int i = 0; i < mTags.length; i++) {
+                values[i] = exifInterface.getAttribute(mTags[i]);
+            }
+        } catch (IOException e) {
+            callback.onError(index, e);
+            return;
+        }
+        callback.onScanned(index, values);
+    }
+
+    /**
+     * Receives the tag values read by an {@link ExifScanner}.
+     */
+    public interface Callback {
+        /**
+         * Called once a file has been read.
+         *
+         * @param index the position of the file in the input list
+         * @param values the values of the requested tags, in the order they were requested, with
+         *               {@code null} for tags that the file does not have
+         */
+        void onScanned(int index, @NonNull String[] values);
+
+        /**
+         * Called if a file could not be read.
+         *
+         * @param index the position of the file in the input list
+         * @param e the error that occurred
+         */
+        void onError(int index, @NonNull IOException e);
+    }
+
+    private interface Reader {
+        ExifInterface read(int index, byte[] buffer) throws IOException;
+    }
+
+    /**
+     * Builder for {@link ExifScanner}.
+     */
+    public static final class Builder {
+        private final String[] mTags;
+        private Executor mExecutor;
+        private int mMaxParallelism = 1;
+
+        /**
+         * Creates a builder for a scanner that reads the given tags, such as
+         * {@link ExifInterface#TAG_ORIENTATION}.
+         */
+        public Builder(@NonNull String... tags) {
+            if (tags == null) {
+                throw new NullPointerException("tags cannot be null");
+            }
+            for (String tag : tags) {
+                if (tag == null) {
+                    throw new NullPointerException("tag shouldn't be null");
+                }
+            }
+            mTags = tags.clone();
+        }
+
+        /**
+         * Sets the executor on which files are read in parallel with the calling thread. By
+         * default, all files are read on the calling thread.
+         */
+        @NonNull
+        public Builder setExecutor(@Nullable Executor executor) {
+            mExecutor = executor;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of files that are read at the same time, including the one read
+         * by the calling thread. Defaults to 1, and only takes effect when an executor is set.
+         */
+        @NonNull
+        public Builder setMaxParallelism(int maxParallelism) {
+            if (maxParallelism < 1) {
+                throw new IllegalArgumentException("maxParallelism must be at least 1");
+            }
+            mMaxParallelism = maxParallelism;
+            return this;
+        }
+
+        /**
+         * Creates the {@link ExifScanner}.
+         */
+        @NonNull
+        public ExifScanner build() {
+            return new ExifScanner(mTags, mExecutor, mMaxParallelism);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.palette.benchmark
+
+import android.graphics.Bitmap
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.palette.graphics.Palette
+import androidx.test.filters.LargeTest
+import org.junit.After
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.util.concurrent.Executors
+
+/**
+ * Measures generating palettes for a gallery's worth of [thumbnailSize] pixel thumbnails, one
+ * [Palette.Builder] at a time and through [Palette.BatchBuilder].
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class PaletteBatchBenchmark(private val thumbnailSize: Int) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors())
+    private val bitmaps: List<Bitmap> = List(THUMBNAIL_COUNT) {
+        createTestBitmap(thumbnailSize, thumbnailSize, seed = it.toLong())
+    }
+
+    @After
+    fun teardown() {
+        executor.shutdownNow()
+        bitmaps.forEach { it.recycle() }
+    }
+
+    @Test
+    fun builders() {
+        benchmarkRule.measureRepeated {
+            bitmaps.forEach { Palette.from(it).generate() }
+        }
+    }
+
+    @Test
+    fun batch() {
+        benchmarkRule.measureRepeated {
+            Palette.BatchBuilder().generate(bitmaps)
+        }
+    }
+
+    @Test
+    fun batchParallel() {
+        benchmarkRule.measureRepeated {
+            Palette.BatchBuilder().setExecutor(executor).generate(bitmaps)
+        }
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "thumbnailSize={0}")
+        fun data(): List<Array<Any>> = listOf(96, 256).map { arrayOf<Any>(it) }
+
+        private const val THUMBNAIL_COUNT = 100
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.palette.benchmark
+
+import android.graphics.Bitmap
+import android.graphics.Color
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.palette.graphics.Palette
+import androidx.test.filters.LargeTest
+import org.junit.After
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.util.Random
+import java.util.concurrent.Executors
+
+/**
+ * Measures generating a palette from a single bitmap of [width] by [height] pixels, at full
+ * resolution and resized to the default area, on the calling thread and with an executor.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class PaletteBenchmark(
+    private val width: Int,
+    private val height: Int,
+    private val parallel: Boolean
+) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors())
+    private val bitmap = createTestBitmap(width, height, seed = 0)
+
+    @After
+    fun teardown() {
+        executor.shutdownNow()
+        bitmap.recycle()
+    }
+
+    @Test
+    fun generateFullResolution() {
+        benchmarkRule.measureRepeated {
+            builder().resizeBitmapArea(0).generate()
+        }
+    }
+
+    @Test
+    fun generateResized() {
+        benchmarkRule.measureRepeated {
+            builder().generate()
+        }
+    }
+
+    private fun builder(): Palette.Builder {
+        val builder = Palette.from(bitmap)
+        if (parallel) {
+            builder.setExecutor(executor)
+        }
+        return builder
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "width={0}, height={1}, parallel={2}")
+        fun data(): List<Array<Any>> = mutableListOf<Array<Any>>().apply {
+            listOf(256 to 256, 1024 to 1024, 2048 to 2048, 3840 to 2160).forEach { size ->
+                listOf(false, true).forEach { parallel ->
+                    add(arrayOf(size.first, size.second, parallel))
+                }
+            }
+        }
+    }
+}
+
+/**
+ * Creates a bitmap with gradients and noise in it, so that it has many distinct colors.
+ */
+internal fun createTestBitmap(width: Int, height: Int, seed: Long): Bitmap {
+    val random = Random(seed)
+    val pixels = IntArray(width * height) { index ->
+        val x = index % width
+        val y = index / width
+        Color.rgb(
+            (x * 255 / width + random.nextInt(32)) and 0xff,
+            (y * 255 / height + random.nextInt(32)) and 0xff,
+            (x xor y) and 0xff
+        )
+    }
+    return Bitmap.createBitmap(pixels, width, height, Bitmap.Config.ARGB_8888)
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.palette.benchmark
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.palette.graphics.Palette
+import androidx.palette.graphics.PixelSource
+import androidx.palette.graphics.SwatchCache
+import androidx.palette.graphics.SwatchExtractor
+import androidx.test.filters.LargeTest
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.nio.ByteBuffer
+
+/**
+ * Compares extracting swatches from a [size] by [size] image through a [Palette.Builder] with
+ * reading its RGBA pixels straight from a buffer through a [SwatchExtractor], with and without a
+ * [SwatchCache] that already holds the image.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class SwatchExtractorBenchmark(private val size: Int) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val bitmap = createTestBitmap(size, size, seed = 0)
+    private val buffer = ByteBuffer.allocateDirect(bitmap.byteCount).also {
+        bitmap.copyPixelsToBuffer(it)
+        it.rewind()
+    }
+    private val swatches = IntArray(SwatchExtractor().maximumColorCount * 2)
+
+    @Test
+    fun builder() {
+        benchmarkRule.measureRepeated {
+            Palette.from(bitmap).resizeBitmapArea(0).generate()
+        }
+    }
+
+    @Test
+    fun extractor() {
+        val extractor = SwatchExtractor()
+        benchmarkRule.measureRepeated {
+            extractor.extract(source(), swatches)
+        }
+    }
+
+    @Test
+    fun extractorCached() {
+        val extractor = SwatchExtractor().setCache(SwatchCache(1))
+        extractor.extract(source(), swatches)
+        benchmarkRule.measureRepeated {
+            extractor.extract(source(), swatches)
+        }
+    }
+
+    private fun source() = PixelSource.fromRgba(buffer, size, size, bitmap.rowBytes, 4)
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "size={0}")
+        fun data(): List<Array<Any>> = listOf(96, 256, 1024).map { arrayOf<Any>(it) }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.palette.graphics;
+
+import static org.junit.Assert.assertEquals;
+
+import android.graphics.Bitmap;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@RunWith(AndroidJUnit4.class)
+@MediumTest
+public class ParallelGenerationTest {
+
+    private final ExecutorService mExecutor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown() {
+        mExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testExecutorMatchesSerial() {
+        final Bitmap bitmap = TestUtils.loadSampleBitmap();
+
+        Palette serial = Palette.from(bitmap).resizeBitmapArea(-1).generate();
+        Palette parallel = Palette.from(bitmap).resizeBitmapArea(-1)
+                .setExecutor(mExecutor)
+                .generate();
+
+        assertPalettesEqual(serial, parallel);
+    }
+
+    @Test
+    public void testBatchMatchesBuilder() {
+        final Bitmap bitmap = TestUtils.loadSampleBitmap();
+        final Bitmap small = Bitmap.createScaledBitmap(bitmap, 64, 48, false);
+        final List<Bitmap> bitmaps = Arrays.asList(bitmap, small, bitmap);
+
+        List<Palette> serial = new Palette.BatchBuilder().generate(bitmaps);
+        List<Palette> parallel = new Palette.BatchBuilder()
+                .setExecutor(mExecutor)
+                .generate(bitmaps);
+
+        assertEquals(bitmaps.size(), serial.size());
+        assertEquals(bitmaps.size(), parallel.size());
+        for (int i = 0; i < bitmaps.size(); i++) {
+            Palette expected = Palette.from(bitmaps.get(i)).generate();
+            assertPalettesEqual(expected, serial.get(i));
+            assertPalettesEqual(expected, parallel.get(i));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBatchRejectsRecycledBitmap() {
+        final Bitmap bitmap = Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+        bitmap.recycle();
+        new Palette.BatchBuilder().generate(Arrays.asList(bitmap));
+    }
+
+    private static void assertPalettesEqual(Palette expected, Palette actual) {
+        assertEquals(expected.getSwatches(), actual.getSwatches());
+        assertEquals(expected.getVibrantSwatch(), actual.getVibrantSwatch());
+        assertEquals(expected.getMutedSwatch(), actual.getMutedSwatch());
+        assertEquals(expected.getDominantSwatch(), actual.getDominantSwatch());
+    }
+}
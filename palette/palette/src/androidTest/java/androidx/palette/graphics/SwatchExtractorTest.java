@@ -0,0 +1,187 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.palette.graphics;
+
+import static org.junit.Assert.assertEquals;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.List;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class SwatchExtractorTest {
+
+    @Test
+    public void testArgbMatchesBitmap() {
+        final Bitmap bitmap = loadScaledSampleBitmap();
+        final int width = bitmap.getWidth();
+        final int height = bitmap.getHeight();
+        final int[] pixels = new int[width * height];
+        bitmap.getPixels(pixels, 0, width, 0, 0, width, height);
+
+        final int[] swatches = new int[Palette.DEFAULT_CALCULATE_NUMBER_COLORS * 2];
+        final int count = new SwatchExtractor().extract(
+                PixelSource.fromArgb(IntBuffer.wrap(pixels), width, height, width), swatches);
+
+        assertEquals(generateSwatches(bitmap), SwatchExtractor.toSwatches(swatches, count));
+    }
+
+    @Test
+    public void testRgbaMatchesBitmap() {
+        final Bitmap bitmap = loadScaledSampleBitmap();
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(bitmap.getByteCount());
+        bitmap.copyPixelsToBuffer(buffer);
+        buffer.rewind();
+
+        final int[] swatches = new int[Palette.DEFAULT_CALCULATE_NUMBER_COLORS * 2];
+        final int count = new SwatchExtractor().extract(
+                PixelSource.fromRgba(buffer, bitmap.getWidth(), bitmap.getHeight(),
+                        bitmap.getRowBytes(), 4),
+                swatches);
+
+        assertEquals(generateSwatches(bitmap), SwatchExtractor.toSwatches(swatches, count));
+    }
+
+    @Test
+    public void testCache() {
+        final int[] pixels = new int[100 * 100];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = 0xFF000000 | (i * 7919) & 0xFFFFFF;
+        }
+        final SwatchCache cache = new SwatchCache(10);
+        final SwatchExtractor extractor = new SwatchExtractor().setCache(cache);
+        final int[] first = new int[extractor.getMaximumColorCount() * 2];
+        final int[] second = new int[first.length];
+
+        final int count = extractor.extract(
+                PixelSource.fromArgb(IntBuffer.wrap(pixels), 100, 100, 100), first);
+        assertEquals(count, extractor.extract(
+                PixelSource.fromArgb(IntBuffer.wrap(pixels), 100, 100, 100), second));
+        assertEquals(SwatchExtractor.toSwatches(first, count),
+                SwatchExtractor.toSwatches(second, count));
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+
+        // Different settings must not share results
+        new SwatchExtractor().maximumColorCount(4).setCache(cache)
+                .extract(PixelSource.fromArgb(IntBuffer.wrap(pixels), 100, 100, 100), first);
+        assertEquals(2, cache.missCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testCacheKeyedByDimensionsAndFilters() {
+        final int[] pixels = new int[100 * 100];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = 0xFF000000 | (i * 7919) & 0xFFFFFF;
+        }
+        final SwatchCache cache = new SwatchCache(10);
+        final int[] swatches = new int[Palette.DEFAULT_CALCULATE_NUMBER_COLORS * 2];
+
+        new SwatchExtractor().addFilter(new MinimumRedFilter(0x10)).setCache(cache)
+                .extract(PixelSource.fromArgb(IntBuffer.wrap(pixels), 100, 100, 100), swatches);
+        // The same pixels in another shape are a different image
+        new SwatchExtractor().addFilter(new MinimumRedFilter(0x10)).setCache(cache)
+                .extract(PixelSource.fromArgb(IntBuffer.wrap(pixels), 50, 200, 50), swatches);
+        assertEquals(2, cache.missCount());
+
+        // Equal filters share results, even when they are different instances
+        new SwatchExtractor().addFilter(new MinimumRedFilter(0x10)).setCache(cache)
+                .extract(PixelSource.fromArgb(IntBuffer.wrap(pixels), 100, 100, 100), swatches);
+        assertEquals(1, cache.hitCount());
+
+        new SwatchExtractor().addFilter(new MinimumRedFilter(0x20)).setCache(cache)
+                .extract(PixelSource.fromArgb(IntBuffer.wrap(pixels), 100, 100, 100), swatches);
+        assertEquals(3, cache.missCount());
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void testRgbaLastPixelWithoutStridePadding() {
+        // 3x2 image with 8 byte pixel strides, where the last row ends right after its last pixel
+        final int pixelStride = 8;
+        final int rowStride = 3 * pixelStride;
+        final ByteBuffer buffer = ByteBuffer.allocate(rowStride + 2 * pixelStride + 4);
+        for (int y = 0; y < 2; y++) {
+            for (int x = 0; x < 3; x++) {
+                buffer.put(y * rowStride + x * pixelStride, (byte) 0xFF);
+                buffer.put(y * rowStride + x * pixelStride + 3, (byte) 0xFF);
+            }
+        }
+        final int[] swatches = new int[Palette.DEFAULT_CALCULATE_NUMBER_COLORS * 2];
+        final int count = new SwatchExtractor().extract(
+                PixelSource.fromRgba(buffer, 3, 2, rowStride, pixelStride), swatches);
+        assertEquals(1, count);
+        // Quantized to 5 bits per channel
+        assertEquals(0xF80000, swatches[0] & 0xFFFFFF);
+        assertEquals(6, swatches[1]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBufferTooSmall() {
+        PixelSource.fromRgba(ByteBuffer.allocate(100), 10, 10, 40, 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSwatchesArrayTooSmall() {
+        new SwatchExtractor().extract(
+                PixelSource.fromArgb(IntBuffer.allocate(4), 2, 2, 2), new int[2]);
+    }
+
+    private static Bitmap loadScaledSampleBitmap() {
+        return Bitmap.createScaledBitmap(TestUtils.loadSampleBitmap(), 100, 80, false);
+    }
+
+    private static List<Palette.Swatch> generateSwatches(Bitmap bitmap) {
+        return Palette.from(bitmap).resizeBitmapArea(0).generate().getSwatches();
+    }
+
+    private static final class MinimumRedFilter implements Palette.Filter {
+        private final int mMinimumRed;
+
+        MinimumRedFilter(int minimumRed) {
+            mMinimumRed = minimumRed;
+        }
+
+        @Override
+        public boolean isAllowed(int rgb, @NonNull float[] hsl) {
+            return Color.red(rgb) >= mMinimumRed;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof MinimumRedFilter
+                    && ((MinimumRedFilter) o).mMinimumRed == mMinimumRed;
+        }
+
+        @Override
+        public int hashCode() {
+            return mMinimumRed;
+        }
+    }
+}
@@ -27,6 +27,11 @@ import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.PriorityQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * An color quantizer based on the Median-cut algorithm, but optimized for picking out distinct
@@ -48,40 +53,86 @@ final class ColorCutQuantizer {
 
     private static final int QUANTIZE_WORD_WIDTH = 5;
     private static final int QUANTIZE_WORD_MASK = (1 << QUANTIZE_WORD_WIDTH) - 1;
+    private static final int HISTOGRAM_SIZE = 1 << (QUANTIZE_WORD_WIDTH * 3);
+
+    /**
+     * The smallest number of pixels worth handing to another thread when building the histogram.
+     */
+    private static final int MIN_PIXELS_PER_TASK = 1 << 16;
 
     final int[] mColors;
     final int[] mHistogram;
-    final List<Palette.Swatch> mQuantizedColors;
     @Nullable final Palette.Filter[] mFilters;
 
+    /**
+     * The quantized colors, as pairs of RGB888 color and population.
+     */
+    final int[] mSwatches;
+    int mSwatchCount;
+
     private final float[] mTempHsl = new float[3];
 
     /**
      * Constructor.
      *
-     * @param pixels histogram representing an image's pixel data
+     * @param pixels an image's pixel data, in its first {@code pixelCount} entries
+     * @param pixelCount the number of pixels to quantize
      * @param maxColors The maximum number of colors that should be in the result palette.
      * @param filters Set of filters to use in the quantization stage
+     * @param executor Executor to build the histogram and run the filters on in parallel, or
+     *                 {@code null} to do all of the work on the calling thread
+     * @param buffers Scratch buffers to build the histogram in
      */
-    ColorCutQuantizer(int[] pixels, int maxColors, @Nullable Palette.Filter[] filters) {
+    ColorCutQuantizer(final int[] pixels, final int pixelCount, int maxColors,
+            @Nullable Palette.Filter[] filters, @Nullable Executor executor,
+            Buffers buffers) {
         mFilters = filters;
 
-        final int[] hist = mHistogram = new int[1 << (QUANTIZE_WORD_WIDTH * 3)];
-        for (int i = 0; i < pixels.length; i++) {
-            final int quantizedColor = quantizeFromRgb888(pixels[i]);
-            // Now update the pixel value to the quantized value
-            pixels[i] = quantizedColor;
-            // And update the histogram
-            hist[quantizedColor]++;
+        final int taskCount = executor == null ? 1 : taskCount(pixelCount / MIN_PIXELS_PER_TASK);
+        final int[][] histograms = buffers.histograms(taskCount);
+        final int[] hist = mHistogram = histograms[0];
+        final boolean filtered = filters != null && filters.length > 0;
+        if (executor == null || taskCount == 1) {
+            Arrays.fill(hist, 0);
+            buildHistogram(pixels, 0, pixelCount, hist);
+            if (filtered) {
+                removeFilteredColors(hist, 0, hist.length, mTempHsl);
+            }
+        } else {
+            // Each task counts its share of the pixels into its own histogram, which are then
+            // merged into the first one
+            runInParallel(executor, taskCount, taskCount, new ParallelTask() {
+                @Override
+                public void run(int task, int worker) {
+                    final int[] taskHist = histograms[task];
+                    Arrays.fill(taskHist, 0);
+                    buildHistogram(pixels, (int) ((long) pixelCount * task / taskCount),
+                            (int) ((long) pixelCount * (task + 1) / taskCount), taskHist);
+                }
+            });
+            for (int task = 1; task < taskCount; task++) {
+                final int[] taskHist = histograms[task];
+                for (int color = 0; color < hist.length; color++) {
+                    hist[color] += taskHist[color];
+                }
+            }
+            if (filtered) {
+                // Running the filters means converting every distinct color to HSL, so that is
+                // split up by color too
+                runInParallel(executor, taskCount, taskCount, new ParallelTask() {
+                    @Override
+                    public void run(int task, int worker) {
+                        removeFilteredColors(hist, hist.length * task / taskCount,
+                                hist.length * (task + 1) / taskCount,
+                                task == 0 ? mTempHsl : new float[3]);
+                    }
+                });
+            }
         }
 
         // Now let's count the number of distinct colors
         int distinctColorCount = 0;
         for (int color = 0; color < hist.length; color++) {
-            if (hist[color] > 0 && shouldIgnoreColor(color)) {
-                // If we should ignore the color, set the population to 0
-                hist[color] = 0;
-            }
             if (hist[color] > 0) {
                 // If the color has population, increase the distinct color count
                 distinctColorCount++;
@@ -89,7 +140,7 @@ final class ColorCutQuantizer {
         }
 
         // Now lets go through create an array consisting of only distinct colors
-        final int[] colors = mColors = new int[distinctColorCount];
+        final int[] colors = mColors = buffers.colors(distinctColorCount);
         int distinctColorIndex = 0;
         for (int color = 0; color < hist.length; color++) {
             if (hist[color] > 0) {
@@ -97,15 +148,37 @@ final class ColorCutQuantizer {
             }
         }
 
+        mSwatches = buffers.swatches(Math.min(distinctColorCount, maxColors));
         if (distinctColorCount <= maxColors) {
             // The image has fewer colors than the maximum requested, so just return the colors
-            mQuantizedColors = new ArrayList<>();
-            for (int color : colors) {
-                mQuantizedColors.add(new Palette.Swatch(approximateToRgb888(color), hist[color]));
+            for (int i = 0; i < distinctColorCount; i++) {
+                final int color = colors[i];
+                addSwatch(approximateToRgb888(color), hist[color]);
             }
         } else {
             // We need use quantization to reduce the number of colors
-            mQuantizedColors = quantizePixels(maxColors);
+            quantizePixels(maxColors, distinctColorCount);
+        }
+    }
+
+    private void addSwatch(int rgb, int population) {
+        mSwatches[mSwatchCount * 2] = rgb;
+        mSwatches[mSwatchCount * 2 + 1] = population;
+        mSwatchCount++;
+    }
+
+    private static void buildHistogram(int[] pixels, int from, int to, int[] hist) {
+        for (int i = from; i < to; i++) {
+            hist[quantizeFromRgb888(pixels[i])]++;
+        }
+    }
+
+    private void removeFilteredColors(int[] hist, int from, int to, float[] tempHsl) {
+        for (int color = from; color < to; color++) {
+            if (hist[color] > 0 && shouldIgnoreQuantizedColor(color, tempHsl)) {
+                // If we should ignore the color, set the population to 0
+                hist[color] = 0;
+            }
         }
     }
 
@@ -113,23 +186,37 @@ final class ColorCutQuantizer {
      * @return the list of quantized colors
      */
     List<Palette.Swatch> getQuantizedColors() {
-        return mQuantizedColors;
+        final List<Palette.Swatch> swatches = new ArrayList<>(mSwatchCount);
+        for (int i = 0; i < mSwatchCount; i++) {
+            swatches.add(new Palette.Swatch(mSwatches[i * 2], mSwatches[i * 2 + 1]));
+        }
+        return swatches;
     }
 
-    private List<Palette.Swatch> quantizePixels(int maxColors) {
+    /**
+     * Copies the quantized colors into {@code out}, as pairs of RGB888 color and population.
+     *
+     * @return the number of quantized colors
+     */
+    int getQuantizedColors(int[] out) {
+        System.arraycopy(mSwatches, 0, out, 0, mSwatchCount * 2);
+        return mSwatchCount;
+    }
+
+    private void quantizePixels(int maxColors, int colorCount) {
         // Create the priority queue which is sorted by volume descending. This means we always
         // split the largest box in the queue
         final PriorityQueue<Vbox> pq = new PriorityQueue<>(maxColors, VBOX_COMPARATOR_VOLUME);
 
         // To start, offer a box which contains all of the colors
-        pq.offer(new Vbox(0, mColors.length - 1));
+        pq.offer(new Vbox(0, colorCount - 1));
 
         // Now go through the boxes, splitting them until we have reached maxColors or there are no
         // more boxes to split
         splitBoxes(pq, maxColors);
 
-        // Finally, return the average colors of the color boxes
-        return generateAverageColors(pq);
+        // Finally, add the average colors of the color boxes
+        generateAverageColors(pq);
     }
 
     /**
@@ -157,17 +244,16 @@ final class ColorCutQuantizer {
         }
     }
 
-    private List<Palette.Swatch> generateAverageColors(Collection<Vbox> vboxes) {
-        ArrayList<Palette.Swatch> colors = new ArrayList<>(vboxes.size());
+    private void generateAverageColors(Collection<Vbox> vboxes) {
         for (Vbox vbox : vboxes) {
-            Palette.Swatch swatch = vbox.getAverageColor();
-            if (!shouldIgnoreColor(swatch)) {
+            final int rgb = vbox.getAverageColor();
+            ColorUtils.colorToHSL(rgb, mTempHsl);
+            if (!shouldIgnoreColor(rgb, mTempHsl)) {
                 // As we're averaging a color box, we can still get colors which we do not want, so
                 // we check again here
-                colors.add(swatch);
+                addSwatch(rgb, vbox.mPopulation);
             }
         }
-        return colors;
     }
 
     /**
@@ -333,7 +419,7 @@ final class ColorCutQuantizer {
         /**
          * @return the average color of this box.
          */
-        final Palette.Swatch getAverageColor() {
+        final int getAverageColor() {
             final int[] colors = mColors;
             final int[] hist = mHistogram;
             int redSum = 0;
@@ -355,7 +441,7 @@ final class ColorCutQuantizer {
             final int greenMean = Math.round(greenSum / (float) totalPopulation);
             final int blueMean = Math.round(blueSum / (float) totalPopulation);
 
-            return new Palette.Swatch(approximateToRgb888(redMean, greenMean, blueMean), totalPopulation);
+            return approximateToRgb888(redMean, greenMean, blueMean);
         }
     }
 
@@ -392,14 +478,10 @@ final class ColorCutQuantizer {
         }
     }
 
-    private boolean shouldIgnoreColor(int color565) {
+    private boolean shouldIgnoreQuantizedColor(int color565, float[] tempHsl) {
         final int rgb = approximateToRgb888(color565);
-        ColorUtils.colorToHSL(rgb, mTempHsl);
-        return shouldIgnoreColor(rgb, mTempHsl);
-    }
-
-    private boolean shouldIgnoreColor(Palette.Swatch color) {
-        return shouldIgnoreColor(color.getRgb(), color.getHsl());
+        ColorUtils.colorToHSL(rgb, tempHsl);
+        return shouldIgnoreColor(rgb, tempHsl);
     }
 
     private boolean shouldIgnoreColor(int rgb, float[] hsl) {
@@ -479,4 +561,147 @@ final class ColorCutQuantizer {
         return newValue & ((1 << targetWidth) - 1);
     }
 
+    /**
+     * Returns how many tasks to split work into, given that it could usefully be split into
+     * {@code maxTasks} tasks.
+     */
+    static int taskCount(int maxTasks) {
+        return Math.max(1, Math.min(maxTasks, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * A share of some work, run by {@link #runInParallel}.
+     */
+    interface ParallelTask {
+        /**
+         * @param task the index of the share of the work to do
+         * @param worker the index of the worker running the task, which runs no other task
+         *               at the same time
+         */
+        void run(int task, int worker);
+    }
+
+    /**
+     * Runs {@code taskCount} tasks on up to {@code workerCount} workers: the calling thread, and
+     * workers submitted to {@code executor}. Returns once all of the tasks have completed.
+     *
+     * <p>Workers claim tasks until there are none left, and the calling thread runs any tasks
+     * that the executor has not gotten to, so this completes even if all of the executor's
+     * threads are busy.
+     */
+    static void runInParallel(Executor executor, final int taskCount, int workerCount,
+            final ParallelTask task) {
+        final AtomicInteger nextTask = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(taskCount);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        class Worker implements Runnable {
+            private final int mIndex;
+
+            Worker(int index) {
+                mIndex = index;
+            }
+
+            @Override
+            public void run() {
+                int index;
+                while ((index = nextTask.getAndIncrement()) < taskCount) {
+                    try {
+                        task.run(index, mIndex);
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            }
+        }
+
+        for (int i = 1; i < Math.min(workerCount, taskCount); i++) {
+            try {
+                executor.execute(new Worker(i));
+            } catch (RejectedExecutionException e) {
+                // The calling thread will pick up the work
+                break;
+            }
+        }
+        new Worker(0).run();
+
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                // The tasks use buffers that the caller may reuse, so keep waiting for them
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        final Throwable t = failure.get();
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        } else if (t instanceof Error) {
+            throw (Error) t;
+        } else if (t != null) {
+            throw new RuntimeException(t);
+        }
+    }
+
+    /**
+     * Scratch buffers which can be reused by quantizers run one after another, to avoid
+     * allocating them for every image.
+     */
+    static final class Buffers {
+        private int[] mPixels = new int[0];
+        private int[][] mHistograms = new int[0][];
+        private int[] mColors = new int[0];
+        private int[] mSwatches = new int[0];
+
+        /**
+         * Returns a buffer which can hold at least {@code count} pixels.
+         */
+        int[] pixels(int count) {
+            if (mPixels.length < count) {
+                mPixels = new int[count];
+            }
+            return mPixels;
+        }
+
+        /**
+         * Returns a buffer which can hold at least {@code count} quantized colors.
+         */
+        int[] colors(int count) {
+            if (mColors.length < count) {
+                mColors = new int[count];
+            }
+            return mColors;
+        }
+
+        /**
+         * Returns a buffer which can hold at least {@code count} pairs of color and population.
+         */
+        int[] swatches(int count) {
+            if (mSwatches.length < count * 2) {
+                mSwatches = new int[count * 2];
+            }
+            return mSwatches;
+        }
+
+        /**
+         * Returns at least {@code count} histograms, which hold the counts of a previous use.
+         */
+        int[][] histograms(int count) {
+            if (mHistograms.length < count) {
+                final int[][] histograms = Arrays.copyOf(mHistograms, count);
+                for (int i = mHistograms.length; i < count; i++) {
+                    histograms[i] = new int[HISTOGRAM_SIZE];
+                }
+                mHistograms = histograms;
+            }
+            return mHistograms;
+        }
+    }
 }
@@ -34,6 +34,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * A helper class to extract prominent colors from an image.
@@ -601,6 +602,7 @@ public final class Palette {
 
         private final List<Filter> mFilters = new ArrayList<>();
         @Nullable private Rect mRegion;
+        @Nullable private Executor mExecutor;
 
         /**
          * Construct a new {@link Builder} using a source {@link Bitmap}
@@ -771,6 +773,27 @@ public final class Palette {
             return this;
         }
 
+        /**
+         * Set an executor to speed up generation from large bitmaps with, by splitting up the
+         * pixels of the bitmap between its threads. Each thread counts the colors of its share of
+         * the pixels, and the counts are merged before quantization.
+         * <p>
+         * This only pays off if resizing is disabled or set to a large area, as the default
+         * resized bitmap is quick enough to process on a single thread. The calling thread also
+         * processes a share of the pixels, and runs any shares that the executor has not started
+         * yet, so the executor may be busy with other work.
+         * <p>
+         * Any filters added with {@link #addFilter(Filter)} will be called from multiple threads.
+         *
+         * @param executor the executor to use, or {@code null} to do all of the work on the thread
+         *                 calling {@link #generate()}.
+         */
+        @NonNull
+        public Builder setExecutor(@Nullable Executor executor) {
+            mExecutor = executor;
+            return this;
+        }
+
         /**
          * Generate and return the {@link Palette} synchronously.
          */
@@ -780,35 +803,9 @@ public final class Palette {
 
             if (mBitmap != null) {
                 // We have a Bitmap so we need to use quantization to reduce the number of colors
-
-                // First we'll scale down the bitmap if needed
-                final Bitmap bitmap = scaleBitmapDown(mBitmap);
-
-                final Rect region = mRegion;
-                if (bitmap != mBitmap && region != null) {
-                    // If we have a scaled bitmap and a selected region, we need to scale down the
-                    // region to match the new scale
-                    final double scale = bitmap.getWidth() / (double) mBitmap.getWidth();
-                    region.left = (int) Math.floor(region.left * scale);
-                    region.top = (int) Math.floor(region.top * scale);
-                    region.right = Math.min((int) Math.ceil(region.right * scale),
-                            bitmap.getWidth());
-                    region.bottom = Math.min((int) Math.ceil(region.bottom * scale),
-                            bitmap.getHeight());
-                }
-
-                // Now generate a quantizer from the Bitmap
-                final ColorCutQuantizer quantizer = new ColorCutQuantizer(
-                        getPixelsFromBitmap(bitmap),
-                        mMaxColors,
-                        mFilters.isEmpty() ? null : mFilters.toArray(new Filter[mFilters.size()]));
-
-                // If created a new bitmap, recycle it
-                if (bitmap != mBitmap) {
-                    bitmap.recycle();
-                }
-
-                swatches = quantizer.getQuantizedColors();
+                swatches = quantize(mBitmap, mRegion, mResizeArea, mResizeMaxDimension, mMaxColors,
+                        mFilters.isEmpty() ? null : mFilters.toArray(new Filter[mFilters.size()]),
+                        mExecutor, new ColorCutQuantizer.Buffers());
             } else if (mSwatches != null) {
                 // Else we're using the provided swatches
                 swatches = mSwatches;
@@ -858,60 +855,246 @@ public final class Palette {
                 }
             }.executeOnExecutor(android.os.AsyncTask.THREAD_POOL_EXECUTOR, mBitmap);
         }
+    }
 
-        private int[] getPixelsFromBitmap(Bitmap bitmap) {
-            final int bitmapWidth = bitmap.getWidth();
-            final int bitmapHeight = bitmap.getHeight();
-            final int[] pixels = new int[bitmapWidth * bitmapHeight];
-            bitmap.getPixels(pixels, 0, bitmapWidth, 0, 0, bitmapWidth, bitmapHeight);
+    /**
+     * Builder class for generating {@link Palette} instances for many bitmaps at once, such as
+     * the thumbnails shown by a gallery.
+     * <p>
+     * The buffers that the pixels and color counts of each bitmap are read into are reused from
+     * one bitmap to the next, rather than allocated for every bitmap. If an executor is set with
+     * {@link #setExecutor(Executor)}, the bitmaps are split up between its threads, each with its
+     * own buffers.
+     */
+    public static final class BatchBuilder {
+        private final List<Target> mTargets = new ArrayList<>();
+        private final List<Filter> mFilters = new ArrayList<>();
 
-            if (mRegion == null) {
-                // If we don't have a region, return all of the pixels
-                return pixels;
-            } else {
-                // If we do have a region, lets create a subset array containing only the region's
-                // pixels
-                final int regionWidth = mRegion.width();
-                final int regionHeight = mRegion.height();
-                // pixels contains all of the pixels, so we need to iterate through each row and
-                // copy the regions pixels into a new smaller array
-                final int[] subsetPixels = new int[regionWidth * regionHeight];
-                for (int row = 0; row < regionHeight; row++) {
-                    System.arraycopy(pixels, ((row + mRegion.top) * bitmapWidth) + mRegion.left,
-                            subsetPixels, row * regionWidth, regionWidth);
-                }
-                return subsetPixels;
+        private int mMaxColors = DEFAULT_CALCULATE_NUMBER_COLORS;
+        private int mResizeArea = DEFAULT_RESIZE_BITMAP_AREA;
+        @Nullable private Executor mExecutor;
+
+        /**
+         * Construct a new {@link BatchBuilder} with the same default filter and targets as a
+         * {@link Builder}.
+         */
+        public BatchBuilder() {
+            mFilters.add(DEFAULT_FILTER);
+
+            // Add the default targets
+            mTargets.add(Target.LIGHT_VIBRANT);
+            mTargets.add(Target.VIBRANT);
+            mTargets.add(Target.DARK_VIBRANT);
+            mTargets.add(Target.LIGHT_MUTED);
+            mTargets.add(Target.MUTED);
+            mTargets.add(Target.DARK_MUTED);
+        }
+
+        /**
+         * Set the maximum number of colors to use in the quantization step.
+         *
+         * @see Builder#maximumColorCount(int)
+         */
+        @NonNull
+        public BatchBuilder maximumColorCount(int colors) {
+            mMaxColors = colors;
+            return this;
+        }
+
+        /**
+         * Set the area that each bitmap is resized to before its colors are counted, if it is
+         * larger.
+         *
+         * @param area the number of pixels that the intermediary scaled down Bitmaps should cover,
+         *             or any value <= 0 to disable resizing.
+         * @see Builder#resizeBitmapArea(int)
+         */
+        @NonNull
+        public BatchBuilder resizeBitmapArea(final int area) {
+            mResizeArea = area;
+            return this;
+        }
+
+        /**
+         * Clear all added filters. This includes any default filters added automatically by
+         * {@link Palette}.
+         */
+        @NonNull
+        public BatchBuilder clearFilters() {
+            mFilters.clear();
+            return this;
+        }
+
+        /**
+         * Add a filter to be able to have fine grained control over which colors are
+         * allowed in the resulting palettes.
+         *
+         * @param filter filter to add.
+         */
+        @NonNull
+        public BatchBuilder addFilter(@NonNull Filter filter) {
+            if (filter != null) {
+                mFilters.add(filter);
+            }
+            return this;
+        }
+
+        /**
+         * Add a target profile to be generated in the palettes.
+         */
+        @NonNull
+        public BatchBuilder addTarget(@NonNull final Target target) {
+            if (!mTargets.contains(target)) {
+                mTargets.add(target);
             }
+            return this;
         }
 
         /**
-         * Scale the bitmap down as needed.
+         * Clear all added targets. This includes any default targets added automatically by
+         * {@link Palette}.
+         */
+        @NonNull
+        public BatchBuilder clearTargets() {
+            mTargets.clear();
+            return this;
+        }
+
+        /**
+         * Set an executor to split the bitmaps up between. The calling thread also generates
+         * palettes, and picks up any bitmaps that the executor has not started on yet.
+         * <p>
+         * Any filters added with {@link #addFilter(Filter)} will be called from multiple threads.
+         *
+         * @param executor the executor to use, or {@code null} to generate all of the palettes
+         *                 on the thread calling {@link #generate(List)}.
          */
-        private Bitmap scaleBitmapDown(final Bitmap bitmap) {
-            double scaleRatio = -1;
+        @NonNull
+        public BatchBuilder setExecutor(@Nullable Executor executor) {
+            mExecutor = executor;
+            return this;
+        }
 
-            if (mResizeArea > 0) {
-                final int bitmapArea = bitmap.getWidth() * bitmap.getHeight();
-                if (bitmapArea > mResizeArea) {
-                    scaleRatio = Math.sqrt(mResizeArea / (double) bitmapArea);
+        /**
+         * Generate and return a {@link Palette} for each of the given bitmaps synchronously.
+         *
+         * @return the palettes, in the same order as {@code bitmaps}
+         */
+        @NonNull
+        public List<Palette> generate(@NonNull List<Bitmap> bitmaps) {
+            final Bitmap[] sources = bitmaps.toArray(new Bitmap[bitmaps.size()]);
+            for (int i = 0; i < sources.length; i++) {
+                if (sources[i] == null || sources[i].isRecycled()) {
+                    throw new IllegalArgumentException("Bitmap at index " + i + " is not valid");
                 }
-            } else if (mResizeMaxDimension > 0) {
-                final int maxDimension = Math.max(bitmap.getWidth(), bitmap.getHeight());
-                if (maxDimension > mResizeMaxDimension) {
-                    scaleRatio = mResizeMaxDimension / (double) maxDimension;
+            }
+            final Filter[] filters =
+                    mFilters.isEmpty() ? null : mFilters.toArray(new Filter[mFilters.size()]);
+            final List<Target> targets = new ArrayList<>(mTargets);
+            final Palette[] palettes = new Palette[sources.length];
+
+            final Executor executor = mExecutor;
+            if (executor == null) {
+                final ColorCutQuantizer.Buffers buffers = new ColorCutQuantizer.Buffers();
+                for (int i = 0; i < sources.length; i++) {
+                    palettes[i] = generatePalette(sources[i], filters, targets, buffers);
+                }
+            } else {
+                final ColorCutQuantizer.Buffers[] buffers =
+                        new ColorCutQuantizer.Buffers[ColorCutQuantizer.taskCount(sources.length)];
+                for (int i = 0; i < buffers.length; i++) {
+                    buffers[i] = new ColorCutQuantizer.Buffers();
                 }
+                ColorCutQuantizer.runInParallel(executor, sources.length, buffers.length,
+                        new ColorCutQuantizer.ParallelTask() {
+                            @Override
+                            public void run(int task, int worker) {
+                                palettes[task] = generatePalette(sources[task], filters, targets,
+                                        buffers[worker]);
+                            }
+                        });
             }
+            return Collections.unmodifiableList(Arrays.asList(palettes));
+        }
+
+        Palette generatePalette(Bitmap bitmap, @Nullable Filter[] filters, List<Target> targets,
+                ColorCutQuantizer.Buffers buffers) {
+            final List<Swatch> swatches = quantize(bitmap, null, mResizeArea, -1, mMaxColors,
+                    filters, null, buffers);
+            final Palette p = new Palette(swatches, targets);
+            p.generate();
+            return p;
+        }
+    }
+
+    /**
+     * Quantizes the colors of {@code source}, or of {@code region} of it, after scaling it down
+     * as set up by {@code resizeArea} or {@code resizeMaxDimension}.
+     */
+    static List<Swatch> quantize(Bitmap source, @Nullable Rect region, int resizeArea,
+            int resizeMaxDimension, int maxColors, @Nullable Filter[] filters,
+            @Nullable Executor executor, ColorCutQuantizer.Buffers buffers) {
+        // First we'll scale down the bitmap if needed
+        final Bitmap bitmap = scaleBitmapDown(source, resizeArea, resizeMaxDimension);
+
+        if (bitmap != source && region != null) {
+            // If we have a scaled bitmap and a selected region, we need to scale down the
+            // region to match the new scale
+            final double scale = bitmap.getWidth() / (double) source.getWidth();
+            region.left = (int) Math.floor(region.left * scale);
+            region.top = (int) Math.floor(region.top * scale);
+            region.right = Math.min((int) Math.ceil(region.right * scale), bitmap.getWidth());
+            region.bottom = Math.min((int) Math.ceil(region.bottom * scale), bitmap.getHeight());
+        }
+
+        // Read the pixels of the bitmap, or only those within the region
+        final int left = region != null ? region.left : 0;
+        final int top = region != null ? region.top : 0;
+        final int width = region != null ? region.width() : bitmap.getWidth();
+        final int height = region != null ? region.height() : bitmap.getHeight();
+        final int[] pixels = buffers.pixels(width * height);
+        bitmap.getPixels(pixels, 0, width, left, top, width, height);
+
+        // Now generate a quantizer from the pixels
+        final ColorCutQuantizer quantizer = new ColorCutQuantizer(pixels, width * height,
+                maxColors, filters, executor, buffers);
+
+        // If created a new bitmap, recycle it
+        if (bitmap != source) {
+            bitmap.recycle();
+        }
 
-            if (scaleRatio <= 0) {
-                // Scaling has been disabled or not needed so just return the Bitmap
-                return bitmap;
+        return quantizer.getQuantizedColors();
+    }
+
+    /**
+     * Scale the bitmap down as needed.
+     */
+    private static Bitmap scaleBitmapDown(final Bitmap bitmap, int resizeArea,
+            int resizeMaxDimension) {
+        double scaleRatio = -1;
+
+        if (resizeArea > 0) {
+            final int bitmapArea = bitmap.getWidth() * bitmap.getHeight();
+            if (bitmapArea > resizeArea) {
+                scaleRatio = Math.sqrt(resizeArea / (double) bitmapArea);
             }
+        } else if (resizeMaxDimension > 0) {
+            final int maxDimension = Math.max(bitmap.getWidth(), bitmap.getHeight());
+            if (maxDimension > resizeMaxDimension) {
+                scaleRatio = resizeMaxDimension / (double) maxDimension;
+            }
+        }
 
-            return Bitmap.createScaledBitmap(bitmap,
-                    (int) Math.ceil(bitmap.getWidth() * scaleRatio),
-                    (int) Math.ceil(bitmap.getHeight() * scaleRatio),
-                    false);
+        if (scaleRatio <= 0) {
+            // Scaling has been disabled or not needed so just return the Bitmap
+            return bitmap;
         }
+
+        return Bitmap.createScaledBitmap(bitmap,
+                (int) Math.ceil(bitmap.getWidth() * scaleRatio),
+                (int) Math.ceil(bitmap.getHeight() * scaleRatio),
+                false);
     }
 
     /**
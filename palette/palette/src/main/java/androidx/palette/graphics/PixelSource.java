@@ -0,0 +1,169 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.palette.graphics;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * The pixels of an image held in a buffer, such as the output of a decoder or the plane of an
+ * RGBA camera frame, for {@link SwatchExtractor} to read from without going through a
+ * {@link android.graphics.Bitmap}.
+ * <p>
+ * The pixels are read from the buffer's position onwards each time swatches are extracted, so the
+ * buffer should not be changed in the meantime. The alpha of each pixel is ignored, as it is when
+ * generating a {@link Palette} from a bitmap.
+ */
+public final class PixelSource {
+    private final int mWidth;
+    private final int mHeight;
+    private final int mRowStride;
+    private final int mPixelStride;
+    // Exactly one of the buffers is set
+    private final IntBuffer mIntBuffer;
+    private final ByteBuffer mByteBuffer;
+
+    private PixelSource(int width, int height, int rowStride, int pixelStride,
+            IntBuffer intBuffer, ByteBuffer byteBuffer) {
+        mWidth = width;
+        mHeight = height;
+        mRowStride = rowStride;
+        mPixelStride = pixelStride;
+        mIntBuffer = intBuffer;
+        mByteBuffer = byteBuffer;
+    }
+
+    /**
+     * Creates a source for pixels packed as ARGB color ints, the format returned by
+     * {@link android.graphics.Bitmap#getPixels}.
+     *
+     * @param pixels the pixels, starting at the buffer's position
+     * @param width the width of the image in pixels
+     * @param height the height of the image in pixels
+     * @param rowStride the number of ints between the starts of two rows, at least {@code width}
+     * @throws IllegalArgumentException if the dimensions are invalid, or if the buffer does not
+     *                                  hold enough pixels
+     */
+    @NonNull
+    public static PixelSource fromArgb(@NonNull IntBuffer pixels, int width, int height,
+            int rowStride) {
+        checkDimensions(width, height, rowStride, width, pixels.remaining());
+        return new PixelSource(width, height, rowStride, 1, pixels, EMPTY_BYTES);
+    }
+
+    /**
+     * Creates a source for pixels stored as red, green, blue and alpha bytes, the format of
+     * {@link android.graphics.Bitmap.Config#ARGB_8888} bitmaps copied with
+     * {@link android.graphics.Bitmap#copyPixelsToBuffer} and of
+     * {@link android.graphics.PixelFormat#RGBA_8888} image planes.
+     *
+     * @param pixels the pixels, starting at the buffer's position
+     * @param width the width of the image in pixels
+     * @param height the height of the image in pixels
+     * @param rowStride the number of bytes between the starts of two rows
+     * @param pixelStride the number of bytes between the starts of two pixels in a row, at
+     *                    least 4
+     * @throws IllegalArgumentException if the dimensions are invalid, or if the buffer does not
+     *                                  hold enough pixels
+     */
+    @NonNull
+    public static PixelSource fromRgba(@NonNull ByteBuffer pixels, int width, int height,
+            int rowStride, int pixelStride) {
+        if (pixelStride < 4) {
+            throw new IllegalArgumentException("pixelStride must be at least 4, was "
+                    + pixelStride);
+        }
+        // The last pixel of a row only needs its own 4 bytes, not a whole pixel stride, so
+        // cropped planes that end right after it are accepted
+        checkDimensions(width, height, rowStride, (width - 1) * pixelStride + 4,
+                pixels.remaining());
+        return new PixelSource(width, height, rowStride, pixelStride, EMPTY_INTS, pixels);
+    }
+
+    /**
+     * @param rowLength the number of buffer elements from the start of a row to the end of its
+     *                  last pixel
+     */
+    private static void checkDimensions(int width, int height, int rowStride, int rowLength,
+            int remaining) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid dimensions " + width + "x" + height);
+        }
+        if (rowStride < rowLength) {
+            throw new IllegalArgumentException("rowStride must be at least " + rowLength
+                    + ", was " + rowStride);
+        }
+        if ((long) rowStride * (height - 1) + rowLength > remaining) {
+            throw new IllegalArgumentException("The buffer is too small for a " + width + "x"
+                    + height + " image");
+        }
+    }
+
+    /**
+     * Returns the width of the image in pixels.
+     */
+    public int getWidth() {
+        return mWidth;
+    }
+
+    /**
+     * Returns the height of the image in pixels.
+     */
+    public int getHeight() {
+        return mHeight;
+    }
+
+    /**
+     * Returns the number of pixels in the image.
+     */
+    int getPixelCount() {
+        return mWidth * mHeight;
+    }
+
+    /**
+     * Reads the pixels into {@code out} as ARGB color ints, row after row.
+     */
+    void readPixels(int[] out) {
+        final int width = mWidth;
+        final int height = mHeight;
+        if (mByteBuffer != EMPTY_BYTES) {
+            final ByteBuffer buffer = mByteBuffer;
+            final int start = buffer.position();
+            for (int y = 0; y < height; y++) {
+                int index = start + y * mRowStride;
+                for (int x = 0, i = y * width; x < width; x++, i++, index += mPixelStride) {
+                    out[i] = 0xFF000000
+                            | (buffer.get(index) & 0xFF) << 16
+                            | (buffer.get(index + 1) & 0xFF) << 8
+                            | (buffer.get(index + 2) & 0xFF);
+                }
+            }
+        } else {
+            final IntBuffer buffer = mIntBuffer.duplicate();
+            final int start = buffer.position();
+            for (int y = 0; y < height; y++) {
+                buffer.position(start + y * mRowStride);
+                buffer.get(out, y * width, width);
+            }
+        }
+    }
+
+    private static final IntBuffer EMPTY_INTS = IntBuffer.allocate(0);
+    private static final ByteBuffer EMPTY_BYTES = ByteBuffer.allocate(0);
+}
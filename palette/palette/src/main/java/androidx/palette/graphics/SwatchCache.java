@@ -0,0 +1,150 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.palette.graphics;
+
+import androidx.annotation.Nullable;
+import androidx.collection.LruCache;
+
+import java.util.Arrays;
+
+/**
+ * A cache of the swatches extracted by {@link SwatchExtractor}s, keyed by the dimensions and two
+ * independent hashes of the pixels of each image, and the settings of the extractor. Showing an
+ * image again, such as when scrolling back through a gallery, then only costs hashing its pixels
+ * instead of quantizing them.
+ * <p>
+ * A cache can be shared by any number of extractors, on any thread.
+ */
+public final class SwatchCache {
+    private final LruCache<Key, int[]> mCache;
+
+    /**
+     * @param maxEntries the maximum number of images to keep the swatches of
+     */
+    public SwatchCache(int maxEntries) {
+        mCache = new LruCache<>(maxEntries);
+    }
+
+    @Nullable
+    int[] get(Key key) {
+        return mCache.get(key);
+    }
+
+    void put(Key key, int[] swatches) {
+        mCache.put(key, swatches);
+    }
+
+    /**
+     * Removes all of the cached swatches.
+     */
+    public void evictAll() {
+        mCache.evictAll();
+    }
+
+    /**
+     * Returns the number of images that swatches are cached for.
+     */
+    public int size() {
+        return mCache.size();
+    }
+
+    /**
+     * Returns the number of times that swatches were found in this cache.
+     */
+    public int hitCount() {
+        return mCache.hitCount();
+    }
+
+    /**
+     * Returns the number of times that swatches had to be extracted, because they were not in
+     * this cache.
+     */
+    public int missCount() {
+        return mCache.missCount();
+    }
+
+    /**
+     * Identifies an image and the settings its swatches were extracted with. Two images are only
+     * considered the same if they have the same dimensions and both of their 64-bit hashes match,
+     * so a hit on a different image would need two unrelated hashes to collide at once.
+     */
+    static final class Key {
+        private final int mWidth;
+        private final int mHeight;
+        private final long mHash;
+        private final long mSecondHash;
+        private final int mMaxColors;
+        // Never modified, SwatchExtractor creates a new array when its filters change
+        private final Palette.Filter[] mFilters;
+
+        /**
+         * @param pixels the ARGB colors of the image, of which the alpha is ignored
+         */
+        Key(int[] pixels, int width, int height, int maxColors, Palette.Filter[] filters) {
+            mWidth = width;
+            mHeight = height;
+            mMaxColors = maxColors;
+            mFilters = filters;
+            long h1 = 0xCBF29CE484222325L;
+            long h2 = 0x9E3779B97F4A7C15L;
+            for (int i = 0, count = width * height; i < count; i++) {
+                final int rgb = pixels[i] & 0xFFFFFF;
+                h1 = (h1 ^ rgb) * 0x100000001B3L;
+                h2 = Long.rotateLeft(h2 + rgb * 0xC2B2AE3D27D4EB4FL, 31) * 0x9E3779B97F4A7C15L;
+            }
+            mHash = mix(h1);
+            mSecondHash = mix(h2);
+        }
+
+        /**
+         * Finalizes a hash as in MurmurHash3, so that every bit depends on every pixel.
+         */
+        private static long mix(long h) {
+            h ^= h >>> 33;
+            h *= 0xFF51AFD7ED558CCDL;
+            h ^= h >>> 33;
+            h *= 0xC4CEB9FE1A85EC53L;
+            h ^= h >>> 33;
+            return h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return mWidth == other.mWidth
+                    && mHeight == other.mHeight
+                    && mHash == other.mHash
+                    && mSecondHash == other.mSecondHash
+                    && mMaxColors == other.mMaxColors
+                    && Arrays.equals(mFilters, other.mFilters);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = (int) (mHash ^ (mHash >>> 32));
+            result = 31 * result + mMaxColors;
+            result = 31 * result + Arrays.hashCode(mFilters);
+            return result;
+        }
+    }
+}
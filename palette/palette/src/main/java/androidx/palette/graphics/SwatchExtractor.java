@@ -0,0 +1,187 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.palette.graphics;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Extracts the swatches of images held in {@link PixelSource}s into arrays of primitive values,
+ * for code which processes many images and wants to avoid the allocations of a
+ * {@link Palette.Builder}.
+ * <p>
+ * An extractor keeps the buffers that the pixels and color counts of an image are read into, and
+ * reuses them for the next image, so it must not be used by multiple threads at once. Swatches
+ * are written as pairs of RGB color and population to an array supplied by the caller:
+ *
+ * <pre>
+ * SwatchExtractor extractor = new SwatchExtractor().setCache(new SwatchCache(500));
+ * int[] swatches = new int[extractor.getMaximumColorCount() * 2];
+ *
+ * int count = extractor.extract(PixelSource.fromRgba(plane, width, height, rowStride, 4),
+ *         swatches);
+ * for (int i = 0; i &lt; count; i++) {
+ *     int rgb = swatches[i * 2];
+ *     int population = swatches[i * 2 + 1];
+ * }
+ * </pre>
+ *
+ * Use {@link #toSwatches(int[], int)} to turn them into a {@link Palette} with
+ * {@link Palette#from(List)}.
+ */
+public final class SwatchExtractor {
+    private final List<Palette.Filter> mFilters = new ArrayList<>();
+    private int mMaxColors = Palette.DEFAULT_CALCULATE_NUMBER_COLORS;
+    @Nullable private SwatchCache mCache;
+
+    private final ColorCutQuantizer.Buffers mBuffers = new ColorCutQuantizer.Buffers();
+    private Palette.Filter[] mFilterArray = new Palette.Filter[0];
+    private boolean mFiltersChanged = true;
+
+    /**
+     * Construct a new {@link SwatchExtractor} with the same default filter as a
+     * {@link Palette.Builder}.
+     */
+    public SwatchExtractor() {
+        mFilters.add(Palette.DEFAULT_FILTER);
+    }
+
+    /**
+     * Set the maximum number of colors to use in the quantization step, and so the maximum
+     * number of swatches that are extracted.
+     *
+     * @see Palette.Builder#maximumColorCount(int)
+     */
+    @NonNull
+    public SwatchExtractor maximumColorCount(int colors) {
+        mMaxColors = colors;
+        return this;
+    }
+
+    /**
+     * Returns the maximum number of swatches that are extracted from an image.
+     */
+    public int getMaximumColorCount() {
+        return mMaxColors;
+    }
+
+    /**
+     * Clear all added filters. This includes any default filters added automatically by
+     * {@link Palette}.
+     */
+    @NonNull
+    public SwatchExtractor clearFilters() {
+        mFilters.clear();
+        mFiltersChanged = true;
+        return this;
+    }
+
+    /**
+     * Add a filter to be able to have fine grained control over which colors are
+     * allowed in the resulting swatches.
+     *
+     * @param filter filter to add.
+     */
+    @NonNull
+    public SwatchExtractor addFilter(@NonNull Palette.Filter filter) {
+        if (filter != null) {
+            mFilters.add(filter);
+            mFiltersChanged = true;
+        }
+        return this;
+    }
+
+    /**
+     * Set a cache to look the swatches of images up in before extracting them, and to add them
+     * to after.
+     * <p>
+     * Cached swatches are only reused by extractors with the same maximum color count and equal
+     * filters, as compared with {@link Object#equals(Object)}. A filter that rejects different
+     * colors over time must therefore not be used with a cache.
+     *
+     * @param cache the cache to use, or {@code null} to always extract swatches.
+     */
+    @NonNull
+    public SwatchExtractor setCache(@Nullable SwatchCache cache) {
+        mCache = cache;
+        return this;
+    }
+
+    /**
+     * Extracts the swatches of the image held in {@code source}.
+     *
+     * @param source the pixels of the image
+     * @param swatches the array to write the swatches to, as pairs of RGB color and population.
+     *                 It must be able to hold {@link #getMaximumColorCount()} pairs.
+     * @return the number of swatches written to {@code swatches}
+     * @throws IllegalArgumentException if {@code swatches} is too small
+     */
+    public int extract(@NonNull PixelSource source, @NonNull int[] swatches) {
+        if (swatches.length < mMaxColors * 2) {
+            throw new IllegalArgumentException("The swatches array must have room for "
+                    + mMaxColors + " pairs of color and population");
+        }
+        if (mFiltersChanged) {
+            mFilterArray = mFilters.toArray(new Palette.Filter[mFilters.size()]);
+            mFiltersChanged = false;
+        }
+
+        final SwatchCache cache = mCache;
+        final int pixelCount = source.getPixelCount();
+        final int[] pixels = mBuffers.pixels(pixelCount);
+        source.readPixels(pixels);
+        SwatchCache.Key key = null;
+        if (cache != null) {
+            key = new SwatchCache.Key(pixels, source.getWidth(), source.getHeight(), mMaxColors,
+                    mFilterArray);
+            final int[] cached = cache.get(key);
+            if (cached != null) {
+                System.arraycopy(cached, 0, swatches, 0, cached.length);
+                return cached.length / 2;
+            }
+        }
+
+        final ColorCutQuantizer quantizer = new ColorCutQuantizer(pixels, pixelCount, mMaxColors,
+                mFilterArray.length == 0 ? null : mFilterArray, null, mBuffers);
+        final int count = quantizer.getQuantizedColors(swatches);
+        if (cache != null) {
+            final int[] entry = new int[count * 2];
+            System.arraycopy(swatches, 0, entry, 0, entry.length);
+            cache.put(key, entry);
+        }
+        return count;
+    }
+
+    /**
+     * Creates {@link Palette.Swatch} objects from swatches returned by
+     * {@link #extract(PixelSource, int[])}.
+     *
+     * @param swatches pairs of RGB color and population
+     * @param count the number of swatches
+     */
+    @NonNull
+    public static List<Palette.Swatch> toSwatches(@NonNull int[] swatches, int count) {
+        final List<Palette.Swatch> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(new Palette.Swatch(swatches[i * 2], swatches[i * 2 + 1]));
+        }
+        return list;
+    }
+}
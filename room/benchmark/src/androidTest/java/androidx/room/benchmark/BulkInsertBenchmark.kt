@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.benchmark
+
+import android.os.Build
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.room.Dao
+import androidx.room.Database
+import androidx.room.Entity
+import androidx.room.Insert
+import androidx.room.PrimaryKey
+import androidx.room.Query
+import androidx.room.Room
+import androidx.room.RoomDatabase
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.LargeTest
+import androidx.test.filters.SdkSuppress
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+/**
+ * Measures the time it takes to insert a list of entities with a single DAO call, with and
+ * without batched multi-row inserts.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+@SdkSuppress(minSdkVersion = Build.VERSION_CODES.JELLY_BEAN)
+class BulkInsertBenchmark(private val batched: Boolean, private val rowCount: Int) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    val context = ApplicationProvider.getApplicationContext() as android.content.Context
+
+    private lateinit var db: TestDatabase
+
+    @Before
+    fun setup() {
+        for (postfix in arrayOf("", "-wal", "-shm")) {
+            val dbFile = context.getDatabasePath(DB_NAME + postfix)
+            if (dbFile.exists()) {
+                assertTrue(dbFile.delete())
+            }
+        }
+        val builder = Room.databaseBuilder(context, TestDatabase::class.java, DB_NAME)
+        if (batched) {
+            builder.enableBatchedInserts()
+        }
+        db = builder.build()
+    }
+
+    @After
+    fun teardown() {
+        db.close()
+    }
+
+    @Test
+    fun insert() {
+        val items = List(rowCount) { Item(it, "name$it", it * 2L) }
+        benchmarkRule.measureRepeated {
+            runWithTimingDisabled {
+                db.getItemDao().deleteAll()
+            }
+            db.getItemDao().insert(items)
+        }
+        assertEquals(rowCount, db.getItemDao().count())
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "batched={0}, rowCount={1}")
+        fun data(): List<Array<Any>> {
+            return mutableListOf<Array<Any>>().apply {
+                arrayOf(false, true).forEach { batched ->
+                    arrayOf(10, 100, 1000).forEach { rowCount ->
+                        add(arrayOf(batched, rowCount))
+                    }
+                }
+            }
+        }
+
+        private const val DB_NAME = "bulk-insert-benchmark-test"
+    }
+
+    @Database(entities = [Item::class], version = 1, exportSchema = false)
+    abstract class TestDatabase : RoomDatabase() {
+        abstract fun getItemDao(): ItemDao
+    }
+
+    @Entity
+    data class Item(@PrimaryKey val id: Int, val name: String, val value: Long)
+
+    @Dao
+    interface ItemDao {
+        @Insert
+        fun insert(items: List<Item>)
+
+        @Query("DELETE FROM Item")
+        fun deleteAll()
+
+        @Query("SELECT COUNT(*) FROM Item")
+        fun count(): Int
+    }
+}
@@ -17,6 +17,8 @@
 package androidx.room.benchmark
 
 import android.os.Build
+import android.os.Process
+import android.util.Log
 import androidx.benchmark.junit4.BenchmarkRule
 import androidx.benchmark.junit4.measureRepeated
 import androidx.room.Dao
@@ -33,16 +35,23 @@ import androidx.test.filters.LargeTest
 import androidx.test.filters.SdkSuppress
 import org.junit.Assert.assertEquals
 import org.junit.Assert.assertTrue
+import org.junit.Assume.assumeTrue
 import org.junit.Before
 import org.junit.Rule
 import org.junit.Test
 import org.junit.runner.RunWith
 import org.junit.runners.Parameterized
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
 
 @LargeTest
 @RunWith(Parameterized::class)
 @SdkSuppress(minSdkVersion = Build.VERSION_CODES.JELLY_BEAN) // TODO Fix me for API 15 - b/120098504
-class InvalidationTrackerBenchmark(private val sampleSize: Int, private val mode: Mode) {
+class InvalidationTrackerBenchmark(
+    private val sampleSize: Int,
+    private val mode: Mode,
+    private val coalescingWindowMillis: Long
+) {
 
     @get:Rule
     val benchmarkRule = BenchmarkRule()
@@ -61,9 +70,7 @@ class InvalidationTrackerBenchmark(private val sampleSize: Int, private val mode
 
     @Test
     fun largeTransaction() {
-        val db = Room.databaseBuilder(context, TestDatabase::class.java, DB_NAME)
-            .setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
-            .build()
+        val db = createDatabase()
 
         val observer = object : InvalidationTracker.Observer("user") {
             override fun onInvalidated(tables: MutableSet<String>) {}
@@ -91,6 +98,53 @@ class InvalidationTrackerBenchmark(private val sampleSize: Int, private val mode
         db.close()
     }
 
+    /**
+     * Commits [sampleSize] single row transactions as fast as possible, as a sync loop would, and
+     * logs how many observer callbacks and how much CPU time the invalidation dispatch cost.
+     */
+    @Test
+    fun highRateWriter() {
+        // The writer loop does not depend on the mode, only run it once per sample size.
+        assumeTrue(mode == Mode.MEASURE_INSERT_AND_DELETE)
+        val db = createDatabase()
+
+        val callbacks = AtomicInteger()
+        val observer = object : InvalidationTracker.Observer("user") {
+            override fun onInvalidated(tables: MutableSet<String>) {
+                callbacks.incrementAndGet()
+            }
+        }
+        db.invalidationTracker.addObserver(observer)
+
+        val users = List(sampleSize) { User(it, "name$it") }
+        val startCpuMillis = Process.getElapsedCpuTime()
+        benchmarkRule.measureRepeated {
+            for (user in users) {
+                db.getUserDao().insert(user)
+            }
+            runWithTimingDisabled {
+                assertEquals(db.getUserDao().deleteAll(), sampleSize)
+            }
+        }
+        val cpuMillis = Process.getElapsedCpuTime() - startCpuMillis
+        // Let the last coalesced refresh run before reading the counters.
+        Thread.sleep(coalescingWindowMillis + TimeUnit.SECONDS.toMillis(1))
+        Log.d(LOG_TAG, "sampleSize=$sampleSize, coalescingWindowMillis=$coalescingWindowMillis, " +
+                "callbacks=${callbacks.get()}, " +
+                "refreshes=${db.invalidationTracker.refreshCount}, " +
+                "suppressedRefreshes=${db.invalidationTracker.suppressedRefreshCount}, " +
+                "cpuMillis=$cpuMillis")
+
+        db.close()
+    }
+
+    private fun createDatabase(): TestDatabase {
+        return Room.databaseBuilder(context, TestDatabase::class.java, DB_NAME)
+            .setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+            .setInvalidationCoalescingWindow(coalescingWindowMillis, TimeUnit.MILLISECONDS)
+            .build()
+    }
+
     private inline fun runWithTimingConditional(
         pauseTiming: Boolean = false,
         block: () -> Unit
@@ -102,7 +156,9 @@ class InvalidationTrackerBenchmark(private val sampleSize: Int, private val mode
 
     companion object {
         @JvmStatic
-        @Parameterized.Parameters(name = "sampleSize={0}, mode={1}")
+        @Parameterized.Parameters(
+            name = "sampleSize={0}, mode={1}, coalescingWindowMillis={2}"
+        )
         fun data(): List<Array<Any>> {
             return mutableListOf<Array<Any>>().apply {
                 arrayOf(
@@ -111,12 +167,15 @@ class InvalidationTrackerBenchmark(private val sampleSize: Int, private val mode
                     Mode.MEASURE_INSERT_AND_DELETE
                 ).forEach { mode ->
                     arrayOf(100, 1000, 5000, 10000).forEach { sampleSize ->
-                        add(arrayOf(sampleSize, mode))
+                        arrayOf(0L, 16L).forEach { coalescingWindowMillis ->
+                            add(arrayOf(sampleSize, mode, coalescingWindowMillis))
+                        }
                     }
                 }
             }
         }
 
+        private const val LOG_TAG = "InvalidationTrackerBenchmark"
         private const val DB_NAME = "invalidation-benchmark-test"
     }
 
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.benchmark
+
+import android.annotation.SuppressLint
+import android.os.Build
+import android.util.Log
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.room.Dao
+import androidx.room.Database
+import androidx.room.Entity
+import androidx.room.Insert
+import androidx.room.PrimaryKey
+import androidx.room.Query
+import androidx.room.Room
+import androidx.room.RoomDatabase
+import androidx.room.RoomSQLiteQuery
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.LargeTest
+import androidx.test.filters.SdkSuppress
+import org.junit.After
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+/**
+ * Measures the cost of acquiring and releasing pooled queries from a number of concurrent
+ * threads, in isolation and as part of DAO calls.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+@SdkSuppress(minSdkVersion = Build.VERSION_CODES.JELLY_BEAN)
+@SuppressLint("RestrictedApi")
+class QueryPoolBenchmark(private val threads: Int) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    val context = ApplicationProvider.getApplicationContext() as android.content.Context
+
+    private lateinit var executor: ExecutorService
+
+    @Before
+    fun setup() {
+        executor = Executors.newFixedThreadPool(threads)
+        RoomSQLiteQuery.resetPoolStats()
+        RoomSQLiteQuery.setPoolStatsEnabled(true)
+    }
+
+    @After
+    fun teardown() {
+        executor.shutdownNow()
+        RoomSQLiteQuery.setPoolStatsEnabled(false)
+        Log.d(LOG_TAG, "threads=$threads, hits=${RoomSQLiteQuery.getPoolHitCount()}, " +
+                "misses=${RoomSQLiteQuery.getPoolMissCount()}")
+    }
+
+    @Test
+    fun acquireRelease() {
+        measureConcurrently {
+            for (i in 0 until OPERATIONS_PER_THREAD) {
+                val query = RoomSQLiteQuery.acquire("SELECT * FROM Item WHERE id = ?", i % 4 + 1)
+                query.bindLong(1, i.toLong())
+                query.release()
+            }
+        }
+    }
+
+    @Test
+    fun daoQuery() {
+        val db = Room.inMemoryDatabaseBuilder(context, TestDatabase::class.java).build()
+        db.getItemDao().insert(List(100) { Item(it, "item$it") })
+        measureConcurrently {
+            for (i in 0 until OPERATIONS_PER_THREAD) {
+                assertNotNull(db.getItemDao().load(i % 100))
+            }
+        }
+        db.close()
+    }
+
+    private fun measureConcurrently(block: () -> Unit) {
+        benchmarkRule.measureRepeated {
+            val latch = CountDownLatch(threads)
+            repeat(threads) {
+                executor.execute {
+                    block()
+                    latch.countDown()
+                }
+            }
+            assertTrue(latch.await(1, TimeUnit.MINUTES))
+        }
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "threads={0}")
+        fun data(): List<Array<Any>> = listOf(1, 2, 8, 16).map { arrayOf<Any>(it) }
+
+        private const val LOG_TAG = "QueryPoolBenchmark"
+        private const val OPERATIONS_PER_THREAD = 1000
+    }
+
+    @Database(entities = [Item::class], version = 1, exportSchema = false)
+    abstract class TestDatabase : RoomDatabase() {
+        abstract fun getItemDao(): ItemDao
+    }
+
+    @Entity
+    data class Item(@PrimaryKey val id: Int, val name: String)
+
+    @Dao
+    interface ItemDao {
+        @Insert
+        fun insert(items: List<Item>)
+
+        @Query("SELECT * FROM Item WHERE id = :id")
+        fun load(id: Int): Item?
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.benchmark
+
+import android.os.Build
+import android.util.Log
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.room.Dao
+import androidx.room.Database
+import androidx.room.Entity
+import androidx.room.Insert
+import androidx.room.OnConflictStrategy
+import androidx.room.PrimaryKey
+import androidx.room.Query
+import androidx.room.Room
+import androidx.room.RoomDatabase
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.LargeTest
+import androidx.test.filters.SdkSuppress
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * Measures the time it takes a number of threads to run a batch of read queries each, while a
+ * background writer keeps committing transactions, with and without a read connection pool.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+@SdkSuppress(minSdkVersion = Build.VERSION_CODES.JELLY_BEAN)
+class ReadConnectionPoolBenchmark(private val poolSize: Int, private val readerThreads: Int) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    val context = ApplicationProvider.getApplicationContext() as android.content.Context
+
+    private lateinit var db: TestDatabase
+    private lateinit var readExecutor: ExecutorService
+    private lateinit var writerThread: Thread
+    private val writerRunning = AtomicBoolean(true)
+
+    @Before
+    fun setup() {
+        for (postfix in arrayOf("", "-wal", "-shm")) {
+            val dbFile = context.getDatabasePath(DB_NAME + postfix)
+            if (dbFile.exists()) {
+                assertTrue(dbFile.delete())
+            }
+        }
+        db = Room.databaseBuilder(context, TestDatabase::class.java, DB_NAME)
+            .setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+            .setReadConnectionPoolSize(poolSize)
+            .build()
+        db.getItemDao().insert(List(ROW_COUNT) { Item(it, "item$it") })
+        readExecutor = Executors.newFixedThreadPool(readerThreads)
+        writerThread = Thread {
+            var version = 0
+            while (writerRunning.get()) {
+                db.runInTransaction {
+                    db.getItemDao().insert(List(WRITE_BATCH) { Item(it, "item$it-${version++}") })
+                }
+            }
+        }
+        writerThread.start()
+    }
+
+    @After
+    fun teardown() {
+        writerRunning.set(false)
+        writerThread.join()
+        readExecutor.shutdownNow()
+        Log.d(LOG_TAG, "poolSize=$poolSize, threads=$readerThreads, " +
+                "stats=${db.readConnectionPoolStats}")
+        db.close()
+    }
+
+    @Test
+    fun concurrentReads() {
+        benchmarkRule.measureRepeated {
+            val latch = CountDownLatch(readerThreads)
+            repeat(readerThreads) {
+                readExecutor.execute {
+                    repeat(QUERIES_PER_THREAD) { index ->
+                        val id = (index * 31) % ROW_COUNT
+                        assertEquals(QUERY_SIZE, db.getItemDao().loadRange(id, QUERY_SIZE).size)
+                    }
+                    latch.countDown()
+                }
+            }
+            assertTrue(latch.await(1, TimeUnit.MINUTES))
+        }
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "poolSize={0}, readerThreads={1}")
+        fun data(): List<Array<Any>> {
+            val cores = Runtime.getRuntime().availableProcessors()
+            return mutableListOf<Array<Any>>().apply {
+                arrayOf(0, 2, cores).distinct().forEach { poolSize ->
+                    arrayOf(1, 2, 4, cores).distinct().forEach { readerThreads ->
+                        add(arrayOf(poolSize, readerThreads))
+                    }
+                }
+            }
+        }
+
+        private const val LOG_TAG = "ReadConnectionPoolBenchmark"
+        private const val DB_NAME = "read-connection-pool-benchmark-test"
+        private const val ROW_COUNT = 5000
+        private const val WRITE_BATCH = 100
+        private const val QUERIES_PER_THREAD = 50
+        private const val QUERY_SIZE = 50
+    }
+
+    @Database(entities = [Item::class], version = 1, exportSchema = false)
+    abstract class TestDatabase : RoomDatabase() {
+        abstract fun getItemDao(): ItemDao
+    }
+
+    @Entity
+    data class Item(@PrimaryKey val id: Int, val name: String)
+
+    @Dao
+    interface ItemDao {
+        @Insert(onConflict = OnConflictStrategy.REPLACE)
+        fun insert(items: List<Item>)
+
+        @Query("SELECT * FROM Item WHERE id >= :start ORDER BY id LIMIT :count")
+        fun loadRange(start: Int, count: Int): List<Item>
+    }
+}
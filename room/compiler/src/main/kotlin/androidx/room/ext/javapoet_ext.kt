@@ -91,6 +91,10 @@ object RoomTypeNames {
             ClassName.get("$ROOM_PACKAGE.util", "DBUtil")
     val CURSOR_UTIL: ClassName =
             ClassName.get("$ROOM_PACKAGE.util", "CursorUtil")
+    val CURSOR_ITERATOR: ClassName =
+            ClassName.get("$ROOM_PACKAGE.util", "CursorIterator")
+    val CLOSEABLE_ITERATOR: ClassName =
+            ClassName.get(ROOM_PACKAGE, "CloseableIterator")
 }
 
 object PagingTypeNames {
@@ -128,6 +132,8 @@ object CommonTypeNames {
     val STRING = ClassName.get("java.lang", "String")
     val INTEGER = ClassName.get("java.lang", "Integer")
     val OPTIONAL = ClassName.get("java.util", "Optional")
+    val ITERATOR = ClassName.get("java.util", "Iterator")
+    val STREAM = ClassName.get("java.util.stream", "Stream")
 }
 
 object GuavaBaseTypeNames {
@@ -20,6 +20,7 @@ import androidx.room.parser.SectionType.BIND_VAR
 import androidx.room.parser.SectionType.NEWLINE
 import androidx.room.parser.SectionType.TEXT
 import androidx.room.verifier.QueryResultInfo
+import kotlin.text.RegexOption.IGNORE_CASE
 import org.antlr.v4.runtime.tree.TerminalNode
 
 enum class SectionType {
@@ -43,10 +44,15 @@ data class ParsedQuery(
     val inputs: List<TerminalNode>,
     val tables: Set<Table>, // pairs of table name and alias
     val syntaxErrors: List<String>,
-    val runtimeQueryPlaceholder: Boolean
+    val runtimeQueryPlaceholder: Boolean,
+    // column compared to the only bind variable in the WHERE clause of a single table SELECT
+    val bindVarEqualityColumn: String? = null
 ) {
     companion object {
         val STARTS_WITH_NUMBER = "^\\?[0-9]".toRegex()
+        // SQL functions whose result depends on the connection the query runs on.
+        private val CONNECTION_STATE_FUNCTIONS =
+            "\\b(last_insert_rowid|changes|total_changes)\\s*\\(".toRegex(IGNORE_CASE)
         val MISSING = ParsedQuery(
             original = "missing query",
             type = QueryType.UNKNOWN,
@@ -63,6 +69,11 @@ data class ParsedQuery(
      * always handle not having it.
      */
     var resultInfo: QueryResultInfo? = null
+    /**
+     * Whether the query reads at most the row whose rowid is its single bind variable. Like
+     * [resultInfo], this is only set when the query is verified.
+     */
+    var readsSingleRowByRowId = false
     val sections by lazy {
         val lines = original.lines()
         val inputsByLine = inputs.groupBy { it.symbol.line }
@@ -93,6 +104,18 @@ data class ParsedQuery(
         sections
     }
     val bindSections by lazy { sections.filter { it.type == BIND_VAR } }
+
+    /**
+     * True if this is a verified read of the database tables which doesn't depend on the state
+     * of the connection it runs on, so it can be run on a reader connection.
+     */
+    val isReaderSafe by lazy {
+        type == QueryType.SELECT &&
+                tables.isNotEmpty() &&
+                resultInfo?.let { it.error == null } == true &&
+                !CONNECTION_STATE_FUNCTIONS.containsMatchIn(original)
+    }
+
     private fun unnamedVariableErrors(): List<String> {
         val anonymousBindError = if (inputs.any { it.text == "?" }) {
             arrayListOf(ParserErrors.ANONYMOUS_BIND_ARGUMENT)
@@ -38,12 +38,59 @@ class QueryVisitor(
     private val tableNames = mutableSetOf<Table>()
     private val withClauseNames = mutableSetOf<String>()
     private val queryType: QueryType
+    private var selectCount = 0
+    private val bindVarEqualityColumn: String?
 
     init {
         queryType = (0 until statement.childCount).map {
             findQueryType(statement.getChild(it))
         }.filterNot { it == QueryType.UNKNOWN }.firstOrNull() ?: QueryType.UNKNOWN
         statement.accept(this)
+        bindVarEqualityColumn = if (queryType == QueryType.SELECT && selectCount == 1 &&
+            bindingExpressions.size == 1
+        ) {
+            (0 until statement.childCount).map { statement.getChild(it) }
+                .filterIsInstance<SQLiteParser.Select_stmtContext>()
+                .firstOrNull()
+                ?.let { findBindVarEqualityColumn(it) }
+        } else {
+            null
+        }
+    }
+
+    /**
+     * Returns the column of a `SELECT ... FROM table WHERE column = :arg` query, which reads at
+     * most the rows whose column is equal to the single bind variable.
+     */
+    private fun findBindVarEqualityColumn(select: SQLiteParser.Select_stmtContext): String? {
+        if (select.with_clause() != null || select.select_or_values().size != 1) {
+            return null
+        }
+        val core = select.select_or_values(0)
+        if (core.K_WHERE() == null || core.K_GROUP() != null) {
+            return null
+        }
+        val tables = core.table_or_subquery().ifEmpty {
+            core.join_clause()?.table_or_subquery() ?: emptyList()
+        }
+        val table = tables.singleOrNull()?.takeIf { it.schema_name() == null }
+        val tableName = table?.table_name()?.text ?: return null
+        val tableAlias = table.table_alias()?.text ?: tableName
+        val where = core.expr().firstOrNull() ?: return null
+        val operator = where.binary_operator()?.text
+        if (operator != "=" && operator != "==") {
+            return null
+        }
+        val column = where.expr().firstOrNull { it.column_name() != null } ?: return null
+        val other = where.expr().firstOrNull { it !== column } ?: return null
+        if (other.BIND_PARAMETER() == null || column.schema_name() != null) {
+            return null
+        }
+        val qualifier = column.table_name()?.text?.let { unescapeIdentifier(it) }
+        if (qualifier != null && qualifier != unescapeIdentifier(tableAlias)) {
+            return null
+        }
+        return unescapeIdentifier(column.column_name().text)
     }
 
     private fun findQueryType(statement: ParseTree): QueryType {
@@ -66,6 +113,11 @@ class QueryVisitor(
         }
     }
 
+    override fun visitSelect_stmt(ctx: SQLiteParser.Select_stmtContext): Void? {
+        selectCount++
+        return super.visitSelect_stmt(ctx)
+    }
+
     override fun visitExpr(ctx: SQLiteParser.ExprContext): Void? {
         val bindParameter = ctx.BIND_PARAMETER()
         if (bindParameter != null) {
@@ -81,7 +133,8 @@ class QueryVisitor(
             inputs = bindingExpressions.sortedBy { it.sourceInterval.a },
             tables = tableNames,
             syntaxErrors = syntaxErrors,
-            runtimeQueryPlaceholder = forRuntimeQuery
+            runtimeQueryPlaceholder = forRuntimeQuery,
+            bindVarEqualityColumn = bindVarEqualityColumn
         )
     }
 
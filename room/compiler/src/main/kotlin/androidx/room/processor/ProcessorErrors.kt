@@ -159,6 +159,18 @@ object ProcessorErrors {
             " attempts to perform a query. This restrictions prevents such situation from" +
             " occurring."
 
+    val STREAMING_QUERY_WITH_RELATION = "CloseableIterator and Stream return types cannot be" +
+            " used with a POJO that has a @Relation since the relations have to be fetched for" +
+            " all the rows before the first one is returned. Use a List instead."
+
+    val STREAMING_QUERY_PLAIN_ITERATOR = "Query methods cannot return an Iterator since the" +
+            " cursor behind it would only be closed once all rows are read. Return a" +
+            " ${RoomTypeNames.CLOSEABLE_ITERATOR} or a Stream and close it instead."
+
+    val STREAMING_QUERY_IN_TRANSACTION = "CloseableIterator and Stream return types cannot be" +
+            " used with @Transaction since the rows are read after the method returns, when" +
+            " the transaction would already be over. Use a List instead."
+
     val TRANSACTION_MISSING_ON_RELATION = "The return value includes a POJO with a @Relation." +
             " It is usually desired to annotate this method with @Transaction to avoid" +
             " possibility of inconsistent results between the POJO and its relations. See " +
@@ -27,6 +27,7 @@ import androidx.room.parser.ParsedQuery
 import androidx.room.parser.QueryType
 import androidx.room.parser.SqlParser
 import androidx.room.solver.query.result.PojoRowAdapter
+import androidx.room.solver.query.result.StreamingQueryResultBinder
 import androidx.room.verifier.DatabaseVerificationErrors
 import androidx.room.verifier.DatabaseVerifier
 import androidx.room.vo.QueryMethod
@@ -175,6 +176,10 @@ private class InternalQueryProcessor(
                 executableElement,
                 DatabaseVerificationErrors.cannotVerifyQuery(query.resultInfo!!.error!!)
             )
+        } else if (dbVerifier != null && query.bindVarEqualityColumn != null) {
+            query.readsSingleRowByRowId = query.tables.singleOrNull()?.let {
+                dbVerifier.isRowIdAlias(it.name, query.bindVarEqualityColumn)
+            } ?: false
         }
     }
 
@@ -215,6 +220,11 @@ private class InternalQueryProcessor(
         )
 
         val inTransaction = executableElement.hasAnnotation(Transaction::class)
+        context.checker.check(
+            !inTransaction || resultBinder !is StreamingQueryResultBinder,
+            executableElement,
+            ProcessorErrors.STREAMING_QUERY_IN_TRANSACTION
+        )
         if (query.type == QueryType.SELECT && !inTransaction) {
             // put a warning if it is has relations and not annotated w/ transaction
             if (rowAdapter is PojoRowAdapter && rowAdapter.relationCollectors.isNotEmpty()) {
@@ -29,6 +29,7 @@ import androidx.room.ext.type
 import androidx.room.ext.typeName
 import androidx.room.parser.SqlParser
 import androidx.room.processor.ProcessorErrors.RAW_QUERY_STRING_PARAMETER_REMOVED
+import androidx.room.solver.query.result.StreamingQueryResultBinder
 import androidx.room.vo.RawQueryMethod
 import asTypeElement
 import isAssignableFrom
@@ -59,6 +60,8 @@ class RawQueryMethodProcessor(
         val resultBinder = delegate.findResultBinder(returnType, query)
         val runtimeQueryParam = findRuntimeQueryParameter(delegate.extractParams())
         val inTransaction = executableElement.hasAnnotation(Transaction::class)
+        context.checker.check(!inTransaction || resultBinder !is StreamingQueryResultBinder,
+                executableElement, ProcessorErrors.STREAMING_QUERY_IN_TRANSACTION)
         val rawQueryMethod = RawQueryMethod(
                 element = executableElement,
                 name = executableElement.name,
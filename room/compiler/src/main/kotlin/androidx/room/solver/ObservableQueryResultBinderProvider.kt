@@ -33,7 +33,8 @@ abstract class ObservableQueryResultBinderProvider(val context: Context) :
     protected abstract fun create(
         typeArg: TypeMirror,
         resultAdapter: QueryResultAdapter?,
-        tableNames: Set<String>
+        tableNames: Set<String>,
+        filtersByRowId: Boolean
     ): QueryResultBinder
 
     final override fun provide(declared: DeclaredType, query: ParsedQuery): QueryResultBinder {
@@ -47,7 +48,8 @@ abstract class ObservableQueryResultBinderProvider(val context: Context) :
         return create(
                 typeArg = typeArg,
                 resultAdapter = adapter,
-                tableNames = tableNames
+                tableNames = tableNames,
+                filtersByRowId = query.readsSingleRowByRowId && tableNames.size == 1
         )
     }
 }
\ No newline at end of file
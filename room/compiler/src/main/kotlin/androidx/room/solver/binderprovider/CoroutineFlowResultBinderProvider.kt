@@ -57,7 +57,12 @@ private class CoroutineFlowResultBinderProviderImpl(
         if (tableNames.isEmpty()) {
             context.logger.e(ProcessorErrors.OBSERVABLE_QUERY_NOTHING_TO_OBSERVE)
         }
-        return CoroutineFlowResultBinder(typeArg, tableNames, adapter)
+        return CoroutineFlowResultBinder(
+            typeArg = typeArg,
+            tableNames = tableNames,
+            filtersByRowId = query.readsSingleRowByRowId && tableNames.size == 1,
+            adapter = adapter
+        )
     }
 
     override fun matches(declared: DeclaredType): Boolean {
@@ -39,11 +39,13 @@ class LiveDataQueryResultBinderProvider(context: Context) :
     override fun create(
         typeArg: TypeMirror,
         resultAdapter: QueryResultAdapter?,
-        tableNames: Set<String>
+        tableNames: Set<String>,
+        filtersByRowId: Boolean
     ): QueryResultBinder {
         return LiveDataQueryResultBinder(
                 typeArg = typeArg,
                 tableNames = tableNames,
+                filtersByRowId = filtersByRowId,
                 adapter = resultAdapter)
     }
 
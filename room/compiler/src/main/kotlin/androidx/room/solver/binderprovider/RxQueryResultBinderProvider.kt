@@ -41,7 +41,8 @@ class RxQueryResultBinderProvider private constructor(
     override fun create(
         typeArg: TypeMirror,
         resultAdapter: QueryResultAdapter?,
-        tableNames: Set<String>
+        tableNames: Set<String>,
+        filtersByRowId: Boolean
     ): QueryResultBinder {
         return RxQueryResultBinder(
             rxType = rxType,
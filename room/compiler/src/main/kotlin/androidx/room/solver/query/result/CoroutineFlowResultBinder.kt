@@ -29,10 +29,14 @@ import javax.lang.model.type.TypeMirror
 
 /**
  * Binds the result of a of a Kotlin Coroutine Flow<T>
+ *
+ * If [filtersByRowId] is true, the query reads a single row by the rowid bound as its only
+ * argument, so the Flow ignores changes to other rows of the table.
  */
 class CoroutineFlowResultBinder(
     val typeArg: TypeMirror,
     val tableNames: Set<String>,
+    val filtersByRowId: Boolean,
     adapter: QueryResultAdapter?
 ) : BaseObservableQueryResultBinder(adapter) {
 
@@ -59,14 +63,26 @@ class CoroutineFlowResultBinder(
 
         scope.builder().apply {
             val tableNamesList = tableNames.joinToString(",") { "\"$it\"" }
-            addStatement(
-                "return $T.createFlow($N, $L, new $T{$L}, $L)",
-                RoomCoroutinesTypeNames.COROUTINES_ROOM,
-                dbField,
-                if (inTransaction) "true" else "false",
-                String::class.arrayTypeName(),
-                tableNamesList,
-                callableImpl)
+            if (filtersByRowId) {
+                addStatement(
+                    "return $T.createFlow($N, $L, new $T{$L}, $L.getSingleLongArgument(), $L)",
+                    RoomCoroutinesTypeNames.COROUTINES_ROOM,
+                    dbField,
+                    if (inTransaction) "true" else "false",
+                    String::class.arrayTypeName(),
+                    tableNamesList,
+                    roomSQLiteQueryVar,
+                    callableImpl)
+            } else {
+                addStatement(
+                    "return $T.createFlow($N, $L, new $T{$L}, $L)",
+                    RoomCoroutinesTypeNames.COROUTINES_ROOM,
+                    dbField,
+                    if (inTransaction) "true" else "false",
+                    String::class.arrayTypeName(),
+                    tableNamesList,
+                    callableImpl)
+            }
         }
     }
 }
\ No newline at end of file
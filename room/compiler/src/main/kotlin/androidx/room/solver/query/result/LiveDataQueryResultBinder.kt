@@ -28,10 +28,14 @@ import javax.lang.model.type.TypeMirror
 
 /**
  * Converts the query into a LiveData and returns it. No query is run until necessary.
+ *
+ * If [filtersByRowId] is true, the query reads a single row by the rowid bound as its only
+ * argument, so the LiveData ignores changes to other rows of the table.
  */
 class LiveDataQueryResultBinder(
     val typeArg: TypeMirror,
     val tableNames: Set<String>,
+    val filtersByRowId: Boolean,
     adapter: QueryResultAdapter?
 ) : BaseObservableQueryResultBinder(adapter) {
     @Suppress("JoinDeclarationAndAssignment")
@@ -59,14 +63,27 @@ class LiveDataQueryResultBinder(
 
         scope.builder().apply {
             val tableNamesList = tableNames.joinToString(",") { "\"$it\"" }
-            addStatement(
-                "return $N.getInvalidationTracker().createLiveData(new $T{$L}, $L, $L)",
-                dbField,
-                String::class.arrayTypeName(),
-                tableNamesList,
-                if (inTransaction) "true" else "false",
-                callableImpl
-            )
+            if (filtersByRowId) {
+                addStatement(
+                    "return $N.getInvalidationTracker().createLiveData(new $T{$L}, $L, " +
+                        "$L.getSingleLongArgument(), $L)",
+                    dbField,
+                    String::class.arrayTypeName(),
+                    tableNamesList,
+                    if (inTransaction) "true" else "false",
+                    roomSQLiteQueryVar,
+                    callableImpl
+                )
+            } else {
+                addStatement(
+                    "return $N.getInvalidationTracker().createLiveData(new $T{$L}, $L, $L)",
+                    dbField,
+                    String::class.arrayTypeName(),
+                    tableNamesList,
+                    if (inTransaction) "true" else "false",
+                    callableImpl
+                )
+            }
         }
     }
 }
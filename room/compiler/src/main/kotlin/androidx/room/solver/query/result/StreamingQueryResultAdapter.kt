@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.solver.query.result
+
+import androidx.room.ext.AndroidTypeNames
+import androidx.room.ext.L
+import androidx.room.ext.RoomTypeNames
+import androidx.room.ext.T
+import androidx.room.ext.typeName
+import androidx.room.solver.CodeGenScope
+import com.squareup.javapoet.MethodSpec
+import com.squareup.javapoet.ParameterSpec
+import com.squareup.javapoet.ParameterizedTypeName
+import com.squareup.javapoet.TypeSpec
+import javax.lang.model.element.Modifier
+
+/**
+ * Wraps the cursor into a `CursorIterator` that converts one row at a time, instead of copying
+ * all the rows into a collection.
+ */
+class StreamingQueryResultAdapter(rowAdapter: RowAdapter) : QueryResultAdapter(rowAdapter) {
+    val type = rowAdapter.out
+
+    val iteratorTypeName: ParameterizedTypeName = ParameterizedTypeName.get(
+        RoomTypeNames.CURSOR_ITERATOR, type.typeName())
+
+    override fun convert(outVarName: String, cursorVarName: String, scope: CodeGenScope) {
+        convert(outVarName, cursorVarName, "null", scope)
+    }
+
+    /**
+     * Creates the iterator. The column indices are resolved once, before the first row is read,
+     * and captured by the iterator.
+     *
+     * @param queryVarName The query to release once the iterator is closed, or `null`.
+     */
+    fun convert(
+        outVarName: String,
+        cursorVarName: String,
+        queryVarName: String,
+        scope: CodeGenScope
+    ) {
+        scope.builder().apply {
+            rowAdapter?.onCursorReady(cursorVarName, scope)
+            val spec = TypeSpec.anonymousClassBuilder("$L, $L", cursorVarName, queryVarName)
+                .apply {
+                    superclass(iteratorTypeName)
+                    addMethod(createConvertMethod(scope))
+                }.build()
+            addStatement("final $T $L = $L", iteratorTypeName, outVarName, spec)
+        }
+    }
+
+    private fun createConvertMethod(scope: CodeGenScope): MethodSpec =
+        MethodSpec.methodBuilder("convert").apply {
+            addAnnotation(Override::class.java)
+            addModifiers(Modifier.PROTECTED)
+            returns(type.typeName())
+            val cursorParam = ParameterSpec.builder(AndroidTypeNames.CURSOR, "cursor").build()
+            addParameter(cursorParam)
+            val rowScope = scope.fork()
+            val itemVar = rowScope.getTmpVar("_item")
+            rowScope.builder().apply {
+                addStatement("final $T $L", type.typeName(), itemVar)
+                rowAdapter?.convert(itemVar, cursorParam.name, rowScope)
+                addStatement("return $L", itemVar)
+            }
+            addCode(rowScope.builder().build())
+        }.build()
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.solver.query.result
+
+import androidx.room.ext.AndroidTypeNames
+import androidx.room.ext.L
+import androidx.room.ext.N
+import androidx.room.ext.RoomTypeNames
+import androidx.room.ext.T
+import androidx.room.solver.CodeGenScope
+import androidx.room.writer.DaoWriter
+import com.squareup.javapoet.FieldSpec
+
+/**
+ * Runs the query and returns a `CloseableIterator`, or a `Stream`, over its cursor. The cursor and
+ * the query are released when the iterator or the stream is closed, or once all rows are read, so
+ * the caller owns them once the method returns.
+ *
+ * The rows are read after the method returns, so these methods cannot run in a transaction; the
+ * query method processors reject them when they are annotated with `@Transaction`.
+ */
+class StreamingQueryResultBinder(
+    adapter: StreamingQueryResultAdapter?,
+    private val asStream: Boolean
+) : QueryResultBinder(adapter) {
+    override fun convertAndReturn(
+        roomSQLiteQueryVar: String,
+        canReleaseQuery: Boolean,
+        dbField: FieldSpec,
+        inTransaction: Boolean,
+        scope: CodeGenScope
+    ) {
+        // inTransaction is always false here, otherwise the method processor reported an error.
+        scope.builder().apply {
+            addStatement("$N.assertNotSuspendingTransaction()", DaoWriter.dbField)
+            val outVar = scope.getTmpVar("_result")
+            val cursorVar = scope.getTmpVar("_cursor")
+            addStatement(
+                "final $T $L = $T.query($N, $L, false, null)",
+                AndroidTypeNames.CURSOR,
+                cursorVar,
+                RoomTypeNames.DB_UTIL,
+                dbField,
+                roomSQLiteQueryVar
+            )
+            beginControlFlow("try").apply {
+                (adapter as? StreamingQueryResultAdapter)?.convert(
+                    outVar,
+                    cursorVar,
+                    if (canReleaseQuery) roomSQLiteQueryVar else "null",
+                    scope
+                )
+                if (asStream) {
+                    addStatement("return $L.stream()", outVar)
+                } else {
+                    addStatement("return $L", outVar)
+                }
+            }
+            val exceptionVar = scope.getTmpVar("_e")
+            nextControlFlow("catch ($T $L)", RuntimeException::class.java, exceptionVar).apply {
+                addStatement("$L.close()", cursorVar)
+                if (canReleaseQuery) {
+                    addStatement("$L.release()", roomSQLiteQueryVar)
+                }
+                addStatement("throw $L", exceptionVar)
+            }
+            endControlFlow()
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package androidx.room.verifier
 
+import androidx.room.parser.SQLTypeAffinity
 import androidx.room.processor.Context
 import androidx.room.vo.DatabaseView
 import androidx.room.vo.Entity
@@ -156,6 +157,19 @@ class DatabaseVerifier private constructor(
         }
     }
 
+    /**
+     * Returns true if the given column of the given table is an alias of its rowid, i.e. the
+     * table is an [Entity] whose primary key is a single INTEGER column.
+     */
+    fun isRowIdAlias(tableName: String, columnName: String): Boolean {
+        val entity = entitiesAndViews.firstOrNull {
+            it is Entity && it !is FtsEntity && it.tableName.equals(tableName, ignoreCase = true)
+        } as? Entity ?: return false
+        val key = entity.primaryKey.fields.singleOrNull() ?: return false
+        return key.affinity == SQLTypeAffinity.INTEGER &&
+            key.columnName.equals(columnName, ignoreCase = true)
+    }
+
     private fun stripLocalizeCollations(sql: String) =
         COLLATE_LOCALIZED_UNICODE_PATTERN.matcher(sql).replaceAll(" COLLATE NOCASE")
 
@@ -43,6 +43,10 @@ class QueryWriter constructor(
     constructor(queryMethod: QueryMethod) : this(queryMethod.parameters,
             queryMethod.sectionToParamMapping, queryMethod.query)
 
+    // Verified reads of the database tables may run on a reader connection, other queries are
+    // acquired normally so they run on the writer connection.
+    private val acquireMethod = if (query.isReaderSafe) "acquireForReader" else "acquire"
+
     fun prepareReadAndBind(
         outSqlQueryName: String,
         outRoomSQLiteQueryVar: String,
@@ -109,17 +113,17 @@ class QueryWriter constructor(
                     val argCount = scope.getTmpVar("_argCount")
                     addStatement("final $T $L = $L$L", TypeName.INT, argCount, knownQueryArgsCount,
                             listSizeVars.joinToString("") { " + ${it.second}" })
-                    addStatement("final $T $L = $T.acquire($L, $L)",
-                            ROOM_SQL_QUERY, outArgsName, ROOM_SQL_QUERY, outSqlQueryName,
-                            argCount)
+                    addStatement("final $T $L = $T.$L($L, $L)",
+                            ROOM_SQL_QUERY, outArgsName, ROOM_SQL_QUERY, acquireMethod,
+                            outSqlQueryName, argCount)
                 }
             } else {
                 addStatement("final $T $L = $S", String::class.typeName(),
                         outSqlQueryName, query.queryWithReplacedBindParams)
                 if (outArgsName != null) {
-                    addStatement("final $T $L = $T.acquire($L, $L)",
-                            ROOM_SQL_QUERY, outArgsName, ROOM_SQL_QUERY, outSqlQueryName,
-                            knownQueryArgsCount)
+                    addStatement("final $T $L = $T.$L($L, $L)",
+                            ROOM_SQL_QUERY, outArgsName, ROOM_SQL_QUERY, acquireMethod,
+                            outSqlQueryName, knownQueryArgsCount)
                 }
             }
         }
@@ -46,7 +46,7 @@ public final class ComplexDao_Impl extends ComplexDao {
     @Override
     public List<ComplexDao.FullName> fullNames(final int id) {
         final String _sql = "SELECT name || lastName as fullName, uid as id FROM user where uid = ?";
-        final RoomSQLiteQuery _statement = RoomSQLiteQuery.acquire(_sql, 1);
+        final RoomSQLiteQuery _statement = RoomSQLiteQuery.acquireForReader(_sql, 1);
         int _argIndex = 1;
         _statement.bindLong(_argIndex, id);
         __db.assertNotSuspendingTransaction();
@@ -72,7 +72,7 @@ public final class ComplexDao_Impl extends ComplexDao {
     @Override
     public User getById(final int id) {
         final String _sql = "SELECT * FROM user where uid = ?";
-        final RoomSQLiteQuery _statement = RoomSQLiteQuery.acquire(_sql, 1);
+        final RoomSQLiteQuery _statement = RoomSQLiteQuery.acquireForReader(_sql, 1);
         int _argIndex = 1;
         _statement.bindLong(_argIndex, id);
         __db.assertNotSuspendingTransaction();
@@ -104,7 +104,7 @@ public final class ComplexDao_Impl extends ComplexDao {
     @Override
     public User findByName(final String name, final String lastName) {
         final String _sql = "SELECT * FROM user where name LIKE ? AND lastName LIKE ?";
-        final RoomSQLiteQuery _statement = RoomSQLiteQuery.acquire(_sql, 2);
+        final RoomSQLiteQuery _statement = RoomSQLiteQuery.acquireForReader(_sql, 2);
         int _argIndex = 1;
         if (name == null) {
             _statement.bindNull(_argIndex);
@@ -152,7 +152,7 @@ public final class ComplexDao_Impl extends ComplexDao {
         _stringBuilder.append(")");
         final String _sql = _stringBuilder.toString();
         final int _argCount = 0 + _inputSize;
-        final RoomSQLiteQuery _statement = RoomSQLiteQuery.acquire(_sql, _argCount);
+        final RoomSQLiteQuery _statement = RoomSQLiteQuery.acquireForReader(_sql, _argCount);
         int _argIndex = 1;
         for (int _item : ids) {
             _statement.bindLong(_argIndex, _item);
@@ -187,7 +187,7 @@ public final class ComplexDao_Impl extends ComplexDao {
     @Override
     int getAge(final int id) {
         final String _sql = "SELECT ageColumn FROM user where uid = ?";
-        final RoomSQLiteQuery _statement = RoomSQLiteQuery.acquire(_sql, 1);
+        final RoomSQLiteQuery _statement = RoomSQLiteQuery.acquireForReader(_sql, 1);
         int _argIndex = 1;
         _statement.bindLong(_argIndex, id);
         __db.assertNotSuspendingTransaction();
@@ -215,7 +215,7 @@ public final class ComplexDao_Impl extends ComplexDao {
         _stringBuilder.append(")");
         final String _sql = _stringBuilder.toString();
         final int _argCount = 0 + _inputSize;
-        final RoomSQLiteQuery _statement = RoomSQLiteQuery.acquire(_sql, _argCount);
+        final RoomSQLiteQuery _statement = RoomSQLiteQuery.acquireForReader(_sql, _argCount);
         int _argIndex = 1;
         for (int _item : ids) {
             _statement.bindLong(_argIndex, _item);
@@ -248,7 +248,7 @@ public final class ComplexDao_Impl extends ComplexDao {
         _stringBuilder.append(")");
         final String _sql = _stringBuilder.toString();
         final int _argCount = 0 + _inputSize;
-        final RoomSQLiteQuery _statement = RoomSQLiteQuery.acquire(_sql, _argCount);
+        final RoomSQLiteQuery _statement = RoomSQLiteQuery.acquireForReader(_sql, _argCount);
         int _argIndex = 1;
         for (Integer _item : ids) {
             if (_item == null) {
@@ -281,10 +281,10 @@ public final class ComplexDao_Impl extends ComplexDao {
     @Override
     public LiveData<User> getByIdLive(final int id) {
         final String _sql = "SELECT * FROM user where uid = ?";
-        final RoomSQLiteQuery _statement = RoomSQLiteQuery.acquire(_sql, 1);
+        final RoomSQLiteQuery _statement = RoomSQLiteQuery.acquireForReader(_sql, 1);
         int _argIndex = 1;
         _statement.bindLong(_argIndex, id);
-        return __db.getInvalidationTracker().createLiveData(new String[]{"user"}, false, new Callable<User>() {
+        return __db.getInvalidationTracker().createLiveData(new String[]{"user"}, false, _statement.getSingleLongArgument(), new Callable<User>() {
             @Override
             public User call() throws Exception {
                 final Cursor _cursor = DBUtil.query(__db, _statement, false, null);
@@ -327,7 +327,7 @@ public final class ComplexDao_Impl extends ComplexDao {
         _stringBuilder.append(")");
         final String _sql = _stringBuilder.toString();
         final int _argCount = 0 + _inputSize;
-        final RoomSQLiteQuery _statement = RoomSQLiteQuery.acquire(_sql, _argCount);
+        final RoomSQLiteQuery _statement = RoomSQLiteQuery.acquireForReader(_sql, _argCount);
         int _argIndex = 1;
         for (int _item : ids) {
             _statement.bindLong(_argIndex, _item);
@@ -383,7 +383,7 @@ public final class ComplexDao_Impl extends ComplexDao {
         _stringBuilder.append(")");
         final String _sql = _stringBuilder.toString();
         final int _argCount = 0 + _inputSize + _inputSize_1 + _inputSize_2;
-        final RoomSQLiteQuery _statement = RoomSQLiteQuery.acquire(_sql, _argCount);
+        final RoomSQLiteQuery _statement = RoomSQLiteQuery.acquireForReader(_sql, _argCount);
         int _argIndex = 1;
         for (Integer _item : ids1) {
             if (_item == null) {
@@ -426,7 +426,7 @@ public final class ComplexDao_Impl extends ComplexDao {
     @Override
     public List<Child1> getChild1List() {
         final String _sql = "SELECT * FROM Child1";
-        final RoomSQLiteQuery _statement = RoomSQLiteQuery.acquire(_sql, 0);
+        final RoomSQLiteQuery _statement = RoomSQLiteQuery.acquireForReader(_sql, 0);
         __db.assertNotSuspendingTransaction();
         final Cursor _cursor = DBUtil.query(__db, _statement, false, null);
         try {
@@ -462,7 +462,7 @@ public final class ComplexDao_Impl extends ComplexDao {
     @Override
     public List<Child2> getChild2List() {
         final String _sql = "SELECT * FROM Child2";
-        final RoomSQLiteQuery _statement = RoomSQLiteQuery.acquire(_sql, 0);
+        final RoomSQLiteQuery _statement = RoomSQLiteQuery.acquireForReader(_sql, 0);
         __db.assertNotSuspendingTransaction();
         final Cursor _cursor = DBUtil.query(__db, _statement, false, null);
         try {
@@ -498,7 +498,7 @@ public final class ComplexDao_Impl extends ComplexDao {
     @Override
     public ListenableFuture<List<Child1>> getChild1ListListenableFuture() {
         final String _sql = "SELECT * FROM Child1";
-        final RoomSQLiteQuery _statement = RoomSQLiteQuery.acquire(_sql, 0);
+        final RoomSQLiteQuery _statement = RoomSQLiteQuery.acquireForReader(_sql, 0);
         final CancellationSignal _cancellationSignal = DBUtil.createCancellationSignal();
         return GuavaRoom.createListenableFuture(__db, false, new Callable<List<Child1>>() {
             @Override
@@ -15,6 +15,7 @@
  */
 package androidx.room.parser
 
+import androidx.room.verifier.QueryResultInfo
 import org.hamcrest.CoreMatchers.`is`
 import org.hamcrest.CoreMatchers.not
 import org.hamcrest.MatcherAssert.assertThat
@@ -198,6 +199,18 @@ class SqlParserTest {
         assertThat(query.errors, `is`(emptyList()))
     }
 
+    @Test
+    fun readerSafeQueries() {
+        assertReaderSafe("SELECT * FROM users", true)
+        assertReaderSafe("select name from users where id = :id", true)
+        assertReaderSafe("SELECT * FROM users", false, verified = false)
+        assertReaderSafe("SELECT 1", false)
+        assertReaderSafe("DELETE FROM users", false)
+        assertReaderSafe("SELECT * FROM users WHERE id = last_insert_rowid()", false)
+        assertReaderSafe("SELECT changes() FROM users", false)
+        assertReaderSafe("SELECT TOTAL_CHANGES ( ) FROM users", false)
+    }
+
     @Test
     fun findBindVariables() {
         assertVariables("select * from users")
@@ -209,6 +222,27 @@ class SqlParserTest {
         assertVariables("select * from users where name like \$a", "\$a")
     }
 
+    @Test
+    fun bindVarEqualityColumn() {
+        assertBindVarEqualityColumn("SELECT * FROM users WHERE id = :id", "id")
+        assertBindVarEqualityColumn("select name from users u where :id == u.`id`", "id")
+        assertBindVarEqualityColumn("SELECT * FROM users WHERE users.id = :id LIMIT 1", "id")
+        assertBindVarEqualityColumn("SELECT * FROM users WHERE id = :id AND name = 'a'", null)
+        assertBindVarEqualityColumn("SELECT * FROM users WHERE id > :id", null)
+        assertBindVarEqualityColumn("SELECT * FROM users WHERE other.id = :id", null)
+        assertBindVarEqualityColumn("SELECT * FROM users WHERE id = 5", null)
+        assertBindVarEqualityColumn("SELECT * FROM users, pets WHERE id = :id", null)
+        assertBindVarEqualityColumn("SELECT * FROM users WHERE id = :id GROUP BY name", null)
+        assertBindVarEqualityColumn("SELECT * FROM users WHERE id = :id LIMIT :limit", null)
+        assertBindVarEqualityColumn(
+            "SELECT *, (SELECT COUNT(*) FROM users) FROM users WHERE id = :id", null
+        )
+        assertBindVarEqualityColumn(
+            "SELECT * FROM users WHERE id = :id UNION SELECT * FROM users", null
+        )
+        assertBindVarEqualityColumn("DELETE FROM users WHERE id = :id", null)
+    }
+
     @Test
     fun indexedVariablesError() {
         assertErrors(
@@ -273,10 +307,22 @@ class SqlParserTest {
         assertThat((SqlParser.parse(query)).inputs.map { it.text }, `is`(expected.toList()))
     }
 
+    fun assertBindVarEqualityColumn(query: String, expected: String?) {
+        assertThat(SqlParser.parse(query).bindVarEqualityColumn, `is`(expected))
+    }
+
     fun assertErrors(query: String, vararg errors: String) {
         assertThat((SqlParser.parse(query)).errors, `is`(errors.toList()))
     }
 
+    fun assertReaderSafe(query: String, expected: Boolean, verified: Boolean = true) {
+        val parsed = SqlParser.parse(query)
+        if (verified) {
+            parsed.resultInfo = QueryResultInfo(emptyList())
+        }
+        assertThat(parsed.isReaderSafe, `is`(expected))
+    }
+
     fun assertSections(query: String, vararg sections: Section) {
         assertThat(SqlParser.parse(query).sections, `is`(sections.toList()))
     }
@@ -39,6 +39,7 @@ import androidx.room.solver.query.result.ListQueryResultAdapter
 import androidx.room.solver.query.result.LiveDataQueryResultBinder
 import androidx.room.solver.query.result.PojoRowAdapter
 import androidx.room.solver.query.result.SingleEntityQueryResultAdapter
+import androidx.room.solver.query.result.StreamingQueryResultBinder
 import androidx.room.testing.TestInvocation
 import androidx.room.testing.TestProcessor
 import androidx.room.vo.Field
@@ -492,6 +493,89 @@ class QueryMethodProcessorTest(val enableVerification: Boolean) {
         }.compilesWithoutError()
     }
 
+    @Test
+    fun testLiveDataQueryByRowId() {
+        singleQueryMethod<ReadQueryMethod>(
+                """
+                @Query("select * from user where uid = :id")
+                abstract ${LifecyclesTypeNames.LIVE_DATA}<User> userLiveData(int id);
+                """
+        ) { parsedQuery, _ ->
+            // the rowid alias can only be resolved when the query is verified
+            assertThat(parsedQuery.query.readsSingleRowByRowId, `is`(enableVerification))
+            val binder = parsedQuery.queryResultBinder as LiveDataQueryResultBinder
+            assertThat(binder.filtersByRowId, `is`(enableVerification))
+        }.compilesWithoutError()
+    }
+
+    @Test
+    fun testLiveDataQueryByOtherColumn() {
+        singleQueryMethod<ReadQueryMethod>(
+                """
+                @Query("select * from user where name = :name")
+                abstract ${LifecyclesTypeNames.LIVE_DATA}<User> userLiveData(String name);
+                """
+        ) { parsedQuery, _ ->
+            assertThat(parsedQuery.query.readsSingleRowByRowId, `is`(false))
+            val binder = parsedQuery.queryResultBinder as LiveDataQueryResultBinder
+            assertThat(binder.filtersByRowId, `is`(false))
+        }.compilesWithoutError()
+    }
+
+    @Test
+    fun testCloseableIteratorQuery() {
+        singleQueryMethod<ReadQueryMethod>(
+                """
+                @Query("select * from user")
+                abstract CloseableIterator<User> iterateUsers();
+                """
+        ) { parsedQuery, _ ->
+            assertThat(parsedQuery.queryResultBinder,
+                    instanceOf(StreamingQueryResultBinder::class.java))
+        }.compilesWithoutError()
+    }
+
+    @Test
+    fun testStreamQuery() {
+        singleQueryMethod<ReadQueryMethod>(
+                """
+                @Query("select name from user")
+                abstract ${CommonTypeNames.STREAM}<String> streamNames();
+                """
+        ) { parsedQuery, _ ->
+            assertThat(parsedQuery.returnType.typeName(),
+                    `is`(ParameterizedTypeName.get(CommonTypeNames.STREAM,
+                            String::class.typeName()) as TypeName))
+            assertThat(parsedQuery.queryResultBinder,
+                    instanceOf(StreamingQueryResultBinder::class.java))
+        }.compilesWithoutError()
+    }
+
+    @Test
+    fun testIteratorQuery() {
+        singleQueryMethod<ReadQueryMethod>(
+                """
+                @Query("select * from user")
+                abstract java.util.Iterator<User> iterateUsers();
+                """
+        ) { _, _ ->
+        }.failsToCompile()
+                .withErrorContaining(ProcessorErrors.STREAMING_QUERY_PLAIN_ITERATOR)
+    }
+
+    @Test
+    fun testStreamQueryInTransaction() {
+        singleQueryMethod<ReadQueryMethod>(
+                """
+                @Transaction
+                @Query("select * from user")
+                abstract ${CommonTypeNames.STREAM}<User> streamUsers();
+                """
+        ) { _, _ ->
+        }.failsToCompile()
+                .withErrorContaining(ProcessorErrors.STREAMING_QUERY_IN_TRANSACTION)
+    }
+
     @Test
     fun testBadReturnForDeleteQuery() {
         singleQueryMethod<WriteQueryMethod>(
@@ -41,6 +41,7 @@ import androidx.room.solver.binderprovider.DataSourceQueryResultBinderProvider
 import androidx.room.solver.binderprovider.LiveDataQueryResultBinderProvider
 import androidx.room.solver.binderprovider.PagingSourceQueryResultBinderProvider
 import androidx.room.solver.binderprovider.RxQueryResultBinderProvider
+import androidx.room.solver.binderprovider.StreamingQueryResultBinderProvider
 import androidx.room.solver.shortcut.binderprovider.GuavaListenableFutureDeleteOrUpdateMethodBinderProvider
 import androidx.room.solver.shortcut.binderprovider.GuavaListenableFutureInsertMethodBinderProvider
 import androidx.room.solver.shortcut.binderprovider.RxCallableDeleteOrUpdateMethodBinderProvider
@@ -503,6 +504,24 @@ class TypeAdapterStoreTest {
         }.compilesWithoutError()
     }
 
+    @Test
+    fun findStreamingResults() {
+        simpleRun { invocation ->
+            val stringType = invocation.processingEnv.requireTypeMirror(String::class)
+            val provider = StreamingQueryResultBinderProvider(invocation.context)
+            listOf(java.util.Iterator::class, java.util.stream.Stream::class).forEach {
+                val element = invocation.processingEnv.requireTypeElement(it)
+                val declared = invocation.processingEnv.typeUtils
+                    .getDeclaredType(element, stringType)
+                assertThat(provider.matches(declared.asDeclaredType()), `is`(true))
+            }
+            val listElement = invocation.processingEnv.requireTypeElement(java.util.List::class)
+            val listOfStrings = invocation.processingEnv.typeUtils
+                .getDeclaredType(listElement, stringType)
+            assertThat(provider.matches(listOfStrings.asDeclaredType()), `is`(false))
+        }.compilesWithoutError()
+    }
+
     private fun createIntListToStringBinders(invocation: TestInvocation): List<TypeConverter> {
         val intType = invocation.processingEnv.requireTypeMirror(Integer::class)
         val listElement = invocation.processingEnv.requireTypeElement(java.util.List::class)
@@ -17,9 +17,12 @@
 package androidx.room.integration.testapp.dao;
 
 import android.database.Cursor;
+import android.os.Build;
 
+import androidx.annotation.RequiresApi;
 import androidx.lifecycle.LiveData;
 import androidx.paging.DataSource;
+import androidx.room.CloseableIterator;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
@@ -50,6 +53,7 @@ import java.util.List;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.stream.Stream;
 
 import io.reactivex.Completable;
 import io.reactivex.Observable;
@@ -276,6 +280,16 @@ public abstract class UserDao {
     @Query("SELECT * FROM user ORDER BY mAge DESC")
     public abstract DataSource.Factory<Integer, User> loadUsersByAgeDesc();
 
+    @Query("SELECT * FROM user ORDER BY mId")
+    public abstract CloseableIterator<User> iterateAll();
+
+    @Query("SELECT mName FROM user ORDER BY mId")
+    public abstract CloseableIterator<String> iterateNames();
+
+    @RequiresApi(Build.VERSION_CODES.N)
+    @Query("SELECT mName FROM user ORDER BY mId")
+    public abstract Stream<String> streamNames();
+
     @Query("DELETE FROM User WHERE mId IN (:ids) AND mAge == :age")
     public abstract int deleteByAgeAndIds(int age, List<Integer> ids);
 
@@ -33,6 +33,7 @@ import android.database.Cursor;
 import android.database.sqlite.SQLiteConstraintException;
 import android.database.sqlite.SQLiteException;
 
+import androidx.room.CloseableIterator;
 import androidx.room.Room;
 import androidx.room.integration.testapp.TestDatabase;
 import androidx.room.integration.testapp.dao.BlobEntityDao;
@@ -52,6 +53,7 @@ import androidx.room.integration.testapp.vo.UserSummary;
 import androidx.room.integration.testapp.vo.Username;
 import androidx.test.core.app.ApplicationProvider;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SdkSuppress;
 import androidx.test.filters.SmallTest;
 
 import com.google.common.base.Charsets;
@@ -70,6 +72,8 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @SuppressWarnings("ArraysAsListWithZeroOrOneArgument")
 @SmallTest
@@ -101,6 +105,62 @@ public class SimpleEntityReadWriteTest {
         assertThat(byName.get(0), equalTo(user));
     }
 
+    @Test
+    public void iterateUsers() {
+        User[] users = TestUtil.createUsersArray(3, 5, 7);
+        mUserDao.insertAll(users);
+        CloseableIterator<User> iterator = mUserDao.iterateAll();
+        for (User user : users) {
+            assertTrue(iterator.hasNext());
+            assertThat(iterator.next(), equalTo(user));
+        }
+        assertThat(iterator.hasNext(), is(false));
+        iterator.close();
+    }
+
+    @Test
+    public void iterateUsers_closeEarly() {
+        mUserDao.insertAll(TestUtil.createUsersArray(3, 5, 7));
+        CloseableIterator<User> iterator = mUserDao.iterateAll();
+        assertThat(iterator.next().getId(), is(3));
+        iterator.close();
+        assertThat(iterator.hasNext(), is(false));
+        // the database is still usable
+        assertThat(mUserDao.count(), is(3));
+    }
+
+    @Test
+    public void iterateNames() {
+        User[] users = TestUtil.createUsersArray(3, 5);
+        mUserDao.insertAll(users);
+        CloseableIterator<String> iterator = mUserDao.iterateNames();
+        assertThat(iterator.next(), is(users[0].getName()));
+        assertThat(iterator.next(), is(users[1].getName()));
+        assertThat(iterator.hasNext(), is(false));
+    }
+
+    @Test
+    @SdkSuppress(minSdkVersion = 24)
+    public void streamNames() {
+        User[] users = TestUtil.createUsersArray(3, 5);
+        mUserDao.insertAll(users);
+        try (Stream<String> names = mUserDao.streamNames()) {
+            assertThat(names.collect(Collectors.toList()),
+                    is(Arrays.asList(users[0].getName(), users[1].getName())));
+        }
+    }
+
+    @Test
+    @SdkSuppress(minSdkVersion = 24)
+    public void streamNames_closeEarly() {
+        mUserDao.insertAll(TestUtil.createUsersArray(3, 5, 7));
+        try (Stream<String> names = mUserDao.streamNames()) {
+            assertTrue(names.findFirst().isPresent());
+        }
+        // the database is still usable
+        assertThat(mUserDao.count(), is(3));
+    }
+
     @Test
     public void insertNull() throws Exception {
         @SuppressWarnings("ConstantConditions")
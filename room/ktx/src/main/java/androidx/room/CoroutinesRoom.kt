@@ -101,6 +101,20 @@ class CoroutinesRoom private constructor() {
             inTransaction: Boolean,
             tableNames: Array<String>,
             callable: Callable<R>
+        ): Flow<@JvmSuppressWildcards R> = createFlow(db, inTransaction, tableNames, null, callable)
+
+        /**
+         * Creates a flow of the results of [callable], which only reads the row with the given
+         * [rowId] of the observed table, if not null. Changes to other rows of the table are then
+         * ignored when row level invalidation is enabled.
+         */
+        @JvmStatic
+        fun <R> createFlow(
+            db: RoomDatabase,
+            inTransaction: Boolean,
+            tableNames: Array<String>,
+            rowId: Long?,
+            callable: Callable<R>
         ): Flow<@JvmSuppressWildcards R> = flow {
             // Observer channel receives signals from the invalidation tracker to emit queries.
             val observerChannel = Channel<Unit>(Channel.CONFLATED)
@@ -108,6 +122,9 @@ class CoroutinesRoom private constructor() {
                 override fun onInvalidated(tables: MutableSet<String>) {
                     observerChannel.offer(Unit)
                 }
+
+                override fun isAffectedByRows(table: String, rowIds: LongArray) =
+                    rowId == null || rowId in rowIds
             }
             observerChannel.offer(Unit) // Initial signal to perform first query.
             val flowContext = coroutineContext
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * An {@link Iterator} over the rows of a query that holds on to the underlying cursor until it is
+ * closed.
+ * <p>
+ * A {@link Dao} query method can return a {@code CloseableIterator} to read a large result one
+ * row at a time instead of loading it into a {@link java.util.List}:
+ * <pre>
+ * {@literal @}Query("SELECT * FROM Song")
+ * CloseableIterator&lt;Song&gt; iterateSongs();
+ * </pre>
+ * Each row is converted when {@link #next()} is called. The iterator is closed automatically once
+ * it is exhausted, but it must be closed explicitly if it is abandoned before the last row, to
+ * release the cursor and its database connection. On API 24 and above, a query method can return
+ * a {@link java.util.stream.Stream} instead, which has to be closed the same way.
+ * <p>
+ * These query methods cannot be annotated with {@link Transaction} since the rows are read after
+ * the method returns.
+ *
+ * @param <T> The type of the rows.
+ */
+public interface CloseableIterator<T> extends Iterator<T>, Closeable {
+    /**
+     * Closes the underlying cursor. Calling this method more than once has no effect.
+     */
+    @Override
+    void close();
+}
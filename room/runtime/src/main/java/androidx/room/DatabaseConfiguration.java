@@ -116,6 +116,28 @@ public class DatabaseConfiguration {
     @Nullable
     public final File copyFromFile;
 
+    /**
+     * The maximum number of modified rows tracked per table for row level invalidation, or 0 if
+     * row level invalidation is disabled.
+     */
+    public final int maxInvalidatedRowsPerTable;
+
+    /**
+     * The number of reader connections used to run read queries concurrently with the writer
+     * when write-ahead logging is enabled, or 0 if all queries run on the writer connection.
+     */
+    public final int readConnectionPoolSize;
+
+    /**
+     * If true, insert methods that don't return row ids insert multiple entities per statement.
+     */
+    public final boolean batchedInserts;
+
+    /**
+     * The minimum time, in milliseconds, between two invalidation refreshes, or 0 if every
+     * transaction is followed by a refresh.
+     */
+    public final long invalidationCoalescingWindowMillis;
 
     /**
      * Creates a database configuration with the given values.
@@ -201,7 +223,8 @@ public class DatabaseConfiguration {
     }
 
     /**
-     * Creates a database configuration with the given values.
+     * Creates a database configuration with the given values. Row level invalidation, the read
+     * connection pool, batched inserts and invalidation coalescing are disabled.
      *
      * @param context The application context.
      * @param name Name of the database, can be null if it is in memory.
@@ -238,6 +261,61 @@ public class DatabaseConfiguration {
             @Nullable Set<Integer> migrationNotRequiredFrom,
             @Nullable String copyFromAssetPath,
             @Nullable File copyFromFile) {
+        this(context, name, sqliteOpenHelperFactory, migrationContainer, callbacks,
+                allowMainThreadQueries, journalMode, queryExecutor, transactionExecutor,
+                multiInstanceInvalidation, requireMigration, allowDestructiveMigrationOnDowngrade,
+                migrationNotRequiredFrom, copyFromAssetPath, copyFromFile, 0, 0, false, 0);
+    }
+
+    /**
+     * Creates a database configuration with the given values.
+     *
+     * @param context The application context.
+     * @param name Name of the database, can be null if it is in memory.
+     * @param sqliteOpenHelperFactory The open helper factory to use.
+     * @param migrationContainer The migration container for migrations.
+     * @param callbacks The list of callbacks for database events.
+     * @param allowMainThreadQueries Whether to allow main thread reads/writes or not.
+     * @param journalMode The journal mode. This has to be either TRUNCATE or WRITE_AHEAD_LOGGING.
+     * @param queryExecutor The Executor used to execute asynchronous queries.
+     * @param transactionExecutor The Executor used to execute asynchronous transactions.
+     * @param multiInstanceInvalidation True if Room should perform multi-instance invalidation.
+     * @param requireMigration True if Room should require a valid migration if version changes,
+     * @param allowDestructiveMigrationOnDowngrade True if Room should recreate tables if no
+     *                                             migration is supplied during a downgrade.
+     * @param migrationNotRequiredFrom The collection of schema versions from which migrations
+     *                                 aren't required.
+     * @param copyFromAssetPath The assets path to the pre-packaged database.
+     * @param copyFromFile The pre-packaged database file.
+     * @param maxInvalidatedRowsPerTable The maximum number of modified rows tracked per table
+     *                                   for row level invalidation, 0 to disable it.
+     * @param readConnectionPoolSize The number of reader connections, 0 to disable the read
+     *                               connection pool.
+     * @param batchedInserts True if Room should insert multiple entities per statement.
+     * @param invalidationCoalescingWindowMillis The minimum time between two invalidation
+     *                                           refreshes, 0 to refresh after every transaction.
+     *
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+    public DatabaseConfiguration(@NonNull Context context, @Nullable String name,
+            @NonNull SupportSQLiteOpenHelper.Factory sqliteOpenHelperFactory,
+            @NonNull RoomDatabase.MigrationContainer migrationContainer,
+            @Nullable List<RoomDatabase.Callback> callbacks,
+            boolean allowMainThreadQueries,
+            RoomDatabase.JournalMode journalMode,
+            @NonNull Executor queryExecutor,
+            @NonNull Executor transactionExecutor,
+            boolean multiInstanceInvalidation,
+            boolean requireMigration,
+            boolean allowDestructiveMigrationOnDowngrade,
+            @Nullable Set<Integer> migrationNotRequiredFrom,
+            @Nullable String copyFromAssetPath,
+            @Nullable File copyFromFile,
+            int maxInvalidatedRowsPerTable,
+            int readConnectionPoolSize,
+            boolean batchedInserts,
+            long invalidationCoalescingWindowMillis) {
         this.sqliteOpenHelperFactory = sqliteOpenHelperFactory;
         this.context = context;
         this.name = name;
@@ -253,6 +331,10 @@ public class DatabaseConfiguration {
         this.mMigrationNotRequiredFrom = migrationNotRequiredFrom;
         this.copyFromAssetPath = copyFromAssetPath;
         this.copyFromFile = copyFromFile;
+        this.maxInvalidatedRowsPerTable = maxInvalidatedRowsPerTable;
+        this.readConnectionPoolSize = readConnectionPoolSize;
+        this.batchedInserts = batchedInserts;
+        this.invalidationCoalescingWindowMillis = invalidationCoalescingWindowMillis;
     }
 
     /**
@@ -16,12 +16,18 @@
 
 package androidx.room;
 
+import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
+import androidx.annotation.VisibleForTesting;
 import androidx.sqlite.db.SupportSQLiteStatement;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Implementations of this class knows how to insert a particular entity.
@@ -34,6 +40,21 @@ import java.util.List;
 @SuppressWarnings({"WeakerAccess", "unused"})
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
 public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
+    /**
+     * Maximum number of rows inserted by a single batched statement. Multi-row VALUES clauses are
+     * compound selects, which older SQLite versions limit to 500 terms.
+     */
+    @VisibleForTesting
+    static final int MAX_BATCH_ROWS = 100;
+
+    private final RoomDatabase mDatabase;
+    private final AtomicBoolean mBatchLock = new AtomicBoolean(false);
+    private volatile SupportSQLiteStatement mBatchStmt;
+    // Number of rows per batched statement, 1 if the query cannot be batched, 0 if not computed.
+    private volatile int mBatchRows;
+    private String mBatchQuery;
+    private int mColumnCount;
+
     /**
      * Creates an InsertionAdapter that can insert the entity type T into the given database.
      *
@@ -41,6 +62,7 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
      */
     public EntityInsertionAdapter(RoomDatabase database) {
         super(database);
+        mDatabase = database;
     }
 
     /**
@@ -73,6 +95,10 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
      * @param entities Entities to insert
      */
     public final void insert(T[] entities) {
+        if (mDatabase.mBatchedInsertsEnabled && entities.length > 1) {
+            insertBatched(Arrays.asList(entities));
+            return;
+        }
         final SupportSQLiteStatement stmt = acquire();
         try {
             for (T entity : entities) {
@@ -90,6 +116,11 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
      * @param entities Entities to insert
      */
     public final void insert(Iterable<? extends T> entities) {
+        if (mDatabase.mBatchedInsertsEnabled && !(entities instanceof Collection
+                && ((Collection<? extends T>) entities).size() <= 1)) {
+            insertBatched(entities);
+            return;
+        }
         final SupportSQLiteStatement stmt = acquire();
         try {
             for (T entity : entities) {
@@ -248,4 +279,215 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
             release(stmt);
         }
     }
+
+    /**
+     * Inserts the given entities with multi-row INSERT statements, binding as many entities per
+     * statement as the bind parameter limit allows. Remaining entities are inserted one by one.
+     */
+    private void insertBatched(Iterable<? extends T> entities) {
+        final int batchRows = getBatchRows();
+        final Iterator<? extends T> iterator = entities.iterator();
+        if (batchRows > 1) {
+            final List<T> chunk = new ArrayList<>(batchRows);
+            SupportSQLiteStatement batchStmt = null;
+            try {
+                while (iterator.hasNext()) {
+                    chunk.add(iterator.next());
+                    if (chunk.size() < batchRows) {
+                        continue;
+                    }
+                    if (batchStmt == null) {
+                        batchStmt = acquireBatch();
+                    }
+                    final OffsetBindingStatement binder =
+                            new OffsetBindingStatement(batchStmt, mColumnCount);
+                    for (int row = 0; row < batchRows; row++) {
+                        binder.mOffset = row * mColumnCount;
+                        bind(binder, chunk.get(row));
+                    }
+                    batchStmt.executeInsert();
+                    chunk.clear();
+                }
+            } finally {
+                if (batchStmt != null) {
+                    releaseBatch(batchStmt);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                insertEach(chunk.iterator());
+            }
+        } else {
+            insertEach(iterator);
+        }
+    }
+
+    private void insertEach(Iterator<? extends T> entities) {
+        if (!entities.hasNext()) {
+            return;
+        }
+        final SupportSQLiteStatement stmt = acquire();
+        try {
+            while (entities.hasNext()) {
+                bind(stmt, entities.next());
+                stmt.executeInsert();
+            }
+        } finally {
+            release(stmt);
+        }
+    }
+
+    private int getBatchRows() {
+        int batchRows = mBatchRows;
+        if (batchRows == 0) {
+            synchronized (this) {
+                batchRows = mBatchRows;
+                if (batchRows == 0) {
+                    batchRows = prepareBatchQuery(createQuery());
+                    mBatchRows = batchRows;
+                }
+            }
+        }
+        return batchRows;
+    }
+
+    /**
+     * Builds the batched query from the single row query.
+     *
+     * @return The number of rows of the batched query, or 1 if the query cannot be batched.
+     */
+    private int prepareBatchQuery(String query) {
+        final int valuesIndex = query.toUpperCase(Locale.US).lastIndexOf(" VALUES ");
+        if (valuesIndex < 0) {
+            return 1;
+        }
+        final String prefix = query.substring(0, valuesIndex + " VALUES ".length());
+        final String row = query.substring(prefix.length()).trim();
+        int columnCount = 0;
+        for (int i = 0; i < row.length(); i++) {
+            if (row.charAt(i) == '?') {
+                columnCount++;
+            }
+        }
+        if (columnCount == 0) {
+            return 1;
+        }
+        final int batchRows = Math.min(MAX_BATCH_ROWS,
+                RoomDatabase.MAX_BIND_PARAMETER_CNT / columnCount);
+        if (batchRows <= 1) {
+            return 1;
+        }
+        final StringBuilder builder = new StringBuilder(
+                prefix.length() + (row.length() + 1) * batchRows);
+        builder.append(prefix).append(row);
+        for (int i = 1; i < batchRows; i++) {
+            builder.append(',').append(row);
+        }
+        mColumnCount = columnCount;
+        mBatchQuery = builder.toString();
+        return batchRows;
+    }
+
+    @VisibleForTesting
+    @Nullable
+    String getBatchQuery() {
+        getBatchRows();
+        return mBatchQuery;
+    }
+
+    private SupportSQLiteStatement acquireBatch() {
+        if (mBatchLock.compareAndSet(false, true)) {
+            if (mBatchStmt == null) {
+                mBatchStmt = mDatabase.compileStatement(mBatchQuery);
+            }
+            return mBatchStmt;
+        }
+        // it is in use, create a one off statement
+        return mDatabase.compileStatement(mBatchQuery);
+    }
+
+    private void releaseBatch(SupportSQLiteStatement statement) {
+        if (statement == mBatchStmt) {
+            mBatchLock.set(false);
+        }
+    }
+
+    /**
+     * Shifts the bind indices of an entity so that it is bound to its row of a batched statement.
+     * <p>
+     * Bindings are only cleared for the current row. The other methods run on the batched
+     * statement, which stays owned by the adapter and is therefore not closed by this view.
+     */
+    @VisibleForTesting
+    static class OffsetBindingStatement implements SupportSQLiteStatement {
+        private final SupportSQLiteStatement mDelegate;
+        private final int mColumnCount;
+        int mOffset;
+
+        OffsetBindingStatement(SupportSQLiteStatement delegate, int columnCount) {
+            mDelegate = delegate;
+            mColumnCount = columnCount;
+        }
+
+        @Override
+        public void bindNull(int index) {
+            mDelegate.bindNull(index + mOffset);
+        }
+
+        @Override
+        public void bindLong(int index, long value) {
+            mDelegate.bindLong(index + mOffset, value);
+        }
+
+        @Override
+        public void bindDouble(int index, double value) {
+            mDelegate.bindDouble(index + mOffset, value);
+        }
+
+        @Override
+        public void bindString(int index, String value) {
+            mDelegate.bindString(index + mOffset, value);
+        }
+
+        @Override
+        public void bindBlob(int index, byte[] value) {
+            mDelegate.bindBlob(index + mOffset, value);
+        }
+
+        @Override
+        public void clearBindings() {
+            for (int index = 1; index <= mColumnCount; index++) {
+                mDelegate.bindNull(index + mOffset);
+            }
+        }
+
+        @Override
+        public void execute() {
+            mDelegate.execute();
+        }
+
+        @Override
+        public int executeUpdateDelete() {
+            return mDelegate.executeUpdateDelete();
+        }
+
+        @Override
+        public long executeInsert() {
+            return mDelegate.executeInsert();
+        }
+
+        @Override
+        public long simpleQueryForLong() {
+            return mDelegate.simpleQueryForLong();
+        }
+
+        @Override
+        public String simpleQueryForString() {
+            return mDelegate.simpleQueryForString();
+        }
+
+        @Override
+        public void close() {
+            // ignored, the batched statement is released by the adapter.
+        }
+    }
 }
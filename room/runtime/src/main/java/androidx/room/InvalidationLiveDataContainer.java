@@ -16,6 +16,7 @@
 
 package androidx.room;
 
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import androidx.lifecycle.LiveData;
 
@@ -45,8 +46,13 @@ class InvalidationLiveDataContainer {
 
     <T> LiveData<T> create(String[] tableNames, boolean inTransaction,
             Callable<T> computeFunction) {
+        return create(tableNames, inTransaction, null, computeFunction);
+    }
+
+    <T> LiveData<T> create(String[] tableNames, boolean inTransaction, @Nullable Long rowId,
+            Callable<T> computeFunction) {
         return new RoomTrackingLiveData<>(mDatabase, this, inTransaction, computeFunction,
-                tableNames);
+                tableNames, rowId);
     }
 
     void onActive(LiveData liveData) {
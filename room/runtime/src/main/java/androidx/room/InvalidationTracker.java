@@ -42,7 +42,12 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 
 /**
@@ -60,6 +65,14 @@ import java.util.concurrent.locks.Lock;
 // memory table table, flipping the invalidated flag ON.
 // * When multi-instance invalidation is turned on, MultiInstanceInvalidationClient will be created.
 // It works as an Observer, and notifies other instances of table invalidation.
+// * When row level invalidation is turned on, another in memory table is created with
+// (table_id, row_id) and the triggers also record the rowid of each modified row, up to a limit
+// per table. A third in memory table counts the row modifications of each table so that the
+// triggers only need a primary key lookup to check the limit. Tables whose limit is exceeded
+// fall back to whole-table invalidation.
+// * When a coalescing window is set, a refresh requested within the window of the previous one is
+// delayed until the window ends. The memory tables keep accumulating invalidated tables and rows
+// meanwhile, so the delayed refresh dispatches the union of all the changes.
 public class InvalidationTracker {
 
     private static final String[] TRIGGERS = new String[]{"UPDATE", "DELETE", "INSERT"};
@@ -82,6 +95,39 @@ public class InvalidationTracker {
     static final String SELECT_UPDATED_TABLES_SQL = "SELECT * FROM " + UPDATE_TABLE_NAME
             + " WHERE " + INVALIDATED_COLUMN_NAME + " = 1;";
 
+    private static final String UPDATE_ROW_TABLE_NAME = "room_row_modification_log";
+
+    private static final String ROW_ID_COLUMN_NAME = "row_id";
+
+    private static final String CREATE_ROW_TRACKING_TABLE_SQL = "CREATE TEMP TABLE "
+            + UPDATE_ROW_TABLE_NAME + "(" + TABLE_ID_COLUMN_NAME + " INTEGER NOT NULL, "
+            + ROW_ID_COLUMN_NAME + " INTEGER NOT NULL, "
+            + "PRIMARY KEY(" + TABLE_ID_COLUMN_NAME + ", " + ROW_ID_COLUMN_NAME + "))";
+
+    @VisibleForTesting
+    static final String RESET_UPDATED_ROWS_SQL = "DELETE FROM " + UPDATE_ROW_TABLE_NAME;
+
+    private static final String ROW_COUNT_TABLE_NAME = "room_row_modification_count";
+
+    private static final String ROW_COUNT_COLUMN_NAME = "row_count";
+
+    private static final String CREATE_ROW_COUNT_TABLE_SQL = "CREATE TEMP TABLE "
+            + ROW_COUNT_TABLE_NAME + "(" + TABLE_ID_COLUMN_NAME + " INTEGER PRIMARY KEY, "
+            + ROW_COUNT_COLUMN_NAME + " INTEGER NOT NULL DEFAULT 0)";
+
+    @VisibleForTesting
+    static final String RESET_ROW_COUNTS_SQL = "UPDATE " + ROW_COUNT_TABLE_NAME + " SET "
+            + ROW_COUNT_COLUMN_NAME + " = 0 WHERE " + ROW_COUNT_COLUMN_NAME + " > 0";
+
+    @VisibleForTesting
+    static final String SELECT_OVERFLOWED_TABLES_SQL = "SELECT " + TABLE_ID_COLUMN_NAME
+            + " FROM " + ROW_COUNT_TABLE_NAME + " WHERE " + ROW_COUNT_COLUMN_NAME + " > ?;";
+
+    @VisibleForTesting
+    static final String SELECT_UPDATED_ROWS_SQL = "SELECT " + TABLE_ID_COLUMN_NAME + ", "
+            + ROW_ID_COLUMN_NAME + " FROM " + UPDATE_ROW_TABLE_NAME + " ORDER BY "
+            + TABLE_ID_COLUMN_NAME + ";";
+
     @NonNull
     final HashMap<String, Integer> mTableIdLookup;
     final String[] mTableNames;
@@ -94,11 +140,42 @@ public class InvalidationTracker {
 
     AtomicBoolean mPendingRefresh = new AtomicBoolean(false);
 
+    // Minimum time between two refreshes, 0 if refreshes are not coalesced.
+    private volatile long mCoalescingWindowNanos = 0;
+
+    // Time of the last refresh, only meaningful once mRefreshCount is positive.
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    volatile long mLastRefreshNanos;
+
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    final AtomicLong mRefreshCount = new AtomicLong();
+
+    private final AtomicLong mSuppressedRefreshCount = new AtomicLong();
+
+    // Shared by all the trackers that coalesce refreshes, it only hands refreshes over to the
+    // query executor of each database.
+    private static ScheduledExecutorService sCoalescingScheduler;
+
+    // Replaces the shared coalescing scheduler, for tests.
+    @Nullable
+    private volatile ScheduledExecutorService mCoalescingScheduler;
+
     private volatile boolean mInitialized = false;
 
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     volatile SupportSQLiteStatement mCleanupStatement;
 
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    volatile SupportSQLiteStatement mRowCleanupStatement;
+
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    volatile SupportSQLiteStatement mRowCountCleanupStatement;
+
+    // Maximum number of modified rows recorded per table between refreshes, 0 if row level
+    // invalidation is disabled.
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    int mMaxInvalidatedRowsPerTable = 0;
+
     private ObservedTableTracker mObservedTableTracker;
 
     private final InvalidationLiveDataContainer mInvalidationLiveDataContainer;
@@ -176,12 +253,50 @@ public class InvalidationTracker {
             database.execSQL("PRAGMA temp_store = MEMORY;");
             database.execSQL("PRAGMA recursive_triggers='ON';");
             database.execSQL(CREATE_TRACKING_TABLE_SQL);
+            if (mMaxInvalidatedRowsPerTable > 0) {
+                database.execSQL(CREATE_ROW_TRACKING_TABLE_SQL);
+                database.execSQL(CREATE_ROW_COUNT_TABLE_SQL);
+            }
             syncTriggers(database);
             mCleanupStatement = database.compileStatement(RESET_UPDATED_TABLES_SQL);
+            if (mMaxInvalidatedRowsPerTable > 0) {
+                mRowCleanupStatement = database.compileStatement(RESET_UPDATED_ROWS_SQL);
+                mRowCountCleanupStatement = database.compileStatement(RESET_ROW_COUNTS_SQL);
+            }
             mInitialized = true;
         }
     }
 
+    /**
+     * Enables row level invalidation, recording up to {@code maxRowsPerTable} modified rows per
+     * table between two refreshes. Must be called before the database is opened.
+     *
+     * @param maxRowsPerTable The maximum number of rows recorded per table, 0 to disable.
+     */
+    void setMaxInvalidatedRowsPerTable(int maxRowsPerTable) {
+        synchronized (this) {
+            if (mInitialized) {
+                Log.e(Room.LOG_TAG, "Cannot change row level invalidation once initialized.");
+                return;
+            }
+            mMaxInvalidatedRowsPerTable = maxRowsPerTable;
+        }
+    }
+
+    /**
+     * Sets the minimum time between two refreshes started by {@link #refreshVersionsAsync()}.
+     *
+     * @param windowMillis The coalescing window in milliseconds, 0 to disable coalescing.
+     */
+    void setCoalescingWindow(long windowMillis) {
+        mCoalescingWindowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+    }
+
+    @VisibleForTesting
+    void setCoalescingScheduler(@Nullable ScheduledExecutorService scheduler) {
+        mCoalescingScheduler = scheduler;
+    }
+
     void startMultiInstanceInvalidation(Context context, String name) {
         mMultiInstanceInvalidationClient = new MultiInstanceInvalidationClient(context, name, this,
                 mDatabase.getQueryExecutor());
@@ -218,6 +333,10 @@ public class InvalidationTracker {
     private void startTrackingTable(SupportSQLiteDatabase writableDb, int tableId) {
         writableDb.execSQL(
                 "INSERT OR IGNORE INTO " + UPDATE_TABLE_NAME + " VALUES(" + tableId + ", 0)");
+        if (mMaxInvalidatedRowsPerTable > 0) {
+            writableDb.execSQL("INSERT OR IGNORE INTO " + ROW_COUNT_TABLE_NAME + " VALUES("
+                    + tableId + ", 0)");
+        }
         final String tableName = mTableNames[tableId];
         StringBuilder stringBuilder = new StringBuilder();
         for (String trigger : TRIGGERS) {
@@ -233,11 +352,60 @@ public class InvalidationTracker {
                     .append(" SET ").append(INVALIDATED_COLUMN_NAME).append(" = 1")
                     .append(" WHERE ").append(TABLE_ID_COLUMN_NAME).append(" = ").append(tableId)
                     .append(" AND ").append(INVALIDATED_COLUMN_NAME).append(" = 0")
-                    .append("; END");
+                    .append("; ");
+            if (mMaxInvalidatedRowsPerTable > 0) {
+                if (!"INSERT".equals(trigger)) {
+                    appendRowLogInsert(stringBuilder, tableId, "OLD");
+                }
+                if (!"DELETE".equals(trigger)) {
+                    appendRowLogInsert(stringBuilder, tableId, "NEW");
+                }
+            }
+            stringBuilder.append("END");
             writableDb.execSQL(stringBuilder.toString());
         }
     }
 
+    /**
+     * Appends statements that record the rowid of the {@code rowReference} (OLD or NEW) row while
+     * the table is under the limit, and count the modification. The count stops one over the
+     * limit, which marks the table as overflowed until the next refresh.
+     * <p>
+     * Both statements look up the count by primary key, so their cost does not depend on the
+     * number of rows already recorded. A row modified more than once is counted each time, which
+     * can only make the table fall back to whole-table invalidation earlier.
+     */
+    private void appendRowLogInsert(StringBuilder builder, int tableId, String rowReference) {
+        builder.append("INSERT OR IGNORE INTO ")
+                .append(UPDATE_ROW_TABLE_NAME)
+                .append(" SELECT ").append(tableId).append(", ")
+                .append(rowReference).append(".rowid")
+                .append(" FROM ").append(ROW_COUNT_TABLE_NAME)
+                .append(" WHERE ").append(TABLE_ID_COLUMN_NAME).append(" = ").append(tableId)
+                .append(" AND ").append(ROW_COUNT_COLUMN_NAME).append(" < ")
+                .append(mMaxInvalidatedRowsPerTable)
+                .append("; UPDATE ").append(ROW_COUNT_TABLE_NAME)
+                .append(" SET ").append(ROW_COUNT_COLUMN_NAME).append(" = ")
+                .append(ROW_COUNT_COLUMN_NAME).append(" + 1")
+                .append(" WHERE ").append(TABLE_ID_COLUMN_NAME).append(" = ").append(tableId)
+                .append(" AND ").append(ROW_COUNT_COLUMN_NAME).append(" <= ")
+                .append(mMaxInvalidatedRowsPerTable)
+                .append("; ");
+    }
+
+    /**
+     * Returns whether the given rowids, as passed to {@link Observer#isAffectedByRows(String,
+     * long[])}, contain the given one.
+     */
+    static boolean containsRowId(long[] rowIds, long rowId) {
+        for (long id : rowIds) {
+            if (id == rowId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Adds the given observer to the observers list and it will be notified if any table it
      * observes changes.
@@ -360,6 +528,7 @@ public class InvalidationTracker {
         public void run() {
             final Lock closeLock = mDatabase.getCloseLock();
             Set<Integer> invalidatedTableIds = null;
+            Map<Integer, long[]> invalidatedRowIds = null;
             closeLock.lock();
             try {
 
@@ -379,6 +548,9 @@ public class InvalidationTracker {
                     return;
                 }
 
+                mLastRefreshNanos = System.nanoTime();
+                mRefreshCount.incrementAndGet();
+
                 if (mDatabase.mWriteAheadLoggingEnabled) {
                     // This transaction has to be on the underlying DB rather than the RoomDatabase
                     // in order to avoid a recursive loop after endTransaction.
@@ -386,12 +558,14 @@ public class InvalidationTracker {
                     db.beginTransaction();
                     try {
                         invalidatedTableIds = checkUpdatedTable();
+                        invalidatedRowIds = checkUpdatedRows(invalidatedTableIds);
                         db.setTransactionSuccessful();
                     } finally {
                         db.endTransaction();
                     }
                 } else {
                     invalidatedTableIds = checkUpdatedTable();
+                    invalidatedRowIds = checkUpdatedRows(invalidatedTableIds);
                 }
             } catch (IllegalStateException | SQLiteException exception) {
                 // may happen if db is closed. just log.
@@ -403,7 +577,8 @@ public class InvalidationTracker {
             if (invalidatedTableIds != null && !invalidatedTableIds.isEmpty()) {
                 synchronized (mObserverMap) {
                     for (Map.Entry<Observer, ObserverWrapper> entry : mObserverMap) {
-                        entry.getValue().notifyByTableInvalidStatus(invalidatedTableIds);
+                        entry.getValue().notifyByTableInvalidStatus(invalidatedTableIds,
+                                invalidatedRowIds);
                     }
                 }
             }
@@ -426,6 +601,65 @@ public class InvalidationTracker {
             }
             return invalidatedTableIds;
         }
+
+        /**
+         * Reads the modified rows of the invalidated tables. Tables that exceeded the row limit
+         * are left out of the returned map so that they are treated as invalidated as a whole.
+         */
+        @Nullable
+        private Map<Integer, long[]> checkUpdatedRows(Set<Integer> invalidatedTableIds) {
+            final int limit = mMaxInvalidatedRowsPerTable;
+            if (limit <= 0 || mRowCleanupStatement == null || invalidatedTableIds.isEmpty()) {
+                return null;
+            }
+            HashSet<Integer> overflowedTableIds = new HashSet<>();
+            Cursor cursor = mDatabase.query(
+                    new SimpleSQLiteQuery(SELECT_OVERFLOWED_TABLES_SQL, new Object[]{limit}));
+            //noinspection TryFinallyCanBeTryWithResources
+            try {
+                while (cursor.moveToNext()) {
+                    overflowedTableIds.add(cursor.getInt(0));
+                }
+            } finally {
+                cursor.close();
+            }
+            HashMap<Integer, long[]> invalidatedRowIds = new HashMap<>();
+            // Rows are sorted by table id, so they are accumulated one table at a time.
+            final long[] rowIds = new long[limit];
+            int currentTableId = -1;
+            int rowCount = 0;
+            cursor = mDatabase.query(new SimpleSQLiteQuery(SELECT_UPDATED_ROWS_SQL));
+            //noinspection TryFinallyCanBeTryWithResources
+            try {
+                while (cursor.moveToNext()) {
+                    final int tableId = cursor.getInt(0);
+                    if (tableId != currentTableId) {
+                        putRowIds(invalidatedRowIds, overflowedTableIds, currentTableId, rowIds,
+                                rowCount);
+                        currentTableId = tableId;
+                        rowCount = 0;
+                    }
+                    if (rowCount < rowIds.length) {
+                        rowIds[rowCount++] = cursor.getLong(1);
+                    }
+                }
+                putRowIds(invalidatedRowIds, overflowedTableIds, currentTableId, rowIds,
+                        rowCount);
+            } finally {
+                cursor.close();
+            }
+            mRowCleanupStatement.executeUpdateDelete();
+            mRowCountCleanupStatement.executeUpdateDelete();
+            return invalidatedRowIds;
+        }
+
+        private void putRowIds(Map<Integer, long[]> invalidatedRowIds,
+                Set<Integer> overflowedTableIds, int tableId, long[] rowIds, int rowCount) {
+            if (tableId < 0 || rowCount == 0 || overflowedTableIds.contains(tableId)) {
+                return;
+            }
+            invalidatedRowIds.put(tableId, Arrays.copyOf(rowIds, rowCount));
+        }
     };
 
     /**
@@ -438,9 +672,69 @@ public class InvalidationTracker {
     @SuppressWarnings("WeakerAccess")
     public void refreshVersionsAsync() {
         // TODO we should consider doing this sync instead of async.
-        if (mPendingRefresh.compareAndSet(false, true)) {
+        if (!mPendingRefresh.compareAndSet(false, true)) {
+            // the pending refresh will pick up these changes as well.
+            mSuppressedRefreshCount.incrementAndGet();
+            return;
+        }
+        final long windowNanos = mCoalescingWindowNanos;
+        if (windowNanos > 0 && mRefreshCount.get() > 0) {
+            final long delayNanos = mLastRefreshNanos + windowNanos - System.nanoTime();
+            if (delayNanos > 0) {
+                ScheduledExecutorService scheduler = mCoalescingScheduler;
+                if (scheduler == null) {
+                    scheduler = getCoalescingScheduler();
+                }
+                scheduler.schedule(mPostRefreshRunnable, delayNanos, TimeUnit.NANOSECONDS);
+                return;
+            }
+        }
+        mDatabase.getQueryExecutor().execute(mRefreshRunnable);
+    }
+
+    private final Runnable mPostRefreshRunnable = new Runnable() {
+        @Override
+        public void run() {
             mDatabase.getQueryExecutor().execute(mRefreshRunnable);
         }
+    };
+
+    private static synchronized ScheduledExecutorService getCoalescingScheduler() {
+        if (sCoalescingScheduler == null) {
+            sCoalescingScheduler = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactory() {
+                        @Override
+                        public Thread newThread(@NonNull Runnable runnable) {
+                            Thread thread = new Thread(runnable, "room-invalidation-coalescing");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+        }
+        return sCoalescingScheduler;
+    }
+
+    /**
+     * Returns the number of times this tracker checked for invalidated tables after a
+     * transaction or an explicit refresh request.
+     *
+     * @return The number of refreshes run by this tracker.
+     * @see #getSuppressedRefreshCount()
+     */
+    public long getRefreshCount() {
+        return mRefreshCount.get();
+    }
+
+    /**
+     * Returns the number of refresh requests that were merged into an already pending refresh,
+     * either because the previous refresh had not run yet or because it was delayed by the
+     * coalescing window.
+     *
+     * @return The number of refresh requests that did not cause a refresh of their own.
+     * @see RoomDatabase.Builder#setInvalidationCoalescingWindow(long, TimeUnit)
+     */
+    public long getSuppressedRefreshCount() {
+        return mSuppressedRefreshCount.get();
     }
 
     /**
@@ -577,8 +871,33 @@ public class InvalidationTracker {
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
     public <T> LiveData<T> createLiveData(String[] tableNames, boolean inTransaction,
             Callable<T> computeFunction) {
+        return createLiveData(tableNames, inTransaction, null, computeFunction);
+    }
+
+    /**
+     * Creates a LiveData that computes the given function once and for every other invalidation
+     * of the database.
+     * <p>
+     * When a row id is given, the function only reads the row with that rowid of the observed
+     * table, so changes to other rows are ignored when row level invalidation is enabled.
+     * <p>
+     * Holds a strong reference to the created LiveData as long as it is active.
+     *
+     * @param tableNames      The list of tables to observe
+     * @param inTransaction   True if the computeFunction will be done in a transaction, false
+     *                        otherwise.
+     * @param rowId           The rowid of the only row read by the computeFunction, or null.
+     * @param computeFunction The function that calculates the value
+     * @param <T>             The return type
+     * @return A new LiveData that computes the given function when the given list of tables
+     * invalidates.
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+    public <T> LiveData<T> createLiveData(String[] tableNames, boolean inTransaction,
+            @Nullable Long rowId, Callable<T> computeFunction) {
         return mInvalidationLiveDataContainer.create(
-                validateAndResolveTableNames(tableNames), inTransaction, computeFunction);
+                validateAndResolveTableNames(tableNames), inTransaction, rowId, computeFunction);
     }
 
     /**
@@ -614,11 +933,31 @@ public class InvalidationTracker {
          * @param invalidatedTablesIds The table ids of the tables that are invalidated.
          */
         void notifyByTableInvalidStatus(Set<Integer> invalidatedTablesIds) {
+            notifyByTableInvalidStatus(invalidatedTablesIds, null);
+        }
+
+        /**
+         * Notifies the underlying {@link #mObserver} if any of the observed tables are invalidated
+         * based on the given invalid status set, skipping tables whose modified rows are known
+         * and do not affect the observer.
+         *
+         * @param invalidatedTablesIds The table ids of the tables that are invalidated.
+         * @param invalidatedRowIds    The modified rows of the invalidated tables, keyed by table
+         *                             id, or null if row level invalidation is disabled.
+         */
+        void notifyByTableInvalidStatus(Set<Integer> invalidatedTablesIds,
+                @Nullable Map<Integer, long[]> invalidatedRowIds) {
             Set<String> invalidatedTables = null;
             final int size = mTableIds.length;
             for (int index = 0; index < size; index++) {
                 final int tableId = mTableIds[index];
                 if (invalidatedTablesIds.contains(tableId)) {
+                    final long[] rowIds = invalidatedRowIds == null
+                            ? null : invalidatedRowIds.get(tableId);
+                    if (rowIds != null
+                            && !mObserver.isAffectedByRows(mTableNames[index], rowIds)) {
+                        continue;
+                    }
                     if (size == 1) {
                         // Optimization for a single-table observer
                         invalidatedTables = mSingleTableSet;
@@ -708,6 +1047,26 @@ public class InvalidationTracker {
          */
         public abstract void onInvalidated(@NonNull Set<String> tables);
 
+        /**
+         * Called before {@link #onInvalidated(Set)} when row level invalidation is enabled and
+         * the rows modified in one of the observed tables are known. Observers that only depend
+         * on a subset of the rows can return {@code false} to skip the invalidation of that table.
+         * <p>
+         * This is not called when the number of modified rows exceeded the limit set in
+         * {@link RoomDatabase.Builder#enableRowLevelInvalidation(int)} or when the invalidation
+         * comes from another instance, in which case the table is always considered invalidated.
+         * <p>
+         * The default implementation returns {@code true}.
+         *
+         * @param table  The name of the modified table. This will be the name of the underlying
+         *               table when you are observing views.
+         * @param rowIds The rowids of the modified rows.
+         * @return True if any of the given rows affects this observer, false otherwise.
+         */
+        public boolean isAffectedByRows(@NonNull String table, @NonNull long[] rowIds) {
+            return true;
+        }
+
         boolean isRemote() {
             return false;
         }
@@ -848,5 +1207,11 @@ public class InvalidationTracker {
                 observer.onInvalidated(tables);
             }
         }
+
+        @Override
+        public boolean isAffectedByRows(@NonNull String table, @NonNull long[] rowIds) {
+            final Observer observer = mDelegateRef.get();
+            return observer == null || observer.isAffectedByRows(table, rowIds);
+        }
     }
 }
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.CursorWrapper;
+import android.os.Build;
+import android.os.CancellationSignal;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of reader connections used to run read queries concurrently with the writer connection
+ * of a {@link RoomDatabase} in write-ahead logging mode.
+ * <p>
+ * Readers are opened lazily, once the writer connection has been opened and migrated. A reader is
+ * checked out for the lifetime of the cursor it returns. Only queries that don't depend on the
+ * state of the connection should be run here, see {@link RoomSQLiteQuery#acquireForReader}.
+ * <p>
+ * A thread that already holds a reader is not given another one: the snapshot of the held reader
+ * could predate the thread's own writes, and waiting for a second reader could deadlock. Such
+ * queries, and queries for which no reader becomes free within {@link #MAX_WAIT_MILLIS}, should
+ * be run on the writer connection instead, so a leaked cursor cannot block the database.
+ * <p>
+ * This class is thread safe.
+ */
+class ReadConnectionPool {
+
+    @VisibleForTesting
+    static final long MAX_WAIT_MILLIS = 100;
+
+    private final Context mContext;
+    private final String mName;
+    private final SupportSQLiteOpenHelper.Factory mFactory;
+    private final int mSize;
+
+    private final ArrayBlockingQueue<Reader> mIdleReaders;
+    private final ThreadLocal<Reader> mThreadReader = new ThreadLocal<>();
+
+    // written while holding this
+    @Nullable
+    private volatile Reader[] mReaders;
+
+    private final AtomicLong mCheckoutCount = new AtomicLong();
+    private final AtomicLong mFallbackCount = new AtomicLong();
+    private final AtomicLong mWaitTimeNanos = new AtomicLong();
+
+    ReadConnectionPool(@NonNull Context context, @NonNull String name,
+            @NonNull SupportSQLiteOpenHelper.Factory factory, int size) {
+        mContext = context;
+        mName = name;
+        mFactory = factory;
+        mSize = size;
+        mIdleReaders = new ArrayBlockingQueue<>(size);
+    }
+
+    /**
+     * Runs the given query on a reader connection if it is safe to do so.
+     * <p>
+     * Only queries acquired through {@link RoomSQLiteQuery#acquireForReader(String, int)} are run
+     * on a reader, and transactions are pinned to the writer.
+     *
+     * @param writer The writer connection, which must be open.
+     * @param query  The query to run.
+     * @param signal The cancellation signal to be attached to the query.
+     * @return A cursor that returns its reader to the pool when closed, or null if the query
+     * should be run on the writer instead.
+     */
+    @Nullable
+    Cursor query(@NonNull SupportSQLiteDatabase writer, @NonNull SupportSQLiteQuery query,
+            @Nullable CancellationSignal signal) {
+        if (!(query instanceof RoomSQLiteQuery) || !((RoomSQLiteQuery) query).isReaderSafe()
+                || writer.inTransaction()) {
+            return null;
+        }
+        ensureReaders(writer);
+        final Reader reader = acquire();
+        if (reader == null) {
+            return null;
+        }
+        try {
+            final SupportSQLiteDatabase db = reader.mOpenHelper.getWritableDatabase();
+            final Cursor cursor;
+            if (signal != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+                cursor = db.query(query, signal);
+            } else {
+                cursor = db.query(query);
+            }
+            return new ReaderCursor(cursor, reader);
+        } catch (RuntimeException e) {
+            release(reader);
+            throw e;
+        }
+    }
+
+    private void ensureReaders(SupportSQLiteDatabase writer) {
+        if (mReaders != null) {
+            return;
+        }
+        synchronized (this) {
+            if (mReaders == null) {
+                mReaders = openReaders(writer);
+            }
+        }
+    }
+
+    private Reader[] openReaders(SupportSQLiteDatabase writer) {
+        // Readers never create or migrate the database, they open it at the writer's version.
+        final int version = writer.getVersion();
+        final Reader[] readers = new Reader[mSize];
+        for (int i = 0; i < mSize; i++) {
+            SupportSQLiteOpenHelper.Configuration configuration =
+                    SupportSQLiteOpenHelper.Configuration.builder(mContext)
+                            .name(mName)
+                            .callback(new ReaderCallback(version))
+                            .build();
+            SupportSQLiteOpenHelper openHelper = mFactory.create(configuration);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+                openHelper.setWriteAheadLoggingEnabled(true);
+            }
+            readers[i] = new Reader(openHelper);
+            mIdleReaders.offer(readers[i]);
+        }
+        return readers;
+    }
+
+    @Nullable
+    private Reader acquire() {
+        final Thread currentThread = Thread.currentThread();
+        Reader reader = mThreadReader.get();
+        if (reader != null && reader.isOwnedBy(currentThread)) {
+            mFallbackCount.incrementAndGet();
+            return null;
+        }
+        reader = mIdleReaders.poll();
+        if (reader == null) {
+            final long start = System.nanoTime();
+            try {
+                reader = mIdleReaders.poll(MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                currentThread.interrupt();
+            }
+            mWaitTimeNanos.addAndGet(System.nanoTime() - start);
+            if (reader == null) {
+                mFallbackCount.incrementAndGet();
+                return null;
+            }
+        }
+        reader.setOwner(currentThread);
+        mThreadReader.set(reader);
+        mCheckoutCount.incrementAndGet();
+        return reader;
+    }
+
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    void release(Reader reader) {
+        reader.setOwner(null);
+        if (!reader.mClosed) {
+            mIdleReaders.offer(reader);
+        }
+    }
+
+    /**
+     * Closes all reader connections. Readers are reopened on the next query.
+     */
+    synchronized void close() {
+        if (mReaders == null) {
+            return;
+        }
+        mIdleReaders.clear();
+        for (Reader reader : mReaders) {
+            reader.mClosed = true;
+            reader.mOpenHelper.close();
+        }
+        mReaders = null;
+    }
+
+    @NonNull
+    ReadConnectionPoolStats getStats() {
+        return new ReadConnectionPoolStats(mSize, mCheckoutCount.get(), mFallbackCount.get(),
+                mWaitTimeNanos.get());
+    }
+
+    /**
+     * A reader connection, which can be held by one thread at a time.
+     */
+    static class Reader {
+        final SupportSQLiteOpenHelper mOpenHelper;
+        volatile boolean mClosed;
+        // The cursor of a reader may be closed on another thread than the one that opened it.
+        private volatile Thread mOwner;
+
+        Reader(SupportSQLiteOpenHelper openHelper) {
+            mOpenHelper = openHelper;
+        }
+
+        boolean isOwnedBy(Thread thread) {
+            return mOwner == thread;
+        }
+
+        void setOwner(@Nullable Thread thread) {
+            mOwner = thread;
+        }
+    }
+
+    /**
+     * A cursor that returns its reader to the pool when it is closed.
+     */
+    private class ReaderCursor extends CursorWrapper {
+        private final Reader mReader;
+        private boolean mReleased;
+
+        ReaderCursor(Cursor cursor, Reader reader) {
+            super(cursor);
+            mReader = reader;
+        }
+
+        @Override
+        public void close() {
+            try {
+                super.close();
+            } finally {
+                synchronized (this) {
+                    if (!mReleased) {
+                        mReleased = true;
+                        release(mReader);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Callback of the reader connections. The schema is owned by the writer so readers refuse to
+     * create or migrate the database.
+     */
+    private static class ReaderCallback extends SupportSQLiteOpenHelper.Callback {
+
+        ReaderCallback(int version) {
+            super(version);
+        }
+
+        @Override
+        public void onOpen(@NonNull SupportSQLiteDatabase db) {
+            // Ignored by SQLite versions that don't support it.
+            db.execSQL("PRAGMA query_only = 1");
+        }
+
+        @Override
+        public void onCreate(@NonNull SupportSQLiteDatabase db) {
+            throw new IllegalStateException("A reader connection cannot create the database.");
+        }
+
+        @Override
+        public void onUpgrade(@NonNull SupportSQLiteDatabase db, int oldVersion,
+                int newVersion) {
+            throw new IllegalStateException("A reader connection cannot migrate the database.");
+        }
+
+        @Override
+        public void onDowngrade(@NonNull SupportSQLiteDatabase db, int oldVersion,
+                int newVersion) {
+            throw new IllegalStateException("A reader connection cannot migrate the database.");
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import androidx.annotation.NonNull;
+
+/**
+ * A snapshot of the usage statistics of the read connection pool of a {@link RoomDatabase}.
+ *
+ * @see RoomDatabase.Builder#setReadConnectionPoolSize(int)
+ * @see RoomDatabase#getReadConnectionPoolStats()
+ */
+public final class ReadConnectionPoolStats {
+    private final int mPoolSize;
+    private final long mCheckoutCount;
+    private final long mFallbackCount;
+    private final long mWaitTimeNanos;
+
+    ReadConnectionPoolStats(int poolSize, long checkoutCount, long fallbackCount,
+            long waitTimeNanos) {
+        mPoolSize = poolSize;
+        mCheckoutCount = checkoutCount;
+        mFallbackCount = fallbackCount;
+        mWaitTimeNanos = waitTimeNanos;
+    }
+
+    /**
+     * @return The number of reader connections in the pool.
+     */
+    public int getPoolSize() {
+        return mPoolSize;
+    }
+
+    /**
+     * @return The number of queries that ran on a reader connection.
+     */
+    public long getCheckoutCount() {
+        return mCheckoutCount;
+    }
+
+    /**
+     * @return The number of read queries that ran on the writer connection because no reader
+     * connection became available in time.
+     */
+    public long getFallbackCount() {
+        return mFallbackCount;
+    }
+
+    /**
+     * @return The total time, in nanoseconds, spent waiting for a reader connection.
+     */
+    public long getWaitTimeNanos() {
+        return mWaitTimeNanos;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "ReadConnectionPoolStats{poolSize=" + mPoolSize
+                + ", checkoutCount=" + mCheckoutCount
+                + ", fallbackCount=" + mFallbackCount
+                + ", waitTimeNanos=" + mWaitTimeNanos + "}";
+    }
+}
@@ -53,6 +53,7 @@ import java.util.TreeMap;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -84,9 +85,12 @@ public abstract class RoomDatabase {
     private Executor mQueryExecutor;
     private Executor mTransactionExecutor;
     private SupportSQLiteOpenHelper mOpenHelper;
+    @Nullable
+    private ReadConnectionPool mReadConnectionPool;
     private final InvalidationTracker mInvalidationTracker;
     private boolean mAllowMainThreadQueries;
     boolean mWriteAheadLoggingEnabled;
+    boolean mBatchedInsertsEnabled;
 
     /**
      * @deprecated Will be hidden in the next release.
@@ -173,10 +177,26 @@ public abstract class RoomDatabase {
         mTransactionExecutor = new TransactionExecutor(configuration.transactionExecutor);
         mAllowMainThreadQueries = configuration.allowMainThreadQueries;
         mWriteAheadLoggingEnabled = wal;
+        // Multi-row VALUES clauses require SQLite 3.7.11, shipped with API 16.
+        mBatchedInsertsEnabled = configuration.batchedInserts
+                && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN;
         if (configuration.multiInstanceInvalidation) {
             mInvalidationTracker.startMultiInstanceInvalidation(configuration.context,
                     configuration.name);
         }
+        if (configuration.maxInvalidatedRowsPerTable > 0) {
+            mInvalidationTracker.setMaxInvalidatedRowsPerTable(
+                    configuration.maxInvalidatedRowsPerTable);
+        }
+        if (configuration.invalidationCoalescingWindowMillis > 0) {
+            mInvalidationTracker.setCoalescingWindow(
+                    configuration.invalidationCoalescingWindowMillis);
+        }
+        if (wal && configuration.readConnectionPoolSize > 0 && configuration.name != null) {
+            mReadConnectionPool = new ReadConnectionPool(configuration.context,
+                    configuration.name, configuration.sqliteOpenHelperFactory,
+                    configuration.readConnectionPoolSize);
+        }
     }
 
     /**
@@ -244,6 +264,9 @@ public abstract class RoomDatabase {
             closeLock.lock();
             try {
                 mInvalidationTracker.stopMultiInstanceInvalidation();
+                if (mReadConnectionPool != null) {
+                    mReadConnectionPool.close();
+                }
                 mOpenHelper.close();
             } finally {
                 closeLock.unlock();
@@ -322,6 +345,15 @@ public abstract class RoomDatabase {
     public Cursor query(@NonNull SupportSQLiteQuery query, @Nullable CancellationSignal signal) {
         assertNotMainThread();
         assertNotSuspendingTransaction();
+        if (mReadConnectionPool != null) {
+            // Transactions are pinned to the writer, verified reads of the database tables can go
+            // to any free reader. Raw queries may depend on the state of the writer connection.
+            final Cursor cursor = mReadConnectionPool.query(mOpenHelper.getWritableDatabase(),
+                    query, signal);
+            if (cursor != null) {
+                return cursor;
+            }
+        }
         if (signal != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
             return mOpenHelper.getWritableDatabase().query(query, signal);
         } else {
@@ -465,6 +497,19 @@ public abstract class RoomDatabase {
         return mInvalidationTracker;
     }
 
+    /**
+     * Returns the usage statistics of the read connection pool of this database.
+     *
+     * @return The statistics of the read connection pool, or null if the database does not use
+     * one.
+     * @see Builder#setReadConnectionPoolSize(int)
+     */
+    @Nullable
+    public ReadConnectionPoolStats getReadConnectionPoolStats() {
+        final ReadConnectionPool pool = mReadConnectionPool;
+        return pool == null ? null : pool.getStats();
+    }
+
     /**
      * Returns true if current thread is in a transaction.
      *
@@ -549,6 +594,10 @@ public abstract class RoomDatabase {
         private boolean mAllowMainThreadQueries;
         private JournalMode mJournalMode;
         private boolean mMultiInstanceInvalidation;
+        private int mMaxInvalidatedRowsPerTable;
+        private int mReadConnectionPoolSize;
+        private boolean mBatchedInserts;
+        private long mInvalidationCoalescingWindowMillis;
         private boolean mRequireMigration;
         private boolean mAllowDestructiveMigrationOnDowngrade;
         /**
@@ -761,6 +810,61 @@ public abstract class RoomDatabase {
             return this;
         }
 
+        /**
+         * Sets the number of reader connections Room opens to run read queries concurrently
+         * with the writer connection.
+         * <p>
+         * When set, {@link Query} methods that read the database tables and are not run in a
+         * transaction are routed to any free reader connection, while transactions and writes
+         * are pinned to the writer connection. Raw queries, and queries that depend on the
+         * state of the connection (such as {@code last_insert_rowid()} or {@code changes()}),
+         * always run on the writer connection. A reader is held until the returned
+         * {@link Cursor} is closed, and queries from a thread that already holds a reader run on
+         * the writer connection so they observe the thread's own writes. If no reader becomes
+         * available shortly, the query runs on the writer connection instead.
+         * <p>
+         * The pool is only used when the journal mode is
+         * {@link JournalMode#WRITE_AHEAD_LOGGING}. This value is ignored if the builder is
+         * initialized with {@link Room#inMemoryDatabaseBuilder(Context, Class)}.
+         * <p>
+         * The default value is 0, which runs all queries on the writer connection.
+         *
+         * @param size The number of reader connections.
+         * @return This {@link Builder} instance.
+         *
+         * @see RoomDatabase#getReadConnectionPoolStats()
+         */
+        @NonNull
+        public Builder<T> setReadConnectionPoolSize(int size) {
+            if (size < 0) {
+                throw new IllegalArgumentException("The read connection pool size cannot be "
+                        + "negative but was " + size);
+            }
+            mReadConnectionPoolSize = size;
+            return this;
+        }
+
+        /**
+         * Enables batched inserts for {@link Insert} methods that take multiple entities and
+         * don't return row ids.
+         * <p>
+         * When enabled, Room inserts the entities with multi-row {@code INSERT} statements, each
+         * binding as many entities as fit in the SQLite bind parameter limit, instead of running
+         * one statement per entity. This greatly reduces the cost of bulk inserts. Insert methods
+         * that return row ids still insert one entity per statement since the row id of each
+         * entity cannot be read back from a multi-row statement.
+         * <p>
+         * This is not enabled by default and has no effect on devices running API Level lower
+         * than 16.
+         *
+         * @return This {@link Builder} instance.
+         */
+        @NonNull
+        public Builder<T> enableBatchedInserts() {
+            mBatchedInserts = true;
+            return this;
+        }
+
         /**
          * Sets whether table invalidation in this instance of {@link RoomDatabase} should be
          * broadcast and synchronized with other instances of the same {@link RoomDatabase},
@@ -780,6 +884,67 @@ public abstract class RoomDatabase {
             return this;
         }
 
+        /**
+         * Enables row level invalidation in the {@link InvalidationTracker} of this database.
+         * <p>
+         * When enabled, the triggers Room creates on observed tables also record the rowid of
+         * each modified row, and {@link InvalidationTracker.Observer}s can override
+         * {@link InvalidationTracker.Observer#isAffectedByRows(String, long[])} to skip
+         * invalidations caused by rows they don't depend on. The {@link androidx.lifecycle.LiveData}
+         * and {@code Flow} returned by {@link Query} methods that read a single row by its integer
+         * primary key, such as {@code SELECT * FROM user WHERE id = :id}, do so automatically.
+         * <p>
+         * At most {@code maxRowsPerTable} rows are recorded per table between two invalidation
+         * checks. If more rows are modified, the whole table is considered invalidated.
+         * <p>
+         * This is not enabled by default. Recording rows makes each write to an observed table
+         * slightly more expensive.
+         *
+         * @param maxRowsPerTable The maximum number of modified rows to record per table.
+         * @return This {@link Builder} instance.
+         */
+        @NonNull
+        public Builder<T> enableRowLevelInvalidation(int maxRowsPerTable) {
+            if (maxRowsPerTable <= 0) {
+                throw new IllegalArgumentException("The maximum number of rows per table must "
+                        + "be positive but was " + maxRowsPerTable);
+            }
+            mMaxInvalidatedRowsPerTable = maxRowsPerTable;
+            return this;
+        }
+
+        /**
+         * Sets the minimum time between two invalidation refreshes of the
+         * {@link InvalidationTracker}.
+         * <p>
+         * By default, the invalidation tracker checks for modified tables and notifies its
+         * observers after every transaction. When a coalescing window is set, the first
+         * transaction after an idle period is still dispatched right away, but transactions that
+         * end within the window of the previous refresh are merged into a single refresh at the
+         * end of the window, so observers receive the union of the tables modified by those
+         * transactions at most once per window.
+         * <p>
+         * This is useful when a writer commits many small transactions in a short time, at the
+         * cost of delaying invalidation callbacks by up to {@code window}.
+         *
+         * @param window The minimum time between two invalidation refreshes, 0 to refresh after
+         *               every transaction.
+         * @param timeUnit The time unit of {@code window}.
+         * @return This {@link Builder} instance.
+         *
+         * @see InvalidationTracker#getSuppressedRefreshCount()
+         */
+        @NonNull
+        public Builder<T> setInvalidationCoalescingWindow(long window,
+                @NonNull TimeUnit timeUnit) {
+            if (window < 0) {
+                throw new IllegalArgumentException("The coalescing window cannot be negative but "
+                        + "was " + window);
+            }
+            mInvalidationCoalescingWindowMillis = timeUnit.toMillis(window);
+            return this;
+        }
+
         /**
          * Allows Room to destructively recreate database tables if {@link Migration}s that would
          * migrate old database schemas to the latest schema version are not found.
@@ -948,7 +1113,11 @@ public abstract class RoomDatabase {
                             mAllowDestructiveMigrationOnDowngrade,
                             mMigrationsNotRequiredFrom,
                             mCopyFromAssetPath,
-                            mCopyFromFile);
+                            mCopyFromFile,
+                            mMaxInvalidatedRowsPerTable,
+                            mReadConnectionPoolSize,
+                            mBatchedInserts,
+                            mInvalidationCoalescingWindowMillis);
             T db = Room.getGeneratedImplementation(mDatabaseClass, DB_IMPL_SUFFIX);
             db.init(configuration);
             return db;
@@ -17,6 +17,7 @@
 package androidx.room;
 
 import androidx.annotation.IntDef;
+import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 import androidx.annotation.VisibleForTesting;
 import androidx.sqlite.db.SupportSQLiteProgram;
@@ -25,9 +26,8 @@ import androidx.sqlite.db.SupportSQLiteQuery;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.util.Arrays;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * This class is used as an intermediate place to keep binding arguments so that we can run
@@ -40,15 +40,23 @@ import java.util.TreeMap;
 @SuppressWarnings("unused")
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
 public class RoomSQLiteQuery implements SupportSQLiteQuery, SupportSQLiteProgram {
+    // Queries are pooled in stripes so that concurrent DAO calls don't contend on a single lock.
+    // Queries with less than EXACT_STRIPE_LIMIT arguments have a stripe per argument count, and
+    // larger queries are pooled by the next power of two of their argument count, up to
+    // MAX_POOLED_CAPACITY. Each stripe has a per-thread slot (for the small stripes only) backed by
+    // a shared, lock-free array of slots.
     @SuppressWarnings("WeakerAccess")
     @VisibleForTesting
-    // Maximum number of queries we'll keep cached.
-    static final int POOL_LIMIT = 15;
+    static final int EXACT_STRIPE_LIMIT = 16;
     @SuppressWarnings("WeakerAccess")
     @VisibleForTesting
-    // Once we hit POOL_LIMIT, we'll bring the pool size back to the desired number. We always
-    // clear the bigger queries (# of arguments).
-    static final int DESIRED_POOL_SIZE = 10;
+    static final int MAX_POOLED_CAPACITY = 1024;
+    private static final int STRIPE_COUNT = EXACT_STRIPE_LIMIT
+            + Integer.numberOfTrailingZeros(MAX_POOLED_CAPACITY / EXACT_STRIPE_LIMIT) + 1;
+    @SuppressWarnings("WeakerAccess")
+    @VisibleForTesting
+    // Default number of shared slots per stripe.
+    static final int DEFAULT_POOL_SIZE = 4;
     private volatile String mQuery;
     @SuppressWarnings("WeakerAccess")
     @VisibleForTesting
@@ -72,11 +80,25 @@ public class RoomSQLiteQuery implements SupportSQLiteQuery, SupportSQLiteProgram
     @SuppressWarnings("WeakerAccess")
     @VisibleForTesting
     int mArgCount;
-
+    // true if the query is a verified read of the database tables, which doesn't depend on the
+    // state of the connection it runs on
+    private boolean mReaderSafe;
 
     @SuppressWarnings("WeakerAccess")
     @VisibleForTesting
-    static final TreeMap<Integer, RoomSQLiteQuery> sQueryPool = new TreeMap<>();
+    static volatile QueryStripe[] sQueryPool = createPool(DEFAULT_POOL_SIZE);
+
+    private static final ThreadLocal<RoomSQLiteQuery[]> sThreadQueryPool =
+            new ThreadLocal<RoomSQLiteQuery[]>() {
+                @Override
+                protected RoomSQLiteQuery[] initialValue() {
+                    return new RoomSQLiteQuery[EXACT_STRIPE_LIMIT];
+                }
+            };
+
+    private static volatile boolean sPoolStatsEnabled = false;
+    private static final AtomicLong sPoolHitCount = new AtomicLong();
+    private static final AtomicLong sPoolMissCount = new AtomicLong();
 
     /**
      * Copies the given SupportSQLiteQuery and converts it into RoomSQLiteQuery.
@@ -138,19 +160,127 @@ public class RoomSQLiteQuery implements SupportSQLiteQuery, SupportSQLiteProgram
      */
     @SuppressWarnings("WeakerAccess")
     public static RoomSQLiteQuery acquire(String query, int argumentCount) {
-        synchronized (sQueryPool) {
-            final Map.Entry<Integer, RoomSQLiteQuery> entry =
-                    sQueryPool.ceilingEntry(argumentCount);
-            if (entry != null) {
-                sQueryPool.remove(entry.getKey());
-                final RoomSQLiteQuery sqliteQuery = entry.getValue();
-                sqliteQuery.init(query, argumentCount);
-                return sqliteQuery;
-            }
+        final int capacity = pooledCapacity(argumentCount);
+        final int stripe = stripeIndex(capacity);
+        RoomSQLiteQuery sqliteQuery = null;
+        if (stripe < EXACT_STRIPE_LIMIT) {
+            final RoomSQLiteQuery[] threadPool = sThreadQueryPool.get();
+            sqliteQuery = threadPool[stripe];
+            threadPool[stripe] = null;
+        }
+        if (sqliteQuery == null && stripe < STRIPE_COUNT) {
+            sqliteQuery = sQueryPool[stripe].poll();
+        }
+        if (sPoolStatsEnabled) {
+            (sqliteQuery != null ? sPoolHitCount : sPoolMissCount).incrementAndGet();
+        }
+        if (sqliteQuery == null) {
+            sqliteQuery = new RoomSQLiteQuery(capacity);
+        }
+        sqliteQuery.init(query, argumentCount);
+        return sqliteQuery;
+    }
+
+    /**
+     * Returns a new RoomSQLiteQuery like {@link #acquire(String, int)}, for a read query that only
+     * depends on the database tables and can therefore run on any connection of the database.
+     * <p>
+     * Only generated code that verified the query should call this method. Queries acquired
+     * through {@link #acquire(String, int)} always run on the writer connection, since they may
+     * depend on its state (e.g. {@code last_insert_rowid()}, temporary tables, or data written
+     * in a statement that is still in progress).
+     *
+     * @param query         The query to prepare
+     * @param argumentCount The number of query arguments
+     * @return A RoomSQLiteQuery that holds the given query and has space for the given number of
+     * arguments.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static RoomSQLiteQuery acquireForReader(String query, int argumentCount) {
+        final RoomSQLiteQuery sqliteQuery = acquire(query, argumentCount);
+        sqliteQuery.mReaderSafe = true;
+        return sqliteQuery;
+    }
+
+    /**
+     * Sets the number of queries kept in the shared pool for each argument count stripe. Queries
+     * currently in the pool are dropped.
+     *
+     * @param size The number of pooled queries per stripe.
+     */
+    public static void setPoolSize(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Pool size cannot be negative but was " + size);
+        }
+        sQueryPool = createPool(size);
+    }
+
+    /**
+     * Enables or disables counting of pool hits and misses. This is disabled by default since
+     * the counters are shared by all threads.
+     *
+     * @param enabled True to count pool hits and misses.
+     */
+    public static void setPoolStatsEnabled(boolean enabled) {
+        sPoolStatsEnabled = enabled;
+    }
+
+    /**
+     * @return The number of {@link #acquire(String, int)} calls that reused a pooled query
+     * while pool stats were enabled.
+     */
+    public static long getPoolHitCount() {
+        return sPoolHitCount.get();
+    }
+
+    /**
+     * @return The number of {@link #acquire(String, int)} calls that had to allocate a new query
+     * while pool stats were enabled.
+     */
+    public static long getPoolMissCount() {
+        return sPoolMissCount.get();
+    }
+
+    /**
+     * Resets the pool hit and miss counters.
+     */
+    public static void resetPoolStats() {
+        sPoolHitCount.set(0);
+        sPoolMissCount.set(0);
+    }
+
+    private static QueryStripe[] createPool(int size) {
+        final QueryStripe[] pool = new QueryStripe[STRIPE_COUNT];
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            pool[i] = new QueryStripe(size);
         }
-        RoomSQLiteQuery sqLiteQuery = new RoomSQLiteQuery(argumentCount);
-        sqLiteQuery.init(query, argumentCount);
-        return sqLiteQuery;
+        return pool;
+    }
+
+    /**
+     * Returns the capacity of the query that is pooled for the given argument count.
+     */
+    @VisibleForTesting
+    static int pooledCapacity(int argumentCount) {
+        if (argumentCount < EXACT_STRIPE_LIMIT || argumentCount > MAX_POOLED_CAPACITY) {
+            return argumentCount;
+        }
+        final int capacity = Integer.highestOneBit(argumentCount);
+        return capacity == argumentCount ? capacity : capacity << 1;
+    }
+
+    /**
+     * Returns the stripe of the pool for the given capacity or {@link #STRIPE_COUNT} if queries of
+     * this capacity are not pooled.
+     */
+    private static int stripeIndex(int capacity) {
+        if (capacity < EXACT_STRIPE_LIMIT) {
+            return capacity;
+        }
+        if (capacity > MAX_POOLED_CAPACITY || Integer.bitCount(capacity) != 1) {
+            return STRIPE_COUNT;
+        }
+        return EXACT_STRIPE_LIMIT + Integer.numberOfTrailingZeros(capacity / EXACT_STRIPE_LIMIT);
     }
 
     private RoomSQLiteQuery(int capacity) {
@@ -169,6 +299,14 @@ public class RoomSQLiteQuery implements SupportSQLiteQuery, SupportSQLiteProgram
     void init(String query, int argCount) {
         mQuery = query;
         mArgCount = argCount;
+        mReaderSafe = false;
+    }
+
+    /**
+     * @return true if the query was acquired through {@link #acquireForReader(String, int)}.
+     */
+    boolean isReaderSafe() {
+        return mReaderSafe;
     }
 
     /**
@@ -179,21 +317,17 @@ public class RoomSQLiteQuery implements SupportSQLiteQuery, SupportSQLiteProgram
      */
     @SuppressWarnings("WeakerAccess")
     public void release() {
-        synchronized (sQueryPool) {
-            sQueryPool.put(mCapacity, this);
-            prunePoolLocked();
-        }
-    }
-
-    private static void prunePoolLocked() {
-        if (sQueryPool.size() > POOL_LIMIT) {
-            int toBeRemoved = sQueryPool.size() - DESIRED_POOL_SIZE;
-            final Iterator<Integer> iterator = sQueryPool.descendingKeySet().iterator();
-            while (toBeRemoved-- > 0) {
-                iterator.next();
-                iterator.remove();
+        final int stripe = stripeIndex(mCapacity);
+        if (stripe < EXACT_STRIPE_LIMIT) {
+            final RoomSQLiteQuery[] threadPool = sThreadQueryPool.get();
+            if (threadPool[stripe] == null) {
+                threadPool[stripe] = this;
+                return;
             }
         }
+        if (stripe < STRIPE_COUNT) {
+            sQueryPool[stripe].offer(this);
+        }
     }
 
     @Override
@@ -206,6 +340,20 @@ public class RoomSQLiteQuery implements SupportSQLiteQuery, SupportSQLiteProgram
         return mArgCount;
     }
 
+    /**
+     * Returns the value bound to the only argument of this query if it is an integer, so that an
+     * observable query reading a single row by its rowid can skip the changes to other rows.
+     *
+     * @return The bound value, or null if the query doesn't have a single integer argument.
+     */
+    @Nullable
+    public Long getSingleLongArgument() {
+        if (mArgCount != 1 || mBindingTypes[1] != LONG) {
+            return null;
+        }
+        return mLongBindings[1];
+    }
+
     @Override
     public void bindTo(SupportSQLiteProgram program) {
         for (int index = 1; index <= mArgCount; index++) {
@@ -296,4 +444,66 @@ public class RoomSQLiteQuery implements SupportSQLiteQuery, SupportSQLiteProgram
     @IntDef({NULL, LONG, DOUBLE, STRING, BLOB})
     @interface Binding {
     }
+
+    /**
+     * A lock-free, bounded pool of queries of the same capacity.
+     */
+    @VisibleForTesting
+    static class QueryStripe {
+        private final AtomicReferenceArray<RoomSQLiteQuery> mSlots;
+
+        QueryStripe(int size) {
+            mSlots = new AtomicReferenceArray<>(size);
+        }
+
+        RoomSQLiteQuery poll() {
+            final int size = mSlots.length();
+            final int start = probe(size);
+            for (int i = 0; i < size; i++) {
+                final int index = (start + i) % size;
+                final RoomSQLiteQuery query = mSlots.get(index);
+                if (query != null && mSlots.compareAndSet(index, query, null)) {
+                    return query;
+                }
+            }
+            return null;
+        }
+
+        boolean offer(RoomSQLiteQuery query) {
+            final int size = mSlots.length();
+            final int start = probe(size);
+            for (int i = 0; i < size; i++) {
+                final int index = (start + i) % size;
+                if (mSlots.get(index) == null && mSlots.compareAndSet(index, null, query)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @VisibleForTesting
+        int size() {
+            int count = 0;
+            for (int i = 0; i < mSlots.length(); i++) {
+                if (mSlots.get(i) != null) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        // Threads start probing at different slots to spread contention.
+        private static int probe(int size) {
+            return size == 0 ? 0 : (int) (Thread.currentThread().getId() % size);
+        }
+    }
+
+    /**
+     * Clears the pool of the current thread and the shared pool.
+     */
+    @VisibleForTesting
+    static void clearPool() {
+        sThreadQueryPool.remove();
+        sQueryPool = createPool(DEFAULT_POOL_SIZE);
+    }
 }
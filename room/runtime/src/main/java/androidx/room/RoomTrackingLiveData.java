@@ -21,6 +21,7 @@ import android.annotation.SuppressLint;
 
 import androidx.annotation.MainThread;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.WorkerThread;
 import androidx.arch.core.executor.ArchTaskExecutor;
 import androidx.lifecycle.LiveData;
@@ -131,7 +132,8 @@ class RoomTrackingLiveData<T> extends LiveData<T> {
             InvalidationLiveDataContainer container,
             boolean inTransaction,
             Callable<T> computeFunction,
-            String[] tableNames) {
+            String[] tableNames,
+            @Nullable final Long rowId) {
         mDatabase = database;
         mInTransaction = inTransaction;
         mComputeFunction = computeFunction;
@@ -141,6 +143,11 @@ class RoomTrackingLiveData<T> extends LiveData<T> {
             public void onInvalidated(@NonNull Set<String> tables) {
                 ArchTaskExecutor.getInstance().executeOnMainThread(mInvalidationRunnable);
             }
+
+            @Override
+            public boolean isAffectedByRows(@NonNull String table, @NonNull long[] rowIds) {
+                return rowId == null || InvalidationTracker.containsRowId(rowIds, rowId);
+            }
         };
     }
 
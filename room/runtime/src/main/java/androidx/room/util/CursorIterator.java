@@ -0,0 +1,155 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.util;
+
+import android.database.Cursor;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+import androidx.annotation.RestrictTo;
+import androidx.room.CloseableIterator;
+import androidx.room.RoomSQLiteQuery;
+
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An iterator that converts the rows of a cursor lazily, used by the generated code for query
+ * methods that return a {@link CloseableIterator} or a {@link Stream}.
+ * <p>
+ * Only the current row is converted so the memory used by the iterator does not depend on the
+ * number of rows. The cursor, and the query if any, are released when the iterator is closed or
+ * exhausted, or when converting a row fails.
+ *
+ * @param <T> The type of the rows.
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP_PREFIX)
+public abstract class CursorIterator<T> implements CloseableIterator<T> {
+    private final Cursor mCursor;
+    @Nullable
+    private final RoomSQLiteQuery mQuery;
+
+    // true if the cursor has been moved to the row that next() returns.
+    private boolean mMoved;
+    private boolean mHasNext;
+    private boolean mClosed;
+
+    /**
+     * @param cursor The cursor to iterate, positioned before its first row.
+     * @param query  The query to release when the iterator is closed, or null.
+     */
+    protected CursorIterator(@NonNull Cursor cursor, @Nullable RoomSQLiteQuery query) {
+        mCursor = cursor;
+        mQuery = query;
+    }
+
+    /**
+     * Converts the current row of the cursor.
+     *
+     * @param cursor The cursor, positioned on the row to convert.
+     * @return The converted row.
+     */
+    protected abstract T convert(@NonNull Cursor cursor);
+
+    @Override
+    public boolean hasNext() {
+        if (mClosed) {
+            return false;
+        }
+        if (!mMoved) {
+            mHasNext = mCursor.moveToNext();
+            mMoved = true;
+            if (!mHasNext) {
+                close();
+            }
+        }
+        return mHasNext;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        mMoved = false;
+        try {
+            return convert(mCursor);
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Cannot remove rows from a query result.");
+    }
+
+    @Override
+    public void close() {
+        if (mClosed) {
+            return;
+        }
+        mClosed = true;
+        mHasNext = false;
+        mCursor.close();
+        if (mQuery != null) {
+            mQuery.release();
+        }
+    }
+
+    /**
+     * Returns a sequential stream over the remaining rows. Closing the stream closes this
+     * iterator.
+     *
+     * @return A stream of the rows.
+     */
+    @NonNull
+    @RequiresApi(Build.VERSION_CODES.N)
+    public Stream<T> stream() {
+        return Api24Impl.stream(this);
+    }
+
+    /**
+     * Keeps the references to {@code java.util.stream} out of {@link CursorIterator}, so that the
+     * iterator still verifies on API levels without streams.
+     */
+    @RequiresApi(24)
+    static class Api24Impl {
+
+        private Api24Impl() {
+            // This class is non-instantiable.
+        }
+
+        static <T> Stream<T> stream(final CursorIterator<T> iterator) {
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                    Spliterator.ORDERED), false)
+                    .onClose(new Runnable() {
+                        @Override
+                        public void run() {
+                            iterator.close();
+                        }
+                    });
+        }
+    }
+}
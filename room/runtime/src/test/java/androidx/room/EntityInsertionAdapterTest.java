@@ -0,0 +1,218 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public class EntityInsertionAdapterTest {
+    private static final String INSERT_QUERY =
+            "INSERT OR ABORT INTO `User` (`id`,`name`) VALUES (nullif(?, 0),?)";
+
+    private RoomDatabase mDb;
+    private SupportSQLiteStatement mStmt;
+    private SupportSQLiteStatement mBatchStmt;
+    private EntityInsertionAdapter<Long> mAdapter;
+
+    @Before
+    public void init() {
+        mDb = mock(RoomDatabase.class);
+        mStmt = mock(SupportSQLiteStatement.class);
+        mBatchStmt = mock(SupportSQLiteStatement.class);
+        when(mDb.compileStatement(anyString())).thenReturn(mBatchStmt);
+        when(mDb.compileStatement(INSERT_QUERY)).thenReturn(mStmt);
+        mAdapter = new EntityInsertionAdapter<Long>(mDb) {
+            @Override
+            protected String createQuery() {
+                return INSERT_QUERY;
+            }
+
+            @Override
+            protected void bind(SupportSQLiteStatement statement, Long entity) {
+                statement.bindLong(1, entity);
+                statement.bindString(2, "name" + entity);
+            }
+        };
+    }
+
+    @Test
+    public void batchQuery() {
+        String batchQuery = mAdapter.getBatchQuery();
+        assertThat(batchQuery.startsWith(
+                INSERT_QUERY + ",(nullif(?, 0),?),(nullif(?, 0),?)"), is(true));
+        int rows = batchQuery.split("\\(nullif").length - 1;
+        assertThat(rows, is(EntityInsertionAdapter.MAX_BATCH_ROWS));
+    }
+
+    @Test
+    public void batchQuery_limitedByBindParameters() {
+        final StringBuilder query = new StringBuilder("INSERT INTO `Wide` VALUES (?");
+        for (int i = 1; i < 100; i++) {
+            query.append(",?");
+        }
+        query.append(")");
+        EntityInsertionAdapter<Long> adapter = new EntityInsertionAdapter<Long>(mDb) {
+            @Override
+            protected String createQuery() {
+                return query.toString();
+            }
+
+            @Override
+            protected void bind(SupportSQLiteStatement statement, Long entity) {
+            }
+        };
+        String batchQuery = adapter.getBatchQuery();
+        int rows = batchQuery.split("\\),\\(").length;
+        assertThat(rows, is(RoomDatabase.MAX_BIND_PARAMETER_CNT / 100));
+    }
+
+    @Test
+    public void insertNotBatchedByDefault() {
+        mAdapter.insert(entities(3));
+        verify(mStmt, times(3)).executeInsert();
+        verify(mBatchStmt, never()).executeInsert();
+    }
+
+    @Test
+    public void insertBatched() {
+        mDb.mBatchedInsertsEnabled = true;
+        final int size = EntityInsertionAdapter.MAX_BATCH_ROWS * 2 + 3;
+        mAdapter.insert(entities(size));
+
+        verify(mBatchStmt, times(2)).executeInsert();
+        verify(mStmt, times(3)).executeInsert();
+        // entities are bound to their row of the batched statement
+        verify(mBatchStmt).bindLong(1, 0L);
+        verify(mBatchStmt).bindString(2, "name0");
+        verify(mBatchStmt).bindLong(3, 1L);
+        verify(mBatchStmt).bindString(4, "name1");
+        verify(mBatchStmt, times(EntityInsertionAdapter.MAX_BATCH_ROWS * 2))
+                .bindLong(anyInt(), anyLong());
+        verify(mStmt).bindLong(1, (long) size - 1);
+    }
+
+    @Test
+    public void insertBatched_array() {
+        mDb.mBatchedInsertsEnabled = true;
+        mAdapter.insert(entities(EntityInsertionAdapter.MAX_BATCH_ROWS).toArray(new Long[0]));
+        verify(mBatchStmt).executeInsert();
+        verify(mStmt, never()).executeInsert();
+    }
+
+    @Test
+    public void insertBatched_singleEntity() {
+        mDb.mBatchedInsertsEnabled = true;
+        mAdapter.insert(entities(1));
+        mAdapter.insert(entities(1).toArray(new Long[0]));
+        verify(mStmt, times(2)).executeInsert();
+        verify(mBatchStmt, never()).executeInsert();
+    }
+
+    @Test
+    public void insertAndReturnIds_notBatched() {
+        mDb.mBatchedInsertsEnabled = true;
+        when(mStmt.executeInsert()).thenReturn(10L, 11L, -1L);
+        List<Long> ids = mAdapter.insertAndReturnIdsList(entities(3));
+        assertThat(ids, is(Arrays.asList(10L, 11L, -1L)));
+        verify(mBatchStmt, never()).executeInsert();
+        verify(mStmt).bindLong(1, 2L);
+    }
+
+    @Test
+    public void insertAndReturnIdsArray_notBatched() {
+        mDb.mBatchedInsertsEnabled = true;
+        when(mStmt.executeInsert()).thenReturn(1L, 2L);
+        long[] ids = mAdapter.insertAndReturnIdsArray(entities(2).toArray(new Long[0]));
+        assertThat(ids[0], is(1L));
+        assertThat(ids[1], is(2L));
+        verify(mBatchStmt, never()).executeInsert();
+    }
+
+    @Test
+    public void upsertBatched() {
+        final String replaceQuery = "INSERT OR REPLACE INTO `User` (`id`,`name`) VALUES (?,?)";
+        final SupportSQLiteStatement replaceStmt = mock(SupportSQLiteStatement.class);
+        when(mDb.compileStatement(replaceQuery)).thenReturn(replaceStmt);
+        EntityInsertionAdapter<Long> adapter = new EntityInsertionAdapter<Long>(mDb) {
+            @Override
+            protected String createQuery() {
+                return replaceQuery;
+            }
+
+            @Override
+            protected void bind(SupportSQLiteStatement statement, Long entity) {
+                statement.bindLong(1, entity);
+                statement.bindString(2, "name" + entity);
+            }
+        };
+        assertThat(adapter.getBatchQuery().startsWith(replaceQuery + ",(?,?),(?,?)"), is(true));
+
+        mDb.mBatchedInsertsEnabled = true;
+        adapter.insert(entities(EntityInsertionAdapter.MAX_BATCH_ROWS + 1));
+        verify(mBatchStmt).executeInsert();
+        verify(mBatchStmt).bindLong(2 * EntityInsertionAdapter.MAX_BATCH_ROWS - 1,
+                EntityInsertionAdapter.MAX_BATCH_ROWS - 1);
+        verify(replaceStmt).bindLong(1, EntityInsertionAdapter.MAX_BATCH_ROWS);
+        verify(replaceStmt).executeInsert();
+    }
+
+    @Test
+    public void offsetBindingStatement() {
+        EntityInsertionAdapter.OffsetBindingStatement binder =
+                new EntityInsertionAdapter.OffsetBindingStatement(mBatchStmt, 2);
+        binder.mOffset = 4;
+        binder.bindDouble(1, 1.5);
+        binder.clearBindings();
+        verify(mBatchStmt).bindDouble(5, 1.5);
+        verify(mBatchStmt).bindNull(5);
+        verify(mBatchStmt).bindNull(6);
+        verify(mBatchStmt, never()).clearBindings();
+
+        when(mBatchStmt.executeInsert()).thenReturn(7L);
+        assertThat(binder.executeInsert(), is(7L));
+        binder.close();
+        verify(mBatchStmt, never()).close();
+    }
+
+    private static List<Long> entities(int count) {
+        List<Long> entities = new ArrayList<>(count);
+        for (long i = 0; i < count; i++) {
+            entities.add(i);
+        }
+        return entities;
+    }
+}
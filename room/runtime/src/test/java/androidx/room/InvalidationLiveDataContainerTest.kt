@@ -96,6 +96,21 @@ class InvalidationLiveDataContainerTest {
         assertThat(container.mLiveDataSet, `is`(setOf(ld1, ld2)))
     }
 
+    @Test
+    fun rowIdFiltersInvalidatedRows() {
+        val liveData = container.create(
+            arrayOf("a"),
+            false,
+            5L,
+            createComputeFunction<Any>()
+        ) as RoomTrackingLiveData
+        assertThat(liveData.mObserver.isAffectedByRows("a", longArrayOf(1L, 2L)), `is`(false))
+        assertThat(liveData.mObserver.isAffectedByRows("a", longArrayOf(2L, 5L)), `is`(true))
+
+        val unfiltered = createLiveData() as RoomTrackingLiveData
+        assertThat(unfiltered.mObserver.isAffectedByRows("a", longArrayOf(1L, 2L)), `is`(true))
+    }
+
     private fun createLiveData(): LiveData<Any> {
         return container.create(
             arrayOf("a", "b"),
@@ -24,12 +24,15 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.longThat;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import android.database.Cursor;
@@ -67,6 +70,7 @@ import java.util.Locale;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
@@ -80,6 +84,8 @@ public class InvalidationTrackerTest {
     private SupportSQLiteDatabase mSqliteDb;
     @Mock
     private SupportSQLiteOpenHelper mOpenHelper;
+    @Mock
+    private ScheduledExecutorService mCoalescingScheduler;
     @Rule
     public JunitTaskExecutorRule mTaskExecutorRule = new JunitTaskExecutorRule(1, true);
 
@@ -199,6 +205,58 @@ public class InvalidationTrackerTest {
         verify(mTaskExecutorRule.getTaskExecutor()).executeOnDiskIO(mTracker.mRefreshRunnable);
     }
 
+    @Test
+    public void refreshCheckTasks_countSuppressedRefreshes() throws Exception {
+        when(mRoomDatabase.query(any(SimpleSQLiteQuery.class)))
+                .thenReturn(mock(Cursor.class));
+        mTracker.refreshVersionsAsync();
+        mTracker.refreshVersionsAsync();
+        mTracker.refreshVersionsAsync();
+        drainTasks();
+        assertThat(mTracker.getRefreshCount(), is(1L));
+        assertThat(mTracker.getSuppressedRefreshCount(), is(2L));
+    }
+
+    @Test
+    public void coalesceRefreshesWithinWindow() throws Exception {
+        when(mRoomDatabase.query(any(SimpleSQLiteQuery.class)))
+                .thenReturn(mock(Cursor.class));
+        mTracker.setCoalescingScheduler(mCoalescingScheduler);
+        mTracker.setCoalescingWindow(TimeUnit.HOURS.toMillis(1));
+        // the first refresh is not delayed
+        mTracker.refreshVersionsAsync();
+        verify(mTaskExecutorRule.getTaskExecutor()).executeOnDiskIO(mTracker.mRefreshRunnable);
+        drainTasks();
+        assertThat(mTracker.getRefreshCount(), is(1L));
+
+        reset(mTaskExecutorRule.getTaskExecutor());
+        mTracker.refreshVersionsAsync();
+        mTracker.refreshVersionsAsync();
+        verify(mTaskExecutorRule.getTaskExecutor(), never())
+                .executeOnDiskIO(mTracker.mRefreshRunnable);
+        verify(mCoalescingScheduler).schedule(any(Runnable.class),
+                longThat(delay -> delay > 0 && delay <= TimeUnit.HOURS.toNanos(1)),
+                eq(TimeUnit.NANOSECONDS));
+        assertThat(mTracker.mPendingRefresh.get(), is(true));
+        assertThat(mTracker.getSuppressedRefreshCount(), is(1L));
+    }
+
+    @Test
+    public void coalescingWindowElapsed() throws Exception {
+        when(mRoomDatabase.query(any(SimpleSQLiteQuery.class)))
+                .thenReturn(mock(Cursor.class));
+        mTracker.setCoalescingScheduler(mCoalescingScheduler);
+        mTracker.setCoalescingWindow(10);
+        mTracker.refreshVersionsAsync();
+        drainTasks();
+        mTracker.mLastRefreshNanos = System.nanoTime() - TimeUnit.SECONDS.toNanos(1);
+
+        reset(mTaskExecutorRule.getTaskExecutor());
+        mTracker.refreshVersionsAsync();
+        verify(mTaskExecutorRule.getTaskExecutor()).executeOnDiskIO(mTracker.mRefreshRunnable);
+        verifyZeroInteractions(mCoalescingScheduler);
+    }
+
     @Test
     public void observe1Table() throws Exception {
         LatchObserver observer = new LatchObserver(1, "a");
@@ -300,6 +358,77 @@ public class InvalidationTrackerTest {
         }
     }
 
+    @Test
+    public void createTriggerWithRowLevelInvalidation() {
+        InvalidationTracker tracker = createRowLevelTracker(10);
+        reset(mSqliteDb);
+        tracker.addObserver(new LatchObserver(1, "B"));
+        ArgumentCaptor<String> sqlArgCaptor = ArgumentCaptor.forClass(String.class);
+        verify(mSqliteDb, times(5)).execSQL(sqlArgCaptor.capture());
+        List<String> sqlCaptorValues = sqlArgCaptor.getAllValues();
+        assertThat(sqlCaptorValues.get(1),
+                is("INSERT OR IGNORE INTO room_row_modification_count VALUES(1, 0)"));
+        String insertOld = "INSERT OR IGNORE INTO room_row_modification_log SELECT 1, OLD.rowid "
+                + "FROM room_row_modification_count WHERE table_id = 1 AND row_count < 10; "
+                + "UPDATE room_row_modification_count SET row_count = row_count + 1 "
+                + "WHERE table_id = 1 AND row_count <= 10; ";
+        String insertNew = insertOld.replace("OLD.rowid", "NEW.rowid");
+        String updateTable = "UPDATE room_table_modification_log SET invalidated = 1 WHERE "
+                + "table_id = 1 AND invalidated = 0; ";
+        assertThat(sqlCaptorValues.get(2), is("CREATE TEMP TRIGGER IF NOT EXISTS "
+                + "`room_table_modification_trigger_b_UPDATE` AFTER UPDATE ON `b` BEGIN "
+                + updateTable + insertOld + insertNew + "END"));
+        assertThat(sqlCaptorValues.get(3), is("CREATE TEMP TRIGGER IF NOT EXISTS "
+                + "`room_table_modification_trigger_b_DELETE` AFTER DELETE ON `b` BEGIN "
+                + updateTable + insertOld + "END"));
+        assertThat(sqlCaptorValues.get(4), is("CREATE TEMP TRIGGER IF NOT EXISTS "
+                + "`room_table_modification_trigger_b_INSERT` AFTER INSERT ON `b` BEGIN "
+                + updateTable + insertNew + "END"));
+    }
+
+    @Test
+    public void observeRows() throws InterruptedException {
+        InvalidationTracker tracker = createRowLevelTracker(2);
+        RowLatchObserver observer = new RowLatchObserver(5L, "a");
+        tracker.addObserver(observer);
+
+        setInvalidatedTables(0);
+        setInvalidatedRows(new int[]{0, 0}, new long[]{1L, 2L});
+        tracker.refreshVersionsAsync();
+        drainTasks();
+        assertThat(observer.await(), is(false));
+
+        setInvalidatedTables(0);
+        setInvalidatedRows(new int[]{0, 0}, new long[]{2L, 5L});
+        tracker.refreshVersionsAsync();
+        drainTasks();
+        assertThat(observer.await(), is(true));
+        assertThat(observer.getInvalidatedTables(), hasItem("a"));
+    }
+
+    @Test
+    public void observeRows_overflow() throws InterruptedException {
+        InvalidationTracker tracker = createRowLevelTracker(2);
+        RowLatchObserver observer = new RowLatchObserver(5L, "a");
+        tracker.addObserver(observer);
+
+        // more rows than the limit fall back to whole table invalidation
+        setInvalidatedTables(0);
+        setInvalidatedRows(new int[]{0, 0}, new long[]{1L, 2L});
+        setOverflowedTables(0);
+        tracker.refreshVersionsAsync();
+        drainTasks();
+        assertThat(observer.await(), is(true));
+        assertThat(observer.getInvalidatedTables(), hasItem("a"));
+    }
+
+    @Test
+    public void containsRowId() {
+        assertThat(InvalidationTracker.containsRowId(new long[]{1L, 5L}, 5L), is(true));
+        assertThat(InvalidationTracker.containsRowId(new long[]{1L, 5L}, 2L), is(false));
+        assertThat(InvalidationTracker.containsRowId(new long[0], 2L), is(false));
+    }
+
     @Test
     public void observeFtsTable() throws InterruptedException {
         LatchObserver observer = new LatchObserver(1, "C");
@@ -468,6 +597,65 @@ public class InvalidationTrackerTest {
         );
     }
 
+    private InvalidationTracker createRowLevelTracker(int maxRowsPerTable) {
+        doReturn(mock(SupportSQLiteStatement.class)).when(mSqliteDb)
+                .compileStatement(any(String.class));
+        InvalidationTracker tracker = new InvalidationTracker(mRoomDatabase, "a", "B");
+        tracker.setMaxInvalidatedRowsPerTable(maxRowsPerTable);
+        tracker.internalInit(mSqliteDb);
+        verify(mSqliteDb).execSQL("CREATE TEMP TABLE room_row_modification_log("
+                + "table_id INTEGER NOT NULL, row_id INTEGER NOT NULL, "
+                + "PRIMARY KEY(table_id, row_id))");
+        verify(mSqliteDb).execSQL("CREATE TEMP TABLE room_row_modification_count("
+                + "table_id INTEGER PRIMARY KEY, row_count INTEGER NOT NULL DEFAULT 0)");
+        verify(mSqliteDb).compileStatement(InvalidationTracker.RESET_UPDATED_ROWS_SQL);
+        verify(mSqliteDb).compileStatement(InvalidationTracker.RESET_ROW_COUNTS_SQL);
+        return tracker;
+    }
+
+    /**
+     * Setup Cursor result to return the given modified rows, tableIds must be sorted.
+     */
+    private void setInvalidatedRows(final int[] tableIds, final long[] rowIds)
+            throws InterruptedException {
+        drainTasks();
+        Cursor cursor = createCursorWithValues(tableIds);
+        when(cursor.getLong(1)).thenAnswer(new Answer<Long>() {
+            int mIndex = 0;
+
+            @Override
+            public Long answer(InvocationOnMock invocation) throws Throwable {
+                return rowIds[mIndex++];
+            }
+        });
+        doReturn(cursor).when(mRoomDatabase).query(
+                argThat(new ArgumentMatcher<SimpleSQLiteQuery>() {
+                    @Override
+                    public boolean matches(SimpleSQLiteQuery argument) {
+                        return argument.getSql().equals(
+                                InvalidationTracker.SELECT_UPDATED_ROWS_SQL);
+                    }
+                })
+        );
+        setOverflowedTables();
+    }
+
+    /**
+     * Setup Cursor result to return the given tables as having more modified rows than the limit.
+     */
+    private void setOverflowedTables(int... tableIds) {
+        Cursor cursor = createCursorWithValues(tableIds);
+        doReturn(cursor).when(mRoomDatabase).query(
+                argThat(new ArgumentMatcher<SimpleSQLiteQuery>() {
+                    @Override
+                    public boolean matches(SimpleSQLiteQuery argument) {
+                        return argument.getSql().equals(
+                                InvalidationTracker.SELECT_OVERFLOWED_TABLES_SQL);
+                    }
+                })
+        );
+    }
+
     private Cursor createCursorWithValues(final int... tableIds) {
         Cursor cursor = mock(Cursor.class);
         final AtomicInteger index = new AtomicInteger(-1);
@@ -518,6 +706,25 @@ public class InvalidationTrackerTest {
         }
     }
 
+    static class RowLatchObserver extends LatchObserver {
+        private final long mRowId;
+
+        RowLatchObserver(long rowId, String... tableNames) {
+            super(1, tableNames);
+            mRowId = rowId;
+        }
+
+        @Override
+        public boolean isAffectedByRows(@NonNull String table, @NonNull long[] rowIds) {
+            for (long rowId : rowIds) {
+                if (rowId == mRowId) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
     private static void forceGc() {
         // Use a random index in the list to detect the garbage collection each time because
         // .get() may accidentally trigger a strong reference during collection.
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room
+
+import android.content.Context
+import android.database.Cursor
+import androidx.sqlite.db.SimpleSQLiteQuery
+import androidx.sqlite.db.SupportSQLiteDatabase
+import androidx.sqlite.db.SupportSQLiteOpenHelper
+import androidx.sqlite.db.SupportSQLiteQuery
+import com.google.common.truth.Truth.assertThat
+import org.junit.After
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.JUnit4
+import org.mockito.ArgumentMatchers.any
+import org.mockito.Mockito.`when`
+import org.mockito.Mockito.mock
+import org.mockito.Mockito.never
+import org.mockito.Mockito.verify
+import java.util.Collections
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.CyclicBarrier
+import java.util.concurrent.TimeUnit
+import kotlin.concurrent.thread
+
+@RunWith(JUnit4::class)
+class ReadConnectionPoolTest {
+
+    private val writer: SupportSQLiteDatabase = mock(SupportSQLiteDatabase::class.java)
+    private val readers = Collections.synchronizedList(mutableListOf<SupportSQLiteDatabase>())
+    private val factory = SupportSQLiteOpenHelper.Factory {
+        val reader = mock(SupportSQLiteDatabase::class.java)
+        `when`(reader.query(any(SupportSQLiteQuery::class.java)))
+            .thenAnswer { mock(Cursor::class.java) }
+        readers.add(reader)
+        val openHelper = mock(SupportSQLiteOpenHelper::class.java)
+        `when`(openHelper.writableDatabase).thenReturn(reader)
+        openHelper
+    }
+    private val pool = ReadConnectionPool(mock(Context::class.java), "test.db", factory, 2)
+    private val query = RoomSQLiteQuery.acquireForReader("SELECT * FROM User", 0)
+
+    @After
+    fun tearDown() {
+        pool.close()
+        query.release()
+    }
+
+    @Test
+    fun readerSafeQuery() {
+        val cursor = pool.query(writer, query, null)
+        assertThat(cursor).isNotNull()
+        assertThat(readers).hasSize(2)
+        cursor!!.close()
+        assertThat(pool.stats.checkoutCount).isEqualTo(1)
+    }
+
+    @Test
+    fun rawQueriesRunOnWriter() {
+        val raw = RoomSQLiteQuery.acquire("SELECT last_insert_rowid()", 0)
+        try {
+            assertThat(pool.query(writer, raw, null)).isNull()
+        } finally {
+            raw.release()
+        }
+        assertThat(pool.query(writer, SimpleSQLiteQuery("SELECT * FROM temp_table"), null))
+            .isNull()
+        assertThat(readers).isEmpty()
+    }
+
+    @Test
+    fun transactionPinnedToWriter() {
+        `when`(writer.inTransaction()).thenReturn(true)
+        assertThat(pool.query(writer, query, null)).isNull()
+        assertThat(readers).isEmpty()
+
+        `when`(writer.inTransaction()).thenReturn(false)
+        pool.query(writer, query, null)!!.close()
+    }
+
+    @Test
+    fun threadHoldingReaderFallsBackToWriter() {
+        val cursor = pool.query(writer, query, null)!!
+        // A second reader could have an older snapshot than this thread's own writes.
+        assertThat(pool.query(writer, query, null)).isNull()
+        assertThat(pool.stats.fallbackCount).isEqualTo(1)
+        cursor.close()
+
+        pool.query(writer, query, null)!!.close()
+        assertThat(pool.stats.checkoutCount).isEqualTo(2)
+    }
+
+    @Test
+    fun concurrentReaders() {
+        val checkedOut = CyclicBarrier(3)
+        val done = CountDownLatch(1)
+        val cursors = Collections.synchronizedList(mutableListOf<Cursor?>())
+        val threads = List(2) {
+            thread {
+                val cursor = pool.query(writer, query, null)
+                cursors.add(cursor)
+                checkedOut.await()
+                done.await()
+                cursor?.close()
+            }
+        }
+        checkedOut.await(5, TimeUnit.SECONDS)
+        assertThat(cursors).hasSize(2)
+        assertThat(cursors).doesNotContain(null)
+        readers.forEach { verify(it).query(query) }
+
+        // Both readers are held, so this query times out and runs on the writer.
+        assertThat(pool.query(writer, query, null)).isNull()
+        assertThat(pool.stats.fallbackCount).isEqualTo(1)
+
+        done.countDown()
+        threads.forEach { it.join() }
+        pool.query(writer, query, null)!!.close()
+        verify(writer, never()).query(any(SupportSQLiteQuery::class.java))
+    }
+}
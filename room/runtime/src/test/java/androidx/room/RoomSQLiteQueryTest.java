@@ -31,14 +31,17 @@ import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 @RunWith(JUnit4.class)
 public class RoomSQLiteQueryTest {
     @Before
     public void clear() {
-        RoomSQLiteQuery.sQueryPool.clear();
+        RoomSQLiteQuery.clearPool();
+        RoomSQLiteQuery.setPoolStatsEnabled(false);
+        RoomSQLiteQuery.resetPoolStats();
     }
 
     @Test
@@ -59,6 +62,31 @@ public class RoomSQLiteQueryTest {
         assertThat(RoomSQLiteQuery.acquire("blah", 3), sameInstance(query));
     }
 
+    @Test
+    public void acquireForReader() {
+        RoomSQLiteQuery query = RoomSQLiteQuery.acquireForReader("abc", 3);
+        assertThat(query.isReaderSafe(), is(true));
+        query.release();
+        RoomSQLiteQuery reused = RoomSQLiteQuery.acquire("blah", 3);
+        assertThat(reused, sameInstance(query));
+        assertThat(reused.isReaderSafe(), is(false));
+    }
+
+    @Test
+    public void getSingleLongArgument() {
+        RoomSQLiteQuery query = RoomSQLiteQuery.acquire("abc", 1);
+        query.bindLong(1, 5L);
+        assertThat(query.getSingleLongArgument(), is(5L));
+        query.bindString(1, "5");
+        assertThat(query.getSingleLongArgument(), is((Long) null));
+        query.release();
+
+        RoomSQLiteQuery twoArgs = RoomSQLiteQuery.acquire("abc", 2);
+        twoArgs.bindLong(1, 5L);
+        twoArgs.bindLong(2, 6L);
+        assertThat(twoArgs.getSingleLongArgument(), is((Long) null));
+    }
+
     @Test
     public void acquireSameSizeWithoutRelease() {
         RoomSQLiteQuery query = RoomSQLiteQuery.acquire("abc", 3);
@@ -90,60 +118,112 @@ public class RoomSQLiteQueryTest {
     }
 
     @Test
-    public void dontKeepSameSizeTwice() {
+    public void keepSameSizeInSharedPool() {
         RoomSQLiteQuery query1 = RoomSQLiteQuery.acquire("abc", 3);
         RoomSQLiteQuery query2 = RoomSQLiteQuery.acquire("zx", 3);
-        RoomSQLiteQuery query3 = RoomSQLiteQuery.acquire("qw", 0);
+        RoomSQLiteQuery query3 = RoomSQLiteQuery.acquire("qw", 3);
 
+        // first release goes to the thread pool, the others to the shared pool
         query1.release();
         query2.release();
-        assertThat(RoomSQLiteQuery.sQueryPool.size(), is(1));
+        query3.release();
+        assertThat(RoomSQLiteQuery.sQueryPool[3].size(), is(2));
+
+        assertThat(RoomSQLiteQuery.acquire("a", 3), sameInstance(query1));
+        RoomSQLiteQuery fromSharedPool = RoomSQLiteQuery.acquire("b", 3);
+        assertThat(fromSharedPool == query2 || fromSharedPool == query3, is(true));
+        assertThat(RoomSQLiteQuery.sQueryPool[3].size(), is(1));
+    }
 
+    @Test
+    public void sharedPoolIsBounded() {
+        List<RoomSQLiteQuery> queries = new ArrayList<>();
+        for (int i = 0; i < RoomSQLiteQuery.DEFAULT_POOL_SIZE + 3; i++) {
+            queries.add(RoomSQLiteQuery.acquire("abc", 2));
+        }
+        for (RoomSQLiteQuery query : queries) {
+            query.release();
+        }
+        assertThat(RoomSQLiteQuery.sQueryPool[2].size(), is(RoomSQLiteQuery.DEFAULT_POOL_SIZE));
+    }
+
+    @Test
+    public void setPoolSize() {
+        RoomSQLiteQuery.setPoolSize(1);
+        RoomSQLiteQuery query1 = RoomSQLiteQuery.acquire("abc", 2);
+        RoomSQLiteQuery query2 = RoomSQLiteQuery.acquire("abc", 2);
+        RoomSQLiteQuery query3 = RoomSQLiteQuery.acquire("abc", 2);
+        query1.release();
+        query2.release();
         query3.release();
-        assertThat(RoomSQLiteQuery.sQueryPool.size(), is(2));
+        assertThat(RoomSQLiteQuery.sQueryPool[2].size(), is(1));
     }
 
     @Test
-    public void returnExistingForSmallerSize() {
-        RoomSQLiteQuery query = RoomSQLiteQuery.acquire("abc", 3);
+    public void releaseFromAnotherThread() throws InterruptedException {
+        final RoomSQLiteQuery query = RoomSQLiteQuery.acquire("abc", 3);
+        final CountDownLatch latch = new CountDownLatch(1);
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                RoomSQLiteQuery other = RoomSQLiteQuery.acquire("abc", 3);
+                query.release();
+                other.release();
+                latch.countDown();
+            }
+        }).start();
+        assertThat(latch.await(1, TimeUnit.SECONDS), is(true));
+        // only the second release on the other thread reached the shared pool
+        assertThat(RoomSQLiteQuery.sQueryPool[3].size(), is(1));
+    }
+
+    @Test
+    public void largeQueriesArePooledByPowerOfTwo() {
+        assertThat(RoomSQLiteQuery.pooledCapacity(15), is(15));
+        assertThat(RoomSQLiteQuery.pooledCapacity(16), is(16));
+        assertThat(RoomSQLiteQuery.pooledCapacity(17), is(32));
+        assertThat(RoomSQLiteQuery.pooledCapacity(999), is(1024));
+        assertThat(RoomSQLiteQuery.pooledCapacity(1025), is(1025));
+
+        RoomSQLiteQuery query = RoomSQLiteQuery.acquire("abc", 20);
+        assertThat(query.mCapacity, is(32));
+        assertThat(query.mArgCount, is(20));
         query.release();
-        assertThat(RoomSQLiteQuery.acquire("dsa", 2), sameInstance(query));
+        assertThat(RoomSQLiteQuery.acquire("dsa", 30), sameInstance(query));
     }
 
     @Test
-    public void returnNewForBigger() {
-        RoomSQLiteQuery query = RoomSQLiteQuery.acquire("abc", 3);
+    public void hugeQueriesAreNotPooled() {
+        RoomSQLiteQuery query = RoomSQLiteQuery.acquire("abc",
+                RoomSQLiteQuery.MAX_POOLED_CAPACITY + 1);
         query.release();
-        assertThat(RoomSQLiteQuery.acquire("dsa", 4), not(sameInstance(query)));
+        assertThat(RoomSQLiteQuery.acquire("dsa", RoomSQLiteQuery.MAX_POOLED_CAPACITY + 1),
+                not(sameInstance(query)));
     }
 
     @Test
-    public void pruneCache() {
-        for (int i = 0; i < RoomSQLiteQuery.POOL_LIMIT; i++) {
-            RoomSQLiteQuery.acquire("dsdsa", i).release();
-        }
-        pruneCacheTest();
+    public void poolStats() {
+        RoomSQLiteQuery.acquire("abc", 3).release();
+        assertThat(RoomSQLiteQuery.getPoolMissCount(), is(0L));
+
+        RoomSQLiteQuery.setPoolStatsEnabled(true);
+        RoomSQLiteQuery.acquire("abc", 3).release();
+        RoomSQLiteQuery.acquire("abc", 4).release();
+        assertThat(RoomSQLiteQuery.getPoolHitCount(), is(1L));
+        assertThat(RoomSQLiteQuery.getPoolMissCount(), is(1L));
     }
 
     @Test
-    public void pruneCacheReverseInsertion() {
-        List<RoomSQLiteQuery> queries = new ArrayList<>();
-        for (int i = RoomSQLiteQuery.POOL_LIMIT - 1; i >= 0; i--) {
-            queries.add(RoomSQLiteQuery.acquire("dsdsa", i));
-        }
-        for (RoomSQLiteQuery query : queries) {
-            query.release();
-        }
-        pruneCacheTest();
+    public void returnNewForSmallerSize() {
+        RoomSQLiteQuery query = RoomSQLiteQuery.acquire("abc", 3);
+        query.release();
+        assertThat(RoomSQLiteQuery.acquire("dsa", 2), not(sameInstance(query)));
     }
 
-    private void pruneCacheTest() {
-        assertThat(RoomSQLiteQuery.sQueryPool.size(), is(RoomSQLiteQuery.POOL_LIMIT));
-        RoomSQLiteQuery.acquire("dsadsa", RoomSQLiteQuery.POOL_LIMIT + 1).release();
-        assertThat(RoomSQLiteQuery.sQueryPool.size(), is(RoomSQLiteQuery.DESIRED_POOL_SIZE));
-        Iterator<RoomSQLiteQuery> itr = RoomSQLiteQuery.sQueryPool.values().iterator();
-        for (int i = 0; i < RoomSQLiteQuery.DESIRED_POOL_SIZE; i++) {
-            assertThat(itr.next().mCapacity, is(i));
-        }
+    @Test
+    public void returnNewForBigger() {
+        RoomSQLiteQuery query = RoomSQLiteQuery.acquire("abc", 3);
+        query.release();
+        assertThat(RoomSQLiteQuery.acquire("dsa", 4), not(sameInstance(query)));
     }
 }
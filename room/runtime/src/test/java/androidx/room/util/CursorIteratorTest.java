@@ -0,0 +1,130 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.room.RoomSQLiteQuery;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@RunWith(JUnit4.class)
+public class CursorIteratorTest {
+    private Cursor mCursor;
+    private RoomSQLiteQuery mQuery;
+
+    @Before
+    public void init() {
+        mCursor = mock(Cursor.class);
+        mQuery = mock(RoomSQLiteQuery.class);
+        when(mCursor.moveToNext()).thenReturn(true, true, false);
+        when(mCursor.getLong(0)).thenReturn(1L, 2L);
+    }
+
+    @Test
+    public void iterate() {
+        CursorIterator<Long> iterator = createIterator();
+        assertThat(iterator.hasNext(), is(true));
+        assertThat(iterator.hasNext(), is(true));
+        assertThat(iterator.next(), is(1L));
+        assertThat(iterator.next(), is(2L));
+        verify(mCursor, never()).close();
+        assertThat(iterator.hasNext(), is(false));
+        verify(mCursor).close();
+        verify(mQuery).release();
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void nextAfterLastRow() {
+        CursorIterator<Long> iterator = createIterator();
+        iterator.next();
+        iterator.next();
+        iterator.next();
+    }
+
+    @Test
+    public void closeEarly() {
+        CursorIterator<Long> iterator = createIterator();
+        assertThat(iterator.next(), is(1L));
+        iterator.close();
+        iterator.close();
+        assertThat(iterator.hasNext(), is(false));
+        verify(mCursor, times(1)).close();
+        verify(mQuery, times(1)).release();
+    }
+
+    @Test
+    public void closeOnConversionFailure() {
+        CursorIterator<Long> iterator = new CursorIterator<Long>(mCursor, null) {
+            @Override
+            protected Long convert(@NonNull Cursor cursor) {
+                throw new IllegalStateException();
+            }
+        };
+        try {
+            iterator.next();
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+        verify(mCursor).close();
+        assertThat(iterator.hasNext(), is(false));
+    }
+
+    @Test
+    public void stream() {
+        Stream<Long> stream = createIterator().stream();
+        assertThat(stream.collect(Collectors.toList()), is(Arrays.asList(1L, 2L)));
+        verify(mCursor).close();
+        verify(mQuery).release();
+    }
+
+    @Test
+    public void closeStreamEarly() {
+        try (Stream<Long> stream = createIterator().stream()) {
+            assertThat(stream.findFirst().get(), is(1L));
+            verify(mCursor, never()).close();
+        }
+        verify(mCursor).close();
+        verify(mQuery).release();
+    }
+
+    private CursorIterator<Long> createIterator() {
+        return new CursorIterator<Long>(mCursor, mQuery) {
+            @Override
+            protected Long convert(@NonNull Cursor cursor) {
+                return cursor.getLong(0);
+            }
+        };
+    }
+}
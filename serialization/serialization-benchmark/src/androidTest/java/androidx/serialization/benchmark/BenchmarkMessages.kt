@@ -0,0 +1,158 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.serialization.benchmark
+
+import androidx.serialization.benchmark.BenchmarkProto.ItemProto
+import androidx.serialization.benchmark.BenchmarkProto.OrderProto
+import androidx.serialization.runtime.internal.DecoderV1
+import androidx.serialization.runtime.internal.EncoderV1
+import androidx.serialization.runtime.internal.SerializationRuntime
+import androidx.serialization.runtime.internal.SerializerV1
+import com.google.protobuf.ByteString
+
+/** A line item of an [Order], equivalent to [ItemProto]. */
+class Item(
+    val id: Int,
+    val name: String?,
+    val price: Double,
+    val tags: List<String>
+)
+
+/** An order, equivalent to [OrderProto]. */
+class Order(
+    val id: Long,
+    val customer: String?,
+    val timestamp: Long,
+    val paid: Boolean,
+    val quantities: IntArray?,
+    val items: List<Item>,
+    val signature: ByteArray?
+)
+
+/**
+ * Serializer for [Item], written the way the annotation processor generates serializers.
+ *
+ * Fields are encoded in descending order of field ID, so that the back to front proto encoder
+ * produces the same bytes as protobuf-lite.
+ */
+object ItemSerializer : SerializerV1<Item> {
+    override fun encode(encoder: EncoderV1, message: Item) {
+        encoder.encodeRepeatedString(4, message.tags)
+        encoder.encodeDouble(3, message.price)
+        encoder.encodeString(2, message.name)
+        encoder.encodeInt32(1, message.id)
+    }
+
+    override fun decode(decoder: DecoderV1, mergeFrom: Item?): Item {
+        var id = mergeFrom?.id ?: 0
+        var name = mergeFrom?.name
+        var price = mergeFrom?.price ?: 0.0
+        var tags = mergeFrom?.tags
+
+        while (decoder.hasNextField()) {
+            when (decoder.nextFieldId()) {
+                1 -> id = decoder.decodeInt32()
+                2 -> name = decoder.decodeString()
+                3 -> price = decoder.decodeDouble()
+                4 -> tags = decoder.decodeRepeatedString(
+                    tags,
+                    SerializationRuntime.getListFactory<String>()
+                )
+            }
+        }
+
+        return Item(id, name, price, tags ?: emptyList())
+    }
+}
+
+/**
+ * Serializer for [Order], written the way the annotation processor generates serializers.
+ */
+object OrderSerializer : SerializerV1<Order> {
+    override fun encode(encoder: EncoderV1, message: Order) {
+        encoder.encodeBytes(7, message.signature)
+        encoder.encodeRepeatedMessage(6, ItemSerializer, message.items)
+        encoder.encodeRepeatedInt32(5, message.quantities)
+        encoder.encodeBool(4, message.paid)
+        encoder.encodeSInt64(3, message.timestamp)
+        encoder.encodeString(2, message.customer)
+        encoder.encodeInt64(1, message.id)
+    }
+
+    override fun decode(decoder: DecoderV1, mergeFrom: Order?): Order {
+        var id = mergeFrom?.id ?: 0L
+        var customer = mergeFrom?.customer
+        var timestamp = mergeFrom?.timestamp ?: 0L
+        var paid = mergeFrom?.paid ?: false
+        var quantities = mergeFrom?.quantities
+        var items = mergeFrom?.items
+        var signature = mergeFrom?.signature
+
+        while (decoder.hasNextField()) {
+            when (decoder.nextFieldId()) {
+                1 -> id = decoder.decodeInt64()
+                2 -> customer = decoder.decodeString()
+                3 -> timestamp = decoder.decodeSInt64()
+                4 -> paid = decoder.decodeBool()
+                5 -> quantities = decoder.decodeRepeatedInt32(quantities)
+                6 -> items = decoder.decodeRepeatedMessage(
+                    ItemSerializer,
+                    items,
+                    SerializationRuntime.getListFactory<Item>()
+                )
+                7 -> signature = decoder.decodeBytes()
+            }
+        }
+
+        return Order(id, customer, timestamp, paid, quantities, items ?: emptyList(), signature)
+    }
+}
+
+/** Create an order with the supplied number of items and quantities. */
+fun newOrder(itemCount: Int): Order {
+    return Order(
+        id = 1_234_567_890_123L,
+        customer = "Jane Doe",
+        timestamp = 1_600_000_000_000L,
+        paid = true,
+        quantities = IntArray(itemCount) { it % 5 + 1 },
+        items = List(itemCount) { Item(it, "Item number $it", 9.99 + it, listOf("new", "sale")) },
+        signature = ByteArray(32) { it.toByte() }
+    )
+}
+
+/** Convert an order to its protobuf-lite equivalent. */
+fun Order.toProto(): OrderProto {
+    val builder = OrderProto.newBuilder()
+        .setId(id)
+        .setTimestamp(timestamp)
+        .setPaid(paid)
+        .addAllItems(items.map { it.toProto() })
+    customer?.let { builder.setCustomer(it) }
+    quantities?.let { builder.addAllQuantities(it.asList()) }
+    signature?.let { builder.setSignature(ByteString.copyFrom(it)) }
+    return builder.build()
+}
+
+private fun Item.toProto(): ItemProto {
+    val builder = ItemProto.newBuilder()
+        .setId(id)
+        .setPrice(price)
+        .addAllTags(tags)
+    name?.let { builder.setName(it) }
+    return builder.build()
+}
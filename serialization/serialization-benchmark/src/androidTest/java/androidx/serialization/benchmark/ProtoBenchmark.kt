@@ -0,0 +1,132 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.serialization.benchmark
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.serialization.benchmark.BenchmarkProto.OrderProto
+import androidx.serialization.runtime.proto.ProtoDecoder
+import androidx.serialization.runtime.proto.ProtoEncoder
+import androidx.test.filters.LargeTest
+import com.google.protobuf.CodedOutputStream
+import org.junit.Assert.assertArrayEquals
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.nio.ByteBuffer
+
+/**
+ * Compares the Serialization proto backend with protobuf-lite, encoding and decoding the same
+ * messages to and from the same bytes.
+ *
+ * Direct byte buffers stand in for memory-mapped files, which share their code path in both
+ * runtimes.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class ProtoBenchmark(private val itemCount: Int) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private lateinit var order: Order
+    private lateinit var orderProto: OrderProto
+    private lateinit var bytes: ByteArray
+    private lateinit var directBuffer: ByteBuffer
+
+    @Before
+    fun setUp() {
+        order = newOrder(itemCount)
+        orderProto = order.toProto()
+        bytes = orderProto.toByteArray()
+        // Both runtimes produce identical bytes, so they are decoding the exact same input.
+        assertArrayEquals(bytes, ProtoEncoder.encode(OrderSerializer, order))
+        directBuffer = ByteBuffer.allocateDirect(bytes.size)
+        directBuffer.put(bytes)
+        directBuffer.flip()
+    }
+
+    @Test
+    fun encodeProtoEncoder() {
+        benchmarkRule.measureRepeated {
+            ProtoEncoder.encode(OrderSerializer, order)
+        }
+    }
+
+    @Test
+    fun encodeProtobufLite() {
+        benchmarkRule.measureRepeated {
+            orderProto.toByteArray()
+        }
+    }
+
+    @Test
+    fun encodeDirectBufferProtoEncoder() {
+        val buffer = ByteBuffer.allocateDirect(bytes.size)
+        benchmarkRule.measureRepeated {
+            buffer.clear()
+            ProtoEncoder.encode(OrderSerializer, order, buffer)
+        }
+    }
+
+    @Test
+    fun encodeDirectBufferProtobufLite() {
+        val buffer = ByteBuffer.allocateDirect(bytes.size)
+        benchmarkRule.measureRepeated {
+            buffer.clear()
+            val output = CodedOutputStream.newInstance(buffer)
+            orderProto.writeTo(output)
+            output.flush()
+        }
+    }
+
+    @Test
+    fun decodeProtoDecoder() {
+        benchmarkRule.measureRepeated {
+            ProtoDecoder.decode(OrderSerializer, bytes)
+        }
+    }
+
+    @Test
+    fun decodeProtobufLite() {
+        benchmarkRule.measureRepeated {
+            OrderProto.parseFrom(bytes)
+        }
+    }
+
+    @Test
+    fun decodeDirectBufferProtoDecoder() {
+        benchmarkRule.measureRepeated {
+            ProtoDecoder.decode(OrderSerializer, directBuffer)
+        }
+    }
+
+    @Test
+    fun decodeDirectBufferProtobufLite() {
+        benchmarkRule.measureRepeated {
+            OrderProto.parseFrom(directBuffer)
+        }
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "itemCount={0}")
+        fun data(): List<Array<Any>> = listOf(1, 10, 100).map { arrayOf<Any>(it) }
+    }
+}
@@ -0,0 +1,1063 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.serialization.runtime.proto;
+
+import static androidx.serialization.runtime.proto.WireFormat.FIXED32_SIZE;
+import static androidx.serialization.runtime.proto.WireFormat.FIXED64_SIZE;
+import static androidx.serialization.runtime.proto.WireFormat.WIRE_TYPE_END_GROUP;
+import static androidx.serialization.runtime.proto.WireFormat.WIRE_TYPE_FIXED32;
+import static androidx.serialization.runtime.proto.WireFormat.WIRE_TYPE_FIXED64;
+import static androidx.serialization.runtime.proto.WireFormat.WIRE_TYPE_LENGTH_DELIMITED;
+import static androidx.serialization.runtime.proto.WireFormat.WIRE_TYPE_START_GROUP;
+import static androidx.serialization.runtime.proto.WireFormat.WIRE_TYPE_VARINT;
+import static androidx.serialization.runtime.proto.WireFormat.getTagFieldId;
+import static androidx.serialization.runtime.proto.WireFormat.getTagWireType;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.serialization.runtime.internal.CollectionFactory;
+import androidx.serialization.runtime.internal.DecoderV1;
+import androidx.serialization.runtime.internal.EnumSerializerV1;
+import androidx.serialization.runtime.internal.SerializerV1;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.NoSuchElementException;
+
+/**
+ * Decodes messages from the Protocol Buffers binary wire format.
+ * <p>
+ * The decoder reads directly from a {@link ByteBuffer}, including direct and memory-mapped
+ * buffers, without first copying the encoded message into a byte array. Embedded messages are
+ * decoded in place by narrowing the decoder's limit.
+ * <p>
+ * Repeated scalar fields are accepted both packed and unpacked. Before decoding a repeated
+ * field, the decoder counts its values, so that arrays and collections are allocated once with
+ * their final size. Fields with the start group wire type are skipped.
+ * <p>
+ * Malformed and truncated input results in an {@link IllegalArgumentException}.
+ */
+public final class ProtoDecoder implements DecoderV1 {
+    /** The maximum nesting depth of embedded messages and groups. */
+    private static final int MAX_DEPTH = 100;
+
+    @NonNull
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final char REPLACEMENT_CHARACTER = '\uFFFD';
+
+    @NonNull
+    private static final String NO_FIELD_EXCEPTION_MESSAGE =
+            "Decoder is not positioned on a field";
+
+    /** The encoded message as a little endian buffer, starting at index zero. */
+    @NonNull
+    private final ByteBuffer mBuffer;
+
+    /** A view of {@link #mBuffer} for bulk reads, created when first needed. */
+    @Nullable
+    private ByteBuffer mBulkView;
+
+    /** A scratch buffer for decoding strings from buffers without an accessible array. */
+    @Nullable
+    private char[] mChars;
+
+    private int mPosition;
+
+    /** The end of the current message. */
+    private int mLimit;
+
+    /** The tag of the current field if its value has not been decoded yet, otherwise zero. */
+    private int mTag;
+
+    private int mDepth;
+
+    /** The size of the tag between unpacked values of the current repeated field. */
+    private int mRepeatedTagSize;
+
+    /** The end of the current packed repeated field, or -1 if it is unpacked. */
+    private int mPackedLimit;
+
+    private ProtoDecoder(@NonNull ByteBuffer buffer) {
+        mBuffer = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        mLimit = mBuffer.limit();
+    }
+
+    /**
+     * Decode a message from a byte array.
+     *
+     * @param serializer the serializer for the message class.
+     * @param bytes      the encoded message.
+     * @param <T>        the message class.
+     * @throws IllegalArgumentException if the encoded message is malformed.
+     * @return a new instance of the message class.
+     */
+    @NonNull
+    public static <T> T decode(@NonNull SerializerV1<T> serializer, @NonNull byte[] bytes) {
+        return decode(serializer, ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Decode a message from the remaining bytes of a byte buffer.
+     * <p>
+     * The position of the buffer is not modified. As values are read directly from the buffer,
+     * its contents must not change while the message is being decoded.
+     *
+     * @param serializer the serializer for the message class.
+     * @param buffer     the encoded message, from its position to its limit.
+     * @param <T>        the message class.
+     * @throws IllegalArgumentException if the encoded message is malformed.
+     * @return a new instance of the message class.
+     */
+    @NonNull
+    public static <T> T decode(@NonNull SerializerV1<T> serializer, @NonNull ByteBuffer buffer) {
+        return serializer.decode(new ProtoDecoder(buffer), null);
+    }
+
+    @Override
+    public boolean hasNextField() {
+        if (mTag == 0 && mPosition >= mLimit) {
+            return false;
+        }
+
+        int position = mPosition;
+        int tag = mTag;
+        try {
+            return readNextTag();
+        } finally {
+            mPosition = position;
+            mTag = tag;
+        }
+    }
+
+    @Override
+    public int nextFieldId() {
+        if (!readNextTag()) {
+            throw new NoSuchElementException();
+        }
+        return getTagFieldId(mTag);
+    }
+
+    @NonNull
+    @Override
+    public <T> T decodeMessage(@NonNull SerializerV1<T> serializer, @Nullable T mergeFrom) {
+        startValue(WIRE_TYPE_LENGTH_DELIMITED);
+        return readMessage(serializer, mergeFrom);
+    }
+
+    @NonNull
+    @Override
+    public <T, C extends Collection<T>> C decodeRepeatedMessage(
+            @NonNull SerializerV1<T> serializer,
+            @Nullable C mergeFrom,
+            @NonNull CollectionFactory<C> factory
+    ) {
+        int count = startRepeated(WIRE_TYPE_LENGTH_DELIMITED);
+        int tagSize = mRepeatedTagSize;
+        C result = newCollection(mergeFrom, factory, count);
+        for (int i = 0; i < count; i++) {
+            if (i != 0) {
+                mPosition += tagSize;
+            }
+            result.add(readMessage(serializer, null));
+        }
+        return result;
+    }
+
+    @NonNull
+    @Override
+    public <T extends Enum<T>> T decodeEnum(@NonNull EnumSerializerV1<T> serializer) {
+        return serializer.decode(decodeInt32());
+    }
+
+    @NonNull
+    @Override
+    public <T extends Enum<T>, C extends Collection<T>> C decodeRepeatedEnum(
+            @NonNull EnumSerializerV1<T> serializer,
+            @Nullable C mergeFrom,
+            @NonNull CollectionFactory<C> factory
+    ) {
+        int count = startRepeated(WIRE_TYPE_VARINT);
+        C result = newCollection(mergeFrom, factory, count);
+        for (int i = 0; i < count; i++) {
+            nextRepeatedValue(i);
+            result.add(serializer.decode(readVarint32()));
+        }
+        endRepeated();
+        return result;
+    }
+
+    @Override
+    public boolean decodeBool() {
+        startValue(WIRE_TYPE_VARINT);
+        return readVarint64() != 0;
+    }
+
+    @NonNull
+    @Override
+    public boolean[] decodeRepeatedBool(@Nullable boolean[] mergeFrom) {
+        int count = startRepeated(WIRE_TYPE_VARINT);
+        boolean[] result = newBooleanArray(mergeFrom, count);
+        int offset = result.length - count;
+        for (int i = 0; i < count; i++) {
+            nextRepeatedValue(i);
+            result[offset + i] = readVarint64() != 0;
+        }
+        endRepeated();
+        return result;
+    }
+
+    @NonNull
+    @Override
+    public <C extends Collection<Boolean>> C decodeRepeatedBool(
+            @Nullable C mergeFrom,
+            @NonNull CollectionFactory<C> factory
+    ) {
+        int count = startRepeated(WIRE_TYPE_VARINT);
+        C result = newCollection(mergeFrom, factory, count);
+        for (int i = 0; i < count; i++) {
+            nextRepeatedValue(i);
+            result.add(readVarint64() != 0);
+        }
+        endRepeated();
+        return result;
+    }
+
+    @NonNull
+    @Override
+    public byte[] decodeBytes() {
+        startValue(WIRE_TYPE_LENGTH_DELIMITED);
+        return readBytes();
+    }
+
+    @NonNull
+    @Override
+    public <C extends Collection<byte[]>> C decodeRepeatedBytes(
+            @Nullable C mergeFrom,
+            @NonNull CollectionFactory<C> factory
+    ) {
+        int count = startRepeated(WIRE_TYPE_LENGTH_DELIMITED);
+        C result = newCollection(mergeFrom, factory, count);
+        for (int i = 0; i < count; i++) {
+            nextRepeatedValue(i);
+            result.add(readBytes());
+        }
+        return result;
+    }
+
+    @Override
+    public double decodeDouble() {
+        startValue(WIRE_TYPE_FIXED64);
+        return Double.longBitsToDouble(readFixed64());
+    }
+
+    @NonNull
+    @Override
+    public double[] decodeRepeatedDouble(@Nullable double[] mergeFrom) {
+        int count = startRepeated(WIRE_TYPE_FIXED64);
+        double[] result = newDoubleArray(mergeFrom, count);
+        int offset = result.length - count;
+        for (int i = 0; i < count; i++) {
+            nextRepeatedValue(i);
+            result[offset + i] = Double.longBitsToDouble(readFixed64());
+        }
+        endRepeated();
+        return result;
+    }
+
+    @NonNull
+    @Override
+    public <C extends Collection<Double>> C decodeRepeatedDouble(
+            @Nullable C mergeFrom,
+            @NonNull CollectionFactory<C> factory
+    ) {
+        int count = startRepeated(WIRE_TYPE_FIXED64);
+        C result = newCollection(mergeFrom, factory, count);
+        for (int i = 0; i < count; i++) {
+            nextRepeatedValue(i);
+            result.add(Double.longBitsToDouble(readFixed64()));
+        }
+        endRepeated();
+        return result;
+    }
+
+    @Override
+    public float decodeFloat() {
+        startValue(WIRE_TYPE_FIXED32);
+        return Float.intBitsToFloat(readFixed32());
+    }
+
+    @NonNull
+    @Override
+    public float[] decodeRepeatedFloat(@Nullable float[] mergeFrom) {
+        int count = startRepeated(WIRE_TYPE_FIXED32);
+        float[] result = newFloatArray(mergeFrom, count);
+        int offset = result.length - count;
+        for (int i = 0; i < count; i++) {
+            nextRepeatedValue(i);
+            result[offset + i] = Float.intBitsToFloat(readFixed32());
+        }
+        endRepeated();
+        return result;
+    }
+
+    @NonNull
+    @Override
+    public <C extends Collection<Float>> C decodeRepeatedFloat(
+            @Nullable C mergeFrom,
+            @NonNull CollectionFactory<C> factory
+    ) {
+        int count = startRepeated(WIRE_TYPE_FIXED32);
+        C result = newCollection(mergeFrom, factory, count);
+        for (int i = 0; i < count; i++) {
+            nextRepeatedValue(i);
+            result.add(Float.intBitsToFloat(readFixed32()));
+        }
+        endRepeated();
+        return result;
+    }
+
+    @Override
+    public int decodeInt32() {
+        startValue(WIRE_TYPE_VARINT);
+        return readVarint32();
+    }
+
+    @NonNull
+    @Override
+    public int[] decodeRepeatedInt32(@Nullable int[] mergeFrom) {
+        int count = startRepeated(WIRE_TYPE_VARINT);
+        int[] result = newIntArray(mergeFrom, count);
+        int offset = result.length - count;
+        for (int i = 0; i < count; i++) {
+            nextRepeatedValue(i);
+            result[offset + i] = readVarint32();
+        }
+        endRepeated();
+        return result;
+    }
+
+    @NonNull
+    @Override
+    public <C extends Collection<Integer>> C decodeRepeatedInt32(
+            @Nullable C mergeFrom,
+            @NonNull CollectionFactory<C> factory
+    ) {
+        int count = startRepeated(WIRE_TYPE_VARINT);
+        C result = newCollection(mergeFrom, factory, count);
+        for (int i = 0; i < count; i++) {
+            nextRepeatedValue(i);
+            result.add(readVarint32());
+        }
+        endRepeated();
+        return result;
+    }
+
+    @Override
+    public int decodeSInt32() {
+        startValue(WIRE_TYPE_VARINT);
+        return WireFormat.decodeZigZag32(readVarint32());
+    }
+
+    @NonNull
+    @Override
+    public int[] decodeRepeatedSInt32(@Nullable int[] mergeFrom) {
+        int count = startRepeated(WIRE_TYPE_VARINT);
+        int[] result = newIntArray(mergeFrom, count);
+        int offset = result.length - count;
+        for (int i = 0; i < count; i++) {
+            nextRepeatedValue(i);
+            result[offset + i] = WireFormat.decodeZigZag32(readVarint32());
+        }
+        endRepeated();
+        return result;
+    }
+
+    @NonNull
+    @Override
+    public <C extends Collection<Integer>> C decodeRepeatedSInt32(
+            @Nullable C mergeFrom,
+            @NonNull CollectionFactory<C> factory
+    ) {
+        int count = startRepeated(WIRE_TYPE_VARINT);
+        C result = newCollection(mergeFrom, factory, count);
+        for (int i = 0; i < count; i++) {
+            nextRepeatedValue(i);
+            result.add(WireFormat.decodeZigZag32(readVarint32()));
+        }
+        endRepeated();
+        return result;
+    }
+
+    @Override
+    public int decodeUInt32() {
+        return decodeInt32();
+    }
+
+    @NonNull
+    @Override
+    public int[] decodeRepeatedUInt32(@Nullable int[] mergeFrom) {
+        return decodeRepeatedInt32(mergeFrom);
+    }
+
+    @NonNull
+    @Override
+    public <C extends Collection<Integer>> C decodeRepeatedUInt32(
+            @Nullable C mergeFrom,
+            @NonNull CollectionFactory<C> factory
+    ) {
+        return decodeRepeatedInt32(mergeFrom, factory);
+    }
+
+    @Override
+    public int decodeFixed32() {
+        startValue(WIRE_TYPE_FIXED32);
+        return readFixed32();
+    }
+
+    @NonNull
+    @Override
+    public int[] decodeRepeatedFixed32(@Nullable int[] mergeFrom) {
+        int count = startRepeated(WIRE_TYPE_FIXED32);
+        int[] result = newIntArray(mergeFrom, count);
+        int offset = result.length - count;
+        for (int i = 0; i < count; i++) {
+            nextRepeatedValue(i);
+            result[offset + i] = readFixed32();
+        }
+        endRepeated();
+        return result;
+    }
+
+    @NonNull
+    @Override
+    public <C extends Collection<Integer>> C decodeRepeatedFixed32(
+            @Nullable C mergeFrom,
+            @NonNull CollectionFactory<C> factory
+    ) {
+        int count = startRepeated(WIRE_TYPE_FIXED32);
+        C result = newCollection(mergeFrom, factory, count);
+        for (int i = 0; i < count; i++) {
+            nextRepeatedValue(i);
+            result.add(readFixed32());
+        }
+        endRepeated();
+        return result;
+    }
+
+    @Override
+    public long decodeInt64() {
+        startValue(WIRE_TYPE_VARINT);
+        return readVarint64();
+    }
+
+    @NonNull
+    @Override
+    public long[] decodeRepeatedInt64(@Nullable long[] mergeFrom) {
+        int count = startRepeated(WIRE_TYPE_VARINT);
+        long[] result = newLongArray(mergeFrom, count);
+        int offset = result.length - count;
+        for (int i = 0; i < count; i++) {
+            nextRepeatedValue(i);
+            result[offset + i] = readVarint64();
+        }
+        endRepeated();
+        return result;
+    }
+
+    @NonNull
+    @Override
+    public <C extends Collection<Long>> C decodeRepeatedInt64(
+            @Nullable C mergeFrom,
+            @NonNull CollectionFactory<C> factory
+    ) {
+        int count = startRepeated(WIRE_TYPE_VARINT);
+        C result = newCollection(mergeFrom, factory, count);
+        for (int i = 0; i < count; i++) {
+            nextRepeatedValue(i);
+            result.add(readVarint64());
+        }
+        endRepeated();
+        return result;
+    }
+
+    @Override
+    public long decodeSInt64() {
+        startValue(WIRE_TYPE_VARINT);
+        return WireFormat.decodeZigZag64(readVarint64());
+    }
+
+    @NonNull
+    @Override
+    public long[] decodeRepeatedSInt64(@Nullable long[] mergeFrom) {
+        int count = startRepeated(WIRE_TYPE_VARINT);
+        long[] result = newLongArray(mergeFrom, count);
+        int offset = result.length - count;
+        for (int i = 0; i < count; i++) {
+            nextRepeatedValue(i);
+            result[offset + i] = WireFormat.decodeZigZag64(readVarint64());
+        }
+        endRepeated();
+        return result;
+    }
+
+    @NonNull
+    @Override
+    public <C extends Collection<Long>> C decodeRepeatedSInt64(
+            @Nullable C mergeFrom,
+            @NonNull CollectionFactory<C> factory
+    ) {
+        int count = startRepeated(WIRE_TYPE_VARINT);
+        C result = newCollection(mergeFrom, factory, count);
+        for (int i = 0; i < count; i++) {
+            nextRepeatedValue(i);
+            result.add(WireFormat.decodeZigZag64(readVarint64()));
+        }
+        endRepeated();
+        return result;
+    }
+
+    @Override
+    public long decodeUInt64() {
+        return decodeInt64();
+    }
+
+    @NonNull
+    @Override
+    public long[] decodeRepeatedUInt64(@Nullable long[] mergeFrom) {
+        return decodeRepeatedInt64(mergeFrom);
+    }
+
+    @NonNull
+    @Override
+    public <C extends Collection<Long>> C decodeRepeatedUInt64(
+            @Nullable C mergeFrom,
+            @NonNull CollectionFactory<C> factory
+    ) {
+        return decodeRepeatedInt64(mergeFrom, factory);
+    }
+
+    @Override
+    public long decodeFixed64() {
+        startValue(WIRE_TYPE_FIXED64);
+        return readFixed64();
+    }
+
+    @NonNull
+    @Override
+    public long[] decodeRepeatedFixed64(@Nullable long[] mergeFrom) {
+        int count = startRepeated(WIRE_TYPE_FIXED64);
+        long[] result = newLongArray(mergeFrom, count);
+        int offset = result.length - count;
+        for (int i = 0; i < count; i++) {
+            nextRepeatedValue(i);
+            result[offset + i] = readFixed64();
+        }
+        endRepeated();
+        return result;
+    }
+
+    @NonNull
+    @Override
+    public <C extends Collection<Long>> C decodeRepeatedFixed64(
+            @Nullable C mergeFrom,
+            @NonNull CollectionFactory<C> factory
+    ) {
+        int count = startRepeated(WIRE_TYPE_FIXED64);
+        C result = newCollection(mergeFrom, factory, count);
+        for (int i = 0; i < count; i++) {
+            nextRepeatedValue(i);
+            result.add(readFixed64());
+        }
+        endRepeated();
+        return result;
+    }
+
+    @NonNull
+    @Override
+    public String decodeString() {
+        startValue(WIRE_TYPE_LENGTH_DELIMITED);
+        return readString();
+    }
+
+    @NonNull
+    @Override
+    public String[] decodeRepeatedString(@Nullable String[] mergeFrom) {
+        int count = startRepeated(WIRE_TYPE_LENGTH_DELIMITED);
+        String[] result = newStringArray(mergeFrom, count);
+        int offset = result.length - count;
+        for (int i = 0; i < count; i++) {
+            nextRepeatedValue(i);
+            result[offset + i] = readString();
+        }
+        return result;
+    }
+
+    @NonNull
+    @Override
+    public <C extends Collection<String>> C decodeRepeatedString(
+            @Nullable C mergeFrom,
+            @NonNull CollectionFactory<C> factory
+    ) {
+        int count = startRepeated(WIRE_TYPE_LENGTH_DELIMITED);
+        C result = newCollection(mergeFrom, factory, count);
+        for (int i = 0; i < count; i++) {
+            nextRepeatedValue(i);
+            result.add(readString());
+        }
+        return result;
+    }
+
+    /**
+     * Skip the value of the current field if it was not decoded, as well as any groups, and read
+     * the tag of the next field into {@link #mTag}.
+     *
+     * @return false if the end of the current message was reached.
+     */
+    private boolean readNextTag() {
+        if (mTag != 0) {
+            skipValue(mTag);
+            mTag = 0;
+        }
+
+        while (mPosition < mLimit) {
+            int tag = readTag();
+            if (getTagWireType(tag) == WIRE_TYPE_END_GROUP) {
+                throw new IllegalArgumentException("Unexpected end group tag");
+            } else if (getTagWireType(tag) == WIRE_TYPE_START_GROUP) {
+                skipValue(tag);
+            } else {
+                mTag = tag;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int readTag() {
+        int tag = readVarint32();
+        if (getTagFieldId(tag) == 0 || getTagWireType(tag) > WIRE_TYPE_FIXED32) {
+            throw new IllegalArgumentException("Invalid tag " + tag);
+        }
+        return tag;
+    }
+
+    private void skipValue(int tag) {
+        switch (getTagWireType(tag)) {
+            case WIRE_TYPE_VARINT:
+                readVarint64();
+                break;
+            case WIRE_TYPE_FIXED64:
+                skip(FIXED64_SIZE);
+                break;
+            case WIRE_TYPE_LENGTH_DELIMITED:
+                skip(readVarint32());
+                break;
+            case WIRE_TYPE_START_GROUP:
+                skipGroup(tag);
+                break;
+            case WIRE_TYPE_FIXED32:
+                skip(FIXED32_SIZE);
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid tag " + tag);
+        }
+    }
+
+    private void skipGroup(int startTag) {
+        if (++mDepth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Message is nested too deeply");
+        }
+
+        int endTag = WireFormat.makeTag(getTagFieldId(startTag), WIRE_TYPE_END_GROUP);
+        while (true) {
+            if (mPosition >= mLimit) {
+                throw truncatedException();
+            }
+
+            int tag = readTag();
+            if (tag == endTag) {
+                break;
+            } else if (getTagWireType(tag) == WIRE_TYPE_END_GROUP) {
+                throw new IllegalArgumentException("Mismatched end group tag");
+            }
+            skipValue(tag);
+        }
+        mDepth--;
+    }
+
+    private void skip(int size) {
+        if (size < 0 || size > mLimit - mPosition) {
+            throw truncatedException();
+        }
+        mPosition += size;
+    }
+
+    /**
+     * Start decoding the value of the current field, which must have the supplied wire type.
+     */
+    private void startValue(int wireType) {
+        if (mTag == 0) {
+            throw new IllegalStateException(NO_FIELD_EXCEPTION_MESSAGE);
+        }
+        if (getTagWireType(mTag) != wireType) {
+            throw wireTypeException(mTag, wireType);
+        }
+        mTag = 0;
+    }
+
+    /**
+     * Start decoding a repeated field whose values have the supplied wire type.
+     * <p>
+     * Packed fields are accepted for all wire types other than length-delimited. Unpacked values
+     * are collected from consecutive fields with the same tag as the current field.
+     *
+     * @return the number of values in the repeated field.
+     */
+    private int startRepeated(int valueWireType) {
+        if (mTag == 0) {
+            throw new IllegalStateException(NO_FIELD_EXCEPTION_MESSAGE);
+        }
+
+        int tag = mTag;
+        int wireType = getTagWireType(tag);
+        mTag = 0;
+
+        if (wireType == WIRE_TYPE_LENGTH_DELIMITED && valueWireType != wireType) {
+            int length = readLength();
+            int start = mPosition;
+            mPackedLimit = start + length;
+            mRepeatedTagSize = 0;
+            switch (valueWireType) {
+                case WIRE_TYPE_VARINT:
+                    int count = 0;
+                    for (int position = start; position < mPackedLimit; position++) {
+                        if (mBuffer.get(position) >= 0) {
+                            count++;
+                        }
+                    }
+                    return count;
+                case WIRE_TYPE_FIXED32:
+                    if (length % FIXED32_SIZE != 0) {
+                        throw new IllegalArgumentException("Malformed packed fixed32 field");
+                    }
+                    return length / FIXED32_SIZE;
+                default:
+                    if (length % FIXED64_SIZE != 0) {
+                        throw new IllegalArgumentException("Malformed packed fixed64 field");
+                    }
+                    return length / FIXED64_SIZE;
+            }
+        } else if (wireType == valueWireType) {
+            mPackedLimit = -1;
+            mRepeatedTagSize = WireFormat.varint32Size(tag);
+
+            // Count the values of this and the following fields with the same tag.
+            int start = mPosition;
+            int count = 1;
+            skipValue(tag);
+            while (mPosition < mLimit && peekTag(tag)) {
+                mPosition += mRepeatedTagSize;
+                skipValue(tag);
+                count++;
+            }
+            mPosition = start;
+            return count;
+        } else {
+            throw wireTypeException(tag, valueWireType);
+        }
+    }
+
+    /** Skip the tag in front of all but the first unpacked value of a repeated field. */
+    private void nextRepeatedValue(int index) {
+        if (index != 0) {
+            mPosition += mRepeatedTagSize;
+        }
+    }
+
+    private void endRepeated() {
+        if (mPackedLimit != -1 && mPosition != mPackedLimit) {
+            throw new IllegalArgumentException("Malformed packed field");
+        }
+    }
+
+    /** Determine if the bytes at the current position are the supplied tag. */
+    private boolean peekTag(int tag) {
+        int position = mPosition;
+        if (mRepeatedTagSize > mLimit - position) {
+            return false;
+        }
+        while ((tag & ~0x7F) != 0) {
+            if (mBuffer.get(position++) != (byte) ((tag & 0x7F) | 0x80)) {
+                return false;
+            }
+            tag >>>= 7;
+        }
+        return mBuffer.get(position) == (byte) tag;
+    }
+
+    @NonNull
+    private <T> T readMessage(@NonNull SerializerV1<T> serializer, @Nullable T mergeFrom) {
+        int length = readLength();
+        if (++mDepth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Message is nested too deeply");
+        }
+
+        int limit = mLimit;
+        int end = mPosition + length;
+        mLimit = end;
+        T message = serializer.decode(this, mergeFrom);
+        mLimit = limit;
+        mPosition = end;
+        mTag = 0;
+        mDepth--;
+        return message;
+    }
+
+    @NonNull
+    private byte[] readBytes() {
+        int length = readLength();
+        byte[] bytes = new byte[length];
+        if (length != 0) {
+            ByteBuffer view = mBulkView;
+            if (view == null) {
+                view = mBulkView = mBuffer.duplicate();
+            }
+            view.position(mPosition);
+            view.get(bytes);
+            mPosition += length;
+        }
+        return bytes;
+    }
+
+    @NonNull
+    private String readString() {
+        int length = readLength();
+        int position = mPosition;
+        mPosition = position + length;
+        if (mBuffer.hasArray()) {
+            return new String(mBuffer.array(), mBuffer.arrayOffset() + position, length, UTF_8);
+        } else {
+            return decodeUtf8(position, length);
+        }
+    }
+
+    /**
+     * Decode UTF-8 directly from a buffer without an accessible array, such as a direct or a
+     * memory-mapped buffer, replacing malformed input with {@code U+FFFD}.
+     */
+    @NonNull
+    private String decodeUtf8(int position, int length) {
+        // UTF-8 never takes fewer bytes than UTF-16 code units
+        char[] chars = mChars;
+        if (chars == null || chars.length < length) {
+            chars = mChars = new char[Math.max(length, 64)];
+        }
+
+        int end = position + length;
+        int count = 0;
+        while (position < end) {
+            int b0 = mBuffer.get(position++);
+            if (b0 >= 0) {
+                chars[count++] = (char) b0;
+                continue;
+            }
+
+            b0 &= 0xFF;
+            if (b0 >= 0xC2 && b0 < 0xE0 && isContinuation(position, end, 0)) {
+                chars[count++] = (char) (((b0 & 0x1F) << 6) | (mBuffer.get(position) & 0x3F));
+                position += 1;
+            } else if (b0 >= 0xE0 && b0 < 0xF0 && isContinuation(position, end, 1)) {
+                int c = ((b0 & 0x0F) << 12)
+                        | ((mBuffer.get(position) & 0x3F) << 6)
+                        | (mBuffer.get(position + 1) & 0x3F);
+                if (c >= 0x800 && !Character.isSurrogate((char) c)) {
+                    chars[count++] = (char) c;
+                    position += 2;
+                } else {
+                    chars[count++] = REPLACEMENT_CHARACTER;
+                }
+            } else if (b0 >= 0xF0 && b0 < 0xF5 && isContinuation(position, end, 2)) {
+                int codePoint = ((b0 & 0x07) << 18)
+                        | ((mBuffer.get(position) & 0x3F) << 12)
+                        | ((mBuffer.get(position + 1) & 0x3F) << 6)
+                        | (mBuffer.get(position + 2) & 0x3F);
+                if (codePoint >= 0x10000 && codePoint <= Character.MAX_CODE_POINT) {
+                    chars[count++] = Character.highSurrogate(codePoint);
+                    chars[count++] = Character.lowSurrogate(codePoint);
+                    position += 3;
+                } else {
+                    chars[count++] = REPLACEMENT_CHARACTER;
+                }
+            } else {
+                chars[count++] = REPLACEMENT_CHARACTER;
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+    /** Determine if the bytes from position to position + last are all continuation bytes. */
+    private boolean isContinuation(int position, int end, int last) {
+        if (position + last >= end) {
+            return false;
+        }
+        for (int i = 0; i <= last; i++) {
+            if ((mBuffer.get(position + i) & 0xC0) != 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Read the length prefix of a length-delimited value and check it against the limit. */
+    private int readLength() {
+        int length = readVarint32();
+        if (length < 0 || length > mLimit - mPosition) {
+            throw truncatedException();
+        }
+        return length;
+    }
+
+    private int readVarint32() {
+        int position = mPosition;
+        if (position < mLimit) {
+            byte b = mBuffer.get(position);
+            if (b >= 0) {
+                mPosition = position + 1;
+                return b;
+            }
+        }
+        // Varints of negative int32 values are 10 bytes long, keep the low 32 bits.
+        return (int) readVarint64();
+    }
+
+    private long readVarint64() {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (mPosition >= mLimit) {
+                throw truncatedException();
+            }
+            byte b = mBuffer.get(mPosition++);
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    private int readFixed32() {
+        int position = mPosition;
+        if (mLimit - position < FIXED32_SIZE) {
+            throw truncatedException();
+        }
+        mPosition = position + FIXED32_SIZE;
+        return mBuffer.getInt(position);
+    }
+
+    private long readFixed64() {
+        int position = mPosition;
+        if (mLimit - position < FIXED64_SIZE) {
+            throw truncatedException();
+        }
+        mPosition = position + FIXED64_SIZE;
+        return mBuffer.getLong(position);
+    }
+
+    @NonNull
+    private static IllegalArgumentException wireTypeException(int tag, int expectedWireType) {
+        return new IllegalArgumentException("Expected wire type " + expectedWireType
+                + " for field " + getTagFieldId(tag) + " but found " + getTagWireType(tag));
+    }
+
+    @NonNull
+    private static IllegalArgumentException truncatedException() {
+        return new IllegalArgumentException("Message is truncated");
+    }
+
+    @NonNull
+    private static boolean[] newBooleanArray(@Nullable boolean[] mergeFrom, int count) {
+        if (mergeFrom == null) {
+            return new boolean[count];
+        } else {
+            return Arrays.copyOf(mergeFrom, mergeFrom.length + count);
+        }
+    }
+
+    @NonNull
+    private static double[] newDoubleArray(@Nullable double[] mergeFrom, int count) {
+        if (mergeFrom == null) {
+            return new double[count];
+        } else {
+            return Arrays.copyOf(mergeFrom, mergeFrom.length + count);
+        }
+    }
+
+    @NonNull
+    private static float[] newFloatArray(@Nullable float[] mergeFrom, int count) {
+        if (mergeFrom == null) {
+            return new float[count];
+        } else {
+            return Arrays.copyOf(mergeFrom, mergeFrom.length + count);
+        }
+    }
+
+    @NonNull
+    private static int[] newIntArray(@Nullable int[] mergeFrom, int count) {
+        if (mergeFrom == null) {
+            return new int[count];
+        } else {
+            return Arrays.copyOf(mergeFrom, mergeFrom.length + count);
+        }
+    }
+
+    @NonNull
+    private static long[] newLongArray(@Nullable long[] mergeFrom, int count) {
+        if (mergeFrom == null) {
+            return new long[count];
+        } else {
+            return Arrays.copyOf(mergeFrom, mergeFrom.length + count);
+        }
+    }
+
+    @NonNull
+    private static String[] newStringArray(@Nullable String[] mergeFrom, int count) {
+        if (mergeFrom == null) {
+            return new String[count];
+        } else {
+            return Arrays.copyOf(mergeFrom, mergeFrom.length + count);
+        }
+    }
+
+    @NonNull
+    private static <T, C extends Collection<T>> C newCollection(
+            @Nullable C mergeFrom,
+            @NonNull CollectionFactory<C> factory,
+            int count
+    ) {
+        if (mergeFrom == null) {
+            return factory.create(count);
+        } else {
+            C collection = factory.create(mergeFrom.size() + count);
+            collection.addAll(mergeFrom);
+            return collection;
+        }
+    }
+}
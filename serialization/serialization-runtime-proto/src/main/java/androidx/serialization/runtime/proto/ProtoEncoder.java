@@ -0,0 +1,756 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.serialization.runtime.proto;
+
+import static androidx.serialization.runtime.proto.WireFormat.FIXED32_SIZE;
+import static androidx.serialization.runtime.proto.WireFormat.FIXED64_SIZE;
+import static androidx.serialization.runtime.proto.WireFormat.MAX_HEADER_SIZE;
+import static androidx.serialization.runtime.proto.WireFormat.MAX_VARINT32_SIZE;
+import static androidx.serialization.runtime.proto.WireFormat.MAX_VARINT64_SIZE;
+import static androidx.serialization.runtime.proto.WireFormat.WIRE_TYPE_FIXED32;
+import static androidx.serialization.runtime.proto.WireFormat.WIRE_TYPE_FIXED64;
+import static androidx.serialization.runtime.proto.WireFormat.WIRE_TYPE_LENGTH_DELIMITED;
+import static androidx.serialization.runtime.proto.WireFormat.WIRE_TYPE_VARINT;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.serialization.runtime.internal.EncoderV1;
+import androidx.serialization.runtime.internal.EnumSerializerV1;
+import androidx.serialization.runtime.internal.SerializerV1;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Encodes messages in the Protocol Buffers binary wire format.
+ * <p>
+ * The encoder fills its buffer from the end towards the beginning. Writing an embedded message
+ * or a length-delimited field before its length prefix means the length is known by the time the
+ * prefix is written, so neither a separate pass to compute message sizes nor a copy to make
+ * room for the prefix is needed. Strings are measured before they are encoded for the same
+ * reason. As a consequence, fields appear in the encoded message in the reverse of the order
+ * they were supplied to the encoder, which all proto parsers accept. Serializers that want the
+ * canonical field order encode fields in descending order of field ID. The values of repeated
+ * fields always keep their order.
+ * <p>
+ * Scalar fields with default values, as well as empty strings, byte arrays and repeated fields,
+ * are omitted from the encoded message, matching proto3. Repeated scalar fields are packed.
+ * <p>
+ * Encoders are pooled per thread, so that steady state encoding reuses an already grown buffer
+ * instead of allocating and growing a new one for every message.
+ */
+public final class ProtoEncoder implements EncoderV1 {
+    private static final int INITIAL_BUFFER_SIZE = 256;
+
+    /** Buffers larger than this are not retained by the pool after use. */
+    private static final int MAX_POOLED_BUFFER_SIZE = 64 * 1024;
+
+    @NonNull
+    private static final ThreadLocal<ProtoEncoder> sPool = new ThreadLocal<ProtoEncoder>() {
+        @Override
+        protected ProtoEncoder initialValue() {
+            return new ProtoEncoder();
+        }
+    };
+
+    /** The encoded bytes occupy the range from {@link #mPosition} to the end of this buffer. */
+    @NonNull
+    private byte[] mBuffer;
+    private int mPosition;
+    private boolean mInUse;
+
+    private ProtoEncoder() {
+        mBuffer = new byte[INITIAL_BUFFER_SIZE];
+        mPosition = mBuffer.length;
+    }
+
+    /**
+     * Encode a message to a new byte array.
+     *
+     * @param serializer the serializer for the message class.
+     * @param message    the message to encode.
+     * @param <T>        the message class.
+     * @return the encoded message.
+     */
+    @NonNull
+    public static <T> byte[] encode(@NonNull SerializerV1<T> serializer, @NonNull T message) {
+        ProtoEncoder encoder = obtain();
+        try {
+            serializer.encode(encoder, message);
+            byte[] bytes = new byte[encoder.size()];
+            System.arraycopy(encoder.mBuffer, encoder.mPosition, bytes, 0, bytes.length);
+            return bytes;
+        } finally {
+            encoder.release();
+        }
+    }
+
+    /**
+     * Encode a message to an output stream.
+     * <p>
+     * The message is written to the stream directly from the encoder's buffer.
+     *
+     * @param serializer the serializer for the message class.
+     * @param message    the message to encode.
+     * @param output     the stream to write the encoded message to.
+     * @param <T>        the message class.
+     * @throws IOException if writing to the stream fails.
+     */
+    public static <T> void encode(
+            @NonNull SerializerV1<T> serializer,
+            @NonNull T message,
+            @NonNull OutputStream output
+    ) throws IOException {
+        ProtoEncoder encoder = obtain();
+        try {
+            serializer.encode(encoder, message);
+            output.write(encoder.mBuffer, encoder.mPosition, encoder.size());
+        } finally {
+            encoder.release();
+        }
+    }
+
+    /**
+     * Encode a message into a byte buffer at its current position.
+     *
+     * @param serializer the serializer for the message class.
+     * @param message    the message to encode.
+     * @param output     the buffer to write the encoded message to, which is advanced past it.
+     * @param <T>        the message class.
+     * @return the size of the encoded message in bytes.
+     * @throws java.nio.BufferOverflowException if the message does not fit in the buffer.
+     */
+    public static <T> int encode(
+            @NonNull SerializerV1<T> serializer,
+            @NonNull T message,
+            @NonNull ByteBuffer output
+    ) {
+        ProtoEncoder encoder = obtain();
+        try {
+            serializer.encode(encoder, message);
+            int size = encoder.size();
+            output.put(encoder.mBuffer, encoder.mPosition, size);
+            return size;
+        } finally {
+            encoder.release();
+        }
+    }
+
+    @NonNull
+    private static ProtoEncoder obtain() {
+        ProtoEncoder encoder = sPool.get();
+        if (encoder.mInUse) {
+            // A serializer is encoding another top-level message while this thread's encoder is
+            // busy, fall back to a new encoder.
+            encoder = new ProtoEncoder();
+        }
+        encoder.mInUse = true;
+        return encoder;
+    }
+
+    private void release() {
+        if (mBuffer.length > MAX_POOLED_BUFFER_SIZE) {
+            mBuffer = new byte[INITIAL_BUFFER_SIZE];
+        }
+        mPosition = mBuffer.length;
+        mInUse = false;
+    }
+
+    @Override
+    public <T> void encodeMessage(
+            int fieldId,
+            @NonNull SerializerV1<T> serializer,
+            @Nullable T message
+    ) {
+        if (message != null) {
+            putMessage(fieldId, serializer, message);
+        }
+    }
+
+    @Override
+    public <T> void encodeRepeatedMessage(
+            int fieldId,
+            @NonNull SerializerV1<T> serializer,
+            @Nullable Iterable<T> messages
+    ) {
+        if (messages != null) {
+            List<T> list = toList(messages);
+            for (int i = list.size() - 1; i >= 0; i--) {
+                putMessage(fieldId, serializer, list.get(i));
+            }
+        }
+    }
+
+    @Override
+    public <T extends Enum<T>> void encodeEnum(
+            int fieldId,
+            @NonNull EnumSerializerV1<T> serializer,
+            @Nullable T value
+    ) {
+        if (value != null) {
+            encodeInt32(fieldId, serializer.encode(value));
+        }
+    }
+
+    @Override
+    public <T extends Enum<T>> void encodeRepeatedEnum(
+            int fieldId,
+            @NonNull EnumSerializerV1<T> serializer,
+            @Nullable Iterable<T> values
+    ) {
+        if (values != null) {
+            List<T> list = toList(values);
+            if (!list.isEmpty()) {
+                reserve(list.size() * MAX_VARINT64_SIZE + MAX_HEADER_SIZE);
+                int end = size();
+                for (int i = list.size() - 1; i >= 0; i--) {
+                    putVarint64(serializer.encode(list.get(i)));
+                }
+                putLengthDelimitedHeader(fieldId, end);
+            }
+        }
+    }
+
+    @Override
+    public void encodeBool(int fieldId, boolean value) {
+        if (value) {
+            reserve(MAX_VARINT32_SIZE + 1);
+            putByte(1);
+            putTag(fieldId, WIRE_TYPE_VARINT);
+        }
+    }
+
+    @Override
+    public void encodeRepeatedBool(int fieldId, @Nullable boolean[] values) {
+        if (values != null && values.length != 0) {
+            reserve(values.length + MAX_HEADER_SIZE);
+            int end = size();
+            for (int i = values.length - 1; i >= 0; i--) {
+                putByte(values[i] ? 1 : 0);
+            }
+            putLengthDelimitedHeader(fieldId, end);
+        }
+    }
+
+    @Override
+    public void encodeRepeatedBool(int fieldId, @Nullable Iterable<Boolean> values) {
+        if (values != null) {
+            List<Boolean> list = toList(values);
+            if (!list.isEmpty()) {
+                reserve(list.size() + MAX_HEADER_SIZE);
+                int end = size();
+                for (int i = list.size() - 1; i >= 0; i--) {
+                    putByte(list.get(i) ? 1 : 0);
+                }
+                putLengthDelimitedHeader(fieldId, end);
+            }
+        }
+    }
+
+    @Override
+    public void encodeBytes(int fieldId, @Nullable byte[] value) {
+        if (value != null && value.length != 0) {
+            putBytes(fieldId, value);
+        }
+    }
+
+    @Override
+    public void encodeRepeatedBytes(int fieldId, @Nullable Iterable<byte[]> values) {
+        if (values != null) {
+            List<byte[]> list = toList(values);
+            for (int i = list.size() - 1; i >= 0; i--) {
+                putBytes(fieldId, list.get(i));
+            }
+        }
+    }
+
+    @Override
+    public void encodeDouble(int fieldId, double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        if (bits != 0) {
+            reserve(MAX_VARINT32_SIZE + FIXED64_SIZE);
+            putFixed64(bits);
+            putTag(fieldId, WIRE_TYPE_FIXED64);
+        }
+    }
+
+    @Override
+    public void encodeRepeatedDouble(int fieldId, @Nullable double[] values) {
+        if (values != null && values.length != 0) {
+            reserve(values.length * FIXED64_SIZE + MAX_HEADER_SIZE);
+            int end = size();
+            for (int i = values.length - 1; i >= 0; i--) {
+                putFixed64(Double.doubleToRawLongBits(values[i]));
+            }
+            putLengthDelimitedHeader(fieldId, end);
+        }
+    }
+
+    @Override
+    public void encodeRepeatedDouble(int fieldId, @Nullable Iterable<Double> values) {
+        if (values != null) {
+            List<Double> list = toList(values);
+            if (!list.isEmpty()) {
+                reserve(list.size() * FIXED64_SIZE + MAX_HEADER_SIZE);
+                int end = size();
+                for (int i = list.size() - 1; i >= 0; i--) {
+                    putFixed64(Double.doubleToRawLongBits(list.get(i)));
+                }
+                putLengthDelimitedHeader(fieldId, end);
+            }
+        }
+    }
+
+    @Override
+    public void encodeFloat(int fieldId, float value) {
+        int bits = Float.floatToRawIntBits(value);
+        if (bits != 0) {
+            reserve(MAX_VARINT32_SIZE + FIXED32_SIZE);
+            putFixed32(bits);
+            putTag(fieldId, WIRE_TYPE_FIXED32);
+        }
+    }
+
+    @Override
+    public void encodeRepeatedFloat(int fieldId, @Nullable float[] values) {
+        if (values != null && values.length != 0) {
+            reserve(values.length * FIXED32_SIZE + MAX_HEADER_SIZE);
+            int end = size();
+            for (int i = values.length - 1; i >= 0; i--) {
+                putFixed32(Float.floatToRawIntBits(values[i]));
+            }
+            putLengthDelimitedHeader(fieldId, end);
+        }
+    }
+
+    @Override
+    public void encodeRepeatedFloat(int fieldId, @Nullable Iterable<Float> values) {
+        if (values != null) {
+            List<Float> list = toList(values);
+            if (!list.isEmpty()) {
+                reserve(list.size() * FIXED32_SIZE + MAX_HEADER_SIZE);
+                int end = size();
+                for (int i = list.size() - 1; i >= 0; i--) {
+                    putFixed32(Float.floatToRawIntBits(list.get(i)));
+                }
+                putLengthDelimitedHeader(fieldId, end);
+            }
+        }
+    }
+
+    @Override
+    public void encodeInt32(int fieldId, int value) {
+        // Negative int32 values are sign extended to 64 bits, like in all other proto runtimes.
+        encodeUInt64(fieldId, value);
+    }
+
+    @Override
+    public void encodeRepeatedInt32(int fieldId, @Nullable int[] values) {
+        if (values != null && values.length != 0) {
+            reserve(values.length * MAX_VARINT64_SIZE + MAX_HEADER_SIZE);
+            int end = size();
+            for (int i = values.length - 1; i >= 0; i--) {
+                putVarint64(values[i]);
+            }
+            putLengthDelimitedHeader(fieldId, end);
+        }
+    }
+
+    @Override
+    public void encodeRepeatedInt32(int fieldId, @Nullable Iterable<Integer> values) {
+        if (values != null) {
+            List<Integer> list = toList(values);
+            if (!list.isEmpty()) {
+                reserve(list.size() * MAX_VARINT64_SIZE + MAX_HEADER_SIZE);
+                int end = size();
+                for (int i = list.size() - 1; i >= 0; i--) {
+                    putVarint64(list.get(i));
+                }
+                putLengthDelimitedHeader(fieldId, end);
+            }
+        }
+    }
+
+    @Override
+    public void encodeSInt32(int fieldId, int value) {
+        encodeUInt32(fieldId, WireFormat.encodeZigZag32(value));
+    }
+
+    @Override
+    public void encodeRepeatedSInt32(int fieldId, @Nullable int[] values) {
+        if (values != null && values.length != 0) {
+            reserve(values.length * MAX_VARINT32_SIZE + MAX_HEADER_SIZE);
+            int end = size();
+            for (int i = values.length - 1; i >= 0; i--) {
+                putVarint32(WireFormat.encodeZigZag32(values[i]));
+            }
+            putLengthDelimitedHeader(fieldId, end);
+        }
+    }
+
+    @Override
+    public void encodeRepeatedSInt32(int fieldId, @Nullable Iterable<Integer> values) {
+        if (values != null) {
+            List<Integer> list = toList(values);
+            if (!list.isEmpty()) {
+                reserve(list.size() * MAX_VARINT32_SIZE + MAX_HEADER_SIZE);
+                int end = size();
+                for (int i = list.size() - 1; i >= 0; i--) {
+                    putVarint32(WireFormat.encodeZigZag32(list.get(i)));
+                }
+                putLengthDelimitedHeader(fieldId, end);
+            }
+        }
+    }
+
+    @Override
+    public void encodeUInt32(int fieldId, int value) {
+        if (value != 0) {
+            reserve(2 * MAX_VARINT32_SIZE);
+            putVarint32(value);
+            putTag(fieldId, WIRE_TYPE_VARINT);
+        }
+    }
+
+    @Override
+    public void encodeRepeatedUInt32(int fieldId, @Nullable int[] values) {
+        if (values != null && values.length != 0) {
+            reserve(values.length * MAX_VARINT32_SIZE + MAX_HEADER_SIZE);
+            int end = size();
+            for (int i = values.length - 1; i >= 0; i--) {
+                putVarint32(values[i]);
+            }
+            putLengthDelimitedHeader(fieldId, end);
+        }
+    }
+
+    @Override
+    public void encodeRepeatedUInt32(int fieldId, @Nullable Iterable<Integer> values) {
+        if (values != null) {
+            List<Integer> list = toList(values);
+            if (!list.isEmpty()) {
+                reserve(list.size() * MAX_VARINT32_SIZE + MAX_HEADER_SIZE);
+                int end = size();
+                for (int i = list.size() - 1; i >= 0; i--) {
+                    putVarint32(list.get(i));
+                }
+                putLengthDelimitedHeader(fieldId, end);
+            }
+        }
+    }
+
+    @Override
+    public void encodeFixed32(int fieldId, int value) {
+        if (value != 0) {
+            reserve(MAX_VARINT32_SIZE + FIXED32_SIZE);
+            putFixed32(value);
+            putTag(fieldId, WIRE_TYPE_FIXED32);
+        }
+    }
+
+    @Override
+    public void encodeRepeatedFixed32(int fieldId, @Nullable int[] values) {
+        if (values != null && values.length != 0) {
+            reserve(values.length * FIXED32_SIZE + MAX_HEADER_SIZE);
+            int end = size();
+            for (int i = values.length - 1; i >= 0; i--) {
+                putFixed32(values[i]);
+            }
+            putLengthDelimitedHeader(fieldId, end);
+        }
+    }
+
+    @Override
+    public void encodeRepeatedFixed32(int fieldId, @Nullable Iterable<Integer> values) {
+        if (values != null) {
+            List<Integer> list = toList(values);
+            if (!list.isEmpty()) {
+                reserve(list.size() * FIXED32_SIZE + MAX_HEADER_SIZE);
+                int end = size();
+                for (int i = list.size() - 1; i >= 0; i--) {
+                    putFixed32(list.get(i));
+                }
+                putLengthDelimitedHeader(fieldId, end);
+            }
+        }
+    }
+
+    @Override
+    public void encodeInt64(int fieldId, long value) {
+        encodeUInt64(fieldId, value);
+    }
+
+    @Override
+    public void encodeRepeatedInt64(int fieldId, @Nullable long[] values) {
+        encodeRepeatedUInt64(fieldId, values);
+    }
+
+    @Override
+    public void encodeRepeatedInt64(int fieldId, @Nullable Iterable<Long> values) {
+        encodeRepeatedUInt64(fieldId, values);
+    }
+
+    @Override
+    public void encodeSInt64(int fieldId, long value) {
+        encodeUInt64(fieldId, WireFormat.encodeZigZag64(value));
+    }
+
+    @Override
+    public void encodeRepeatedSInt64(int fieldId, @Nullable long[] values) {
+        if (values != null && values.length != 0) {
+            reserve(values.length * MAX_VARINT64_SIZE + MAX_HEADER_SIZE);
+            int end = size();
+            for (int i = values.length - 1; i >= 0; i--) {
+                putVarint64(WireFormat.encodeZigZag64(values[i]));
+            }
+            putLengthDelimitedHeader(fieldId, end);
+        }
+    }
+
+    @Override
+    public void encodeRepeatedSInt64(int fieldId, @Nullable Iterable<Long> values) {
+        if (values != null) {
+            List<Long> list = toList(values);
+            if (!list.isEmpty()) {
+                reserve(list.size() * MAX_VARINT64_SIZE + MAX_HEADER_SIZE);
+                int end = size();
+                for (int i = list.size() - 1; i >= 0; i--) {
+                    putVarint64(WireFormat.encodeZigZag64(list.get(i)));
+                }
+                putLengthDelimitedHeader(fieldId, end);
+            }
+        }
+    }
+
+    @Override
+    public void encodeUInt64(int fieldId, long value) {
+        if (value != 0) {
+            reserve(MAX_VARINT32_SIZE + MAX_VARINT64_SIZE);
+            putVarint64(value);
+            putTag(fieldId, WIRE_TYPE_VARINT);
+        }
+    }
+
+    @Override
+    public void encodeRepeatedUInt64(int fieldId, @Nullable long[] values) {
+        if (values != null && values.length != 0) {
+            reserve(values.length * MAX_VARINT64_SIZE + MAX_HEADER_SIZE);
+            int end = size();
+            for (int i = values.length - 1; i >= 0; i--) {
+                putVarint64(values[i]);
+            }
+            putLengthDelimitedHeader(fieldId, end);
+        }
+    }
+
+    @Override
+    public void encodeRepeatedUInt64(int fieldId, @Nullable Iterable<Long> values) {
+        if (values != null) {
+            List<Long> list = toList(values);
+            if (!list.isEmpty()) {
+                reserve(list.size() * MAX_VARINT64_SIZE + MAX_HEADER_SIZE);
+                int end = size();
+                for (int i = list.size() - 1; i >= 0; i--) {
+                    putVarint64(list.get(i));
+                }
+                putLengthDelimitedHeader(fieldId, end);
+            }
+        }
+    }
+
+    @Override
+    public void encodeFixed64(int fieldId, long value) {
+        if (value != 0) {
+            reserve(MAX_VARINT32_SIZE + FIXED64_SIZE);
+            putFixed64(value);
+            putTag(fieldId, WIRE_TYPE_FIXED64);
+        }
+    }
+
+    @Override
+    public void encodeRepeatedFixed64(int fieldId, @Nullable long[] values) {
+        if (values != null && values.length != 0) {
+            reserve(values.length * FIXED64_SIZE + MAX_HEADER_SIZE);
+            int end = size();
+            for (int i = values.length - 1; i >= 0; i--) {
+                putFixed64(values[i]);
+            }
+            putLengthDelimitedHeader(fieldId, end);
+        }
+    }
+
+    @Override
+    public void encodeRepeatedFixed64(int fieldId, @Nullable Iterable<Long> values) {
+        if (values != null) {
+            List<Long> list = toList(values);
+            if (!list.isEmpty()) {
+                reserve(list.size() * FIXED64_SIZE + MAX_HEADER_SIZE);
+                int end = size();
+                for (int i = list.size() - 1; i >= 0; i--) {
+                    putFixed64(list.get(i));
+                }
+                putLengthDelimitedHeader(fieldId, end);
+            }
+        }
+    }
+
+    @Override
+    public void encodeString(int fieldId, @Nullable String value) {
+        if (value != null && !value.isEmpty()) {
+            putString(fieldId, value);
+        }
+    }
+
+    @Override
+    public void encodeRepeatedString(int fieldId, @Nullable String[] values) {
+        if (values != null) {
+            for (int i = values.length - 1; i >= 0; i--) {
+                putString(fieldId, values[i]);
+            }
+        }
+    }
+
+    @Override
+    public void encodeRepeatedString(int fieldId, @Nullable Iterable<String> values) {
+        if (values != null) {
+            List<String> list = toList(values);
+            for (int i = list.size() - 1; i >= 0; i--) {
+                putString(fieldId, list.get(i));
+            }
+        }
+    }
+
+    /** Get the number of bytes encoded so far. */
+    private int size() {
+        return mBuffer.length - mPosition;
+    }
+
+    /** Ensure there is room for at least {@code size} more bytes in front of the encoded bytes. */
+    private void reserve(int size) {
+        if (mPosition < size) {
+            int encodedSize = size();
+            int length = Math.max(mBuffer.length * 2, encodedSize + size);
+            byte[] buffer = new byte[length];
+            System.arraycopy(mBuffer, mPosition, buffer, length - encodedSize, encodedSize);
+            mBuffer = buffer;
+            mPosition = length - encodedSize;
+        }
+    }
+
+    private <T> void putMessage(
+            int fieldId,
+            @NonNull SerializerV1<T> serializer,
+            @NonNull T message
+    ) {
+        int end = size();
+        serializer.encode(this, message);
+        reserve(MAX_HEADER_SIZE);
+        putLengthDelimitedHeader(fieldId, end);
+    }
+
+    private void putBytes(int fieldId, @NonNull byte[] value) {
+        reserve(value.length + MAX_HEADER_SIZE);
+        mPosition -= value.length;
+        System.arraycopy(value, 0, mBuffer, mPosition, value.length);
+        putVarint32(value.length);
+        putTag(fieldId, WIRE_TYPE_LENGTH_DELIMITED);
+    }
+
+    private void putString(int fieldId, @NonNull String value) {
+        int length = WireFormat.utf8Length(value);
+        reserve(length + MAX_HEADER_SIZE);
+        mPosition -= length;
+        WireFormat.encodeUtf8(value, mBuffer, mPosition);
+        putVarint32(length);
+        putTag(fieldId, WIRE_TYPE_LENGTH_DELIMITED);
+    }
+
+    /**
+     * Write the length prefix and tag of a length-delimited field whose value has been written,
+     * starting when the encoder's size was {@code end}.
+     */
+    private void putLengthDelimitedHeader(int fieldId, int end) {
+        putVarint32(size() - end);
+        putTag(fieldId, WIRE_TYPE_LENGTH_DELIMITED);
+    }
+
+    private void putTag(int fieldId, int wireType) {
+        putVarint32(WireFormat.makeTag(fieldId, wireType));
+    }
+
+    private void putByte(int value) {
+        mBuffer[--mPosition] = (byte) value;
+    }
+
+    private void putVarint32(int value) {
+        int position = mPosition - WireFormat.varint32Size(value);
+        mPosition = position;
+        while ((value & ~0x7F) != 0) {
+            mBuffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        mBuffer[position] = (byte) value;
+    }
+
+    private void putVarint64(long value) {
+        int position = mPosition - WireFormat.varint64Size(value);
+        mPosition = position;
+        while ((value & ~0x7FL) != 0) {
+            mBuffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        mBuffer[position] = (byte) value;
+    }
+
+    private void putFixed32(int value) {
+        int position = mPosition - FIXED32_SIZE;
+        mPosition = position;
+        mBuffer[position] = (byte) value;
+        mBuffer[position + 1] = (byte) (value >> 8);
+        mBuffer[position + 2] = (byte) (value >> 16);
+        mBuffer[position + 3] = (byte) (value >> 24);
+    }
+
+    private void putFixed64(long value) {
+        putFixed32((int) (value >> 32));
+        putFixed32((int) value);
+    }
+
+    /** Get a random access view of an iterable to walk it backwards, copying it if necessary. */
+    @NonNull
+    private static <T> List<T> toList(@NonNull Iterable<T> iterable) {
+        if (iterable instanceof List && iterable instanceof RandomAccess) {
+            return (List<T>) iterable;
+        }
+
+        ArrayList<T> list;
+        if (iterable instanceof Collection) {
+            list = new ArrayList<>((Collection<T>) iterable);
+        } else {
+            list = new ArrayList<>();
+            for (T item : iterable) {
+                list.add(item);
+            }
+        }
+        return list;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.serialization.runtime.proto;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Constants and helpers of the Protocol Buffers wire format shared by {@link ProtoEncoder} and
+ * {@link ProtoDecoder}.
+ */
+final class WireFormat {
+    static final int WIRE_TYPE_VARINT = 0;
+    static final int WIRE_TYPE_FIXED64 = 1;
+    static final int WIRE_TYPE_LENGTH_DELIMITED = 2;
+    static final int WIRE_TYPE_START_GROUP = 3;
+    static final int WIRE_TYPE_END_GROUP = 4;
+    static final int WIRE_TYPE_FIXED32 = 5;
+
+    static final int TAG_TYPE_BITS = 3;
+    static final int TAG_TYPE_MASK = (1 << TAG_TYPE_BITS) - 1;
+
+    static final int MAX_VARINT32_SIZE = 5;
+    static final int MAX_VARINT64_SIZE = 10;
+    static final int FIXED32_SIZE = 4;
+    static final int FIXED64_SIZE = 8;
+
+    /** The largest a tag and a length prefix can get together. */
+    static final int MAX_HEADER_SIZE = 2 * MAX_VARINT32_SIZE;
+
+    private WireFormat() {
+    }
+
+    static int makeTag(int fieldId, int wireType) {
+        return (fieldId << TAG_TYPE_BITS) | wireType;
+    }
+
+    static int getTagFieldId(int tag) {
+        return tag >>> TAG_TYPE_BITS;
+    }
+
+    static int getTagWireType(int tag) {
+        return tag & TAG_TYPE_MASK;
+    }
+
+    /** Compute the number of bytes of an unsigned 32-bit varint. */
+    static int varint32Size(int value) {
+        // Each byte holds 7 bits, and a value of zero still takes a byte.
+        return (31 - Integer.numberOfLeadingZeros(value | 1)) / 7 + 1;
+    }
+
+    /** Compute the number of bytes of an unsigned 64-bit varint. */
+    static int varint64Size(long value) {
+        return (63 - Long.numberOfLeadingZeros(value | 1)) / 7 + 1;
+    }
+
+    static int encodeZigZag32(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static long encodeZigZag64(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static int decodeZigZag32(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static long decodeZigZag64(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Compute the number of bytes of a string encoded as UTF-8.
+     * <p>
+     * Like {@link String#getBytes(java.nio.charset.Charset)}, unpaired surrogates count as the
+     * single byte of a {@code ?} replacement character.
+     */
+    static int utf8Length(@NonNull String value) {
+        int length = value.length();
+        int utf8Length = length;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                continue;
+            } else if (c < 0x800) {
+                utf8Length += 1;
+            } else if (!Character.isSurrogate(c)) {
+                utf8Length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                // Two chars become four bytes.
+                utf8Length += 2;
+                i++;
+            }
+        }
+        return utf8Length;
+    }
+
+    /**
+     * Encode a string as UTF-8 into a buffer, which must have room for
+     * {@link #utf8Length(String)} bytes from the offset.
+     */
+    static void encodeUtf8(@NonNull String value, @NonNull byte[] buffer, int offset) {
+        int length = value.length();
+        int position = offset;
+        int i = 0;
+
+        // Fast path for the common ASCII prefix
+        for (char c; i < length && (c = value.charAt(i)) < 0x80; i++) {
+            buffer[position++] = (byte) c;
+        }
+
+        for (; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >>> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (!Character.isSurrogate(c)) {
+                buffer[position++] = (byte) (0xE0 | (c >>> 12));
+                buffer[position++] = (byte) (0x80 | ((c >>> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | (codePoint >>> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >>> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >>> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                buffer[position++] = '?';
+            }
+        }
+    }
+}
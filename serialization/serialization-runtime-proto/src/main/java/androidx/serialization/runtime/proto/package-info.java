@@ -0,0 +1,30 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Protocol Buffers binary wire format backend for Serialization.
+ * <p>
+ * {@link androidx.serialization.runtime.proto.ProtoEncoder} and
+ * {@link androidx.serialization.runtime.proto.ProtoDecoder} implement the versioned encoder and
+ * decoder interfaces of {@code androidx.serialization.runtime.internal}. Like those interfaces,
+ * they are intended for use by generated serializers.
+ */
+@RestrictTo(LIBRARY_GROUP_PREFIX)
+package androidx.serialization.runtime.proto;
+
+import static androidx.annotation.RestrictTo.Scope.LIBRARY_GROUP_PREFIX;
+
+import androidx.annotation.RestrictTo;
@@ -0,0 +1,724 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.serialization.runtime.proto;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.serialization.runtime.internal.CollectionFactory;
+import androidx.serialization.runtime.internal.DecoderV1;
+import androidx.serialization.runtime.internal.EncoderV1;
+import androidx.serialization.runtime.internal.EnumSerializerV1;
+import androidx.serialization.runtime.internal.SerializationRuntime;
+import androidx.serialization.runtime.internal.SerializerV1;
+
+import com.google.protobuf.CodedOutputStream;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Unit tests for {@link ProtoDecoder}.
+ */
+public final class ProtoDecoderTest {
+    @NonNull
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Test
+    public void testDecodeProtobufLiteEncoding() {
+        byte[] bytes = encodeWithProtobufLite(new Writes() {
+            @Override
+            public void write(@NonNull CodedOutputStream output) throws IOException {
+                output.writeInt32(1, -150);
+                output.writeSInt32(2, -2);
+                output.writeUInt32(3, 0xFFFFFFFF);
+                output.writeFixed32(4, 0x01020304);
+                output.writeInt64(5, Long.MIN_VALUE);
+                output.writeSInt64(6, -3L);
+                output.writeUInt64(7, -1L);
+                output.writeFixed64(8, 0x0102030405060708L);
+                output.writeFloat(9, 1.5f);
+                output.writeDouble(10, -2.5);
+                output.writeBool(11, true);
+                output.writeString(12, "h\u00e9llo");
+                output.writeByteArray(13, new byte[]{1, 2, 3});
+                output.writeEnum(14, -1);
+
+                // Unpacked repeated scalars, as written by protobuf-lite for proto2
+                output.writeInt32(16, 1);
+                output.writeInt32(16, -1);
+                output.writeSInt64(17, 5L);
+                output.writeSInt64(17, -5L);
+                output.writeDouble(18, 0.25);
+                output.writeString(19, "a");
+                output.writeString(19, "");
+                output.writeEnum(21, 1);
+                output.writeBool(22, false);
+                output.writeBool(22, true);
+            }
+        });
+
+        TestMessage message = ProtoDecoder.decode(TestMessage.SERIALIZER, bytes);
+
+        assertThat(message.mInt32).isEqualTo(-150);
+        assertThat(message.mSInt32).isEqualTo(-2);
+        assertThat(message.mUInt32).isEqualTo(0xFFFFFFFF);
+        assertThat(message.mFixed32).isEqualTo(0x01020304);
+        assertThat(message.mInt64).isEqualTo(Long.MIN_VALUE);
+        assertThat(message.mSInt64).isEqualTo(-3L);
+        assertThat(message.mUInt64).isEqualTo(-1L);
+        assertThat(message.mFixed64).isEqualTo(0x0102030405060708L);
+        assertThat(message.mFloat).isEqualTo(1.5f);
+        assertThat(message.mDouble).isEqualTo(-2.5);
+        assertThat(message.mBool).isTrue();
+        assertThat(message.mString).isEqualTo("h\u00e9llo");
+        assertThat(message.mBytes).isEqualTo(new byte[]{1, 2, 3});
+        assertThat(message.mEnum).isEqualTo(TestEnum.MINUS_ONE);
+        assertThat(message.mRepeatedInt32).isEqualTo(new int[]{1, -1});
+        assertThat(message.mRepeatedSInt64).containsExactly(5L, -5L).inOrder();
+        assertThat(message.mRepeatedDouble).isEqualTo(new double[]{0.25});
+        assertThat(message.mRepeatedString).containsExactly("a", "").inOrder();
+        assertThat(message.mRepeatedEnum).containsExactly(TestEnum.ONE);
+        assertThat(message.mRepeatedBool).isEqualTo(new boolean[]{false, true});
+    }
+
+    @Test
+    public void testDecodeRoundTrip() {
+        TestMessage message = newTestMessage();
+        byte[] bytes = ProtoEncoder.encode(TestMessage.SERIALIZER, message);
+
+        assertTestMessage(ProtoDecoder.decode(TestMessage.SERIALIZER, bytes));
+    }
+
+    @Test
+    public void testDecodeDirectByteBuffer() {
+        byte[] bytes = ProtoEncoder.encode(TestMessage.SERIALIZER, newTestMessage());
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length + 2);
+        buffer.put((byte) 0xFF);
+        buffer.put(bytes);
+        buffer.put((byte) 0xFF);
+        buffer.position(1);
+        buffer.limit(bytes.length + 1);
+
+        assertTestMessage(ProtoDecoder.decode(TestMessage.SERIALIZER, buffer));
+        assertThat(buffer.position()).isEqualTo(1);
+    }
+
+    @Test
+    public void testDecodeDirectByteBufferStrings() {
+        String[] values = {
+                "",
+                "ascii",
+                "h\u00e9llo \u4e16\u754c \ud83c\udf0d",
+                "\u0080\u07ff\u0800\uffff\ud800\udc00\udbff\udfff"
+        };
+        for (String value : values) {
+            byte[] bytes = value.getBytes(UTF_8);
+            assertThat(decodeStringFromDirectBuffer(bytes)).isEqualTo(value);
+        }
+    }
+
+    @Test
+    public void testDecodeDirectByteBufferMalformedStrings() {
+        byte[][] values = {
+                {(byte) 0x80},
+                {'a', (byte) 0xC3},
+                {(byte) 0xC0, (byte) 0x80},
+                {(byte) 0xED, (byte) 0xA0, (byte) 0x80},
+                {(byte) 0xF8, 'a'},
+        };
+        for (byte[] value : values) {
+            String string = decodeStringFromDirectBuffer(value);
+            assertThat(string).contains("\ufffd");
+        }
+    }
+
+    @Test
+    public void testDecodeMergesSplitRepeatedFields() {
+        byte[] bytes = encodeWithProtobufLite(new Writes() {
+            @Override
+            public void write(@NonNull CodedOutputStream output) throws IOException {
+                output.writeInt32(16, 1);
+                output.writeString(19, "a");
+                output.writeInt32(1, 42);
+                // A packed run of the same field
+                output.writeTag(16, 2);
+                output.writeUInt32NoTag(2);
+                output.writeInt32NoTag(2);
+                output.writeInt32NoTag(3);
+                output.writeString(19, "b");
+                output.writeInt32(16, 4);
+            }
+        });
+
+        TestMessage message = ProtoDecoder.decode(TestMessage.SERIALIZER, bytes);
+
+        assertThat(message.mInt32).isEqualTo(42);
+        assertThat(message.mRepeatedInt32).isEqualTo(new int[]{1, 2, 3, 4});
+        assertThat(message.mRepeatedString).containsExactly("a", "b").inOrder();
+    }
+
+    @Test
+    public void testDecodeSizesCollectionsOnce() {
+        final List<Integer> capacities = new ArrayList<>();
+        byte[] bytes = encodeWithProtobufLite(new Writes() {
+            @Override
+            public void write(@NonNull CodedOutputStream output) throws IOException {
+                output.writeString(1, "a");
+                output.writeString(1, "b");
+                output.writeString(1, "c");
+                output.writeTag(2, 2);
+                output.writeUInt32NoTag(4);
+                output.writeInt32NoTag(1);
+                output.writeInt32NoTag(300);
+                output.writeInt32NoTag(2);
+            }
+        });
+
+        decode(bytes, new Reads() {
+            @Override
+            public void read(@NonNull DecoderV1 decoder) {
+                assertThat(decoder.nextFieldId()).isEqualTo(1);
+                List<String> strings = decoder.decodeRepeatedString(
+                        null,
+                        new RecordingFactory<String>(capacities)
+                );
+                assertThat(strings).containsExactly("a", "b", "c").inOrder();
+
+                assertThat(decoder.nextFieldId()).isEqualTo(2);
+                List<Integer> ints = decoder.decodeRepeatedInt32(
+                        Arrays.asList(0),
+                        new RecordingFactory<Integer>(capacities)
+                );
+                assertThat(ints).containsExactly(0, 1, 300, 2).inOrder();
+                assertThat(decoder.hasNextField()).isFalse();
+            }
+        });
+
+        assertThat(capacities).containsExactly(3, 4).inOrder();
+    }
+
+    @Test
+    public void testHasNextFieldSkipsUnknownFields() {
+        byte[] bytes = encodeWithProtobufLite(new Writes() {
+            @Override
+            public void write(@NonNull CodedOutputStream output) throws IOException {
+                output.writeInt64(100, -1L);
+                output.writeFixed64(101, 1L);
+                output.writeString(102, "unknown");
+                output.writeFixed32(103, 1);
+                output.writeTag(104, 3);
+                output.writeInt32(1, 7);
+                output.writeTag(105, 3);
+                output.writeTag(105, 4);
+                output.writeTag(104, 4);
+                output.writeInt32(1, 42);
+                output.writeTag(106, 3);
+                output.writeTag(106, 4);
+            }
+        });
+
+        decode(bytes, new Reads() {
+            @Override
+            public void read(@NonNull DecoderV1 decoder) {
+                for (int fieldId = 100; fieldId <= 103; fieldId++) {
+                    assertThat(decoder.hasNextField()).isTrue();
+                    assertThat(decoder.nextFieldId()).isEqualTo(fieldId);
+                }
+
+                // The group is skipped entirely
+                assertThat(decoder.hasNextField()).isTrue();
+                assertThat(decoder.nextFieldId()).isEqualTo(1);
+
+                // Checking for another field doesn't consume the current one
+                assertThat(decoder.hasNextField()).isFalse();
+                assertThat(decoder.decodeInt32()).isEqualTo(42);
+                assertThat(decoder.hasNextField()).isFalse();
+            }
+        });
+    }
+
+    @Test
+    public void testNextFieldIdAtEnd() {
+        RuntimeException exception = runCatching(new Runnable() {
+            @Override
+            public void run() {
+                decode(new byte[0], new Reads() {
+                    @Override
+                    public void read(@NonNull DecoderV1 decoder) {
+                        decoder.nextFieldId();
+                    }
+                });
+            }
+        });
+
+        assertThat(exception).isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    public void testDecodeWithoutField() {
+        final byte[] bytes = {0x08, 0x01};
+        RuntimeException exception = runCatching(new Runnable() {
+            @Override
+            public void run() {
+                decode(bytes, new Reads() {
+                    @Override
+                    public void read(@NonNull DecoderV1 decoder) {
+                        decoder.nextFieldId();
+                        decoder.decodeInt32();
+                        decoder.decodeInt32();
+                    }
+                });
+            }
+        });
+
+        assertThat(exception).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void testDecodeWrongWireType() {
+        final byte[] bytes = {0x08, 0x01};
+        RuntimeException exception = runCatching(new Runnable() {
+            @Override
+            public void run() {
+                decode(bytes, new Reads() {
+                    @Override
+                    public void read(@NonNull DecoderV1 decoder) {
+                        decoder.nextFieldId();
+                        decoder.decodeString();
+                    }
+                });
+            }
+        });
+
+        assertThat(exception).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testDecodeMalformed() {
+        byte[][] values = {
+                // Truncated varint
+                {0x08, (byte) 0x80},
+                // Truncated fixed64
+                {0x09, 0x01, 0x02},
+                // String longer than the message
+                {0x62, 0x05, 'a'},
+                // Field ID zero
+                {0x00, 0x01},
+                // Unmatched end group
+                {0x0C},
+                // Packed fixed64 with a partial value
+                {(byte) 0xC2, 0x01, 0x03, 0x01, 0x02, 0x03},
+        };
+        for (final byte[] value : values) {
+            RuntimeException exception = runCatching(new Runnable() {
+                @Override
+                public void run() {
+                    ProtoDecoder.decode(TestMessage.SERIALIZER, value);
+                }
+            });
+
+            assertThat(exception).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @NonNull
+    private static String decodeStringFromDirectBuffer(@NonNull byte[] value) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(value.length + 2);
+        buffer.put((byte) 0x0A);
+        buffer.put((byte) value.length);
+        buffer.put(value);
+        buffer.flip();
+
+        final String[] result = new String[1];
+        ProtoDecoder.decode(new ReadsSerializer(new Reads() {
+            @Override
+            public void read(@NonNull DecoderV1 decoder) {
+                decoder.nextFieldId();
+                result[0] = decoder.decodeString();
+            }
+        }), buffer);
+        return result[0];
+    }
+
+    @NonNull
+    private static TestMessage newTestMessage() {
+        TestMessage nested = new TestMessage();
+        nested.mInt32 = 1;
+        nested.mString = "nested";
+
+        TestMessage message = new TestMessage();
+        message.mInt32 = -1;
+        message.mSInt32 = Integer.MIN_VALUE;
+        message.mUInt32 = Integer.MAX_VALUE;
+        message.mFixed32 = -2;
+        message.mInt64 = 1L << 40;
+        message.mSInt64 = -(1L << 40);
+        message.mUInt64 = Long.MIN_VALUE;
+        message.mFixed64 = -3L;
+        message.mFloat = Float.MAX_VALUE;
+        message.mDouble = Double.MIN_VALUE;
+        message.mBool = true;
+        message.mString = "h\u00e9llo \u4e16\u754c \ud83c\udf0d";
+        message.mBytes = new byte[]{0, -1, 127};
+        message.mEnum = TestEnum.ONE;
+        message.mMessage = nested;
+        message.mRepeatedInt32 = new int[]{0, 1, -1, Integer.MAX_VALUE};
+        message.mRepeatedSInt64 = Arrays.asList(0L, Long.MIN_VALUE, Long.MAX_VALUE);
+        message.mRepeatedDouble = new double[]{0.0, -0.0, Double.NaN};
+        message.mRepeatedString = Arrays.asList("a", "", "\u00e9");
+        message.mRepeatedMessage = Arrays.asList(nested, new TestMessage());
+        message.mRepeatedEnum = Arrays.asList(TestEnum.MINUS_ONE, TestEnum.DEFAULT);
+        message.mRepeatedBool = new boolean[]{true, false};
+        message.mRepeatedBytes = Arrays.asList(new byte[0], new byte[]{1});
+        message.mRepeatedFixed64 = new long[]{1, -1};
+        return message;
+    }
+
+    private static void assertTestMessage(@NonNull TestMessage message) {
+        assertThat(message.mInt32).isEqualTo(-1);
+        assertThat(message.mSInt32).isEqualTo(Integer.MIN_VALUE);
+        assertThat(message.mUInt32).isEqualTo(Integer.MAX_VALUE);
+        assertThat(message.mFixed32).isEqualTo(-2);
+        assertThat(message.mInt64).isEqualTo(1L << 40);
+        assertThat(message.mSInt64).isEqualTo(-(1L << 40));
+        assertThat(message.mUInt64).isEqualTo(Long.MIN_VALUE);
+        assertThat(message.mFixed64).isEqualTo(-3L);
+        assertThat(message.mFloat).isEqualTo(Float.MAX_VALUE);
+        assertThat(message.mDouble).isEqualTo(Double.MIN_VALUE);
+        assertThat(message.mBool).isTrue();
+        assertThat(message.mString).isEqualTo("h\u00e9llo \u4e16\u754c \ud83c\udf0d");
+        assertThat(message.mBytes).isEqualTo(new byte[]{0, -1, 127});
+        assertThat(message.mEnum).isEqualTo(TestEnum.ONE);
+        assertThat(message.mMessage.mInt32).isEqualTo(1);
+        assertThat(message.mMessage.mString).isEqualTo("nested");
+        assertThat(message.mRepeatedInt32).isEqualTo(new int[]{0, 1, -1, Integer.MAX_VALUE});
+        assertThat(message.mRepeatedSInt64)
+                .containsExactly(0L, Long.MIN_VALUE, Long.MAX_VALUE).inOrder();
+        assertThat(message.mRepeatedDouble).isEqualTo(new double[]{0.0, -0.0, Double.NaN});
+        assertThat(message.mRepeatedString).containsExactly("a", "", "\u00e9").inOrder();
+        assertThat(message.mRepeatedMessage).hasSize(2);
+        assertThat(message.mRepeatedMessage.get(0).mString).isEqualTo("nested");
+        assertThat(message.mRepeatedMessage.get(1).mString).isNull();
+        assertThat(message.mRepeatedEnum)
+                .containsExactly(TestEnum.MINUS_ONE, TestEnum.DEFAULT).inOrder();
+        assertThat(message.mRepeatedBool).isEqualTo(new boolean[]{true, false});
+        assertThat(message.mRepeatedBytes).hasSize(2);
+        assertThat(message.mRepeatedBytes.get(0)).isEmpty();
+        assertThat(message.mRepeatedBytes.get(1)).isEqualTo(new byte[]{1});
+        assertThat(message.mRepeatedFixed64).isEqualTo(new long[]{1, -1});
+    }
+
+    @NonNull
+    private static byte[] encodeWithProtobufLite(@NonNull Writes writes) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+            writes.write(output);
+            output.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void decode(@NonNull byte[] bytes, @NonNull Reads reads) {
+        ProtoDecoder.decode(new ReadsSerializer(reads), bytes);
+    }
+
+    @Nullable
+    private static RuntimeException runCatching(@NonNull Runnable runnable) {
+        try {
+            runnable.run();
+        } catch (RuntimeException exception) {
+            return exception;
+        }
+        return null;
+    }
+
+    private interface Writes {
+        void write(@NonNull CodedOutputStream output) throws IOException;
+    }
+
+    private interface Reads {
+        void read(@NonNull DecoderV1 decoder);
+    }
+
+    private static final class ReadsSerializer implements SerializerV1<Object> {
+        @NonNull
+        private final Reads mReads;
+
+        ReadsSerializer(@NonNull Reads reads) {
+            mReads = reads;
+        }
+
+        @Override
+        public void encode(@NonNull EncoderV1 encoder, @NonNull Object message) {
+            throw new UnsupportedOperationException();
+        }
+
+        @NonNull
+        @Override
+        public Object decode(@NonNull DecoderV1 decoder, @Nullable Object mergeFrom) {
+            mReads.read(decoder);
+            return new Object();
+        }
+    }
+
+    private static final class RecordingFactory<T>
+            implements CollectionFactory<List<T>> {
+        @NonNull
+        private final List<Integer> mCapacities;
+
+        RecordingFactory(@NonNull List<Integer> capacities) {
+            mCapacities = capacities;
+        }
+
+        @NonNull
+        @Override
+        public List<T> create(int capacity) {
+            mCapacities.add(capacity);
+            return new ArrayList<>(capacity);
+        }
+    }
+
+    private enum TestEnum {
+        DEFAULT,
+        ONE,
+        MINUS_ONE
+    }
+
+    @NonNull
+    private static final EnumSerializerV1<TestEnum> ENUM_SERIALIZER =
+            new EnumSerializerV1<TestEnum>() {
+                @Override
+                public int encode(@NonNull TestEnum value) {
+                    switch (value) {
+                        case ONE:
+                            return 1;
+                        case MINUS_ONE:
+                            return -1;
+                        default:
+                            return 0;
+                    }
+                }
+
+                @NonNull
+                @Override
+                public TestEnum decode(int valueId) {
+                    switch (valueId) {
+                        case 1:
+                            return TestEnum.ONE;
+                        case -1:
+                            return TestEnum.MINUS_ONE;
+                        default:
+                            return TestEnum.DEFAULT;
+                    }
+                }
+            };
+
+    /**
+     * A message with a field of every type, and a serializer as the annotation processor would
+     * generate it.
+     */
+    private static final class TestMessage {
+        int mInt32;
+        int mSInt32;
+        int mUInt32;
+        int mFixed32;
+        long mInt64;
+        long mSInt64;
+        long mUInt64;
+        long mFixed64;
+        float mFloat;
+        double mDouble;
+        boolean mBool;
+        @Nullable
+        String mString;
+        @Nullable
+        byte[] mBytes;
+        @Nullable
+        TestEnum mEnum;
+        @Nullable
+        TestMessage mMessage;
+        @Nullable
+        int[] mRepeatedInt32;
+        @Nullable
+        List<Long> mRepeatedSInt64;
+        @Nullable
+        double[] mRepeatedDouble;
+        @Nullable
+        List<String> mRepeatedString;
+        @Nullable
+        List<TestMessage> mRepeatedMessage;
+        @Nullable
+        List<TestEnum> mRepeatedEnum;
+        @Nullable
+        boolean[] mRepeatedBool;
+        @Nullable
+        List<byte[]> mRepeatedBytes;
+        @Nullable
+        long[] mRepeatedFixed64;
+
+        @NonNull
+        static final SerializerV1<TestMessage> SERIALIZER = new SerializerV1<TestMessage>() {
+            @Override
+            public void encode(@NonNull EncoderV1 encoder, @NonNull TestMessage message) {
+                encoder.encodeRepeatedFixed64(24, message.mRepeatedFixed64);
+                encoder.encodeRepeatedBytes(23, message.mRepeatedBytes);
+                encoder.encodeRepeatedBool(22, message.mRepeatedBool);
+                encoder.encodeRepeatedEnum(21, ENUM_SERIALIZER, message.mRepeatedEnum);
+                encoder.encodeRepeatedMessage(20, this, message.mRepeatedMessage);
+                encoder.encodeRepeatedString(19, message.mRepeatedString);
+                encoder.encodeRepeatedDouble(18, message.mRepeatedDouble);
+                encoder.encodeRepeatedSInt64(17, message.mRepeatedSInt64);
+                encoder.encodeRepeatedInt32(16, message.mRepeatedInt32);
+                encoder.encodeMessage(15, this, message.mMessage);
+                encoder.encodeEnum(14, ENUM_SERIALIZER, message.mEnum);
+                encoder.encodeBytes(13, message.mBytes);
+                encoder.encodeString(12, message.mString);
+                encoder.encodeBool(11, message.mBool);
+                encoder.encodeDouble(10, message.mDouble);
+                encoder.encodeFloat(9, message.mFloat);
+                encoder.encodeFixed64(8, message.mFixed64);
+                encoder.encodeUInt64(7, message.mUInt64);
+                encoder.encodeSInt64(6, message.mSInt64);
+                encoder.encodeInt64(5, message.mInt64);
+                encoder.encodeFixed32(4, message.mFixed32);
+                encoder.encodeUInt32(3, message.mUInt32);
+                encoder.encodeSInt32(2, message.mSInt32);
+                encoder.encodeInt32(1, message.mInt32);
+            }
+
+            @NonNull
+            @Override
+            public TestMessage decode(
+                    @NonNull DecoderV1 decoder,
+                    @Nullable TestMessage mergeFrom
+            ) {
+                TestMessage message = new TestMessage();
+                while (decoder.hasNextField()) {
+                    switch (decoder.nextFieldId()) {
+                        case 1:
+                            message.mInt32 = decoder.decodeInt32();
+                            break;
+                        case 2:
+                            message.mSInt32 = decoder.decodeSInt32();
+                            break;
+                        case 3:
+                            message.mUInt32 = decoder.decodeUInt32();
+                            break;
+                        case 4:
+                            message.mFixed32 = decoder.decodeFixed32();
+                            break;
+                        case 5:
+                            message.mInt64 = decoder.decodeInt64();
+                            break;
+                        case 6:
+                            message.mSInt64 = decoder.decodeSInt64();
+                            break;
+                        case 7:
+                            message.mUInt64 = decoder.decodeUInt64();
+                            break;
+                        case 8:
+                            message.mFixed64 = decoder.decodeFixed64();
+                            break;
+                        case 9:
+                            message.mFloat = decoder.decodeFloat();
+                            break;
+                        case 10:
+                            message.mDouble = decoder.decodeDouble();
+                            break;
+                        case 11:
+                            message.mBool = decoder.decodeBool();
+                            break;
+                        case 12:
+                            message.mString = decoder.decodeString();
+                            break;
+                        case 13:
+                            message.mBytes = decoder.decodeBytes();
+                            break;
+                        case 14:
+                            message.mEnum = decoder.decodeEnum(ENUM_SERIALIZER);
+                            break;
+                        case 15:
+                            message.mMessage = decoder.decodeMessage(this, message.mMessage);
+                            break;
+                        case 16:
+                            message.mRepeatedInt32 =
+                                    decoder.decodeRepeatedInt32(message.mRepeatedInt32);
+                            break;
+                        case 17:
+                            message.mRepeatedSInt64 = decoder.decodeRepeatedSInt64(
+                                    message.mRepeatedSInt64,
+                                    SerializationRuntime.<Long>getListFactory()
+                            );
+                            break;
+                        case 18:
+                            message.mRepeatedDouble =
+                                    decoder.decodeRepeatedDouble(message.mRepeatedDouble);
+                            break;
+                        case 19:
+                            message.mRepeatedString = decoder.decodeRepeatedString(
+                                    message.mRepeatedString,
+                                    SerializationRuntime.<String>getListFactory()
+                            );
+                            break;
+                        case 20:
+                            message.mRepeatedMessage = decoder.decodeRepeatedMessage(
+                                    this,
+                                    message.mRepeatedMessage,
+                                    SerializationRuntime.<TestMessage>getListFactory()
+                            );
+                            break;
+                        case 21:
+                            message.mRepeatedEnum = decoder.decodeRepeatedEnum(
+                                    ENUM_SERIALIZER,
+                                    message.mRepeatedEnum,
+                                    SerializationRuntime.<TestEnum>getListFactory()
+                            );
+                            break;
+                        case 22:
+                            message.mRepeatedBool =
+                                    decoder.decodeRepeatedBool(message.mRepeatedBool);
+                            break;
+                        case 23:
+                            message.mRepeatedBytes = decoder.decodeRepeatedBytes(
+                                    message.mRepeatedBytes,
+                                    SerializationRuntime.<byte[]>getListFactory()
+                            );
+                            break;
+                        case 24:
+                            message.mRepeatedFixed64 =
+                                    decoder.decodeRepeatedFixed64(message.mRepeatedFixed64);
+                            break;
+                    }
+                }
+                return message;
+            }
+        };
+    }
+}
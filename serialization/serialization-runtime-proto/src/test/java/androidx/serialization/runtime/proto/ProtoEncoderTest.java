@@ -0,0 +1,517 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.serialization.runtime.proto;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.serialization.runtime.internal.DecoderV1;
+import androidx.serialization.runtime.internal.EncoderV1;
+import androidx.serialization.runtime.internal.EnumSerializerV1;
+import androidx.serialization.runtime.internal.SerializerV1;
+
+import com.google.protobuf.CodedOutputStream;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+
+/**
+ * Unit tests for {@link ProtoEncoder}.
+ * <p>
+ * Expected encodings are produced with the protobuf-lite runtime's {@link CodedOutputStream}.
+ */
+public final class ProtoEncoderTest {
+    @NonNull
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Test
+    public void testEncodeVarints() {
+        byte[] bytes = encode(new Fields() {
+            @Override
+            public void encode(@NonNull EncoderV1 encoder) {
+                encoder.encodeUInt64(8, -1L);
+                encoder.encodeSInt64(7, Long.MIN_VALUE);
+                encoder.encodeInt64(6, Long.MAX_VALUE);
+                encoder.encodeUInt32(5, 0x80000000);
+                encoder.encodeSInt32(4, -2);
+                encoder.encodeSInt32(3, 63);
+                encoder.encodeInt32(2, -1);
+                encoder.encodeInt32(1, 150);
+            }
+        });
+
+        assertThat(bytes).isEqualTo(expected(new Writes() {
+            @Override
+            public void write(@NonNull CodedOutputStream output) throws IOException {
+                output.writeInt32(1, 150);
+                output.writeInt32(2, -1);
+                output.writeSInt32(3, 63);
+                output.writeSInt32(4, -2);
+                output.writeUInt32(5, 0x80000000);
+                output.writeInt64(6, Long.MAX_VALUE);
+                output.writeSInt64(7, Long.MIN_VALUE);
+                output.writeUInt64(8, -1L);
+            }
+        }));
+    }
+
+    @Test
+    public void testEncodeFixed() {
+        byte[] bytes = encode(new Fields() {
+            @Override
+            public void encode(@NonNull EncoderV1 encoder) {
+                encoder.encodeDouble(4, -0.0);
+                encoder.encodeFloat(3, 1.5f);
+                encoder.encodeFixed64(2, 0x0102030405060708L);
+                encoder.encodeFixed32(1, -1);
+            }
+        });
+
+        assertThat(bytes).isEqualTo(expected(new Writes() {
+            @Override
+            public void write(@NonNull CodedOutputStream output) throws IOException {
+                output.writeFixed32(1, -1);
+                output.writeFixed64(2, 0x0102030405060708L);
+                output.writeFloat(3, 1.5f);
+                output.writeDouble(4, -0.0);
+            }
+        }));
+    }
+
+    @Test
+    public void testEncodeDefaultValues() {
+        byte[] bytes = encode(new Fields() {
+            @Override
+            public void encode(@NonNull EncoderV1 encoder) {
+                encoder.encodeBool(1, false);
+                encoder.encodeInt32(2, 0);
+                encoder.encodeSInt64(3, 0);
+                encoder.encodeFixed32(4, 0);
+                encoder.encodeDouble(5, 0.0);
+                encoder.encodeFloat(6, 0.0f);
+                encoder.encodeString(7, "");
+                encoder.encodeString(8, null);
+                encoder.encodeBytes(9, new byte[0]);
+                encoder.encodeMessage(10, NESTED_SERIALIZER, null);
+                encoder.encodeEnum(11, ENUM_SERIALIZER, null);
+                encoder.encodeRepeatedInt32(12, new int[0]);
+                encoder.encodeRepeatedInt64(13, (long[]) null);
+                encoder.encodeRepeatedBool(14, Collections.<Boolean>emptyList());
+                encoder.encodeRepeatedString(15, new String[0]);
+                encoder.encodeRepeatedMessage(16, NESTED_SERIALIZER, null);
+            }
+        });
+
+        assertThat(bytes).isEmpty();
+    }
+
+    @Test
+    public void testEncodeString() {
+        final String ascii = "Hello, world!";
+        final String multiByte = "h\u00e9llo \u4e16\u754c \ud83c\udf0d";
+        byte[] bytes = encode(new Fields() {
+            @Override
+            public void encode(@NonNull EncoderV1 encoder) {
+                encoder.encodeString(2, multiByte);
+                encoder.encodeString(1, ascii);
+            }
+        });
+
+        assertThat(bytes).isEqualTo(expected(new Writes() {
+            @Override
+            public void write(@NonNull CodedOutputStream output) throws IOException {
+                output.writeString(1, ascii);
+                output.writeString(2, multiByte);
+            }
+        }));
+    }
+
+    @Test
+    public void testEncodeStringUnpairedSurrogate() {
+        final String value = "a\ud83cb\udf0d";
+        byte[] bytes = encode(new Fields() {
+            @Override
+            public void encode(@NonNull EncoderV1 encoder) {
+                encoder.encodeString(1, value);
+            }
+        });
+
+        assertThat(bytes).isEqualTo(expected(new Writes() {
+            @Override
+            public void write(@NonNull CodedOutputStream output) throws IOException {
+                output.writeByteArray(1, value.getBytes(UTF_8));
+            }
+        }));
+    }
+
+    @Test
+    public void testEncodeRepeatedPacked() {
+        final int[] ints = {1, -1, 300, 0, Integer.MIN_VALUE};
+        final long[] longs = {0, Long.MIN_VALUE, -1, 1};
+        final double[] doubles = {0.5, -0.0, Double.NaN};
+        final boolean[] bools = {true, false, true};
+        byte[] bytes = encode(new Fields() {
+            @Override
+            public void encode(@NonNull EncoderV1 encoder) {
+                encoder.encodeRepeatedBool(6, bools);
+                encoder.encodeRepeatedDouble(5, doubles);
+                encoder.encodeRepeatedFixed32(4, new LinkedList<>(Arrays.asList(1, 2, 3)));
+                encoder.encodeRepeatedSInt64(3, longs);
+                encoder.encodeRepeatedSInt32(2, ints);
+                encoder.encodeRepeatedInt32(1, ints);
+            }
+        });
+
+        assertThat(bytes).isEqualTo(expected(new Writes() {
+            @Override
+            public void write(@NonNull CodedOutputStream output) throws IOException {
+                int size = 0;
+                for (int value : ints) {
+                    size += CodedOutputStream.computeInt32SizeNoTag(value);
+                }
+                writeLengthDelimitedHeader(output, 1, size);
+                for (int value : ints) {
+                    output.writeInt32NoTag(value);
+                }
+
+                size = 0;
+                for (int value : ints) {
+                    size += CodedOutputStream.computeSInt32SizeNoTag(value);
+                }
+                writeLengthDelimitedHeader(output, 2, size);
+                for (int value : ints) {
+                    output.writeSInt32NoTag(value);
+                }
+
+                size = 0;
+                for (long value : longs) {
+                    size += CodedOutputStream.computeSInt64SizeNoTag(value);
+                }
+                writeLengthDelimitedHeader(output, 3, size);
+                for (long value : longs) {
+                    output.writeSInt64NoTag(value);
+                }
+
+                writeLengthDelimitedHeader(output, 4, 12);
+                for (int value = 1; value <= 3; value++) {
+                    output.writeFixed32NoTag(value);
+                }
+
+                writeLengthDelimitedHeader(output, 5, 24);
+                for (double value : doubles) {
+                    output.writeDoubleNoTag(value);
+                }
+
+                writeLengthDelimitedHeader(output, 6, 3);
+                for (boolean value : bools) {
+                    output.writeBoolNoTag(value);
+                }
+            }
+        }));
+    }
+
+    @Test
+    public void testEncodeRepeatedLengthDelimited() {
+        byte[] bytes = encode(new Fields() {
+            @Override
+            public void encode(@NonNull EncoderV1 encoder) {
+                encoder.encodeRepeatedMessage(
+                        3,
+                        NESTED_SERIALIZER,
+                        Arrays.asList(new Nested(1, "a"), new Nested(0, null))
+                );
+                encoder.encodeRepeatedBytes(2, Arrays.asList(new byte[]{1, 2}, new byte[0]));
+                encoder.encodeRepeatedString(1, new String[]{"a", "", "b"});
+            }
+        });
+
+        assertThat(bytes).isEqualTo(expected(new Writes() {
+            @Override
+            public void write(@NonNull CodedOutputStream output) throws IOException {
+                output.writeString(1, "a");
+                output.writeString(1, "");
+                output.writeString(1, "b");
+                output.writeByteArray(2, new byte[]{1, 2});
+                output.writeByteArray(2, new byte[0]);
+                writeNested(output, 3, 1, "a");
+                writeNested(output, 3, 0, null);
+            }
+        }));
+    }
+
+    @Test
+    public void testEncodeEnum() {
+        byte[] bytes = encode(new Fields() {
+            @Override
+            public void encode(@NonNull EncoderV1 encoder) {
+                encoder.encodeRepeatedEnum(
+                        2,
+                        ENUM_SERIALIZER,
+                        Arrays.asList(TestEnum.ONE, TestEnum.DEFAULT, TestEnum.MINUS_ONE)
+                );
+                encoder.encodeEnum(1, ENUM_SERIALIZER, TestEnum.MINUS_ONE);
+            }
+        });
+
+        assertThat(bytes).isEqualTo(expected(new Writes() {
+            @Override
+            public void write(@NonNull CodedOutputStream output) throws IOException {
+                output.writeEnum(1, -1);
+                writeLengthDelimitedHeader(output, 2, 12);
+                output.writeEnumNoTag(1);
+                output.writeEnumNoTag(0);
+                output.writeEnumNoTag(-1);
+            }
+        }));
+    }
+
+    @Test
+    public void testEncodeNestedMessages() {
+        // Larger than the initial buffer, to exercise growing the buffer between fields.
+        final String value = repeat('x', 1000);
+        byte[] bytes = encode(new Fields() {
+            @Override
+            public void encode(@NonNull EncoderV1 encoder) {
+                encoder.encodeMessage(2, NESTED_SERIALIZER, new Nested(150, value));
+                encoder.encodeMessage(1, NESTED_SERIALIZER, new Nested(0, null));
+            }
+        });
+
+        assertThat(bytes).isEqualTo(expected(new Writes() {
+            @Override
+            public void write(@NonNull CodedOutputStream output) throws IOException {
+                writeNested(output, 1, 0, null);
+                writeNested(output, 2, 150, value);
+            }
+        }));
+    }
+
+    @Test
+    public void testEncodeLargeMessage() {
+        final byte[] value = new byte[200_000];
+        Arrays.fill(value, (byte) 7);
+        final Fields fields = new Fields() {
+            @Override
+            public void encode(@NonNull EncoderV1 encoder) {
+                encoder.encodeString(2, "after");
+                encoder.encodeBytes(1, value);
+            }
+        };
+        byte[] expected = expected(new Writes() {
+            @Override
+            public void write(@NonNull CodedOutputStream output) throws IOException {
+                output.writeByteArray(1, value);
+                output.writeString(2, "after");
+            }
+        });
+
+        assertThat(encode(fields)).isEqualTo(expected);
+        // The pooled encoder releases its large buffer, but must still encode correctly.
+        assertThat(encode(fields)).isEqualTo(expected);
+    }
+
+    @Test
+    public void testEncodeReentrant() {
+        final Nested nested = new Nested(42, "nested");
+        byte[] bytes = encode(new Fields() {
+            @Override
+            public void encode(@NonNull EncoderV1 encoder) {
+                // Encoding another message while the pooled encoder is in use
+                encoder.encodeBytes(2, ProtoEncoder.encode(NESTED_SERIALIZER, nested));
+                encoder.encodeInt32(1, 1);
+            }
+        });
+
+        assertThat(bytes).isEqualTo(expected(new Writes() {
+            @Override
+            public void write(@NonNull CodedOutputStream output) throws IOException {
+                output.writeInt32(1, 1);
+                writeNested(output, 2, 42, "nested");
+            }
+        }));
+    }
+
+    @Test
+    public void testEncodeToOutputStream() throws IOException {
+        Nested nested = new Nested(42, "nested");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ProtoEncoder.encode(NESTED_SERIALIZER, nested, output);
+
+        assertThat(output.toByteArray()).isEqualTo(ProtoEncoder.encode(NESTED_SERIALIZER, nested));
+    }
+
+    @Test
+    public void testEncodeToByteBuffer() {
+        Nested nested = new Nested(42, "nested");
+        byte[] expected = ProtoEncoder.encode(NESTED_SERIALIZER, nested);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+        buffer.put((byte) 1);
+
+        assertThat(ProtoEncoder.encode(NESTED_SERIALIZER, nested, buffer))
+                .isEqualTo(expected.length);
+        assertThat(buffer.position()).isEqualTo(expected.length + 1);
+
+        byte[] bytes = new byte[expected.length];
+        buffer.position(1);
+        buffer.get(bytes);
+        assertThat(bytes).isEqualTo(expected);
+    }
+
+    @NonNull
+    private static byte[] encode(@NonNull final Fields fields) {
+        return ProtoEncoder.encode(new SerializerV1<Object>() {
+            @Override
+            public void encode(@NonNull EncoderV1 encoder, @NonNull Object message) {
+                fields.encode(encoder);
+            }
+
+            @NonNull
+            @Override
+            public Object decode(@NonNull DecoderV1 decoder, @Nullable Object mergeFrom) {
+                throw new UnsupportedOperationException();
+            }
+        }, new Object());
+    }
+
+    @NonNull
+    private static byte[] expected(@NonNull Writes writes) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+            writes.write(output);
+            output.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void writeLengthDelimitedHeader(
+            @NonNull CodedOutputStream output,
+            int fieldId,
+            int size
+    ) throws IOException {
+        output.writeTag(fieldId, 2);
+        output.writeUInt32NoTag(size);
+    }
+
+    private static void writeNested(
+            @NonNull CodedOutputStream output,
+            int fieldId,
+            int id,
+            @Nullable String name
+    ) throws IOException {
+        int size = 0;
+        if (id != 0) {
+            size += CodedOutputStream.computeInt32Size(1, id);
+        }
+        if (name != null) {
+            size += CodedOutputStream.computeStringSize(2, name);
+        }
+        writeLengthDelimitedHeader(output, fieldId, size);
+        if (id != 0) {
+            output.writeInt32(1, id);
+        }
+        if (name != null) {
+            output.writeString(2, name);
+        }
+    }
+
+    @NonNull
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    private interface Fields {
+        void encode(@NonNull EncoderV1 encoder);
+    }
+
+    private interface Writes {
+        void write(@NonNull CodedOutputStream output) throws IOException;
+    }
+
+    private static final class Nested {
+        final int mId;
+        @Nullable
+        final String mName;
+
+        Nested(int id, @Nullable String name) {
+            mId = id;
+            mName = name;
+        }
+    }
+
+    @NonNull
+    private static final SerializerV1<Nested> NESTED_SERIALIZER = new SerializerV1<Nested>() {
+        @Override
+        public void encode(@NonNull EncoderV1 encoder, @NonNull Nested message) {
+            encoder.encodeString(2, message.mName);
+            encoder.encodeInt32(1, message.mId);
+        }
+
+        @NonNull
+        @Override
+        public Nested decode(@NonNull DecoderV1 decoder, @Nullable Nested mergeFrom) {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    private enum TestEnum {
+        DEFAULT,
+        ONE,
+        MINUS_ONE
+    }
+
+    @NonNull
+    private static final EnumSerializerV1<TestEnum> ENUM_SERIALIZER =
+            new EnumSerializerV1<TestEnum>() {
+                @Override
+                public int encode(@NonNull TestEnum value) {
+                    switch (value) {
+                        case ONE:
+                            return 1;
+                        case MINUS_ONE:
+                            return -1;
+                        default:
+                            return 0;
+                    }
+                }
+
+                @NonNull
+                @Override
+                public TestEnum decode(int valueId) {
+                    switch (valueId) {
+                        case 1:
+                            return TestEnum.ONE;
+                        case -1:
+                            return TestEnum.MINUS_ONE;
+                        default:
+                            return TestEnum.DEFAULT;
+                    }
+                }
+            };
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.benchmark
+
+import android.util.Log
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.test.filters.LargeTest
+import androidx.work.Data
+import org.junit.Assert.assertEquals
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.io.ByteArrayOutputStream
+import java.io.ObjectOutputStream
+
+/**
+ * Compares encoding and decoding [Data] with the compact binary format against the legacy
+ * [ObjectOutputStream] based format, which is still read for existing databases.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class DataSerializationBenchmark(private val payload: Payload) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val data = payload.create()
+
+    @Test
+    fun encode() {
+        benchmarkRule.measureRepeated {
+            Data.toByteArrayInternal(data)
+        }
+        Log.d(LOG_TAG, "payload=$payload, size=${Data.toByteArrayInternal(data).size}, " +
+                "legacySize=${toLegacyByteArray(data).size}")
+    }
+
+    @Test
+    fun decode() {
+        val bytes = Data.toByteArrayInternal(data)
+        benchmarkRule.measureRepeated {
+            Data.fromByteArray(bytes)
+        }
+        assertEquals(data, Data.fromByteArray(bytes))
+    }
+
+    @Test
+    fun encodeLegacy() {
+        benchmarkRule.measureRepeated {
+            toLegacyByteArray(data)
+        }
+    }
+
+    @Test
+    fun decodeLegacy() {
+        val bytes = toLegacyByteArray(data)
+        benchmarkRule.measureRepeated {
+            Data.fromByteArray(bytes)
+        }
+        assertEquals(data, Data.fromByteArray(bytes))
+    }
+
+    private fun toLegacyByteArray(data: Data): ByteArray {
+        val outputStream = ByteArrayOutputStream()
+        ObjectOutputStream(outputStream).use { objectOutputStream ->
+            val values = data.keyValueMap
+            objectOutputStream.writeInt(values.size)
+            for ((key, value) in values) {
+                objectOutputStream.writeUTF(key)
+                objectOutputStream.writeObject(value)
+            }
+        }
+        return outputStream.toByteArray()
+    }
+
+    enum class Payload {
+        /** A few scalars, typical of worker inputs. */
+        SMALL {
+            override fun create() = Data.Builder()
+                .putString("url", "https://www.example.com/upload")
+                .putInt("attempt", 3)
+                .putLong("timestamp", 1_600_000_000_000L)
+                .putBoolean("metered", false)
+                .build()
+        },
+        /** Primitive arrays, typical of worker outputs. */
+        ARRAYS {
+            override fun create() = Data.Builder()
+                .putIntArray("ids", IntArray(256) { it })
+                .putLongArray("timestamps", LongArray(128) { it * 1000L })
+                .putDoubleArray("scores", DoubleArray(64) { it / 64.0 })
+                .putStringArray("names", Array(32) { "name$it" })
+                .build()
+        };
+
+        abstract fun create(): Data
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "payload={0}")
+        fun data(): List<Array<Any>> = Payload.values().map { arrayOf<Any>(it) }
+
+        private const val LOG_TAG = "DataSerializationBenchmark"
+    }
+}
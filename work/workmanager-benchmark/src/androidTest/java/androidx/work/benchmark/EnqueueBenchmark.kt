@@ -0,0 +1,159 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.benchmark
+
+import android.content.Context
+import android.util.Log
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.LargeTest
+import androidx.work.Configuration
+import androidx.work.OneTimeWorkRequest
+import androidx.work.OneTimeWorkRequestBuilder
+import androidx.work.impl.Processor
+import androidx.work.impl.Scheduler
+import androidx.work.impl.WorkDatabase
+import androidx.work.impl.WorkManagerImpl
+import androidx.work.impl.model.WorkSpec
+import androidx.work.impl.utils.SerialExecutor
+import androidx.work.impl.utils.taskexecutor.TaskExecutor
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.util.concurrent.Executor
+
+/**
+ * Measures how many independent requests can be enqueued per second, one continuation at a time
+ * and through [WorkManagerImpl.enqueueContinuations].
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class EnqueueBenchmark(private val requestCount: Int) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private lateinit var context: Context
+    private lateinit var database: WorkDatabase
+    private lateinit var workManager: WorkManagerImpl
+    private val scheduler = CountingScheduler()
+    private var enqueuedRequests = 0L
+    private var enqueueTimeNanos = 0L
+
+    @Before
+    fun setUp() {
+        context = ApplicationProvider.getApplicationContext()
+        // Run everything inline, so that each enqueue has completed when it returns.
+        val executor = Executor { it.run() }
+        val serialExecutor = SerialExecutor(executor)
+        val taskExecutor = object : TaskExecutor {
+            override fun postToMainThread(runnable: Runnable) {
+                runnable.run()
+            }
+
+            override fun getMainThreadExecutor(): Executor {
+                return executor
+            }
+
+            override fun executeOnBackgroundThread(runnable: Runnable) {
+                runnable.run()
+            }
+
+            override fun getBackgroundExecutor(): SerialExecutor {
+                return serialExecutor
+            }
+        }
+        val configuration = Configuration.Builder()
+            .setExecutor(executor)
+            .setTaskExecutor(executor)
+            .build()
+        database = WorkDatabase.create(context, executor, true)
+        val schedulers = listOf<Scheduler>(scheduler)
+        val processor = Processor(context, configuration, taskExecutor, database, schedulers)
+        workManager = WorkManagerImpl(
+            context, configuration, taskExecutor, database, schedulers, processor
+        )
+    }
+
+    @After
+    fun tearDown() {
+        val requestsPerSecond = enqueuedRequests * 1_000_000_000.0 / enqueueTimeNanos
+        Log.d(
+            LOG_TAG,
+            "requestCount=$requestCount, requestsPerSecond=$requestsPerSecond, " +
+                "schedulingPasses=${scheduler.schedulingPasses}"
+        )
+        database.close()
+    }
+
+    @Test
+    fun enqueueIndividually() {
+        measureEnqueue { requests ->
+            requests.forEach { workManager.enqueue(it) }
+        }
+    }
+
+    @Test
+    fun enqueueContinuations() {
+        measureEnqueue { requests ->
+            workManager.enqueueContinuations(requests.map { workManager.beginWith(it) })
+        }
+    }
+
+    private fun measureEnqueue(block: (List<OneTimeWorkRequest>) -> Unit) {
+        benchmarkRule.measureRepeated {
+            val requests = runWithTimingDisabled {
+                database.clearAllTables()
+                List(requestCount) { OneTimeWorkRequestBuilder<NoOpWorker>().build() }
+            }
+            val start = System.nanoTime()
+            block(requests)
+            enqueueTimeNanos += System.nanoTime() - start
+            enqueuedRequests += requestCount
+        }
+    }
+
+    /**
+     * A [Scheduler] that only keeps track of how often it is asked to schedule work.
+     */
+    private class CountingScheduler : Scheduler {
+        var schedulingPasses = 0
+
+        override fun schedule(vararg workSpecs: WorkSpec) {
+            schedulingPasses++
+        }
+
+        override fun cancel(workSpecId: String) {
+        }
+
+        override fun hasLimitedSchedulingSlots(): Boolean {
+            return false
+        }
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "requestCount={0}")
+        fun data(): List<Array<Any>> = listOf(100, 1000, 5000).map { arrayOf<Any>(it) }
+
+        private const val LOG_TAG = "EnqueueBenchmark"
+    }
+}
@@ -27,6 +27,8 @@ import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 
+import android.database.Cursor;
+
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import androidx.test.filters.SmallTest;
 import androidx.work.impl.model.WorkSpec;
@@ -36,7 +38,10 @@ import androidx.work.worker.TestWorker;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 @RunWith(AndroidJUnit4.class)
@@ -115,6 +120,46 @@ public class WorkSpecDaoTest extends DatabaseTest {
                 containsInAnyOrder(work.getWorkSpec(), enqueued.getWorkSpec()));
     }
 
+    @Test
+    @SmallTest
+    public void testSchedulingColumnsCoverAllColumnsButData() {
+        Set<String> columns = new HashSet<>();
+        Cursor cursor = mDatabase.query("PRAGMA table_info(workspec)", null);
+        try {
+            int nameIndex = cursor.getColumnIndexOrThrow("name");
+            while (cursor.moveToNext()) {
+                columns.add(cursor.getString(nameIndex));
+            }
+        } finally {
+            cursor.close();
+        }
+        assertThat(columns.remove("input"), is(true));
+        assertThat(columns.remove("output"), is(true));
+
+        Set<String> schedulingColumns = new HashSet<>();
+        for (String column : WorkSpecDao.SCHEDULING_COLUMNS.split(",")) {
+            schedulingColumns.add(column.trim());
+        }
+        assertThat(schedulingColumns, is(columns));
+    }
+
+    @Test
+    @SmallTest
+    public void testEligibleWorkSpecsSkipData() {
+        OneTimeWorkRequest work = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setInputData(new Data.Builder().putString("key", "value").build())
+                .build();
+        insertWork(work);
+
+        WorkSpec expected = new WorkSpec(work.getWorkSpec());
+        expected.input = Data.EMPTY;
+        List<WorkSpec> eligibleWorkSpecs =
+                mDatabase.workSpecDao().getAllEligibleWorkSpecsForScheduling();
+        assertThat(eligibleWorkSpecs, containsInAnyOrder(expected));
+        assertThat(mDatabase.workSpecDao().getWorkSpec(work.getStringId()),
+                is(work.getWorkSpec()));
+    }
+
     @Test
     @SmallTest
     public void testScheduledWorkSpecCount() {
@@ -218,4 +263,36 @@ public class WorkSpecDaoTest extends DatabaseTest {
         // Not using contains in any order as the scheduleRequestedAt changes post reset.
         assertThat(eligibleWorkSpecs.get(0).id, is(enqueued.getStringId()));
     }
+
+    @Test
+    @SmallTest
+    public void testMarkWorkSpecsScheduled() {
+        WorkSpecDao workSpecDao = mDatabase.workSpecDao();
+
+        long startTime = System.currentTimeMillis();
+        OneTimeWorkRequest first = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setPeriodStartTime(startTime, TimeUnit.MILLISECONDS)
+                .build();
+        OneTimeWorkRequest second = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setPeriodStartTime(startTime, TimeUnit.MILLISECONDS)
+                .build();
+        OneTimeWorkRequest enqueued = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setPeriodStartTime(startTime, TimeUnit.MILLISECONDS)
+                .build();
+
+        insertWork(first);
+        insertWork(second);
+        insertWork(enqueued);
+
+        int updated = workSpecDao.markWorkSpecsScheduled(
+                Arrays.asList(first.getStringId(), second.getStringId()), startTime);
+        assertThat(updated, is(2));
+
+        List<WorkSpec> eligibleWorkSpecs =
+                workSpecDao.getEligibleWorkForScheduling(MAX_SCHEDULER_LIMIT);
+        assertThat(eligibleWorkSpecs.size(), is(1));
+        assertThat(eligibleWorkSpecs.get(0).id, is(enqueued.getStringId()));
+        assertThat(workSpecDao.getWorkSpec(first.getStringId()).scheduleRequestedAt,
+                is(startTime));
+    }
 }
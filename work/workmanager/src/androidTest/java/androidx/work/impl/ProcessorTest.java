@@ -24,12 +24,15 @@ import static org.mockito.Mockito.verify;
 
 import android.content.Context;
 
+import androidx.annotation.NonNull;
 import androidx.test.core.app.ApplicationProvider;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import androidx.test.filters.SmallTest;
 import androidx.work.Configuration;
 import androidx.work.DatabaseTest;
 import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkPriority;
+import androidx.work.WorkerDispatchListener;
 import androidx.work.impl.utils.taskexecutor.InstantWorkTaskExecutor;
 import androidx.work.worker.InfiniteTestWorker;
 
@@ -37,7 +40,11 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
 
 @RunWith(AndroidJUnit4.class)
 public class ProcessorTest extends DatabaseTest {
@@ -93,4 +100,42 @@ public class ProcessorTest extends DatabaseTest {
         mProcessor.onExecuted("dummy", true);
         verify(mMockScheduler, never()).cancel("dummy");
     }
+
+    @Test
+    @SmallTest
+    public void testStartWork_respectsMaxConcurrentWorkers() {
+        final List<UUID> dispatched = new ArrayList<>();
+        Configuration configuration = new Configuration.Builder()
+                .setMaxConcurrentWorkers(1)
+                .setWorkerDispatchListener(new WorkerDispatchListener() {
+                    @Override
+                    public void onWorkerDispatched(
+                            @NonNull UUID id,
+                            @NonNull WorkPriority priority,
+                            long waitTimeMillis,
+                            int queueDepth) {
+                        dispatched.add(id);
+                    }
+                })
+                .build();
+        Processor processor = new Processor(
+                ApplicationProvider.getApplicationContext(),
+                configuration,
+                new InstantWorkTaskExecutor(),
+                mDatabase,
+                Collections.singletonList(mMockScheduler));
+
+        OneTimeWorkRequest work1 = new OneTimeWorkRequest.Builder(InfiniteTestWorker.class).build();
+        OneTimeWorkRequest work2 = new OneTimeWorkRequest.Builder(InfiniteTestWorker.class).build();
+        insertWork(work1);
+        insertWork(work2);
+
+        assertThat(processor.startWork(work1.getStringId()), is(true));
+        assertThat(processor.startWork(work2.getStringId()), is(true));
+        assertThat(processor.isEnqueued(work2.getStringId()), is(true));
+        assertThat(dispatched, is(Collections.singletonList(work1.getId())));
+
+        processor.stopWork(work1.getStringId());
+        assertThat(dispatched, is(Arrays.asList(work1.getId(), work2.getId())));
+    }
 }
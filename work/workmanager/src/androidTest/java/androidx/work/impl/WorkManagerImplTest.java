@@ -290,6 +290,69 @@ public class WorkManagerImplTest {
         assertThat(prerequisites, containsInAnyOrder(work2.getStringId()));
     }
 
+    @Test
+    @MediumTest
+    public void testEnqueueContinuations_insertsAllWork()
+            throws ExecutionException, InterruptedException {
+
+        final String tag = "tag";
+        final String uniqueName = "name";
+        OneTimeWorkRequest work1 = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .addTag(tag)
+                .build();
+        OneTimeWorkRequest work2a = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+        OneTimeWorkRequest work2b = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+        OneTimeWorkRequest work3 = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+
+        mWorkManagerImpl.enqueueContinuations(Arrays.asList(
+                mWorkManagerImpl.beginWith(work1),
+                mWorkManagerImpl.beginWith(work2a).then(work2b),
+                mWorkManagerImpl.beginUniqueWork(uniqueName, REPLACE, work3)))
+                .getResult()
+                .get();
+
+        WorkSpecDao workSpecDao = mDatabase.workSpecDao();
+        assertThat(workSpecDao.getState(work1.getStringId()), is(ENQUEUED));
+        assertThat(workSpecDao.getState(work2a.getStringId()), is(ENQUEUED));
+        assertThat(workSpecDao.getState(work2b.getStringId()), is(BLOCKED));
+        assertThat(workSpecDao.getState(work3.getStringId()), is(ENQUEUED));
+
+        assertThat(mDatabase.workTagDao().getWorkSpecIdsWithTag(tag),
+                contains(work1.getStringId()));
+        assertThat(mDatabase.dependencyDao().getPrerequisites(work2b.getStringId()),
+                contains(work2a.getStringId()));
+        assertThat(mDatabase.workNameDao().getWorkSpecIdsWithName(uniqueName),
+                contains(work3.getStringId()));
+    }
+
+    @Test
+    @MediumTest
+    public void testEnqueueContinuations_skipsEnqueuedContinuations()
+            throws ExecutionException, InterruptedException {
+
+        OneTimeWorkRequest work1 = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+        OneTimeWorkRequest work2 = new OneTimeWorkRequest.Builder(TestWorker.class).build();
+
+        WorkContinuation continuation1 = mWorkManagerImpl.beginWith(work1);
+        continuation1.enqueue().getResult().get();
+        mDatabase.workSpecDao().delete(work1.getStringId());
+
+        mWorkManagerImpl.enqueueContinuations(
+                Arrays.asList(continuation1, mWorkManagerImpl.beginWith(work2)))
+                .getResult()
+                .get();
+
+        WorkSpecDao workSpecDao = mDatabase.workSpecDao();
+        assertThat(workSpecDao.getWorkSpec(work1.getStringId()), is(nullValue()));
+        assertThat(workSpecDao.getWorkSpec(work2.getStringId()), is(notNullValue()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    @SmallTest
+    public void testEnqueueContinuations_throwsWithNoContinuations() {
+        mWorkManagerImpl.enqueueContinuations(Collections.<WorkContinuation>emptyList());
+    }
+
     @Test
     @MediumTest
     public void testEnqueue_insertWithCompletedDependencies_isNotStatusBlocked()
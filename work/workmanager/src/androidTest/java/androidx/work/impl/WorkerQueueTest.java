@@ -0,0 +1,168 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.impl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import androidx.work.Configuration;
+import androidx.work.WorkPriority;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class WorkerQueueTest {
+
+    private static final String TAG_BULK = "bulk";
+    private static final String TAG_EXPEDITED = "expedited";
+    private static final String TAG_NETWORK = "network";
+
+    @Test
+    public void testIsEnabled() {
+        assertThat(WorkerQueue.isEnabled(new Configuration.Builder().build()), is(false));
+        assertThat(WorkerQueue.isEnabled(
+                new Configuration.Builder().setMaxConcurrentWorkers(4).build()), is(true));
+        assertThat(WorkerQueue.isEnabled(
+                new Configuration.Builder().setMaxConcurrentWorkersForTag(TAG_NETWORK, 1).build()),
+                is(true));
+        assertThat(WorkerQueue.isEnabled(
+                new Configuration.Builder()
+                        .setPriorityForTag(TAG_BULK, WorkPriority.BULK)
+                        .build()),
+                is(true));
+    }
+
+    @Test
+    public void testPoll_respectsMaxConcurrentWorkers() {
+        WorkerQueue<String> queue = createQueue(new Configuration.Builder()
+                .setMaxConcurrentWorkers(2));
+        add(queue, "a");
+        add(queue, "b");
+        add(queue, "c");
+
+        assertThat(drain(queue), is(Arrays.asList("a", "b")));
+        assertThat(queue.getQueuedCount(), is(1));
+
+        queue.onFinished("a");
+        assertThat(drain(queue), is(Collections.singletonList("c")));
+        assertThat(queue.getRunningCount(), is(2));
+    }
+
+    @Test
+    public void testPoll_respectsTagLimits() {
+        WorkerQueue<String> queue = createQueue(new Configuration.Builder()
+                .setMaxConcurrentWorkersForTag(TAG_NETWORK, 1));
+        add(queue, "a", TAG_NETWORK);
+        add(queue, "b", TAG_NETWORK);
+        add(queue, "c");
+
+        // "b" is skipped, but does not block "c".
+        assertThat(drain(queue), is(Arrays.asList("a", "c")));
+
+        queue.onFinished("a");
+        assertThat(drain(queue), is(Collections.singletonList("b")));
+    }
+
+    @Test
+    public void testPoll_prefersHigherPriorities() {
+        WorkerQueue<String> queue = createQueue(new Configuration.Builder()
+                .setMaxConcurrentWorkers(4)
+                .setPriorityForTag(TAG_BULK, WorkPriority.BULK)
+                .setPriorityForTag(TAG_EXPEDITED, WorkPriority.EXPEDITED));
+        add(queue, "bulk", TAG_BULK);
+        add(queue, "normal");
+        add(queue, "expedited", TAG_EXPEDITED);
+        add(queue, "both", TAG_BULK, TAG_EXPEDITED);
+
+        assertThat(drain(queue), is(Arrays.asList("expedited", "both", "normal")));
+    }
+
+    @Test
+    public void testPoll_keepsLastSlotFromBulkWork() {
+        WorkerQueue<String> queue = createQueue(new Configuration.Builder()
+                .setMaxConcurrentWorkers(2)
+                .setPriorityForTag(TAG_BULK, WorkPriority.BULK));
+        add(queue, "bulk1", TAG_BULK);
+        add(queue, "bulk2", TAG_BULK);
+
+        assertThat(drain(queue), is(Collections.singletonList("bulk1")));
+
+        add(queue, "normal");
+        assertThat(drain(queue), is(Collections.singletonList("normal")));
+    }
+
+    @Test
+    public void testPoll_doesNotStarveLowerPriorities() {
+        WorkerQueue<String> queue = createQueue(new Configuration.Builder()
+                .setMaxConcurrentWorkers(1)
+                .setPriorityForTag(TAG_EXPEDITED, WorkPriority.EXPEDITED));
+        for (int i = 0; i < 10; i++) {
+            add(queue, "expedited" + i, TAG_EXPEDITED);
+        }
+        add(queue, "normal");
+
+        List<String> order = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            String id = drain(queue).get(0);
+            order.add(id);
+            queue.onFinished(id);
+        }
+        // The normal lane gets a turn after each round of 4 expedited units of work.
+        assertThat(order.indexOf("normal"), is(4));
+    }
+
+    @Test
+    public void testRemoveQueued() {
+        WorkerQueue<String> queue = createQueue(new Configuration.Builder()
+                .setMaxConcurrentWorkers(1));
+        add(queue, "a");
+        add(queue, "b");
+        drain(queue);
+
+        assertThat(queue.removeQueued("a"), is(nullValue()));
+        assertThat(queue.removeQueued("b"), is(notNullValue()));
+        assertThat(queue.getQueuedCount(), is(0));
+    }
+
+    private static WorkerQueue<String> createQueue(Configuration.Builder builder) {
+        return new WorkerQueue<>(builder.build());
+    }
+
+    private static void add(WorkerQueue<String> queue, String id, String... tags) {
+        queue.add(id, Arrays.asList(tags), id);
+    }
+
+    private static List<String> drain(WorkerQueue<String> queue) {
+        List<String> ids = new ArrayList<>();
+        WorkerQueue.Entry<String> entry;
+        while ((entry = queue.poll()) != null) {
+            ids.add(entry.payload);
+        }
+        return ids;
+    }
+}
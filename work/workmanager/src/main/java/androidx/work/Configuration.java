@@ -31,6 +31,9 @@ import androidx.work.impl.DefaultRunnableScheduler;
 import androidx.work.impl.Scheduler;
 import androidx.work.impl.utils.IdGenerator;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 
@@ -73,6 +76,14 @@ public final class Configuration {
     final int mMaxJobSchedulerId;
     @SuppressWarnings("WeakerAccess")
     final int mMaxSchedulerLimit;
+    @SuppressWarnings("WeakerAccess")
+    final int mMaxConcurrentWorkers;
+    @SuppressWarnings("WeakerAccess")
+    final @NonNull Map<String, Integer> mTagConcurrencyLimits;
+    @SuppressWarnings("WeakerAccess")
+    final @NonNull Map<String, WorkPriority> mTagPriorities;
+    @SuppressWarnings("WeakerAccess")
+    final @Nullable WorkerDispatchListener mWorkerDispatchListener;
     private final boolean mIsUsingDefaultTaskExecutor;
 
     Configuration(@NonNull Configuration.Builder builder) {
@@ -116,6 +127,11 @@ public final class Configuration {
         mMaxJobSchedulerId = builder.mMaxJobSchedulerId;
         mMaxSchedulerLimit = builder.mMaxSchedulerLimit;
         mExceptionHandler = builder.mExceptionHandler;
+        mMaxConcurrentWorkers = builder.mMaxConcurrentWorkers;
+        mTagConcurrencyLimits =
+                Collections.unmodifiableMap(new HashMap<>(builder.mTagConcurrencyLimits));
+        mTagPriorities = Collections.unmodifiableMap(new HashMap<>(builder.mTagPriorities));
+        mWorkerDispatchListener = builder.mWorkerDispatchListener;
     }
 
     /**
@@ -244,6 +260,47 @@ public final class Configuration {
         return mExceptionHandler;
     }
 
+    /**
+     * Gets the maximum number of {@link ListenableWorker}s that {@link WorkManager} runs at the
+     * same time.
+     *
+     * @return The maximum number of concurrently running {@link ListenableWorker}s
+     */
+    public int getMaxConcurrentWorkers() {
+        return mMaxConcurrentWorkers;
+    }
+
+    /**
+     * @return The maximum number of concurrently running {@link ListenableWorker}s for each tag
+     * which has a limit
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    @NonNull
+    public Map<String, Integer> getTagConcurrencyLimits() {
+        return mTagConcurrencyLimits;
+    }
+
+    /**
+     * @return The {@link WorkPriority} of each tag which has one
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    @NonNull
+    public Map<String, WorkPriority> getTagPriorities() {
+        return mTagPriorities;
+    }
+
+    /**
+     * Gets the {@link WorkerDispatchListener} notified when work is dispatched for execution.
+     *
+     * @return The {@link WorkerDispatchListener}, or {@code null} if none was set
+     */
+    @Nullable
+    public WorkerDispatchListener getWorkerDispatchListener() {
+        return mWorkerDispatchListener;
+    }
+
     private @NonNull Executor createDefaultExecutor() {
         return Executors.newFixedThreadPool(
                 // This value is the same as the core pool size for AsyncTask#THREAD_POOL_EXECUTOR.
@@ -266,6 +323,10 @@ public final class Configuration {
         int mMinJobSchedulerId;
         int mMaxJobSchedulerId;
         int mMaxSchedulerLimit;
+        int mMaxConcurrentWorkers;
+        Map<String, Integer> mTagConcurrencyLimits;
+        Map<String, WorkPriority> mTagPriorities;
+        @Nullable WorkerDispatchListener mWorkerDispatchListener;
 
         /**
          * Creates a new {@link Configuration.Builder}.
@@ -275,6 +336,9 @@ public final class Configuration {
             mMinJobSchedulerId = IdGenerator.INITIAL_ID;
             mMaxJobSchedulerId = Integer.MAX_VALUE;
             mMaxSchedulerLimit = MIN_SCHEDULER_LIMIT;
+            mMaxConcurrentWorkers = Integer.MAX_VALUE;
+            mTagConcurrencyLimits = new HashMap<>();
+            mTagPriorities = new HashMap<>();
         }
 
         /**
@@ -298,6 +362,10 @@ public final class Configuration {
             mMaxSchedulerLimit = configuration.mMaxSchedulerLimit;
             mRunnableScheduler = configuration.mRunnableScheduler;
             mExceptionHandler = configuration.mExceptionHandler;
+            mMaxConcurrentWorkers = configuration.mMaxConcurrentWorkers;
+            mTagConcurrencyLimits = new HashMap<>(configuration.mTagConcurrencyLimits);
+            mTagPriorities = new HashMap<>(configuration.mTagPriorities);
+            mWorkerDispatchListener = configuration.mWorkerDispatchListener;
         }
 
         /**
@@ -413,6 +481,84 @@ public final class Configuration {
             return this;
         }
 
+        /**
+         * Specifies the maximum number of {@link ListenableWorker}s that {@link WorkManager} runs
+         * at the same time.
+         * <p>
+         * Work that becomes eligible to run while this many workers are running waits in an
+         * in-memory queue until a worker finishes.  Queued work is started in order of its
+         * {@link WorkPriority}; see {@link #setPriorityForTag(String, WorkPriority)}.
+         * <p>
+         * By default, the number of concurrent workers is not limited.
+         *
+         * @param maxConcurrentWorkers The maximum number of concurrently running workers
+         * @return This {@link Builder} instance
+         * @throws IllegalArgumentException if {@code maxConcurrentWorkers} is less than {@code 1}
+         */
+        public @NonNull Builder setMaxConcurrentWorkers(int maxConcurrentWorkers) {
+            if (maxConcurrentWorkers < 1) {
+                throw new IllegalArgumentException(
+                        "WorkManager needs to be able to run at least 1 worker at a time.");
+            }
+            mMaxConcurrentWorkers = maxConcurrentWorkers;
+            return this;
+        }
+
+        /**
+         * Specifies the maximum number of {@link ListenableWorker}s tagged with {@code tag} that
+         * {@link WorkManager} runs at the same time.  Work with several limited tags only starts
+         * when none of those limits has been reached.
+         *
+         * @param tag                  The tag to limit, as added with
+         *                             {@link WorkRequest.Builder#addTag(String)}
+         * @param maxConcurrentWorkers The maximum number of concurrently running workers with
+         *                             the tag
+         * @return This {@link Builder} instance
+         * @throws IllegalArgumentException if {@code maxConcurrentWorkers} is less than {@code 1}
+         */
+        public @NonNull Builder setMaxConcurrentWorkersForTag(
+                @NonNull String tag,
+                int maxConcurrentWorkers) {
+            if (maxConcurrentWorkers < 1) {
+                throw new IllegalArgumentException(
+                        "WorkManager needs to be able to run at least 1 worker per tag at a time.");
+            }
+            mTagConcurrencyLimits.put(tag, maxConcurrentWorkers);
+            return this;
+        }
+
+        /**
+         * Specifies the {@link WorkPriority} of work tagged with {@code tag}.  Work without a tag
+         * that has a priority runs as {@link WorkPriority#NORMAL}.
+         * <p>
+         * Priorities only take effect when work has to wait for a slot, that is when limits have
+         * been set with {@link #setMaxConcurrentWorkers(int)} or
+         * {@link #setMaxConcurrentWorkersForTag(String, int)}.
+         *
+         * @param tag      The tag, as added with {@link WorkRequest.Builder#addTag(String)}
+         * @param priority The {@link WorkPriority} of work with the tag
+         * @return This {@link Builder} instance
+         */
+        public @NonNull Builder setPriorityForTag(
+                @NonNull String tag,
+                @NonNull WorkPriority priority) {
+            mTagPriorities.put(tag, priority);
+            return this;
+        }
+
+        /**
+         * Specifies a {@link WorkerDispatchListener} that receives queue depth and wait time
+         * metrics every time a {@link ListenableWorker} is dispatched for execution.
+         *
+         * @param listener The {@link WorkerDispatchListener} to notify
+         * @return This {@link Builder} instance
+         */
+        public @NonNull Builder setWorkerDispatchListener(
+                @NonNull WorkerDispatchListener listener) {
+            mWorkerDispatchListener = listener;
+            return this;
+        }
+
         /**
          * Specifies the minimum logging level, corresponding to the constants found in
          * {@link android.util.Log}.  For example, specifying {@link android.util.Log#VERBOSE} will
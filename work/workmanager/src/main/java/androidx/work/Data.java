@@ -27,9 +27,11 @@ import androidx.room.TypeConverter;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.UTFDataFormatException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -372,6 +374,34 @@ public final class Data {
         return mValues.size();
     }
 
+    // The serialized format starts with a magic number followed by a version, both distinct from
+    // the stream header written by ObjectOutputStream in the legacy format. Each entry is written
+    // as a type tag, the key and the value, with arrays written as a length followed by their
+    // elements. Arrays that contain nulls are tagged with NULLABLE_ARRAY and each of their
+    // elements is preceded by a presence flag.
+    private static final short STREAM_MAGIC = (short) 0xABEF;
+    private static final byte STREAM_VERSION = 1;
+
+    // ObjectOutputStream.STREAM_MAGIC, written at the start of the legacy format.
+    private static final short LEGACY_STREAM_MAGIC = (short) 0xACED;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_BOOLEAN = 1;
+    private static final byte TYPE_BYTE = 2;
+    private static final byte TYPE_INTEGER = 3;
+    private static final byte TYPE_LONG = 4;
+    private static final byte TYPE_FLOAT = 5;
+    private static final byte TYPE_DOUBLE = 6;
+    private static final byte TYPE_STRING = 7;
+    private static final byte TYPE_BOOLEAN_ARRAY = 8;
+    private static final byte TYPE_BYTE_ARRAY = 9;
+    private static final byte TYPE_INTEGER_ARRAY = 10;
+    private static final byte TYPE_LONG_ARRAY = 11;
+    private static final byte TYPE_FLOAT_ARRAY = 12;
+    private static final byte TYPE_DOUBLE_ARRAY = 13;
+    private static final byte TYPE_STRING_ARRAY = 14;
+    private static final byte NULLABLE_ARRAY = (byte) 0x80;
+
     /**
      * Converts {@link Data} to a byte array for persistent storage.
      *
@@ -385,32 +415,23 @@ public final class Data {
     @TypeConverter
     public static @NonNull byte[] toByteArrayInternal(@NonNull Data data) {
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        ObjectOutputStream objectOutputStream = null;
+        DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
         try {
-            objectOutputStream = new ObjectOutputStream(outputStream);
-            objectOutputStream.writeInt(data.size());
+            dataOutputStream.writeShort(STREAM_MAGIC);
+            dataOutputStream.writeByte(STREAM_VERSION);
+            dataOutputStream.writeInt(data.size());
             for (Map.Entry<String, Object> entry : data.mValues.entrySet()) {
-                objectOutputStream.writeUTF(entry.getKey());
-                objectOutputStream.writeObject(entry.getValue());
+                writeEntry(dataOutputStream, entry.getKey(), entry.getValue());
             }
+            dataOutputStream.flush();
+        } catch (UTFDataFormatException e) {
+            // A key or a string longer than 64KB, which is way past the limit anyway.
+            throw new IllegalStateException(
+                    "Data cannot occupy more than " + MAX_DATA_BYTES
+                            + " bytes when serialized", e);
         } catch (IOException e) {
             Log.e(TAG, "Error in Data#toByteArray: ", e);
             return outputStream.toByteArray();
-        } finally {
-            if (objectOutputStream != null) {
-                try {
-                    // NOTE: this writes something to the output stream for bookkeeping purposes.
-                    // Don't get the byteArray before we do this!
-                    objectOutputStream.close();
-                } catch (IOException e) {
-                    Log.e(TAG, "Error in Data#toByteArray: ", e);
-                }
-            }
-            try {
-                outputStream.close();
-            } catch (IOException e) {
-                Log.e(TAG, "Error in Data#toByteArray: ", e);
-            }
         }
 
         if (outputStream.size() > MAX_DATA_BYTES) {
@@ -434,7 +455,40 @@ public final class Data {
             throw new IllegalStateException(
                     "Data cannot occupy more than " + MAX_DATA_BYTES + " bytes when serialized");
         }
+        if (isLegacyFormat(bytes)) {
+            return fromLegacyByteArray(bytes);
+        }
+
+        Map<String, Object> map = new HashMap<>();
+        DataInputStream dataInputStream = new DataInputStream(new ByteArrayInputStream(bytes));
+        try {
+            if (dataInputStream.readShort() != STREAM_MAGIC) {
+                throw new IOException("Invalid stream header");
+            }
+            final byte version = dataInputStream.readByte();
+            if (version != STREAM_VERSION) {
+                throw new IOException("Unsupported version " + version);
+            }
+            for (int i = dataInputStream.readInt(); i > 0; i--) {
+                final byte type = dataInputStream.readByte();
+                map.put(dataInputStream.readUTF(), readValue(dataInputStream, type));
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Error in Data#fromByteArray: ", e);
+        }
+        return new Data(map);
+    }
+
+    private static boolean isLegacyFormat(@NonNull byte[] bytes) {
+        return bytes.length >= 2
+                && (short) (((bytes[0] & 0xFF) << 8) | (bytes[1] & 0xFF)) == LEGACY_STREAM_MAGIC;
+    }
 
+    /**
+     * Reads a byte array written with {@link java.io.ObjectOutputStream} by previous versions of
+     * WorkManager.
+     */
+    private static @NonNull Data fromLegacyByteArray(@NonNull byte[] bytes) {
         Map<String, Object> map = new HashMap<>();
         ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
         ObjectInputStream objectInputStream = null;
@@ -462,6 +516,178 @@ public final class Data {
         return new Data(map);
     }
 
+    private static void writeEntry(@NonNull DataOutputStream out, @NonNull String key,
+            @Nullable Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TYPE_NULL);
+            out.writeUTF(key);
+            return;
+        }
+        final byte type = getType(value);
+        if (value instanceof Object[]) {
+            final Object[] array = (Object[]) value;
+            final boolean nullable = containsNull(array);
+            out.writeByte(nullable ? (type | NULLABLE_ARRAY) : type);
+            out.writeUTF(key);
+            out.writeInt(array.length);
+            final byte elementType = (byte) (type - TYPE_BOOLEAN_ARRAY + TYPE_BOOLEAN);
+            for (Object element : array) {
+                if (nullable) {
+                    out.writeBoolean(element != null);
+                    if (element == null) {
+                        continue;
+                    }
+                }
+                writeScalar(out, elementType, element);
+            }
+        } else {
+            out.writeByte(type);
+            out.writeUTF(key);
+            writeScalar(out, type, value);
+        }
+    }
+
+    private static void writeScalar(@NonNull DataOutputStream out, byte type,
+            @NonNull Object value) throws IOException {
+        switch (type) {
+            case TYPE_BOOLEAN:
+                out.writeBoolean((Boolean) value);
+                break;
+            case TYPE_BYTE:
+                out.writeByte((Byte) value);
+                break;
+            case TYPE_INTEGER:
+                out.writeInt((Integer) value);
+                break;
+            case TYPE_LONG:
+                out.writeLong((Long) value);
+                break;
+            case TYPE_FLOAT:
+                out.writeFloat((Float) value);
+                break;
+            case TYPE_DOUBLE:
+                out.writeDouble((Double) value);
+                break;
+            case TYPE_STRING:
+                out.writeUTF((String) value);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown type " + type);
+        }
+    }
+
+    private static @Nullable Object readValue(@NonNull DataInputStream in, byte type)
+            throws IOException {
+        if (type == TYPE_NULL) {
+            return null;
+        }
+        final boolean nullable = (type & NULLABLE_ARRAY) != 0;
+        type = (byte) (type & ~NULLABLE_ARRAY);
+        if (type < TYPE_BOOLEAN_ARRAY) {
+            return readScalar(in, type);
+        }
+        final int length = in.readInt();
+        final Object[] array;
+        switch (type) {
+            case TYPE_BOOLEAN_ARRAY:
+                array = new Boolean[length];
+                break;
+            case TYPE_BYTE_ARRAY:
+                array = new Byte[length];
+                break;
+            case TYPE_INTEGER_ARRAY:
+                array = new Integer[length];
+                break;
+            case TYPE_LONG_ARRAY:
+                array = new Long[length];
+                break;
+            case TYPE_FLOAT_ARRAY:
+                array = new Float[length];
+                break;
+            case TYPE_DOUBLE_ARRAY:
+                array = new Double[length];
+                break;
+            case TYPE_STRING_ARRAY:
+                array = new String[length];
+                break;
+            default:
+                throw new IOException("Unknown type " + type);
+        }
+        final byte elementType = (byte) (type - TYPE_BOOLEAN_ARRAY + TYPE_BOOLEAN);
+        for (int i = 0; i < length; i++) {
+            if (nullable && !in.readBoolean()) {
+                continue;
+            }
+            array[i] = readScalar(in, elementType);
+        }
+        return array;
+    }
+
+    private static @NonNull Object readScalar(@NonNull DataInputStream in, byte type)
+            throws IOException {
+        switch (type) {
+            case TYPE_BOOLEAN:
+                return in.readBoolean();
+            case TYPE_BYTE:
+                return in.readByte();
+            case TYPE_INTEGER:
+                return in.readInt();
+            case TYPE_LONG:
+                return in.readLong();
+            case TYPE_FLOAT:
+                return in.readFloat();
+            case TYPE_DOUBLE:
+                return in.readDouble();
+            case TYPE_STRING:
+                return in.readUTF();
+            default:
+                throw new IOException("Unknown type " + type);
+        }
+    }
+
+    private static byte getType(@NonNull Object value) {
+        final Class<?> valueType = value.getClass();
+        if (valueType == Boolean.class) {
+            return TYPE_BOOLEAN;
+        } else if (valueType == Byte.class) {
+            return TYPE_BYTE;
+        } else if (valueType == Integer.class) {
+            return TYPE_INTEGER;
+        } else if (valueType == Long.class) {
+            return TYPE_LONG;
+        } else if (valueType == Float.class) {
+            return TYPE_FLOAT;
+        } else if (valueType == Double.class) {
+            return TYPE_DOUBLE;
+        } else if (valueType == String.class) {
+            return TYPE_STRING;
+        } else if (valueType == Boolean[].class) {
+            return TYPE_BOOLEAN_ARRAY;
+        } else if (valueType == Byte[].class) {
+            return TYPE_BYTE_ARRAY;
+        } else if (valueType == Integer[].class) {
+            return TYPE_INTEGER_ARRAY;
+        } else if (valueType == Long[].class) {
+            return TYPE_LONG_ARRAY;
+        } else if (valueType == Float[].class) {
+            return TYPE_FLOAT_ARRAY;
+        } else if (valueType == Double[].class) {
+            return TYPE_DOUBLE_ARRAY;
+        } else if (valueType == String[].class) {
+            return TYPE_STRING_ARRAY;
+        }
+        throw new IllegalArgumentException("Unsupported type " + valueType);
+    }
+
+    private static boolean containsNull(@NonNull Object[] array) {
+        for (Object element : array) {
+            if (element == null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
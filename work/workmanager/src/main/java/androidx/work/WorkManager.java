@@ -230,6 +230,20 @@ public abstract class WorkManager {
     @NonNull
     public abstract Operation enqueue(@NonNull List<? extends WorkRequest> requests);
 
+    /**
+     * Enqueues many {@link WorkContinuation}s at once.  This is equivalent to calling
+     * {@link WorkContinuation#enqueue()} on each of them, but all of their work is persisted in a
+     * single transaction and scheduled in a single pass, which is considerably faster when
+     * enqueuing a large number of independent chains of work.
+     * <p>
+     * Continuations that have already been enqueued are skipped.
+     *
+     * @param continuations One or more {@link WorkContinuation}s to enqueue
+     * @return An {@link Operation} that can be used to determine when the enqueue has completed
+     */
+    @NonNull
+    public abstract Operation enqueueContinuations(@NonNull List<WorkContinuation> continuations);
+
     /**
      * Begins a chain with one or more {@link OneTimeWorkRequest}s, which can be enqueued together
      * in the future using {@link WorkContinuation#enqueue()}.
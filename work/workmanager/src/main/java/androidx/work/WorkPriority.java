@@ -0,0 +1,45 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work;
+
+/**
+ * An enumeration of the priority lanes used by {@link WorkManager} to decide which eligible
+ * {@link ListenableWorker} starts next when concurrency limits are in effect.  Priorities are
+ * assigned to tags using {@link Configuration.Builder#setPriorityForTag(String, WorkPriority)};
+ * work with more than one such tag uses the highest of their priorities.
+ * <p>
+ * Lanes are served in a weighted round-robin, so higher priority work is favored but lower
+ * priority work is never starved indefinitely.
+ */
+public enum WorkPriority {
+
+    /**
+     * Used to indicate latency-sensitive work, which should start as soon as possible
+     */
+    EXPEDITED,
+
+    /**
+     * Used to indicate regular work.  This is the default priority.
+     */
+    NORMAL,
+
+    /**
+     * Used to indicate throughput-oriented work.  When the number of concurrent workers is limited,
+     * bulk work never takes up the last available slot, which is kept for higher priority work.
+     */
+    BULK
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work;
+
+import androidx.annotation.NonNull;
+
+import java.util.UUID;
+
+/**
+ * Receives metrics from {@link WorkManager} every time a {@link ListenableWorker} is dispatched
+ * for execution.
+ * <p>
+ * This is useful to monitor how long work waits behind the limits set with
+ * {@link Configuration.Builder#setMaxConcurrentWorkers(int)} and
+ * {@link Configuration.Builder#setMaxConcurrentWorkersForTag(String, int)}.
+ * <p>
+ * Callbacks can be made on any thread, and should return quickly.
+ */
+public interface WorkerDispatchListener {
+
+    /**
+     * Called when a unit of work leaves the queue and starts executing.
+     *
+     * @param id              The id of the {@link WorkRequest} being executed
+     * @param priority        The {@link WorkPriority} lane the work was queued in
+     * @param waitTimeMillis  The time spent waiting in the queue, in milliseconds
+     * @param queueDepth      The number of units of work still waiting to be dispatched
+     */
+    void onWorkerDispatched(
+            @NonNull UUID id,
+            @NonNull WorkPriority priority,
+            long waitTimeMillis,
+            int queueDepth);
+}
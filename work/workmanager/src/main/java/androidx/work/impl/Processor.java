@@ -28,6 +28,7 @@ import androidx.core.content.ContextCompat;
 import androidx.work.Configuration;
 import androidx.work.ForegroundInfo;
 import androidx.work.Logger;
+import androidx.work.WorkerDispatchListener;
 import androidx.work.WorkerParameters;
 import androidx.work.impl.foreground.ForegroundProcessor;
 import androidx.work.impl.foreground.SystemForegroundService;
@@ -37,12 +38,16 @@ import androidx.work.impl.utils.taskexecutor.TaskExecutor;
 import com.google.common.util.concurrent.ListenableFuture;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A Processor can intelligently schedule and execute work on demand.
@@ -65,6 +70,11 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
     private Map<String, WorkerWrapper> mEnqueuedWorkMap;
     private List<Scheduler> mSchedulers;
 
+    // Only used when the Configuration limits concurrent workers, sets tag priorities or listens
+    // to dispatches.
+    @Nullable
+    private final WorkerQueue<WorkerWrapper> mWorkerQueue;
+
     private Set<String> mCancelledIds;
 
     private final List<ExecutionListener> mOuterListeners;
@@ -87,6 +97,8 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
         mOuterListeners = new ArrayList<>();
         mForegroundLock = null;
         mLock = new Object();
+        mWorkerQueue = WorkerQueue.isEnabled(configuration)
+                ? new WorkerQueue<WorkerWrapper>(configuration) : null;
     }
 
     /**
@@ -137,8 +149,19 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
                     new FutureListener(this, id, future),
                     mWorkTaskExecutor.getMainThreadExecutor());
             mEnqueuedWorkMap.put(id, workWrapper);
+            if (mWorkerQueue != null && !mWorkerQueue.needsTags()) {
+                mWorkerQueue.add(id, Collections.<String>emptyList(), workWrapper);
+            }
+        }
+        if (mWorkerQueue == null) {
+            mWorkTaskExecutor.getBackgroundExecutor().execute(workWrapper);
+        } else if (mWorkerQueue.needsTags()) {
+            // Look the tags up in the background rather than on the caller's thread.
+            mWorkTaskExecutor.getBackgroundExecutor().execute(
+                    new QueueWorkRunnable(this, id, workWrapper));
+        } else {
+            dispatchQueuedWork();
         }
-        mWorkTaskExecutor.getBackgroundExecutor().execute(workWrapper);
         Logger.get().debug(TAG, String.format("%s: processing %s", getClass().getSimpleName(), id));
         return true;
     }
@@ -185,6 +208,7 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
         synchronized (mLock) {
             Logger.get().debug(TAG, String.format("Processor stopping background work %s", id));
             WorkerWrapper wrapper = mEnqueuedWorkMap.remove(id);
+            removeQueuedWork(id);
             return interrupt(id, wrapper);
         }
     }
@@ -206,6 +230,7 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
             if (wrapper == null) {
                 // Fallback to enqueued Work
                 wrapper = mEnqueuedWorkMap.remove(id);
+                removeQueuedWork(id);
             }
             boolean interrupted = interrupt(id, wrapper);
             if (isForegroundWork) {
@@ -295,6 +320,10 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
 
         synchronized (mLock) {
             mEnqueuedWorkMap.remove(workSpecId);
+            if (mWorkerQueue != null) {
+                mWorkerQueue.onFinished(workSpecId);
+                mWorkerQueue.removeQueued(workSpecId);
+            }
             Logger.get().debug(TAG, String.format("%s %s executed; reschedule = %s",
                     getClass().getSimpleName(), workSpecId, needsReschedule));
 
@@ -302,6 +331,72 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
                 executionListener.onExecuted(workSpecId, needsReschedule);
             }
         }
+        if (mWorkerQueue != null) {
+            dispatchQueuedWork();
+        }
+    }
+
+    /**
+     * Starts as much queued work as the {@link WorkerQueue} allows.
+     */
+    private void dispatchQueuedWork() {
+        List<WorkerQueue.Entry<WorkerWrapper>> entries = null;
+        int queueDepth;
+        synchronized (mLock) {
+            WorkerQueue.Entry<WorkerWrapper> entry;
+            while ((entry = mWorkerQueue.poll()) != null) {
+                if (entries == null) {
+                    entries = new ArrayList<>();
+                }
+                entries.add(entry);
+            }
+            queueDepth = mWorkerQueue.getQueuedCount();
+        }
+        if (entries == null) {
+            return;
+        }
+        WorkerDispatchListener listener = mConfiguration.getWorkerDispatchListener();
+        long nowNanos = System.nanoTime();
+        for (WorkerQueue.Entry<WorkerWrapper> entry : entries) {
+            mWorkTaskExecutor.getBackgroundExecutor().execute(entry.payload);
+            if (listener != null) {
+                listener.onWorkerDispatched(
+                        UUID.fromString(entry.id),
+                        entry.priority,
+                        TimeUnit.NANOSECONDS.toMillis(nowNanos - entry.enqueueTimeNanos),
+                        queueDepth);
+            }
+        }
+    }
+
+    /**
+     * Adds work to the {@link WorkerQueue} once its tags are known, and starts as much queued work
+     * as the queue allows.  Work that was stopped in the meantime is not queued.
+     */
+    void queueWork(
+            @NonNull String id,
+            @NonNull WorkerWrapper workWrapper,
+            @NonNull Collection<String> tags) {
+        synchronized (mLock) {
+            if (mEnqueuedWorkMap.get(id) != workWrapper) {
+                Logger.get().debug(
+                        TAG,
+                        String.format("Work %s was stopped before being queued", id));
+                return;
+            }
+            mWorkerQueue.add(id, tags, workWrapper);
+        }
+        dispatchQueuedWork();
+    }
+
+    /**
+     * Removes work that has not been dispatched yet from the {@link WorkerQueue}.  Must be called
+     * while holding {@code mLock}.
+     */
+    private void removeQueuedWork(@NonNull String id) {
+        if (mWorkerQueue != null) {
+            mWorkerQueue.removeQueued(id);
+        }
     }
 
     private void stopForegroundService() {
@@ -375,4 +470,30 @@ public class Processor implements ExecutionListener, ForegroundProcessor {
             mExecutionListener.onExecuted(mWorkSpecId, needsReschedule);
         }
     }
+
+    /**
+     * Looks up the tags of a unit of work before handing it to the {@link WorkerQueue}.
+     */
+    private static class QueueWorkRunnable implements Runnable {
+
+        private @NonNull Processor mProcessor;
+        private @NonNull String mWorkSpecId;
+        private @NonNull WorkerWrapper mWorkerWrapper;
+
+        QueueWorkRunnable(
+                @NonNull Processor processor,
+                @NonNull String workSpecId,
+                @NonNull WorkerWrapper workerWrapper) {
+            mProcessor = processor;
+            mWorkSpecId = workSpecId;
+            mWorkerWrapper = workerWrapper;
+        }
+
+        @Override
+        public void run() {
+            List<String> tags = mProcessor.mWorkDatabase.workTagDao()
+                    .getTagsForWorkSpecId(mWorkSpecId);
+            mProcessor.queueWork(mWorkSpecId, mWorkerWrapper, tags);
+        }
+    }
 }
@@ -35,6 +35,9 @@ public interface Scheduler {
     /**
      * Schedule the given {@link WorkSpec}s for background execution.  The Scheduler does NOT need
      * to check if there are any dependencies.
+     * <p>
+     * The {@code input} and {@code output} of the {@link WorkSpec}s are not loaded from the
+     * database and are always empty, so Schedulers must not read them.
      *
      * @param workSpecs The array of {@link WorkSpec}s to schedule
      */
@@ -33,6 +33,7 @@ import androidx.work.impl.background.systemjob.SystemJobService;
 import androidx.work.impl.model.WorkSpec;
 import androidx.work.impl.model.WorkSpecDao;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -83,9 +84,11 @@ public class Schedulers {
                 // Mark all the WorkSpecs as scheduled.
                 // Calls to Scheduler#schedule() could potentially result in more schedules
                 // on a separate thread. Therefore, this needs to be done first.
+                List<String> ids = new ArrayList<>(eligibleWorkSpecsForLimitedSlots.size());
                 for (WorkSpec workSpec : eligibleWorkSpecsForLimitedSlots) {
-                    workSpecDao.markWorkSpecScheduled(workSpec.id, now);
+                    ids.add(workSpec.id);
                 }
+                workSpecDao.markWorkSpecsScheduled(ids, now);
             }
             workDatabase.setTransactionSuccessful();
         } finally {
@@ -51,6 +51,7 @@ import androidx.work.impl.model.RawWorkInfoDao;
 import androidx.work.impl.model.WorkSpec;
 import androidx.work.impl.model.WorkSpecDao;
 import androidx.work.impl.utils.CancelWorkRunnable;
+import androidx.work.impl.utils.EnqueueRunnable;
 import androidx.work.impl.utils.ForceStopRunnable;
 import androidx.work.impl.utils.LiveDataUtils;
 import androidx.work.impl.utils.PreferenceUtils;
@@ -65,6 +66,7 @@ import androidx.work.impl.utils.taskexecutor.WorkManagerTaskExecutor;
 
 import com.google.common.util.concurrent.ListenableFuture;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -372,6 +374,24 @@ public class WorkManagerImpl extends WorkManager {
         return new WorkContinuationImpl(this, workRequests).enqueue();
     }
 
+    @Override
+    @NonNull
+    public Operation enqueueContinuations(@NonNull List<WorkContinuation> continuations) {
+        // This error is not being propagated as part of the Operation, as we want the
+        // app to crash during development.
+        if (continuations.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "enqueueContinuations needs at least one WorkContinuation.");
+        }
+        List<WorkContinuationImpl> workContinuations = new ArrayList<>(continuations.size());
+        for (WorkContinuation continuation : continuations) {
+            workContinuations.add((WorkContinuationImpl) continuation);
+        }
+        EnqueueRunnable runnable = new EnqueueRunnable(this, workContinuations);
+        mWorkTaskExecutor.executeOnBackgroundThread(runnable);
+        return runnable.getOperation();
+    }
+
     @Override
     public @NonNull WorkContinuation beginWith(@NonNull List<OneTimeWorkRequest> work) {
         if (work.isEmpty()) {
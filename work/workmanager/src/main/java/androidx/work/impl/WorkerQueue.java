@@ -0,0 +1,269 @@
+/*
+ * Copyright 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.impl;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.work.Configuration;
+import androidx.work.WorkPriority;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides when work handed to the {@link Processor} may start, based on the concurrency limits
+ * and tag priorities in the {@link Configuration}.
+ * <p>
+ * Each {@link WorkPriority} has its own FIFO lane.  Lanes are served in a weighted round-robin:
+ * each lane may dispatch up to its weight in units of work before lower lanes get their turn, and
+ * the weights are replenished once no lane with dispatchable work has any left.  Within a lane,
+ * work whose tag limits have been reached is skipped so that it cannot block unrelated work.
+ * <p>
+ * This class is not thread-safe, and is guarded by the lock of the {@link Processor}.
+ *
+ * @param <T> The type of the payload handed back when work is dispatched
+ */
+class WorkerQueue<T> {
+
+    // Indexed by WorkPriority#ordinal().
+    private static final int[] LANE_WEIGHTS = {4, 2, 1};
+
+    private final int mMaxConcurrentWorkers;
+    private final Map<String, Integer> mTagLimits;
+    private final Map<String, WorkPriority> mTagPriorities;
+
+    private final List<ArrayDeque<Entry<T>>> mLanes;
+    private final int[] mCredits;
+    private final Map<String, Entry<T>> mRunning;
+    private final Map<String, Integer> mRunningPerTag;
+    private int mQueuedCount;
+
+    WorkerQueue(@NonNull Configuration configuration) {
+        mMaxConcurrentWorkers = configuration.getMaxConcurrentWorkers();
+        mTagLimits = configuration.getTagConcurrencyLimits();
+        mTagPriorities = configuration.getTagPriorities();
+        int laneCount = WorkPriority.values().length;
+        mLanes = new ArrayList<>(laneCount);
+        for (int i = 0; i < laneCount; i++) {
+            mLanes.add(new ArrayDeque<Entry<T>>());
+        }
+        mCredits = LANE_WEIGHTS.clone();
+        mRunning = new HashMap<>();
+        mRunningPerTag = new HashMap<>();
+    }
+
+    /**
+     * @return {@code true} if the {@link Configuration} sets any limit, priority or listener that
+     * requires work to go through a {@link WorkerQueue}
+     */
+    static boolean isEnabled(@NonNull Configuration configuration) {
+        return configuration.getMaxConcurrentWorkers() != Integer.MAX_VALUE
+                || !configuration.getTagConcurrencyLimits().isEmpty()
+                || !configuration.getTagPriorities().isEmpty()
+                || configuration.getWorkerDispatchListener() != null;
+    }
+
+    /**
+     * @return {@code true} if the tags of the work are needed to queue it
+     */
+    boolean needsTags() {
+        return !mTagLimits.isEmpty() || !mTagPriorities.isEmpty();
+    }
+
+    /**
+     * Adds work to the queue.
+     *
+     * @param id      The {@link androidx.work.impl.model.WorkSpec} id
+     * @param tags    The tags of the work
+     * @param payload The object to hand back when the work is dispatched
+     */
+    void add(@NonNull String id, @NonNull Collection<String> tags, @NonNull T payload) {
+        WorkPriority priority = null;
+        List<String> limitedTags = null;
+        for (String tag : tags) {
+            WorkPriority tagPriority = mTagPriorities.get(tag);
+            if (tagPriority != null
+                    && (priority == null || tagPriority.ordinal() < priority.ordinal())) {
+                priority = tagPriority;
+            }
+            if (mTagLimits.containsKey(tag)) {
+                if (limitedTags == null) {
+                    limitedTags = new ArrayList<>(1);
+                }
+                limitedTags.add(tag);
+            }
+        }
+        if (priority == null) {
+            priority = WorkPriority.NORMAL;
+        }
+        Entry<T> entry = new Entry<>(id, priority, limitedTags, payload, System.nanoTime());
+        mLanes.get(priority.ordinal()).add(entry);
+        mQueuedCount++;
+    }
+
+    /**
+     * Removes the next unit of work that is allowed to start, and counts it as running until
+     * {@link #onFinished(String)} is called for it.
+     *
+     * @return The next {@link Entry} to dispatch, or {@code null} if no work can start right now
+     */
+    @Nullable
+    Entry<T> poll() {
+        if (mQueuedCount == 0 || mRunning.size() >= mMaxConcurrentWorkers) {
+            return null;
+        }
+        Entry<T> entry = pollWithCredits();
+        if (entry == null) {
+            // Every lane that has something to dispatch has used up its turn.
+            System.arraycopy(LANE_WEIGHTS, 0, mCredits, 0, mCredits.length);
+            entry = pollWithCredits();
+        }
+        if (entry != null) {
+            mQueuedCount--;
+            mCredits[entry.priority.ordinal()]--;
+            mRunning.put(entry.id, entry);
+            if (entry.limitedTags != null) {
+                for (String tag : entry.limitedTags) {
+                    Integer count = mRunningPerTag.get(tag);
+                    mRunningPerTag.put(tag, count == null ? 1 : count + 1);
+                }
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Removes work that is still waiting to be dispatched.
+     *
+     * @param id The {@link androidx.work.impl.model.WorkSpec} id
+     * @return The removed {@link Entry}, or {@code null} if the work was not waiting
+     */
+    @Nullable
+    Entry<T> removeQueued(@NonNull String id) {
+        for (ArrayDeque<Entry<T>> lane : mLanes) {
+            Iterator<Entry<T>> iterator = lane.iterator();
+            while (iterator.hasNext()) {
+                Entry<T> entry = iterator.next();
+                if (entry.id.equals(id)) {
+                    iterator.remove();
+                    mQueuedCount--;
+                    return entry;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stops counting work as running, freeing up its slot.
+     *
+     * @param id The {@link androidx.work.impl.model.WorkSpec} id
+     */
+    void onFinished(@NonNull String id) {
+        Entry<T> entry = mRunning.remove(id);
+        if (entry != null && entry.limitedTags != null) {
+            for (String tag : entry.limitedTags) {
+                Integer count = mRunningPerTag.get(tag);
+                if (count != null && count > 1) {
+                    mRunningPerTag.put(tag, count - 1);
+                } else {
+                    mRunningPerTag.remove(tag);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The number of units of work waiting to be dispatched
+     */
+    int getQueuedCount() {
+        return mQueuedCount;
+    }
+
+    /**
+     * @return The number of units of work counted as running
+     */
+    int getRunningCount() {
+        return mRunning.size();
+    }
+
+    @Nullable
+    private Entry<T> pollWithCredits() {
+        for (int lane = 0; lane < mLanes.size(); lane++) {
+            if (mCredits[lane] <= 0) {
+                continue;
+            }
+            if (lane == WorkPriority.BULK.ordinal()
+                    && mMaxConcurrentWorkers > 1
+                    && mRunning.size() >= mMaxConcurrentWorkers - 1) {
+                // Keep the last slot for higher priority work.
+                continue;
+            }
+            Iterator<Entry<T>> iterator = mLanes.get(lane).iterator();
+            while (iterator.hasNext()) {
+                Entry<T> entry = iterator.next();
+                if (isWithinTagLimits(entry)) {
+                    iterator.remove();
+                    return entry;
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean isWithinTagLimits(@NonNull Entry<T> entry) {
+        if (entry.limitedTags == null) {
+            return true;
+        }
+        for (String tag : entry.limitedTags) {
+            Integer running = mRunningPerTag.get(tag);
+            Integer limit = mTagLimits.get(tag);
+            if (running != null && limit != null && running >= limit) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A unit of work tracked by a {@link WorkerQueue}.
+     */
+    static final class Entry<T> {
+        final @NonNull String id;
+        final @NonNull WorkPriority priority;
+        final @Nullable List<String> limitedTags;
+        final @NonNull T payload;
+        final long enqueueTimeNanos;
+
+        Entry(@NonNull String id,
+                @NonNull WorkPriority priority,
+                @Nullable List<String> limitedTags,
+                @NonNull T payload,
+                long enqueueTimeNanos) {
+            this.id = id;
+            this.priority = priority;
+            this.limitedTags = limitedTags;
+            this.payload = payload;
+            this.enqueueTimeNanos = enqueueTimeNanos;
+        }
+    }
+}
@@ -52,7 +52,9 @@ import java.util.UUID;
 @Entity(
         indices = {
                 @Index(value = {"schedule_requested_at"}),
-                @Index(value = {"period_start_time"})
+                @Index(value = {"period_start_time"}),
+                // Keeps the work that is ready to be scheduled together, in FIFO order.
+                @Index(value = {"state", "schedule_requested_at", "period_start_time"})
         }
 )
 public final class WorkSpec {
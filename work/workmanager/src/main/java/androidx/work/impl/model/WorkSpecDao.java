@@ -18,6 +18,7 @@ package androidx.work.impl.model;
 
 import static androidx.room.OnConflictStrategy.IGNORE;
 import static androidx.work.impl.model.WorkTypeConverters.StateIds.COMPLETED_STATES;
+import static androidx.work.impl.model.WorkTypeConverters.StateIds.UNFINISHED_STATES;
 
 import android.annotation.SuppressLint;
 
@@ -26,6 +27,7 @@ import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.Query;
+import androidx.room.RoomWarnings;
 import androidx.room.Transaction;
 import androidx.work.Data;
 import androidx.work.WorkInfo;
@@ -38,6 +40,25 @@ import java.util.List;
 @Dao
 @SuppressLint("UnknownNullness")
 public interface WorkSpecDao {
+
+    /**
+     * The columns needed by {@link androidx.work.impl.Scheduler}s.  This skips {@code input} and
+     * {@code output}, which can be large and are not needed to schedule work, so the
+     * {@link WorkSpec}s read with these columns have empty {@link androidx.work.Data}.
+     * <p>
+     * Room can't check this list, as the queries using it return {@link WorkSpec}s and suppress
+     * {@link RoomWarnings#CURSOR_MISMATCH}.  {@code WorkSpecDaoTest} fails if a column other than
+     * {@code input} and {@code output} is missing, so new {@link WorkSpec} columns must be added
+     * here.
+     */
+    String SCHEDULING_COLUMNS = "id, state, worker_class_name, input_merger_class_name,"
+            + " initial_delay, interval_duration, flex_duration, run_attempt_count,"
+            + " backoff_policy, backoff_delay_duration, period_start_time,"
+            + " minimum_retention_duration, schedule_requested_at, run_in_foreground,"
+            + " required_network_type, requires_charging, requires_device_idle,"
+            + " requires_battery_not_low, requires_storage_not_low, trigger_content_update_delay,"
+            + " trigger_max_content_delay, content_uri_triggers";
+
     /**
      * Attempts to insert a {@link WorkSpec} into the database.
      *
@@ -46,6 +67,14 @@ public interface WorkSpecDao {
     @Insert(onConflict = IGNORE)
     void insertWorkSpec(WorkSpec workSpec);
 
+    /**
+     * Attempts to insert multiple {@link WorkSpec}s into the database.
+     *
+     * @param workSpecs The WorkSpecs to insert.
+     */
+    @Insert(onConflict = IGNORE)
+    void insertWorkSpecs(List<WorkSpec> workSpecs);
+
     /**
      * Deletes {@link WorkSpec}s from the database.
      *
@@ -261,7 +290,7 @@ public interface WorkSpecDao {
      *
      * @return A list of work ids
      */
-    @Query("SELECT id FROM workspec WHERE state NOT IN " + COMPLETED_STATES)
+    @Query("SELECT id FROM workspec WHERE state IN " + UNFINISHED_STATES)
     List<String> getAllUnfinishedWork();
 
     /**
@@ -274,6 +303,16 @@ public interface WorkSpecDao {
     @Query("UPDATE workspec SET schedule_requested_at=:startTime WHERE id=:id")
     int markWorkSpecScheduled(@NonNull String id, long startTime);
 
+    /**
+     * Marks multiple {@link WorkSpec}s as scheduled.
+     *
+     * @param ids       The identifiers for the {@link WorkSpec}s
+     * @param startTime The time at which the {@link WorkSpec}s were scheduled.
+     * @return The number of rows that were updated
+     */
+    @Query("UPDATE workspec SET schedule_requested_at=:startTime WHERE id IN (:ids)")
+    int markWorkSpecsScheduled(@NonNull List<String> ids, long startTime);
+
     /**
      * @return The time at which the {@link WorkSpec} was scheduled.
      */
@@ -285,13 +324,15 @@ public interface WorkSpecDao {
      * @return The number of rows that were updated
      */
     @Query("UPDATE workspec SET schedule_requested_at=" + WorkSpec.SCHEDULE_NOT_REQUESTED_YET
-            + " WHERE state NOT IN " + COMPLETED_STATES)
+            + " WHERE state IN " + UNFINISHED_STATES)
     int resetScheduledState();
 
     /**
-     * @return The List of {@link WorkSpec}s that are eligible to be scheduled.
+     * @return The List of {@link WorkSpec}s that are eligible to be scheduled.  Their
+     * {@code input} and {@code output} are not loaded.
      */
-    @Query("SELECT * FROM workspec WHERE "
+    @SuppressWarnings(RoomWarnings.CURSOR_MISMATCH)
+    @Query("SELECT " + SCHEDULING_COLUMNS + " FROM workspec WHERE "
             + "state=" + WorkTypeConverters.StateIds.ENQUEUED
             // We only want WorkSpecs which have not been previously scheduled.
             + " AND schedule_requested_at=" + WorkSpec.SCHEDULE_NOT_REQUESTED_YET
@@ -299,17 +340,18 @@ public interface WorkSpecDao {
             + " ORDER BY period_start_time"
             + " LIMIT "
                 + "(SELECT MAX(:schedulerLimit" + "-COUNT(*), 0) FROM workspec WHERE"
-                    + " schedule_requested_at<>" + WorkSpec.SCHEDULE_NOT_REQUESTED_YET
-                    + " AND state NOT IN " + COMPLETED_STATES
+                    + " state IN " + UNFINISHED_STATES
+                    + " AND schedule_requested_at<>" + WorkSpec.SCHEDULE_NOT_REQUESTED_YET
                 + ")"
     )
     List<WorkSpec> getEligibleWorkForScheduling(int schedulerLimit);
 
     /**
      * @return The List of {@link WorkSpec}s that can be scheduled irrespective of scheduling
-     * limits.
+     * limits.  Their {@code input} and {@code output} are not loaded.
      */
-    @Query("SELECT * FROM workspec WHERE "
+    @SuppressWarnings(RoomWarnings.CURSOR_MISMATCH)
+    @Query("SELECT " + SCHEDULING_COLUMNS + " FROM workspec WHERE "
             + "state=" + WorkTypeConverters.StateIds.ENQUEUED
             // Order by period start time so we execute scheduled WorkSpecs in FIFO order
             + " ORDER BY period_start_time"
@@ -57,6 +57,10 @@ public class WorkTypeConverters {
         int CANCELLED = 5;
 
         String COMPLETED_STATES = "(" + SUCCEEDED + ", " + FAILED + ", " + CANCELLED + ")";
+
+        // The complement of COMPLETED_STATES. Using IN rather than NOT IN lets SQLite use the
+        // index on state.
+        String UNFINISHED_STATES = "(" + ENQUEUED + ", " + RUNNING + ", " + BLOCKED + ")";
     }
 
     /**
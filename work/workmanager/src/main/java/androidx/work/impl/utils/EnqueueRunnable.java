@@ -62,7 +62,11 @@ import java.util.List;
 import java.util.Set;
 
 /**
- * Manages the enqueuing of a {@link WorkContinuationImpl}.
+ * Manages the enqueuing of one or more {@link WorkContinuationImpl}s.
+ * <p>
+ * All continuations are written to the database in a single transaction, followed by a single
+ * scheduling pass. Rows that do not need to be read back while the transaction is in progress are
+ * buffered and inserted together.
  *
  * @hide
  */
@@ -71,26 +75,49 @@ public class EnqueueRunnable implements Runnable {
 
     private static final String TAG = Logger.tagWithPrefix("EnqueueRunnable");
 
-    private final WorkContinuationImpl mWorkContinuation;
+    private final WorkManagerImpl mWorkManagerImpl;
+    private final List<WorkContinuationImpl> mWorkContinuations;
     private final OperationImpl mOperation;
 
+    // Rows waiting to be inserted, flushed before anything is read back from the database.
+    private final List<WorkSpec> mPendingWorkSpecs = new ArrayList<>();
+    private final List<Dependency> mPendingDependencies = new ArrayList<>();
+    private final List<WorkTag> mPendingWorkTags = new ArrayList<>();
+    private final List<WorkName> mPendingWorkNames = new ArrayList<>();
+
+    // Lazily computed, since it requires reflection.
+    private Boolean mUsesGcmScheduler;
+
     public EnqueueRunnable(@NonNull WorkContinuationImpl workContinuation) {
-        mWorkContinuation = workContinuation;
+        this(workContinuation.getWorkManagerImpl(), Collections.singletonList(workContinuation));
+    }
+
+    public EnqueueRunnable(
+            @NonNull WorkManagerImpl workManagerImpl,
+            @NonNull List<WorkContinuationImpl> workContinuations) {
+        mWorkManagerImpl = workManagerImpl;
+        mWorkContinuations = workContinuations;
         mOperation = new OperationImpl();
     }
 
     @Override
     public void run() {
         try {
-            if (mWorkContinuation.hasCycles()) {
-                throw new IllegalStateException(
-                        String.format("WorkContinuation has cycles (%s)", mWorkContinuation));
+            for (WorkContinuationImpl workContinuation : mWorkContinuations) {
+                if (workContinuation.getWorkManagerImpl() != mWorkManagerImpl) {
+                    throw new IllegalArgumentException(String.format(
+                            "WorkContinuation belongs to a different WorkManager (%s)",
+                            workContinuation));
+                }
+                if (workContinuation.hasCycles()) {
+                    throw new IllegalStateException(
+                            String.format("WorkContinuation has cycles (%s)", workContinuation));
+                }
             }
             boolean needsScheduling = addToDatabase();
             if (needsScheduling) {
                 // Enable RescheduleReceiver, only when there are Worker's that need scheduling.
-                final Context context =
-                        mWorkContinuation.getWorkManagerImpl().getApplicationContext();
+                final Context context = mWorkManagerImpl.getApplicationContext();
                 PackageManagerHelper.setComponentEnabled(context, RescheduleReceiver.class, true);
                 scheduleWorkInBackground();
             }
@@ -113,11 +140,19 @@ public class EnqueueRunnable implements Runnable {
      */
     @VisibleForTesting
     public boolean addToDatabase() {
-        WorkManagerImpl workManagerImpl = mWorkContinuation.getWorkManagerImpl();
-        WorkDatabase workDatabase = workManagerImpl.getWorkDatabase();
+        WorkDatabase workDatabase = mWorkManagerImpl.getWorkDatabase();
         workDatabase.beginTransaction();
         try {
-            boolean needsScheduling = processContinuation(mWorkContinuation);
+            boolean needsScheduling = false;
+            for (WorkContinuationImpl workContinuation : mWorkContinuations) {
+                if (!workContinuation.isEnqueued()) {
+                    needsScheduling |= processContinuation(workContinuation);
+                } else {
+                    Logger.get().warning(TAG, String.format("Already enqueued work ids (%s).",
+                            TextUtils.join(", ", workContinuation.getIds())));
+                }
+            }
+            flushPendingRows(workDatabase);
             workDatabase.setTransactionSuccessful();
             return needsScheduling;
         } finally {
@@ -130,14 +165,13 @@ public class EnqueueRunnable implements Runnable {
      */
     @VisibleForTesting
     public void scheduleWorkInBackground() {
-        WorkManagerImpl workManager = mWorkContinuation.getWorkManagerImpl();
         Schedulers.schedule(
-                workManager.getConfiguration(),
-                workManager.getWorkDatabase(),
-                workManager.getSchedulers());
+                mWorkManagerImpl.getConfiguration(),
+                mWorkManagerImpl.getWorkDatabase(),
+                mWorkManagerImpl.getSchedulers());
     }
 
-    private static boolean processContinuation(@NonNull WorkContinuationImpl workContinuation) {
+    private boolean processContinuation(@NonNull WorkContinuationImpl workContinuation) {
         boolean needsScheduling = false;
         List<WorkContinuationImpl> parents = workContinuation.getParents();
         if (parents != null) {
@@ -156,7 +190,7 @@ public class EnqueueRunnable implements Runnable {
         return needsScheduling;
     }
 
-    private static boolean enqueueContinuation(@NonNull WorkContinuationImpl workContinuation) {
+    private boolean enqueueContinuation(@NonNull WorkContinuationImpl workContinuation) {
         Set<String> prerequisiteIds = WorkContinuationImpl.prerequisitesFor(workContinuation);
 
         boolean needsScheduling = enqueueWorkWithPrerequisites(
@@ -175,7 +209,7 @@ public class EnqueueRunnable implements Runnable {
      *
      * @return {@code true} If there is any scheduling to be done.
      */
-    private static boolean enqueueWorkWithPrerequisites(
+    private boolean enqueueWorkWithPrerequisites(
             WorkManagerImpl workManagerImpl,
             @NonNull List<? extends WorkRequest> workList,
             String[] prerequisiteIds,
@@ -192,6 +226,14 @@ public class EnqueueRunnable implements Runnable {
         boolean hasFailedPrerequisites = false;
         boolean hasCancelledPrerequisites = false;
 
+        boolean isNamed = !TextUtils.isEmpty(name);
+
+        if (hasPrerequisite || isNamed) {
+            // Prerequisites and existing named work are looked up below, and may have been added
+            // earlier in this transaction.
+            flushPendingRows(workDatabase);
+        }
+
         if (hasPrerequisite) {
             // If there are prerequisites, make sure they actually exist before enqueuing
             // anything.  Prerequisites may not exist if we are using unique tags, because the
@@ -214,8 +256,6 @@ public class EnqueueRunnable implements Runnable {
             }
         }
 
-        boolean isNamed = !TextUtils.isEmpty(name);
-
         // We only apply existing work policies for unique tag sequences that are the beginning of
         // chains.
         boolean shouldApplyExistingWorkPolicy = isNamed && !hasPrerequisite;
@@ -314,7 +354,7 @@ public class EnqueueRunnable implements Runnable {
                     && Build.VERSION.SDK_INT <= 25) {
                 tryDelegateConstrainedWorkSpec(workSpec);
             } else if (Build.VERSION.SDK_INT <= WorkManagerImpl.MAX_PRE_JOB_SCHEDULER_API_LEVEL
-                    && usesScheduler(workManagerImpl, Schedulers.GCM_SCHEDULER)) {
+                    && usesGcmScheduler(workManagerImpl)) {
                 tryDelegateConstrainedWorkSpec(workSpec);
             }
 
@@ -323,26 +363,54 @@ public class EnqueueRunnable implements Runnable {
                 needsScheduling = true;
             }
 
-            workDatabase.workSpecDao().insertWorkSpec(workSpec);
+            mPendingWorkSpecs.add(workSpec);
 
             if (hasPrerequisite) {
                 for (String prerequisiteId : prerequisiteIds) {
-                    Dependency dep = new Dependency(work.getStringId(), prerequisiteId);
-                    workDatabase.dependencyDao().insertDependency(dep);
+                    mPendingDependencies.add(new Dependency(work.getStringId(), prerequisiteId));
                 }
             }
 
             for (String tag : work.getTags()) {
-                workDatabase.workTagDao().insert(new WorkTag(tag, work.getStringId()));
+                mPendingWorkTags.add(new WorkTag(tag, work.getStringId()));
             }
 
             if (isNamed) {
-                workDatabase.workNameDao().insert(new WorkName(name, work.getStringId()));
+                mPendingWorkNames.add(new WorkName(name, work.getStringId()));
             }
         }
         return needsScheduling;
     }
 
+    /**
+     * Inserts all buffered rows, parents before children so that foreign keys are satisfied.
+     */
+    private void flushPendingRows(@NonNull WorkDatabase workDatabase) {
+        if (!mPendingWorkSpecs.isEmpty()) {
+            workDatabase.workSpecDao().insertWorkSpecs(mPendingWorkSpecs);
+            mPendingWorkSpecs.clear();
+        }
+        if (!mPendingDependencies.isEmpty()) {
+            workDatabase.dependencyDao().insertDependencies(mPendingDependencies);
+            mPendingDependencies.clear();
+        }
+        if (!mPendingWorkTags.isEmpty()) {
+            workDatabase.workTagDao().insert(mPendingWorkTags);
+            mPendingWorkTags.clear();
+        }
+        if (!mPendingWorkNames.isEmpty()) {
+            workDatabase.workNameDao().insert(mPendingWorkNames);
+            mPendingWorkNames.clear();
+        }
+    }
+
+    private boolean usesGcmScheduler(@NonNull WorkManagerImpl workManager) {
+        if (mUsesGcmScheduler == null) {
+            mUsesGcmScheduler = usesScheduler(workManager, Schedulers.GCM_SCHEDULER);
+        }
+        return mUsesGcmScheduler;
+    }
+
     private static void tryDelegateConstrainedWorkSpec(WorkSpec workSpec) {
         // requiresBatteryNotLow and requiresStorageNotLow require API 26 for JobScheduler.
         // Delegate to ConstraintTrackingWorker between API 23-25.
@@ -27,6 +27,9 @@ import androidx.annotation.NonNull;
 
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -89,6 +92,40 @@ public class DataTest {
         assertThat(restoredData.getIntArray(KEY2), is(equalTo(expectedValue2)));
     }
 
+    @Test
+    public void testSerializeAllTypes() {
+        Data data = createData();
+
+        byte[] byteArray = data.toByteArray();
+        Data restoredData = Data.fromByteArray(byteArray);
+
+        assertThat(restoredData, is(data));
+    }
+
+    @Test
+    public void testSerializeArraysWithNulls() {
+        Data data = new Data.Builder()
+                .putStringArray(KEY1, new String[]{"a", null, "b"})
+                .put(KEY2, new Long[]{1L, null})
+                .build();
+
+        byte[] byteArray = data.toByteArray();
+        Data restoredData = Data.fromByteArray(byteArray);
+
+        assertThat(restoredData, is(data));
+    }
+
+    @Test
+    public void testDeserializeLegacyFormat() throws IOException {
+        Data data = createData();
+
+        byte[] legacyByteArray = toLegacyByteArray(data);
+        Data restoredData = Data.fromByteArray(legacyByteArray);
+
+        assertThat(restoredData, is(data));
+        assertThat(data.toByteArray().length < legacyByteArray.length, is(true));
+    }
+
     @Test
     public void testSerializePastMaxSize() {
         int[] payload = new int[Data.MAX_DATA_BYTES + 1];
@@ -244,4 +281,17 @@ public class DataTest {
         dataBuilder.putAll(map);
         return dataBuilder.build();
     }
+
+    @NonNull
+    private static byte[] toLegacyByteArray(Data data) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream);
+        objectOutputStream.writeInt(data.size());
+        for (Map.Entry<String, Object> entry : data.mValues.entrySet()) {
+            objectOutputStream.writeUTF(entry.getKey());
+            objectOutputStream.writeObject(entry.getValue());
+        }
+        objectOutputStream.close();
+        return outputStream.toByteArray();
+    }
 }